@@ -0,0 +1,30 @@
+package com.pearson.statspoller.collector_scheduler;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * The clock-aligned timestamp of the collection round that the current thread is running (if the CollectorScheduler is in clock-aligned mode).
+ * Internal collectors stamp all of a round's metrics with this timestamp, so every collector (& every host) puts a round in the same time bucket,
+ * regardless of when in the interval the collection actually ran.
+ */
+public class CollectionTimestamp {
+
+    private static final ThreadLocal<Long> alignedTimestampInMs_ = new ThreadLocal<>();
+
+    /*
+    Returns the aligned timestamp (in ms) of the current collection round, or -1 if the current thread isn't running a clock-aligned collection.
+    */
+    public static long getAlignedTimestampInMs() {
+        Long alignedTimestampInMs = alignedTimestampInMs_.get();
+        return (alignedTimestampInMs == null) ? -1 : alignedTimestampInMs;
+    }
+
+    protected static void setAlignedTimestampInMs(long alignedTimestampInMs) {
+        alignedTimestampInMs_.set(alignedTimestampInMs);
+    }
+
+    protected static void clear() {
+        alignedTimestampInMs_.remove();
+    }
+
+}
@@ -0,0 +1,412 @@
+package com.pearson.statspoller.collector_scheduler;
+
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.VirtualThreads;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Runs every registered collector on its own collection interval, using a single 'ticker' thread & a bounded pool of worker threads
+ * (instead of one mostly-sleeping thread per collector).
+ *
+ * Collectors are kept in a hashed timing wheel. Every tick, the ticker thread hands the collectors in the current wheel slot to the worker pool,
+ * & reschedules each of them one collection interval later (fixed rate, so collection times don't drift).
+ *   - Each collector gets a random initial delay within its collection interval (jitter), so that collectors with the same interval don't all run at once.
+ *   - A collector never has more than one run in-flight. If a run is due while the previous run is still going (or still waiting for a worker), the run is skipped, not queued.
+ *   - A run that throws is logged, & the collector is re-initialized & backed off (one interval, doubling up to 5 minutes) before it runs again.
+ *
+ * In 'clock-aligned' mode, runs are scheduled on wall-clock boundaries of the collector's interval (ex- :00, :30 for a 30 second interval), plus a per-host splay,
+ * instead of at a random phase. Every run is tagged with the boundary that it belongs to (see CollectionTimestamp), & internal collectors stamp their metrics with it.
+ * The wall clock is re-checked on every run, so a collector stays aligned even if the wall clock is adjusted.
+ *
+ * If a 'startup window' is set, every collector's first run happens at a random time within the startup window (in parallel, across the worker pool),
+ * instead of waiting for its jittered or aligned phase. After the first run, the collector moves to its normal phase.
+ * This keeps an agent with many collectors (or long collection intervals) from taking a full interval to output all of its metrics after a restart.
+ *
+ * In 'virtual thread' mode (Java 21+), every run gets its own virtual thread instead of a worker from the pool. The pool of platform threads is
+ * still used for collectors that are scheduled as requiring a platform thread (ex- collectors that block in native code or in Object.wait, which would pin a virtual thread's carrier).
+ */
+public class CollectorScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollectorScheduler.class.getName());
+
+    public static final long DEFAULT_TICK_DURATION_IN_MS = 100;
+    public static final int DEFAULT_NUM_WHEEL_SLOTS = 512;
+    private static final long MAXIMUM_FAILURE_BACKOFF_IN_MS = 300000;
+
+    private final long tickDurationInMs_;
+    private final List<List<ScheduledCollectorTask>> wheelSlots_;
+    private final ExecutorService workerThreadPool_;
+    private final ExecutorService virtualWorkerThreadPool_;
+    private final boolean isClockAligned_;
+    private final long splayInMs_;
+    private final long startupWindowInMs_;
+    private final Map<String,ScheduledCollectorTask> tasks_ByTaskId_ = new ConcurrentHashMap<>();
+
+    private final long startTimestampInMs_ = getMonotonicTimeInMs();
+    private long currentTick_ = 0;
+    private Thread tickerThread_ = null;
+    private volatile boolean isShutdown_ = false;
+
+    public CollectorScheduler(int numWorkerThreads) {
+        this(numWorkerThreads, DEFAULT_TICK_DURATION_IN_MS, DEFAULT_NUM_WHEEL_SLOTS);
+    }
+
+    public CollectorScheduler(int numWorkerThreads, long tickDurationInMs, int numWheelSlots) {
+        this(numWorkerThreads, false, tickDurationInMs, numWheelSlots);
+    }
+
+    public CollectorScheduler(int numWorkerThreads, boolean useVirtualThreads) {
+        this(numWorkerThreads, useVirtualThreads, DEFAULT_TICK_DURATION_IN_MS, DEFAULT_NUM_WHEEL_SLOTS);
+    }
+
+    /*
+    If 'useVirtualThreads' is true, but the jvm doesn't support virtual threads, all collectors run on the pool of platform threads.
+    */
+    public CollectorScheduler(int numWorkerThreads, boolean useVirtualThreads, long tickDurationInMs, int numWheelSlots) {
+        this(numWorkerThreads, useVirtualThreads, false, 0, tickDurationInMs, numWheelSlots);
+    }
+
+    public CollectorScheduler(int numWorkerThreads, boolean useVirtualThreads, boolean isClockAligned, long splayInMs) {
+        this(numWorkerThreads, useVirtualThreads, isClockAligned, splayInMs, 0, DEFAULT_TICK_DURATION_IN_MS, DEFAULT_NUM_WHEEL_SLOTS);
+    }
+
+    public CollectorScheduler(int numWorkerThreads, boolean useVirtualThreads, boolean isClockAligned, long splayInMs, long startupWindowInMs) {
+        this(numWorkerThreads, useVirtualThreads, isClockAligned, splayInMs, startupWindowInMs, DEFAULT_TICK_DURATION_IN_MS, DEFAULT_NUM_WHEEL_SLOTS);
+    }
+
+    public CollectorScheduler(int numWorkerThreads, boolean useVirtualThreads, boolean isClockAligned, long splayInMs, long tickDurationInMs, int numWheelSlots) {
+        this(numWorkerThreads, useVirtualThreads, isClockAligned, splayInMs, 0, tickDurationInMs, numWheelSlots);
+    }
+
+    /*
+    If 'isClockAligned' is true, each collector runs 'splayInMs' (modulo the collector's interval) after each wall-clock boundary of its interval.
+    If 'startupWindowInMs' is greater than 0, each collector's first run is within 'startupWindowInMs' of being scheduled. 0 disables the startup window.
+    */
+    public CollectorScheduler(int numWorkerThreads, boolean useVirtualThreads, boolean isClockAligned, long splayInMs, long startupWindowInMs, long tickDurationInMs, int numWheelSlots) {
+        this.tickDurationInMs_ = Math.max(tickDurationInMs, 1);
+        this.isClockAligned_ = isClockAligned;
+        this.splayInMs_ = Math.max(splayInMs, 0);
+        this.startupWindowInMs_ = Math.max(startupWindowInMs, 0);
+
+        this.wheelSlots_ = new ArrayList<>(Math.max(numWheelSlots, 1));
+        for (int i = 0; i < Math.max(numWheelSlots, 1); i++) wheelSlots_.add(new ArrayList<ScheduledCollectorTask>());
+
+        // the pool's threads are only created as they're needed, so this costs nothing in virtual thread mode if no collectors require a platform thread
+        this.workerThreadPool_ = Executors.newFixedThreadPool(Math.max(numWorkerThreads, 1), new CollectorThreadFactory("Collector-Worker"));
+
+        ExecutorService virtualWorkerThreadPool = useVirtualThreads ? VirtualThreads.newThreadPerTaskExecutor("Collector-Worker-V-") : null;
+        if (useVirtualThreads && (virtualWorkerThreadPool == null)) {
+            logger.warn("Message=\"Virtual threads are not supported by this JVM. Collectors will run on platform threads.\", JavaVersion=\"" + System.getProperty("java.version") + "\"");
+        }
+        this.virtualWorkerThreadPool_ = virtualWorkerThreadPool;
+    }
+
+    /*
+    Registers a collector, with a random initial delay (jitter) within its collection interval. In clock-aligned mode, the first run is on the next aligned boundary instead.
+    If a startup window is set, the first run is within the startup window, & the second run is at the jittered (or aligned) time.
+    Returns false if the task id is already registered, or if the collector doesn't have a valid collection interval.
+    */
+    public boolean schedule(String taskId, SchedulableCollector collector) {
+        return schedule(taskId, collector, false);
+    }
+
+    /*
+    Same as schedule(taskId, collector).
+    If 'isPlatformThreadRequired' is true, the collector always runs on the pool of platform threads (even in virtual thread mode).
+    */
+    public boolean schedule(String taskId, SchedulableCollector collector, boolean isPlatformThreadRequired) {
+
+        long phaseDelayInMs = getInitialDelayInMs(collector);
+        if ((startupWindowInMs_ <= 0) || (phaseDelayInMs <= startupWindowInMs_)) return schedule(taskId, collector, phaseDelayInMs, -1, isPlatformThreadRequired);
+
+        long startupDelayInMs = ThreadLocalRandom.current().nextLong(startupWindowInMs_);
+        return schedule(taskId, collector, startupDelayInMs, phaseDelayInMs, isPlatformThreadRequired);
+    }
+
+    public boolean schedule(String taskId, SchedulableCollector collector, long initialDelayInMs) {
+        return schedule(taskId, collector, initialDelayInMs, false);
+    }
+
+    public boolean schedule(String taskId, SchedulableCollector collector, long initialDelayInMs, boolean isPlatformThreadRequired) {
+        return schedule(taskId, collector, initialDelayInMs, -1, isPlatformThreadRequired);
+    }
+
+    /*
+    'phaseDelayInMs' is the delay of the collector's second run (its normal phase), or -1 if the second run is one interval after the first run.
+    */
+    private synchronized boolean schedule(String taskId, SchedulableCollector collector, long initialDelayInMs, long phaseDelayInMs, boolean isPlatformThreadRequired) {
+
+        if ((taskId == null) || (collector == null) || isShutdown_) return false;
+
+        if (collector.getCollectionInterval() <= 0) {
+            logger.warn("Message=\"Collector not scheduled. Invalid collection interval.\", TaskId=\"" + taskId + "\", CollectionInterval=" + collector.getCollectionInterval());
+            return false;
+        }
+
+        if (tasks_ByTaskId_.containsKey(taskId)) return false;
+
+        ScheduledCollectorTask task = new ScheduledCollectorTask(taskId, collector, isPlatformThreadRequired);
+        tasks_ByTaskId_.put(taskId, task);
+        long currentTimestampInMs = getMonotonicTimeInMs();
+        if (phaseDelayInMs >= 0) task.phaseTimestampInMs_ = currentTimestampInMs + phaseDelayInMs;
+        addToWheel(task, currentTimestampInMs + Math.max(initialDelayInMs, 0));
+
+        logger.info("Message=\"Scheduled metric collector\", TaskId=\"" + taskId + "\", CollectionInterval=" + task.getCollectionIntervalInMs() + ", InitialDelay=" + initialDelayInMs);
+
+        return true;
+    }
+
+    public synchronized void start() {
+
+        if ((tickerThread_ != null) || isShutdown_) return;
+
+        tickerThread_ = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runTicker();
+            }
+        }, "Collector-Scheduler");
+
+        tickerThread_.setDaemon(true);
+        tickerThread_.start();
+    }
+
+    public void shutdown() {
+
+        isShutdown_ = true;
+        workerThreadPool_.shutdownNow();
+        if (virtualWorkerThreadPool_ != null) virtualWorkerThreadPool_.shutdownNow();
+
+        Thread tickerThread = tickerThread_;
+        if (tickerThread != null) tickerThread.interrupt();
+    }
+
+    public boolean isClockAligned() {
+        return isClockAligned_;
+    }
+
+    public long getStartupWindowInMs() {
+        return startupWindowInMs_;
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return virtualWorkerThreadPool_ != null;
+    }
+
+    public ScheduledCollectorTask getTask(String taskId) {
+        if (taskId == null) return null;
+        return tasks_ByTaskId_.get(taskId);
+    }
+
+    public List<ScheduledCollectorTask> getTasks() {
+        return new ArrayList<>(tasks_ByTaskId_.values());
+    }
+
+    private void runTicker() {
+
+        while (!isShutdown_) {
+            try {
+                long targetTick = (getMonotonicTimeInMs() - startTimestampInMs_) / tickDurationInMs_;
+
+                synchronized (this) {
+                    while (currentTick_ < targetTick) {
+                        currentTick_++;
+                        processWheelSlot(currentTick_);
+                    }
+                }
+
+                long nextTickTimestampInMs = startTimestampInMs_ + ((targetTick + 1) * tickDurationInMs_);
+                long sleepTimeInMs = nextTickTimestampInMs - getMonotonicTimeInMs();
+                if (sleepTimeInMs > 0) Thread.sleep(sleepTimeInMs);
+            }
+            catch (InterruptedException e) {
+                if (isShutdown_) break;
+            }
+            catch (Exception e) {
+                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+        }
+
+    }
+
+    // must be called while holding the scheduler's lock
+    private void processWheelSlot(long tick) {
+
+        List<ScheduledCollectorTask> wheelSlot = wheelSlots_.get((int) (tick % wheelSlots_.size()));
+        if (wheelSlot.isEmpty()) return;
+
+        List<ScheduledCollectorTask> dueTasks = null;
+
+        Iterator<ScheduledCollectorTask> iterator = wheelSlot.iterator();
+        while (iterator.hasNext()) {
+            ScheduledCollectorTask task = iterator.next();
+
+            if (task.remainingWheelRounds_ > 0) {
+                task.remainingWheelRounds_--;
+                continue;
+            }
+
+            iterator.remove();
+            if (dueTasks == null) dueTasks = new ArrayList<>();
+            dueTasks.add(task);
+        }
+
+        if (dueTasks == null) return;
+
+        for (ScheduledCollectorTask task : dueTasks) {
+            dispatch(task);
+        }
+    }
+
+    // must be called while holding the scheduler's lock
+    private void dispatch(final ScheduledCollectorTask task) {
+
+        long currentTimestampInMs = getMonotonicTimeInMs();
+        long collectionIntervalInMs = task.getCollectionIntervalInMs();
+        final long dueTimestampInMs = task.dueTimestampInMs_;
+        final long alignedTimestampInMs;
+
+        if (isClockAligned_) {
+            // the boundary that this run belongs to. a run that fires up to one tick early (ex- the wall clock was adjusted) still belongs to the upcoming boundary.
+            long wallClockTimestampInMs = System.currentTimeMillis();
+            long taskSplayInMs = splayInMs_ % collectionIntervalInMs;
+            alignedTimestampInMs = Math.floorDiv(wallClockTimestampInMs - taskSplayInMs + tickDurationInMs_, collectionIntervalInMs) * collectionIntervalInMs;
+            long nextDueTimestampInMs = currentTimestampInMs + (alignedTimestampInMs + collectionIntervalInMs + taskSplayInMs - wallClockTimestampInMs);
+
+            // after a startup-window run, skip a boundary that is too close (rates computed over a short gap are noisy)
+            if ((task.phaseTimestampInMs_ >= 0) && ((nextDueTimestampInMs - currentTimestampInMs) < (collectionIntervalInMs / 2))) nextDueTimestampInMs += collectionIntervalInMs;
+            task.phaseTimestampInMs_ = -1;
+            addToWheel(task, nextDueTimestampInMs);
+        }
+        else if (task.phaseTimestampInMs_ >= 0) {
+            // this was a startup-window run. move to the collector's jittered phase, without running twice in quick succession (which would give noisy rates)
+            alignedTimestampInMs = -1;
+            long nextDueTimestampInMs = task.phaseTimestampInMs_;
+            while ((nextDueTimestampInMs - currentTimestampInMs) < (collectionIntervalInMs / 2)) nextDueTimestampInMs += collectionIntervalInMs;
+            task.phaseTimestampInMs_ = -1;
+            addToWheel(task, nextDueTimestampInMs);
+        }
+        else {
+            // fixed rate. if the scheduler fell more than an interval behind (ex- the host was suspended), realign instead of firing a burst of catch-up runs
+            alignedTimestampInMs = -1;
+            long nextDueTimestampInMs = task.dueTimestampInMs_ + collectionIntervalInMs;
+            if (nextDueTimestampInMs <= currentTimestampInMs) {
+                nextDueTimestampInMs = currentTimestampInMs + collectionIntervalInMs - ((currentTimestampInMs - task.dueTimestampInMs_) % collectionIntervalInMs);
+            }
+            addToWheel(task, nextDueTimestampInMs);
+        }
+
+        if (task.isInFailureBackoff(currentTimestampInMs)) return;
+
+        if (!task.tryMarkRunning()) {
+            task.recordSkippedRun();
+            logger.warn("Message=\"Skipped metric collector run. The previous run is still in progress.\", TaskId=\"" + task.getTaskId() + "\", SkippedRunCount=" + task.getSkippedRunCount());
+            return;
+        }
+
+        ExecutorService workerThreadPool = ((virtualWorkerThreadPool_ == null) || task.isPlatformThreadRequired()) ? workerThreadPool_ : virtualWorkerThreadPool_;
+
+        try {
+            workerThreadPool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    runTask(task, dueTimestampInMs, alignedTimestampInMs);
+                }
+            });
+        }
+        catch (Exception e) {
+            task.clearRunning();
+            if (!isShutdown_) logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+    }
+
+    private void runTask(ScheduledCollectorTask task, long dueTimestampInMs, long alignedTimestampInMs) {
+
+        long runStartTimestampInMs = getMonotonicTimeInMs();
+        task.recordStartDelay(runStartTimestampInMs - dueTimestampInMs);
+        if (alignedTimestampInMs >= 0) CollectionTimestamp.setAlignedTimestampInMs(alignedTimestampInMs);
+
+        try {
+            if (task.isInitializeNeeded()) task.getCollector().initializeCollector();
+            task.getCollector().collectMetrics();
+            task.recordSuccessfulRun(getMonotonicTimeInMs() - runStartTimestampInMs);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            recordFailedRun(task, runStartTimestampInMs);
+        }
+        catch (Error e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e.getStackTrace()));
+            recordFailedRun(task, runStartTimestampInMs);
+        }
+        finally {
+            CollectionTimestamp.clear();
+            task.clearRunning();
+        }
+
+    }
+
+    private void recordFailedRun(ScheduledCollectorTask task, long runStartTimestampInMs) {
+        long currentTimestampInMs = getMonotonicTimeInMs();
+        long backoffInMs = task.recordFailedRun(currentTimestampInMs - runStartTimestampInMs, currentTimestampInMs, MAXIMUM_FAILURE_BACKOFF_IN_MS);
+        logger.warn("Message=\"Metric collector run failed. Restarting collector.\", TaskId=\"" + task.getTaskId() + "\", BackoffMs=" + backoffInMs);
+    }
+
+    private long getInitialDelayInMs(SchedulableCollector collector) {
+
+        long collectionInterval = (collector == null) ? 0 : collector.getCollectionInterval();
+        if (collectionInterval <= 0) return 0;
+
+        if (!isClockAligned_) return ThreadLocalRandom.current().nextLong(collectionInterval);
+
+        long taskSplayInMs = splayInMs_ % collectionInterval;
+        return collectionInterval - Math.floorMod(System.currentTimeMillis() - taskSplayInMs, collectionInterval);
+    }
+
+    // must be called while holding the scheduler's lock
+    private void addToWheel(ScheduledCollectorTask task, long dueTimestampInMs) {
+
+        long dueTick = (dueTimestampInMs - startTimestampInMs_ + tickDurationInMs_ - 1) / tickDurationInMs_;
+        if (dueTick <= currentTick_) dueTick = currentTick_ + 1;
+
+        task.dueTimestampInMs_ = dueTimestampInMs;
+        task.remainingWheelRounds_ = (dueTick - currentTick_ - 1) / wheelSlots_.size();
+        wheelSlots_.get((int) (dueTick % wheelSlots_.size())).add(task);
+    }
+
+    private static long getMonotonicTimeInMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private static class CollectorThreadFactory implements ThreadFactory {
+
+        private final String threadNamePrefix_;
+        private int threadCount_ = 0;
+
+        public CollectorThreadFactory(String threadNamePrefix) {
+            this.threadNamePrefix_ = threadNamePrefix;
+        }
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, threadNamePrefix_ + "-" + (++threadCount_));
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
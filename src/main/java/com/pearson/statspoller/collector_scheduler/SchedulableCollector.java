@@ -0,0 +1,22 @@
+package com.pearson.statspoller.collector_scheduler;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * A metric collector that can be run by the CollectorScheduler.
+ */
+public interface SchedulableCollector {
+
+    /*
+    Resets the collector's state. Called before the collector's first run, & again before the first run after a failed run.
+    */
+    public void initializeCollector();
+
+    /*
+    Collects & outputs one round of metrics.
+    */
+    public void collectMetrics();
+
+    public long getCollectionInterval();
+
+}
@@ -0,0 +1,146 @@
+package com.pearson.statspoller.collector_scheduler;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * A collector that has been registered with the CollectorScheduler, along with its scheduling state & run statistics.
+ */
+public class ScheduledCollectorTask {
+
+    private final String taskId_;
+    private final SchedulableCollector collector_;
+    private final long collectionIntervalInMs_;
+    private final boolean isPlatformThreadRequired_;
+
+    private final AtomicBoolean isRunning_ = new AtomicBoolean(false);
+    private volatile boolean isInitializeNeeded_ = true;
+    private volatile long notBeforeTimestampInMs_ = 0;
+    private int numConsecutiveFailures_ = 0;
+
+    private final AtomicLong runCount_ = new AtomicLong(0);
+    private final AtomicLong skippedRunCount_ = new AtomicLong(0);
+    private final AtomicLong failedRunCount_ = new AtomicLong(0);
+    private volatile long lastRuntimeInMs_ = -1;
+    private final AtomicLong totalStartDelayInMs_ = new AtomicLong(0);
+    private volatile long maxStartDelayInMs_ = 0;
+
+    // wheel state -- only accessed while holding the scheduler's lock
+    protected long dueTimestampInMs_ = 0;
+    protected long remainingWheelRounds_ = 0;
+    protected long phaseTimestampInMs_ = -1;
+
+    public ScheduledCollectorTask(String taskId, SchedulableCollector collector) {
+        this(taskId, collector, false);
+    }
+
+    public ScheduledCollectorTask(String taskId, SchedulableCollector collector, boolean isPlatformThreadRequired) {
+        this.taskId_ = taskId;
+        this.collector_ = collector;
+        this.collectionIntervalInMs_ = collector.getCollectionInterval();
+        this.isPlatformThreadRequired_ = isPlatformThreadRequired;
+    }
+
+    protected boolean tryMarkRunning() {
+        return isRunning_.compareAndSet(false, true);
+    }
+
+    protected void clearRunning() {
+        isRunning_.set(false);
+    }
+
+    protected boolean isInFailureBackoff(long currentTimestampInMs) {
+        return currentTimestampInMs < notBeforeTimestampInMs_;
+    }
+
+    protected boolean isInitializeNeeded() {
+        return isInitializeNeeded_;
+    }
+
+    protected void recordSuccessfulRun(long runtimeInMs) {
+        runCount_.incrementAndGet();
+        lastRuntimeInMs_ = runtimeInMs;
+        isInitializeNeeded_ = false;
+        numConsecutiveFailures_ = 0;
+    }
+
+    /*
+    Returns the backoff (in ms) before the collector is allowed to run again. The collector is re-initialized before its next run.
+    The backoff starts at one collection interval & doubles with each consecutive failure, up to 'maximumBackoffInMs'.
+    */
+    protected long recordFailedRun(long runtimeInMs, long currentTimestampInMs, long maximumBackoffInMs) {
+        runCount_.incrementAndGet();
+        failedRunCount_.incrementAndGet();
+        lastRuntimeInMs_ = runtimeInMs;
+        isInitializeNeeded_ = true;
+
+        numConsecutiveFailures_++;
+        long backoffInMs = collectionIntervalInMs_ << Math.min(numConsecutiveFailures_ - 1, 16);
+        backoffInMs = Math.max(Math.min(backoffInMs, maximumBackoffInMs), collectionIntervalInMs_);
+
+        // the run that would have been due one interval from now is the first one that the backoff should hold back
+        notBeforeTimestampInMs_ = currentTimestampInMs + backoffInMs - collectionIntervalInMs_;
+        return backoffInMs;
+    }
+
+    protected void recordSkippedRun() {
+        skippedRunCount_.incrementAndGet();
+    }
+
+    /*
+    Records how long after its due time a run actually started (tick granularity + time spent waiting for a worker).
+    Only called by the run's worker thread, & a collector never has more than one run in-flight.
+    */
+    protected void recordStartDelay(long startDelayInMs) {
+        long startDelay = Math.max(startDelayInMs, 0);
+        totalStartDelayInMs_.addAndGet(startDelay);
+        if (startDelay > maxStartDelayInMs_) maxStartDelayInMs_ = startDelay;
+    }
+
+    public String getTaskId() {
+        return taskId_;
+    }
+
+    public SchedulableCollector getCollector() {
+        return collector_;
+    }
+
+    public long getCollectionIntervalInMs() {
+        return collectionIntervalInMs_;
+    }
+
+    public boolean isPlatformThreadRequired() {
+        return isPlatformThreadRequired_;
+    }
+
+    public boolean isRunning() {
+        return isRunning_.get();
+    }
+
+    public long getRunCount() {
+        return runCount_.get();
+    }
+
+    public long getSkippedRunCount() {
+        return skippedRunCount_.get();
+    }
+
+    public long getFailedRunCount() {
+        return failedRunCount_.get();
+    }
+
+    public long getLastRuntimeInMs() {
+        return lastRuntimeInMs_;
+    }
+
+    public long getTotalStartDelayInMs() {
+        return totalStartDelayInMs_.get();
+    }
+
+    public long getMaxStartDelayInMs() {
+        return maxStartDelayInMs_;
+    }
+
+}
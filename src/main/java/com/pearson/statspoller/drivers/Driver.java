@@ -3,7 +3,9 @@ package com.pearson.statspoller.drivers;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.joran.JoranConfigurator;
 import ch.qos.logback.core.util.StatusPrinter;
+import com.pearson.statspoller.collector_scheduler.CollectorScheduler;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.Splay;
 import com.pearson.statspoller.utilities.core_utils.Threads;
 import com.pearson.statspoller.utilities.file_utils.FileIo;
 import com.pearson.statspoller.internal_metric_collectors.statspoller_native.StatsPollerNativeCollectorsThread;
@@ -13,27 +15,27 @@ import com.pearson.statspoller.external_metric_collectors.ExternalMetricCollecto
 import com.pearson.statspoller.output.OutputMetricsInvokerThread;
 import com.pearson.statspoller.external_metric_collectors.ReadMetricsFromFileThread;
 import com.pearson.statspoller.external_metric_collectors.ExternalMetricCollector;
-import com.pearson.statspoller.internal_metric_collectors.apache_http.ApacheHttpMetricCollector;
-import com.pearson.statspoller.internal_metric_collectors.cadvisor.CadvisorMetricCollector;
-import com.pearson.statspoller.internal_metric_collectors.db_querier.DbQuerier;
-import com.pearson.statspoller.internal_metric_collectors.file_counter.FileCounterMetricCollector;
+import com.pearson.statspoller.external_metric_collectors.ExternalMetricFileWatcher;
+import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
 import com.pearson.statspoller.internal_metric_collectors.jmx.JmxJvmShutdownHook;
-import com.pearson.statspoller.internal_metric_collectors.jmx.JmxMetricCollector;
+import com.pearson.statspoller.internal_metric_collectors.linux.Cgroup.CgroupCollector;
 import com.pearson.statspoller.internal_metric_collectors.linux.Connections.ConnectionsCollector;
+import com.pearson.statspoller.internal_metric_collectors.linux.Connections.TcpStateCollector;
 import com.pearson.statspoller.internal_metric_collectors.linux.Cpu.CpuCollector;
 import com.pearson.statspoller.internal_metric_collectors.linux.DiskIo.DiskIoCollector;
 import com.pearson.statspoller.internal_metric_collectors.linux.FileSystem.FileSystemCollector;
+import com.pearson.statspoller.internal_metric_collectors.linux.HighResolution.HighResolutionSampleable;
+import com.pearson.statspoller.internal_metric_collectors.linux.HighResolution.HighResolutionSampler;
+import com.pearson.statspoller.internal_metric_collectors.linux.HighResolution.HighResolutionSamples;
 import com.pearson.statspoller.internal_metric_collectors.linux.Memory.MemoryCollector;
 import com.pearson.statspoller.internal_metric_collectors.linux.Network.NetworkBandwidthCollector;
 import com.pearson.statspoller.internal_metric_collectors.linux.ProcessCounter.ProcessCounterCollector;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcessResource.ProcessResourceCollector;
 import com.pearson.statspoller.internal_metric_collectors.linux.ProcessStatus.ProcessStatusCollector;
 import com.pearson.statspoller.internal_metric_collectors.linux.Uptime.UptimeCollector;
-import com.pearson.statspoller.internal_metric_collectors.mongo.MongoMetricCollector;
-import com.pearson.statspoller.internal_metric_collectors.mysql.MysqlMetricCollector;
-import com.pearson.statspoller.internal_metric_collectors.postgres.PostgresMetricCollector;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,8 +46,7 @@ public class Driver {
     
     private static final Logger logger = LoggerFactory.getLogger(Driver.class.getName());
     
-    //private static final ExecutorService threadExecutor_ = Executors.newCachedThreadPool();
-    private static final Map<String,Thread> metricCollectorThreads_ByThreadId_ = new ConcurrentHashMap<>();
+    private static CollectorScheduler collectorScheduler_ = null;
     
     public static void main(String[] args) {
         // 2 second startup delay -- helps to make sure that old metric data isn't output
@@ -64,8 +65,20 @@ public class Driver {
             logger.info(successOutput);
         }
         
-        // initial launch of metric collector threads
-        launchCollectorThreads();
+        // all metric collectors (except the external metric collector file watcher) run on a shared scheduler & worker thread pool
+        // external metric collector runs block a worker until their program exits, so they get their own workers (one per global run slot)
+        // in virtual thread mode, the platform worker pool is only used by the external metric collectors
+        boolean isExternalMetricCollectorsConfigured = (ApplicationConfiguration.getExternalMetricCollectors() != null) && !ApplicationConfiguration.getExternalMetricCollectors().isEmpty();
+        int numCollectorSchedulerThreads = ApplicationConfiguration.isVirtualThreadsEnabled() ? 0 : ApplicationConfiguration.getCollectorSchedulerThreads();
+        if (isExternalMetricCollectorsConfigured) numCollectorSchedulerThreads += ApplicationConfiguration.getExternalMetricCollectorMaxConcurrentRuns();
+        long collectionSplayInMs = Splay.getHostOffsetInMs(ApplicationConfiguration.getHostname(), "collection", ApplicationConfiguration.getCollectionSplay());
+        collectorScheduler_ = new CollectorScheduler(numCollectorSchedulerThreads, ApplicationConfiguration.isVirtualThreadsEnabled(), 
+                ApplicationConfiguration.isAlignCollectionTimestamps(), collectionSplayInMs, ApplicationConfiguration.getStartupWindow());
+        if (collectorScheduler_.isClockAligned()) logger.info("Message=\"Metric collections are aligned to the wall clock\", SplayMs=" + collectionSplayInMs);
+        if (collectorScheduler_.getStartupWindowInMs() > 0) logger.info("Message=\"Every metric collector's first run will be within the startup window\", StartupWindowMs=" + collectorScheduler_.getStartupWindowInMs());
+        if (collectorScheduler_.isUsingVirtualThreads()) logger.info("Message=\"Metric collectors & output sends will run on virtual threads\"");
+        scheduleCollectors();
+        collectorScheduler_.start();
         
         // jvm shutdown hook for jmx -- makes sure that jmx connections get closed before this program is terminated
         if ((ApplicationConfiguration.getJmxMetricCollectors() != null) && !ApplicationConfiguration.getJmxMetricCollectors().isEmpty()) {
@@ -77,7 +90,7 @@ public class Driver {
         Thread outputMetricsInvokerThread = new Thread(new OutputMetricsInvokerThread(ApplicationConfiguration.getOutputInterval()));
         outputMetricsInvokerThread.start();
        
-        // maintainance loop -- relauches crashed threads, occasionally GCs, etc
+        // maintainance loop -- occasionally GCs. failed collectors are restarted by the collector scheduler
         int i = 0;
         while(true) {
             Threads.sleepSeconds(15);
@@ -87,8 +100,6 @@ public class Driver {
                 i = 0;
             }
             else i++;
-            
-            launchCollectorThreads();
         }
         
     }
@@ -161,367 +172,206 @@ public class Driver {
         }
     }
 
-    private static void launchCollectorThreads() {
-        launchStatsPollerCollector();
-        launchLinuxCollectors();               
-        launchProcessCounterCollector();    
-        launchFileCountCollectors();
-        launchJmxCollectors();
-        launchApacheHttpCollectors();
-        launchCadvisorCollectors();
-        launchMongoCollectors();  
-        launchMysqlCollectors();
-        launchPostgresCollectors();
-        launchDbQueriers();
+    private static void scheduleCollectors() {
+        scheduleStatsPollerCollector();
+        scheduleLinuxCollectors();               
+        scheduleProcessCounterCollector();    
+        scheduleProcessResourceCollector();
+        scheduleFileCountCollectors();
+        scheduleJmxCollectors();
+        scheduleApacheHttpCollectors();
+        scheduleCadvisorCollectors();
+        scheduleMongoCollectors();  
+        scheduleMysqlCollectors();
+        schedulePostgresCollectors();
+        scheduleDbQueriers();
         launchExternalMetricCollectors();
     }
     
-    private static void launchStatsPollerCollector() {
-        
-        String threadId;
-        Thread currentThread;
-        
-        threadId = "StatsPollerNative";
-        currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-        if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-            if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-            Thread statsPollerCollectorsThread = new Thread(new StatsPollerNativeCollectorsThread(
-                    ApplicationConfiguration.isStatsPollerEnableJavaMetricCollector(),
-                    ApplicationConfiguration.getStatspollerJavaMetricCollectorCollectionInterval(), 
-                    ApplicationConfiguration.getStatspollerMetricCollectorPrefix(), 
-                    "./output/statspoller_native.out", ApplicationConfiguration.isOutputInternalMetricsToDisk(),
-                    Version.getProjectVersion()));
-            statsPollerCollectorsThread.start();
-            metricCollectorThreads_ByThreadId_.put(threadId, statsPollerCollectorsThread);
-            Threads.sleepMilliseconds(500);
-        }
-        
+    // the agent metrics (availability, version, etc) are always output, so this collector is scheduled even if its system metrics are disabled
+    private static void scheduleStatsPollerCollector() {
+        collectorScheduler_.schedule("StatsPollerNative", new StatsPollerNativeCollectorsThread(
+                ApplicationConfiguration.isStatsPollerEnableJavaMetricCollector(),
+                ApplicationConfiguration.getStatspollerJavaMetricCollectorCollectionInterval(), 
+                ApplicationConfiguration.getStatspollerMetricCollectorPrefix(), 
+                "./output/statspoller_native.out", ApplicationConfiguration.isOutputInternalMetricsToDisk(),
+                Version.getProjectVersion()));
     }
     
-    private static void launchFileCountCollectors() {
-
-        if (ApplicationConfiguration.getFileCounterMetricCollectors() == null) return;
-        
-        String threadId;
-        Thread currentThread;
-        int counter = 1;
-        
-        for (FileCounterMetricCollector fileCounterMetricCollector : ApplicationConfiguration.getFileCounterMetricCollectors()) {
-            threadId = "FileCounter" + "-" + counter++;
-            currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-            
-            if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-                Thread fileCounterMetricCollectorThread = new Thread(fileCounterMetricCollector);
-                fileCounterMetricCollectorThread.start();
-                metricCollectorThreads_ByThreadId_.put(threadId, fileCounterMetricCollectorThread);
-                Threads.sleepMilliseconds(250);
-            }
-        }
-        
+    private static void scheduleFileCountCollectors() {
+        scheduleInternalCollectors("FileCounter", ApplicationConfiguration.getFileCounterMetricCollectors());
     }
     
-    private static void launchLinuxCollectors() {
+    private static void scheduleLinuxCollectors() {
         
         if (!ApplicationConfiguration.isLinuxMetricCollectorEnable()) return;
         
-        String threadId;
-        Thread currentThread;
+        scheduleInternalCollector("Linux.Connections", new ConnectionsCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(),
+                ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.Connections", "./output/linux_connections.out", 
+                ApplicationConfiguration.isOutputInternalMetricsToDisk()));
         
-        threadId = "Linux.Connections";
-        currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-        if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-            if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-            Thread linuxConnectionsCollectorThread = new Thread(new ConnectionsCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(),
-                    ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.Connections", "./output/linux_connections.out", 
+        if (ApplicationConfiguration.isLinuxTcpStateCollectorEnable()) {
+            scheduleInternalCollector("Linux.TcpState", new TcpStateCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(),
+                    ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.TcpState", "./output/linux_tcp_state.out", 
                     ApplicationConfiguration.isOutputInternalMetricsToDisk()));
-            linuxConnectionsCollectorThread.start();
-            metricCollectorThreads_ByThreadId_.put(threadId, linuxConnectionsCollectorThread);
-            Threads.sleepMilliseconds(250);
         }
         
-        threadId = "Linux.Cpu";
-        currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-        if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-            if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-            Thread linuxCpuCollectorThread = new Thread(new CpuCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(),
-                    ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.Cpu", "./output/linux_cpu.out", 
+        if (ApplicationConfiguration.isLinuxCgroupCollectorEnable()) {
+            scheduleInternalCollector("Linux.Cgroup", new CgroupCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(),
+                    ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.Cgroup", "./output/linux_cgroup.out", 
                     ApplicationConfiguration.isOutputInternalMetricsToDisk()));
-            linuxCpuCollectorThread.start();;
-            metricCollectorThreads_ByThreadId_.put(threadId, linuxCpuCollectorThread);
-            Threads.sleepMilliseconds(250);
         }
         
-        threadId = "Linux.Network-Bandwidth";
-        currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-        if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-            if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-            Thread linuxNetworkCollectorThread = new Thread(new NetworkBandwidthCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
-                    ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.Network-Bandwidth", "./output/linux_network_bandwidth.out", 
-                    ApplicationConfiguration.isOutputInternalMetricsToDisk()));
-            linuxNetworkCollectorThread.start();
-            metricCollectorThreads_ByThreadId_.put(threadId, linuxNetworkCollectorThread);
-            Threads.sleepMilliseconds(250);
-        }
+        CpuCollector cpuCollector = new CpuCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(),
+                ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.Cpu", "./output/linux_cpu.out", 
+                ApplicationConfiguration.isOutputInternalMetricsToDisk());
         
-        threadId = "Linux.Memory";
-        currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-        if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-            if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-            Thread linuxMemoryCollectorThread = new Thread(new MemoryCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
-                    ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.Memory", "./output/linux_memory.out", 
-                    ApplicationConfiguration.isOutputInternalMetricsToDisk()));
-            linuxMemoryCollectorThread.start();
-            metricCollectorThreads_ByThreadId_.put(threadId, linuxMemoryCollectorThread);
-            Threads.sleepMilliseconds(250);
-        }
+        NetworkBandwidthCollector networkBandwidthCollector = new NetworkBandwidthCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
+                ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.Network-Bandwidth", "./output/linux_network_bandwidth.out", 
+                ApplicationConfiguration.isOutputInternalMetricsToDisk());
         
-        threadId = "Linux.Uptime";
-        currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-        if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-            if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-            Thread linuxUptimeCollectorThread = new Thread(new UptimeCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
-                    ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.Uptime", "./output/linux_uptime.out", 
-                    ApplicationConfiguration.isOutputInternalMetricsToDisk()));
-            linuxUptimeCollectorThread.start();
-            metricCollectorThreads_ByThreadId_.put(threadId, linuxUptimeCollectorThread);
-            Threads.sleepMilliseconds(250);
-        }
+        DiskIoCollector diskIoCollector = new DiskIoCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
+                ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.DiskIO", "./output/linux_disk_io.out", 
+                ApplicationConfiguration.isOutputInternalMetricsToDisk());
         
-        threadId = "Linux.FileSystem";
-        currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-        if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-            if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-            Thread linuxFileSystemCollectorThread = new Thread(new FileSystemCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
-                    ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.FileSystem", "./output/linux_filesystem.out", 
-                    ApplicationConfiguration.isOutputInternalMetricsToDisk()));
-            linuxFileSystemCollectorThread.start();
-            metricCollectorThreads_ByThreadId_.put(threadId, linuxFileSystemCollectorThread);
-            Threads.sleepMilliseconds(250);
-        }
+        // high-resolution sampling has to be enabled before the sampled collectors are scheduled
+        long highResolutionSamplingInterval = ApplicationConfiguration.getLinuxHighResolutionSamplingInterval();
+        boolean isHighResolutionSamplingEnabled = (highResolutionSamplingInterval > 0) && (highResolutionSamplingInterval < ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval());
         
-        threadId = "Linux.DiskIO";
-        currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-        if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-            if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-            Thread linuxDiskIoCollectorThread = new Thread(new DiskIoCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
-                    ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.DiskIO", "./output/linux_disk_io.out", 
-                    ApplicationConfiguration.isOutputInternalMetricsToDisk()));
-            linuxDiskIoCollectorThread.start();
-            metricCollectorThreads_ByThreadId_.put(threadId, linuxDiskIoCollectorThread);
-            Threads.sleepMilliseconds(250);
+        if (isHighResolutionSamplingEnabled) {
+            int capacity = HighResolutionSamples.getCapacity(ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), highResolutionSamplingInterval);
+            int[] statistics = HighResolutionSamples.parseStatistics(ApplicationConfiguration.getLinuxHighResolutionStatistics());
+            cpuCollector.enableHighResolutionSampling(capacity, statistics);
+            networkBandwidthCollector.enableHighResolutionSampling(capacity, statistics);
+            diskIoCollector.enableHighResolutionSampling(capacity, statistics);
         }
         
-        threadId = "Linux.ProcessStatus";
-        currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-        if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-            if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-            Thread processStatusCollectorThread = new Thread(new ProcessStatusCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
-                    ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.ProcessStatus", "./output/linux_process_status.out", 
-                    ApplicationConfiguration.isOutputInternalMetricsToDisk()));
-            processStatusCollectorThread.start();
-            metricCollectorThreads_ByThreadId_.put(threadId, processStatusCollectorThread);
-            Threads.sleepMilliseconds(250);
-        }
+        scheduleInternalCollector("Linux.Cpu", cpuCollector);
         
-    }
-    
-    private static void launchProcessCounterCollector() {
-        
-        String threadId;
-        Thread currentThread;
-        
-        threadId = "ProcessCounter";
-        currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-        if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-            if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-            Thread processCounterCollectorThread = new Thread(new ProcessCounterCollector(true,
-                    ApplicationConfiguration.getProcessCounterMetricCollectorCollectionInterval(), "ProcessCounter", "./output/linux_process_counter.out", 
-                    ApplicationConfiguration.isOutputInternalMetricsToDisk(), ApplicationConfiguration.getProcessCounterPrefixesAndRegexes()));
-            processCounterCollectorThread.start();
-            metricCollectorThreads_ByThreadId_.put(threadId, processCounterCollectorThread);
-            Threads.sleepMilliseconds(250);
-        }
+        scheduleInternalCollector("Linux.Network-Bandwidth", networkBandwidthCollector);
         
-    }
+        scheduleInternalCollector("Linux.Memory", new MemoryCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
+                ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.Memory", "./output/linux_memory.out", 
+                ApplicationConfiguration.isOutputInternalMetricsToDisk()));
         
-    private static void launchJmxCollectors() {
+        scheduleInternalCollector("Linux.Uptime", new UptimeCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
+                ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.Uptime", "./output/linux_uptime.out", 
+                ApplicationConfiguration.isOutputInternalMetricsToDisk()));
         
-        if (ApplicationConfiguration.getJmxMetricCollectors() == null) return;
+        scheduleInternalCollector("Linux.FileSystem", new FileSystemCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
+                ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.FileSystem", "./output/linux_filesystem.out", 
+                ApplicationConfiguration.isOutputInternalMetricsToDisk()));
         
-        String threadId;
-        Thread currentThread;
-        int counter = 1;
+        scheduleInternalCollector("Linux.DiskIO", diskIoCollector);
+        
+        scheduleInternalCollector("Linux.ProcessStatus", new ProcessStatusCollector(ApplicationConfiguration.isLinuxMetricCollectorEnable(), 
+                ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), "Linux.ProcessStatus", "./output/linux_process_status.out", 
+                ApplicationConfiguration.isOutputInternalMetricsToDisk()));
         
-        for (JmxMetricCollector jmxMetricCollector : ApplicationConfiguration.getJmxMetricCollectors()) {
-            threadId = "JMX" + "-" + counter++;
-            currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
+        if (isHighResolutionSamplingEnabled) {
+            List<HighResolutionSampleable> sampleables = new ArrayList<>();
+            sampleables.add(cpuCollector);
+            sampleables.add(networkBandwidthCollector);
+            sampleables.add(diskIoCollector);
             
-            if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-                if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-                Thread jmxMetricCollectorThread = new Thread(jmxMetricCollector);
-                jmxMetricCollectorThread.start();
-                metricCollectorThreads_ByThreadId_.put(threadId, jmxMetricCollectorThread);
-                Threads.sleepSeconds(1);
-            }
+            collectorScheduler_.schedule("Linux.HighResolutionSampler", new HighResolutionSampler(highResolutionSamplingInterval, 
+                    ApplicationConfiguration.getLinuxMetricCollectorCollectionInterval(), ApplicationConfiguration.getLinuxHighResolutionCpuBudgetPct(), sampleables));
         }
         
     }
     
-    private static void launchApacheHttpCollectors() {
-        
-        if (ApplicationConfiguration.getApacheHttpMetricCollectors() == null) return;
-        
-        String threadId;
-        Thread currentThread;
-        int counter = 1;
-        
-        for (ApacheHttpMetricCollector apacheHttpMetricCollector : ApplicationConfiguration.getApacheHttpMetricCollectors()) {
-            threadId = "ApacheHTTP" + "-" + counter++;
-            currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-            
-            if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-                if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-                Thread apacheHttpMetricCollectorThread = new Thread(apacheHttpMetricCollector);
-                apacheHttpMetricCollectorThread.start();
-                metricCollectorThreads_ByThreadId_.put(threadId, apacheHttpMetricCollectorThread);
-                Threads.sleepSeconds(1);
-            }
-        }
-        
+    private static void scheduleProcessCounterCollector() {
+        scheduleInternalCollector("ProcessCounter", new ProcessCounterCollector(true,
+                ApplicationConfiguration.getProcessCounterMetricCollectorCollectionInterval(), "ProcessCounter", "./output/linux_process_counter.out", 
+                ApplicationConfiguration.isOutputInternalMetricsToDisk(), ApplicationConfiguration.getProcessCounterPrefixesAndRegexes()));
     }
     
-    private static void launchCadvisorCollectors() {
+    private static void scheduleProcessResourceCollector() {
         
-        if (ApplicationConfiguration.getCadvisorMetricCollectors() == null) return;
-
-        String threadId;
-        Thread currentThread;
-        int counter = 1;
+        if (!ApplicationConfiguration.isProcessResourceCollectorEnable()) return;
         
-        for (CadvisorMetricCollector cadvisorMetricCollector : ApplicationConfiguration.getCadvisorMetricCollectors()) {
-            threadId = "cAdvisor" + "-" + counter++;
-            currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-            
-            if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-                if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-                Thread cadvisorMetricCollectorThread = new Thread(cadvisorMetricCollector);
-                cadvisorMetricCollectorThread.start();
-                metricCollectorThreads_ByThreadId_.put(threadId, cadvisorMetricCollectorThread);
-                Threads.sleepSeconds(1);
-            }
-        }
+        scheduleInternalCollector("ProcessResource", new ProcessResourceCollector(ApplicationConfiguration.isProcessResourceCollectorEnable(),
+                ApplicationConfiguration.getProcessCounterMetricCollectorCollectionInterval(), "ProcessResource", "./output/linux_process_resource.out", 
+                ApplicationConfiguration.isOutputInternalMetricsToDisk(), ApplicationConfiguration.getProcessCounterPrefixesAndRegexes(), 
+                ApplicationConfiguration.getProcessResourceTopN()));
+    }
         
+    private static void scheduleJmxCollectors() {
+        scheduleInternalCollectors("JMX", ApplicationConfiguration.getJmxMetricCollectors());
     }
     
-    private static void launchMongoCollectors() {
-        
-        if (ApplicationConfiguration.getMongoMetricCollectors() == null) return;
-
-        String threadId;
-        Thread currentThread;
-        int counter = 1;
-        
-        for (MongoMetricCollector mongoMetricCollector : ApplicationConfiguration.getMongoMetricCollectors()) {
-            threadId = "Mongo" + "-" + counter++;
-            currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-            
-            if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-                if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-                Thread mongoMetricCollectorThread = new Thread(mongoMetricCollector);
-                mongoMetricCollectorThread.start();
-                metricCollectorThreads_ByThreadId_.put(threadId, mongoMetricCollectorThread);
-                Threads.sleepSeconds(1);
-            }
-        }
-        
+    private static void scheduleApacheHttpCollectors() {
+        scheduleInternalCollectors("ApacheHTTP", ApplicationConfiguration.getApacheHttpMetricCollectors());
     }
     
-    private static void launchMysqlCollectors() {
-        
-        if (ApplicationConfiguration.getMysqlMetricCollectors() == null) return;
-        
-        String threadId;
-        Thread currentThread;
-        int counter = 1;
-        
-        for (MysqlMetricCollector mysqlMetricCollector : ApplicationConfiguration.getMysqlMetricCollectors()) {
-            threadId = "MySQL" + "-" + counter++;
-            currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-            
-            if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-                if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-                Thread mysqlMetricCollectorThread = new Thread(mysqlMetricCollector);
-                mysqlMetricCollectorThread.start();
-                metricCollectorThreads_ByThreadId_.put(threadId, mysqlMetricCollectorThread);
-                Threads.sleepSeconds(1);
-            }
-        }
-        
+    private static void scheduleCadvisorCollectors() {
+        scheduleInternalCollectors("cAdvisor", ApplicationConfiguration.getCadvisorMetricCollectors());
     }
     
-    private static void launchPostgresCollectors() {
-        
-        if (ApplicationConfiguration.getPostgresMetricCollectors() == null) return;
-        
-        String threadId;
-        Thread currentThread;
-        int counter = 1;
-         
-        for (PostgresMetricCollector postgresMetricCollector : ApplicationConfiguration.getPostgresMetricCollectors()) {
-            threadId = "Postgres" + "-" + counter++;
-            currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-            
-            if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-                if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-                Thread postgresMetricCollectorThread = new Thread(postgresMetricCollector);
-                postgresMetricCollectorThread.start();
-                metricCollectorThreads_ByThreadId_.put(threadId, postgresMetricCollectorThread);
-                Threads.sleepSeconds(1);
-            }
-        }
-        
+    private static void scheduleMongoCollectors() {
+        scheduleInternalCollectors("Mongo", ApplicationConfiguration.getMongoMetricCollectors());
+    }
+    
+    private static void scheduleMysqlCollectors() {
+        scheduleInternalCollectors("MySQL", ApplicationConfiguration.getMysqlMetricCollectors());
+    }
+    
+    private static void schedulePostgresCollectors() {
+        scheduleInternalCollectors("Postgres", ApplicationConfiguration.getPostgresMetricCollectors());
     }
     
-    private static void launchDbQueriers() {
+    private static void scheduleDbQueriers() {
+        scheduleInternalCollectors("DB-Querier", ApplicationConfiguration.getDbQueriers());
+    }
+    
+    private static void scheduleInternalCollectors(String taskIdPrefix, List<? extends InternalCollectorFramework> internalCollectors) {
         
-        if (ApplicationConfiguration.getDbQueriers() == null) return;
+        if (internalCollectors == null) return;
         
-        String threadId;
-        Thread currentThread;
         int counter = 1;
         
-        for (DbQuerier dbQuerier : ApplicationConfiguration.getDbQueriers()) {
-            threadId = "DB-Querier" + "-" + counter++;
-            currentThread = metricCollectorThreads_ByThreadId_.get(threadId);
-            
-            if ((currentThread == null) || (!currentThread.isAlive() && currentThread.getState().toString().equals("TERMINATED"))) {
-                if ((currentThread != null) && !currentThread.isAlive()) logger.warn("Dead Metric Collector Thread Detected. ThreadID=" + threadId);
-                Thread dbQuerierThread = new Thread(dbQuerier);
-                dbQuerierThread.start();
-                metricCollectorThreads_ByThreadId_.put(threadId, dbQuerierThread);
-                Threads.sleepSeconds(1);
-            }
+        for (InternalCollectorFramework internalCollector : internalCollectors) {
+            scheduleInternalCollector(taskIdPrefix + "-" + counter++, internalCollector);
         }
         
     }
+    
+    private static void scheduleInternalCollector(String taskId, InternalCollectorFramework internalCollector) {
+        if ((internalCollector == null) || !internalCollector.isEnabled()) return;
+        collectorScheduler_.schedule(taskId, internalCollector);
+    }
      
-    // start 'metric collector' threads & the corresponding 'read from output file' threads
+    // schedule the 'metric collector' programs & the corresponding 'read from output file' collectors
     private static void launchExternalMetricCollectors() {
         
         if (ApplicationConfiguration.getExternalMetricCollectors() == null) return;
 
+        int counter = 1;
+        
+        List<ReadMetricsFromFileThread> readMetricsFromFileThreads = new ArrayList<>();
+        
         for (ExternalMetricCollector metricCollector : ApplicationConfiguration.getExternalMetricCollectors()) {
             logger.info("Message=\"Starting metric collector\", Collector=\"" + metricCollector.getMetricPrefix() + "\"");
-            Thread metricCollectorExecuterThread = new Thread(new ExternalMetricCollectorExecuterThread(metricCollector));
-            metricCollectorExecuterThread.start();
-            
-            Threads.sleepMilliseconds(500);
+            // external program runs block in Process.waitFor, which would pin a virtual thread's carrier, so they always get a platform thread
+            collectorScheduler_.schedule("External" + "-" + counter, new ExternalMetricCollectorExecuterThread(metricCollector), true);
+
+            if (metricCollector.isFileMode()) {
+                ReadMetricsFromFileThread readMetricsFromFileThread = new ReadMetricsFromFileThread(metricCollector.getFileFromOutputPathAndFilename(), 
+                        ApplicationConfiguration.getCheckOutputFilesInterval(), metricCollector.getMetricPrefix());
+                
+                // watch mode -- the file watcher (started below) checks the output file. polling mode -- the output file is checked on the collector scheduler.
+                if (ApplicationConfiguration.isWatchOutputFiles()) readMetricsFromFileThreads.add(readMetricsFromFileThread);
+                else collectorScheduler_.schedule("External-Reader" + "-" + counter, readMetricsFromFileThread);
+            }
             
-            Thread readMetricsFromFileThread = new Thread(new ReadMetricsFromFileThread(metricCollector.getFileFromOutputPathAndFilename(), 
-                    ApplicationConfiguration.getCheckOutputFilesInterval(), metricCollector.getMetricPrefix()));
-            readMetricsFromFileThread.start();
-                  
-            Threads.sleepSeconds(1);
+            counter++;
+        }
+        
+        // watch mode -- a single thread watches all the output files & hands changed files to a shared pool of reader threads
+        if (ApplicationConfiguration.isWatchOutputFiles()) {
+            Thread externalMetricFileWatcherThread = new Thread(new ExternalMetricFileWatcher(readMetricsFromFileThreads, 
+                    ApplicationConfiguration.getCheckOutputFilesInterval(), ApplicationConfiguration.getCheckOutputFilesThreads()));
+            externalMetricFileWatcherThread.start();
         }
         
     }
@@ -12,16 +12,44 @@ public class ExternalMetricCollector {
     
     private static final Logger logger = LoggerFactory.getLogger(ExternalMetricCollector.class.getName());
     
+    public static final String MODE_FILE = "file";
+    public static final String MODE_STDOUT = "stdout";
+    public static final String MODE_DAEMON = "daemon";
+    
     private final String programPathAndFilename_;
     private final long collectionIntervalInMs_;
     private final String outputPathAndFilename_;
     private final String metricPrefix_;
+    private final String mode_;
     
     public ExternalMetricCollector(String programPathAndFilename, long collectionIntervalInMs, String outputPathAndFilename, String metricPrefix) {
+        this(programPathAndFilename, collectionIntervalInMs, outputPathAndFilename, metricPrefix, MODE_FILE);
+    }
+    
+    public ExternalMetricCollector(String programPathAndFilename, long collectionIntervalInMs, String outputPathAndFilename, String metricPrefix, String mode) {
         this.programPathAndFilename_ = programPathAndFilename;
         this.collectionIntervalInMs_ = collectionIntervalInMs;
         this.outputPathAndFilename_ = outputPathAndFilename;
         this.metricPrefix_ = metricPrefix;
+        this.mode_ = (mode == null) ? MODE_FILE : mode;
+    }
+    
+    /*
+    In 'stdout' mode, metrics are parsed from the program's standard-out (instead of from an output file).
+    */
+    public boolean isStdoutMode() {
+        return MODE_STDOUT.equals(mode_);
+    }
+    
+    /*
+    In 'daemon' mode, the program is started once & kept running. It is sent a tick (over stdin) every collection interval, & responds with metrics over stdout.
+    */
+    public boolean isDaemonMode() {
+        return MODE_DAEMON.equals(mode_);
+    }
+    
+    public boolean isFileMode() {
+        return !isStdoutMode() && !isDaemonMode();
     }
     
     public File getFileFromProgramPathAndFilename() {
@@ -61,5 +89,9 @@ public class ExternalMetricCollector {
     public String getMetricPrefix() {
         return metricPrefix_;
     }
+
+    public String getMode() {
+        return mode_;
+    }
     
 }
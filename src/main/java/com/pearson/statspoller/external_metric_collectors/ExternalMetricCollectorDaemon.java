@@ -0,0 +1,186 @@
+package com.pearson.statspoller.external_metric_collectors;
+
+import com.pearson.statspoller.globals.ApplicationConfiguration;
+import com.pearson.statspoller.metric_formats.GenericMetricFormat;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * A long-running ('daemon' mode) external metric collector program.
+ *
+ * The program is started once & kept alive. Every collection interval, a tick line ("tick [current epoch time in ms]") is written to the program's stdin.
+ * The program responds by writing its metrics to stdout, followed by a line containing only "END".
+ * Metrics are output as soon as each line arrives. If a tick's "END" doesn't arrive before the deadline, or if the program exits,
+ * the program is killed & restarted (with an exponential backoff between restarts).
+ * The program should exit when its stdin is closed.
+ */
+public class ExternalMetricCollectorDaemon {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalMetricCollectorDaemon.class.getName());
+
+    public static final String FRAME_TERMINATOR = "END";
+
+    private static final long MINIMUM_RESTART_BACKOFF_IN_MS = 1000;
+    private static final long MAXIMUM_RESTART_BACKOFF_IN_MS = 60000;
+
+    private final ExternalMetricCollector externalMetricCollector_;
+    private final ExternalMetricOutput externalMetricOutput_;
+    private final ProcessStderrLogger processStderrLogger_;
+    private final ExternalMetricCollectorStatistics externalMetricCollectorStatistics_;
+
+    private Process process_ = null;
+    private OutputStream stdinOutputStream_ = null;
+    private Semaphore completedFrames_ = null;
+
+    private int numConsecutiveFailures_ = 0;
+    private long nextAllowedStartTimestamp_ = 0;
+
+    public ExternalMetricCollectorDaemon(ExternalMetricCollector externalMetricCollector, ExternalMetricOutput externalMetricOutput, ProcessStderrLogger processStderrLogger,
+            ExternalMetricCollectorStatistics externalMetricCollectorStatistics) {
+        this.externalMetricCollector_ = externalMetricCollector;
+        this.externalMetricOutput_ = externalMetricOutput;
+        this.processStderrLogger_ = processStderrLogger;
+        this.externalMetricCollectorStatistics_ = externalMetricCollectorStatistics;
+    }
+
+    /*
+    Sends a tick to the program (starting or restarting it first if needed) & waits up to 'deadlineInMs' for the program to finish responding.
+    Returns true if the program responded in time.
+    */
+    public boolean tick(long deadlineInMs) {
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            if ((process_ != null) && !process_.isAlive()) {
+                logger.warn("Collector=\"" + externalMetricCollector_.getMetricPrefix() + "\", Message=\"External metric collector daemon exited\", ExitCode=" + process_.exitValue());
+                externalMetricCollectorStatistics_.recordExitCode(process_.exitValue());
+                recordFailure();
+                stop();
+            }
+
+            if (process_ == null) {
+                if (System.currentTimeMillis() < nextAllowedStartTimestamp_) return false;
+                start();
+            }
+
+            // discard responses to earlier ticks that arrived after their deadline
+            completedFrames_.drainPermits();
+
+            stdinOutputStream_.write(("tick " + System.currentTimeMillis() + "\n").getBytes(StandardCharsets.UTF_8));
+            stdinOutputStream_.flush();
+
+            if (completedFrames_.tryAcquire(deadlineInMs, TimeUnit.MILLISECONDS)) {
+                numConsecutiveFailures_ = 0;
+                externalMetricCollectorStatistics_.recordRun(System.currentTimeMillis() - startTime, null, false);
+                return true;
+            }
+
+            externalMetricCollectorStatistics_.recordRun(System.currentTimeMillis() - startTime, null, true);
+            logger.warn("Collector=\"" + externalMetricCollector_.getMetricPrefix() + "\", Message=\"External metric collector daemon missed its deadline. Restarting.\", DeadlineMs=" + deadlineInMs);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+
+        recordFailure();
+        stop();
+
+        return false;
+    }
+
+    private void start() throws Exception {
+
+        String[] commands = externalMetricCollector_.getProgramPathAndFilename().split(" ");
+        final Process process = new ProcessBuilder(commands).start();
+        final Semaphore completedFrames = new Semaphore(0);
+
+        // each process gets its own stdout thread, which ends when the process's stdout closes
+        Thread stdoutThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readStdout(process.getInputStream(), completedFrames);
+            }
+        });
+        stdoutThread.setDaemon(true);
+        stdoutThread.start();
+
+        ExternalMetricCollectorSupervisor.drainStderr(process.getErrorStream(), processStderrLogger_);
+
+        process_ = process;
+        stdinOutputStream_ = process.getOutputStream();
+        completedFrames_ = completedFrames;
+
+        logger.info("Collector=\"" + externalMetricCollector_.getMetricPrefix() + "\", Message=\"Started external metric collector daemon\"");
+    }
+
+    /*
+    Closes stdin (which asks the program to exit), then kills the program (& its descendants).
+    */
+    public void stop() {
+
+        if (process_ == null) return;
+
+        try {
+            stdinOutputStream_.close();
+        }
+        catch (Exception e) {
+            logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+
+        ExternalMetricCollectorSupervisor.killProcess(process_);
+
+        process_ = null;
+        stdinOutputStream_ = null;
+        completedFrames_ = null;
+    }
+
+    private void readStdout(InputStream stdoutInputStream, Semaphore completedFrames) {
+
+        MetricFileParser metricFileParser = new MetricFileParser(8192);
+        metricFileParser.setFrameTerminator(FRAME_TERMINATOR);
+
+        try {
+            while (true) {
+                boolean isEndOfStream = (metricFileParser.readFromStream(stdoutInputStream) < 0);
+                long numFramesCompletedBeforeParse = metricFileParser.getNumFramesCompleted();
+
+                List<GenericMetricFormat> metrics = metricFileParser.parseBufferedLines(externalMetricOutput_.getMetricPrefix(),
+                        ApplicationConfiguration.getApplicationStartTimeInMs(), System.currentTimeMillis(), isEndOfStream);
+                if (!metrics.isEmpty()) externalMetricOutput_.outputNewMetrics(metrics);
+
+                long numFramesCompleted = metricFileParser.getNumFramesCompleted() - numFramesCompletedBeforeParse;
+                if (numFramesCompleted > 0) completedFrames.release((int) numFramesCompleted);
+
+                if (isEndOfStream) break;
+            }
+        }
+        catch (Exception e) {
+            logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+        finally {
+            try {
+                stdoutInputStream.close();
+            }
+            catch (Exception e) {
+                logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+        }
+    }
+
+    private void recordFailure() {
+        numConsecutiveFailures_++;
+        long restartBackoffInMs = MINIMUM_RESTART_BACKOFF_IN_MS << Math.min(numConsecutiveFailures_ - 1, 16);
+        nextAllowedStartTimestamp_ = System.currentTimeMillis() + Math.min(restartBackoffInMs, MAXIMUM_RESTART_BACKOFF_IN_MS);
+    }
+
+}
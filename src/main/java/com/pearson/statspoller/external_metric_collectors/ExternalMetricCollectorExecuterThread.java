@@ -1,55 +1,162 @@
 package com.pearson.statspoller.external_metric_collectors;
 
+import com.pearson.statspoller.collector_scheduler.SchedulableCollector;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
 import com.pearson.statspoller.globals.ApplicationConfiguration;
+import com.pearson.statspoller.metric_formats.GenericMetricFormat;
+import java.io.File;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.lang3.SystemUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * @author Jeffrey Schmidt
  */
-public class ExternalMetricCollectorExecuterThread implements Runnable {
-    
+public class ExternalMetricCollectorExecuterThread implements SchedulableCollector {
+
     private static final Logger logger = LoggerFactory.getLogger(ExternalMetricCollectorExecuterThread.class.getName());
-    
+
+    private static final int MAX_STDERR_LINES_PER_MINUTE = 10;
+    private static final File NULL_FILE = new File(SystemUtils.IS_OS_WINDOWS ? "NUL" : "/dev/null");
+
     private final ExternalMetricCollector externalMetricCollector_;
-    
+    private final ExternalMetricCollectorStatistics externalMetricCollectorStatistics_;
+    private final ProcessStderrLogger processStderrLogger_;
+
+    // only used in 'stdout' & 'daemon' modes
+    private final ExternalMetricOutput externalMetricOutput_;
+    private final MetricFileParser metricFileParser_;
+    private final ExternalMetricCollectorDaemon externalMetricCollectorDaemon_;
+
     public ExternalMetricCollectorExecuterThread(ExternalMetricCollector externalMetricCollector) {
         this.externalMetricCollector_ = externalMetricCollector;
+        this.externalMetricCollectorStatistics_ = ExternalMetricCollectorSupervisor.getStatistics(externalMetricCollector_.getMetricPrefix());
+        this.processStderrLogger_ = new ProcessStderrLogger(externalMetricCollector_.getMetricPrefix(), MAX_STDERR_LINES_PER_MINUTE, 60000);
+
+        this.externalMetricOutput_ = externalMetricCollector_.isFileMode() ? null : new ExternalMetricOutput(externalMetricCollector_.getMetricPrefix());
+        this.metricFileParser_ = externalMetricCollector_.isStdoutMode() ? new MetricFileParser(8192) : null;
+        this.externalMetricCollectorDaemon_ = externalMetricCollector_.isDaemonMode() ?
+                new ExternalMetricCollectorDaemon(externalMetricCollector_, externalMetricOutput_, processStderrLogger_, externalMetricCollectorStatistics_) : null;
     }
-    
+
+    @Override
+    public void initializeCollector() {
+    }
+
+    /*
+    Runs the program once. If all of the global run slots are taken when the run is due, the run is skipped.
+    */
     @Override
-    public void run() {
-        
-        while (true) {
-            long startTime = System.currentTimeMillis();
-            
+    public void collectMetrics() {
+
+        boolean isRunPermitAcquired = ExternalMetricCollectorSupervisor.acquireRunPermit(0);
+
+        try {
+            if (!isRunPermitAcquired) {
+                externalMetricCollectorStatistics_.recordSkippedRun();
+                logger.warn("Collector=\"" + externalMetricCollector_.getMetricPrefix() + "\", Message=\"Skipped external metric collector run. Too many collectors are already running.\"");
+            }
+            else if ((externalMetricCollector_.getProgramPathAndFilename() != null) && !externalMetricCollector_.getProgramPathAndFilename().isEmpty()) {
+                if (externalMetricCollector_.isDaemonMode()) externalMetricCollectorDaemon_.tick(getRunDeadlineInMs());
+                else execute();
+            }
+        }
+        catch (Exception e) {
+            if (ApplicationConfiguration.isLegacyMode()) logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            else logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+        finally {
+            if (isRunPermitAcquired) ExternalMetricCollectorSupervisor.releaseRunPermit();
+        }
+
+        logger.debug("FinishedExecuting=\"" + externalMetricCollector_.getProgramPathAndFilename() + "\"");
+    }
+
+    /*
+    Runs the program & waits for it to exit (killing it if it runs past its deadline).
+    In 'stdout' mode, stdout is parsed as it arrives -- metrics are handed to the output queues as soon as each line is complete (no output file is involved).
+    In 'file' mode, stdout is discarded. In both modes, stderr is drained & logged (rate limited).
+    */
+    private void execute() throws Exception {
+
+        long startTime = System.currentTimeMillis();
+
+        String[] commands = externalMetricCollector_.getProgramPathAndFilename().split(" ");
+        ProcessBuilder processBuilder = new ProcessBuilder(commands);
+        processBuilder.redirectInput(NULL_FILE);
+        if (externalMetricCollector_.isFileMode()) processBuilder.redirectOutput(NULL_FILE);
+
+        Process process = processBuilder.start();
+
+        AtomicBoolean wasKilled = new AtomicBoolean(false);
+        ScheduledFuture<?> deadline = ExternalMetricCollectorSupervisor.scheduleDeadline(process, getRunDeadlineInMs(), wasKilled, externalMetricCollector_.getMetricPrefix());
+        ExternalMetricCollectorSupervisor.drainStderr(process.getErrorStream(), processStderrLogger_);
+
+        int newMetricCount = 0;
+        Integer exitCode = null;
+
+        try {
+            if (externalMetricCollector_.isStdoutMode()) newMetricCount = readStdout(process.getInputStream());
+            exitCode = process.waitFor();
+        }
+        finally {
+            deadline.cancel(false);
+            if (process.isAlive()) ExternalMetricCollectorSupervisor.killProcess(process);
+
+            externalMetricCollectorStatistics_.recordRun(System.currentTimeMillis() - startTime, exitCode, wasKilled.get());
+        }
+
+        if (externalMetricCollector_.isStdoutMode()) {
+            String outputStatusString = "Finished reading metrics from stdout. Collector=\"" + externalMetricCollector_.getMetricPrefix() + "\", NewMetricCount=" + newMetricCount + ", ExitCode=" + exitCode;
+            if (newMetricCount > 0) logger.info(outputStatusString);
+            else logger.debug(outputStatusString);
+        }
+    }
+
+    private int readStdout(InputStream stdoutInputStream) throws Exception {
+
+        metricFileParser_.setBufferContents(null);
+        int newMetricCount = 0;
+
+        try {
+            while (true) {
+                boolean isEndOfStream = (metricFileParser_.readFromStream(stdoutInputStream) < 0);
+
+                List<GenericMetricFormat> metrics = metricFileParser_.parseBufferedLines(externalMetricOutput_.getMetricPrefix(),
+                        ApplicationConfiguration.getApplicationStartTimeInMs(), System.currentTimeMillis(), isEndOfStream);
+                if (!metrics.isEmpty()) newMetricCount += externalMetricOutput_.outputNewMetrics(metrics).size();
+
+                if (isEndOfStream) break;
+            }
+        }
+        finally {
             try {
-                if ((externalMetricCollector_.getProgramPathAndFilename() != null) && !externalMetricCollector_.getProgramPathAndFilename().isEmpty()) {
-                    String[] commands = externalMetricCollector_.getProgramPathAndFilename().split(" ");
-                    ProcessBuilder processBuilder = new ProcessBuilder(commands);
-                    processBuilder.start();
-                }
+                stdoutInputStream.close();
             }
             catch (Exception e) {
-                if (ApplicationConfiguration.isLegacyMode()) logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-                else logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+                logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
             }
-            
-            long elaspedTime = System.currentTimeMillis() - startTime;
-            
-            long sleepTime = externalMetricCollector_.getCollectionIntervalInMs() - elaspedTime;
-            
-            logger.debug("FinishedExecuting=\"" + externalMetricCollector_.getProgramPathAndFilename() + "\", SleepingFor=" + sleepTime + "ms");
-            
-            Threads.sleepMilliseconds(sleepTime);         
         }
-        
+
+        return newMetricCount;
+    }
+
+    private long getRunDeadlineInMs() {
+        long runTimeout = ApplicationConfiguration.getExternalMetricCollectorRunTimeout();
+        return (runTimeout > 0) ? runTimeout : externalMetricCollector_.getCollectionIntervalInMs();
+    }
+
+    @Override
+    public long getCollectionInterval() {
+        return externalMetricCollector_.getCollectionIntervalInMs();
     }
 
     public ExternalMetricCollector getExternalMetricCollector() {
         return externalMetricCollector_;
     }
-    
-}
\ No newline at end of file
+
+}
@@ -0,0 +1,63 @@
+package com.pearson.statspoller.external_metric_collectors;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Run statistics for a single external metric collector. Output as agent metrics by the 'StatsPoller Native' collector.
+ */
+public class ExternalMetricCollectorStatistics {
+
+    private final String collectorName_;
+
+    private final AtomicLong runCount_ = new AtomicLong(0);
+    private final AtomicLong overrunCount_ = new AtomicLong(0);
+    private final AtomicLong skippedRunCount_ = new AtomicLong(0);
+    private volatile long lastRuntimeInMs_ = -1;
+    private volatile Integer lastExitCode_ = null;
+
+    public ExternalMetricCollectorStatistics(String collectorName) {
+        this.collectorName_ = collectorName;
+    }
+
+    public void recordRun(long runtimeInMs, Integer exitCode, boolean wasOverrun) {
+        runCount_.incrementAndGet();
+        lastRuntimeInMs_ = runtimeInMs;
+        if (exitCode != null) lastExitCode_ = exitCode;
+        if (wasOverrun) overrunCount_.incrementAndGet();
+    }
+
+    public void recordExitCode(int exitCode) {
+        lastExitCode_ = exitCode;
+    }
+
+    public void recordSkippedRun() {
+        skippedRunCount_.incrementAndGet();
+    }
+
+    public String getCollectorName() {
+        return collectorName_;
+    }
+
+    public long getRunCount() {
+        return runCount_.get();
+    }
+
+    public long getOverrunCount() {
+        return overrunCount_.get();
+    }
+
+    public long getSkippedRunCount() {
+        return skippedRunCount_.get();
+    }
+
+    public long getLastRuntimeInMs() {
+        return lastRuntimeInMs_;
+    }
+
+    public Integer getLastExitCode() {
+        return lastExitCode_;
+    }
+
+}
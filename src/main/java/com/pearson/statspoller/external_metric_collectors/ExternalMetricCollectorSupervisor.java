@@ -0,0 +1,194 @@
+package com.pearson.statspoller.external_metric_collectors;
+
+import com.pearson.statspoller.globals.ApplicationConfiguration;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Shared supervision for external metric collector processes:
+ *   - a global cap on the number of collector runs that can be in-flight at once (external_metric_collector_max_concurrent_runs)
+ *   - deadline enforcement -- a run that exceeds its deadline is killed (along with its child processes, where the JVM supports it)
+ *   - per-collector run statistics (runtime, exit code, overruns, skipped runs)
+ *   - a shared thread pool for draining the stderr of collector processes
+ * Each collector only ever has one run in-flight, since the collector scheduler skips (rather than queues) runs that are due while the previous run is still going.
+ */
+public class ExternalMetricCollectorSupervisor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalMetricCollectorSupervisor.class.getName());
+
+    private static final long KILL_GRACE_PERIOD_IN_MS = 2000;
+
+    private static final Map<String,ExternalMetricCollectorStatistics> statistics_ByCollectorName_ = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService deadlineExecutor_ = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ExternalCollector-Deadline"));
+    private static final ExecutorService stderrDrainerThreadPool_ = Executors.newCachedThreadPool(new DaemonThreadFactory("ExternalCollector-Stderr"));
+
+    private static Semaphore runPermits_ = null;
+
+    /*
+    Waits up to 'timeoutInMs' for one of the global run slots. Returns false if no slot became available.
+    */
+    public static boolean acquireRunPermit(long timeoutInMs) {
+
+        try {
+            return getRunPermits().tryAcquire(Math.max(timeoutInMs, 0), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public static void releaseRunPermit() {
+        getRunPermits().release();
+    }
+
+    /*
+    Kills the process (& its descendants) if it is still running after 'deadlineInMs'. 'wasKilled' is set to true if the deadline was hit.
+    The returned future should be cancelled once the process has finished.
+    */
+    public static ScheduledFuture<?> scheduleDeadline(final Process process, long deadlineInMs, final AtomicBoolean wasKilled, final String collectorName) {
+
+        return deadlineExecutor_.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (!process.isAlive()) return;
+
+                wasKilled.set(true);
+                logger.warn("Collector=\"" + collectorName + "\", Message=\"External metric collector exceeded its deadline. Killing it.\"");
+                killProcess(process);
+            }
+        }, Math.max(deadlineInMs, 1), TimeUnit.MILLISECONDS);
+    }
+
+    /*
+    Asks the process (& its descendants) to exit, then forcibly kills whatever is still alive after the grace period.
+    Doesn't block -- the forcible kill is scheduled on the deadline thread, so one slow-to-exit process can't hold up the deadlines of other collectors.
+    */
+    public static void killProcess(final Process process) {
+
+        if (process == null) return;
+
+        try {
+            final List<Object> descendantProcessHandles = getDescendantProcessHandles(process);
+
+            process.destroy();
+            for (Object processHandle : descendantProcessHandles) invokeProcessHandleMethod(processHandle, "destroy");
+
+            deadlineExecutor_.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (process.isAlive()) process.destroyForcibly();
+                    for (Object processHandle : descendantProcessHandles) invokeProcessHandleMethod(processHandle, "destroyForcibly");
+                }
+            }, KILL_GRACE_PERIOD_IN_MS, TimeUnit.MILLISECONDS);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+    }
+
+    /*
+    Drains (& logs) a process's stderr on the shared stderr thread pool.
+    */
+    public static void drainStderr(final InputStream stderrInputStream, final ProcessStderrLogger processStderrLogger) {
+
+        stderrDrainerThreadPool_.execute(new Runnable() {
+            @Override
+            public void run() {
+                processStderrLogger.drainStream(stderrInputStream);
+            }
+        });
+    }
+
+    public static ExternalMetricCollectorStatistics getStatistics(String collectorName) {
+
+        String key = (collectorName == null) ? "" : collectorName;
+
+        ExternalMetricCollectorStatistics statistics = statistics_ByCollectorName_.get(key);
+        if (statistics != null) return statistics;
+
+        statistics_ByCollectorName_.putIfAbsent(key, new ExternalMetricCollectorStatistics(key));
+        return statistics_ByCollectorName_.get(key);
+    }
+
+    public static List<ExternalMetricCollectorStatistics> getAllStatistics() {
+        return new ArrayList<>(statistics_ByCollectorName_.values());
+    }
+
+    private static synchronized Semaphore getRunPermits() {
+        if (runPermits_ == null) runPermits_ = new Semaphore(Math.max(ApplicationConfiguration.getExternalMetricCollectorMaxConcurrentRuns(), 1), true);
+        return runPermits_;
+    }
+
+    // ProcessHandle (java 9+) is accessed via reflection, since this codebase targets java 8. On java 8, only the direct child process gets killed.
+    private static List<Object> getDescendantProcessHandles(Process process) {
+
+        List<Object> descendantProcessHandles = new ArrayList<>();
+
+        try {
+            Method descendantsMethod = Process.class.getMethod("descendants");
+            Stream<?> descendants = (Stream<?>) descendantsMethod.invoke(process);
+
+            Iterator<?> iterator = descendants.iterator();
+            while (iterator.hasNext()) descendantProcessHandles.add(iterator.next());
+        }
+        catch (NoSuchMethodException e) {
+            // java 8
+        }
+        catch (Exception e) {
+            logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+
+        return descendantProcessHandles;
+    }
+
+    private static void invokeProcessHandleMethod(Object processHandle, String methodName) {
+
+        try {
+            Method method = Class.forName("java.lang.ProcessHandle").getMethod(methodName);
+            method.invoke(processHandle);
+        }
+        catch (Exception e) {
+            logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final String threadNamePrefix_;
+        private int threadCount_ = 0;
+
+        public DaemonThreadFactory(String threadNamePrefix) {
+            this.threadNamePrefix_ = threadNamePrefix;
+        }
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, threadNamePrefix_ + "-" + (++threadCount_));
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,208 @@
+package com.pearson.statspoller.external_metric_collectors;
+
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.Threads;
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Watches the directories of all 'external metric collector' output files with a single WatchService.
+ * When an output file changes, its reader is queued on a small shared thread pool, so the number of threads doesn't grow with the number of collectors.
+ * Every 'check_output_files_interval', all files are queued regardless of events (a safety net for filesystems that don't deliver events).
+ * If a WatchService can't be created, this falls back to only doing the periodic check.
+ */
+public class ExternalMetricFileWatcher implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalMetricFileWatcher.class.getName());
+
+    // a file is read once it has gone this long without a new event. approximates 'the writer has closed the file'.
+    private static final long QUIET_PERIOD_IN_MS = 50;
+
+    private final List<ReadMetricsFromFileThread> readMetricsFromFileThreads_;
+    private final long checkFilesIntervalInMilliseconds_;
+    private final ExecutorService readerThreadPool_;
+
+    private final Map<Path,List<ReadMetricsFromFileThread>> readMetricsFromFileThreads_ByFilePath_ = new HashMap<>();
+    private final Map<Path,List<Path>> filePaths_ByDirectory_ = new HashMap<>();
+    private final Map<WatchKey,Path> directories_ByWatchKey_ = new HashMap<>();
+    private final Map<Path,Long> lastEventTimestamps_ByFilePath_ = new HashMap<>();
+
+    private WatchService watchService_ = null;
+
+    public ExternalMetricFileWatcher(List<ReadMetricsFromFileThread> readMetricsFromFileThreads, long checkFilesIntervalInMilliseconds, int numReaderThreads) {
+        this.readMetricsFromFileThreads_ = (readMetricsFromFileThreads == null) ? new ArrayList<ReadMetricsFromFileThread>() : readMetricsFromFileThreads;
+        this.checkFilesIntervalInMilliseconds_ = Math.max(checkFilesIntervalInMilliseconds, 1);
+        this.readerThreadPool_ = Executors.newFixedThreadPool(Math.max(numReaderThreads, 1));
+
+        for (ReadMetricsFromFileThread readMetricsFromFileThread : readMetricsFromFileThreads_) {
+            File fileToMonitor = readMetricsFromFileThread.getFileToMonitor();
+            if (fileToMonitor == null) continue;
+
+            Path filePath = fileToMonitor.toPath().toAbsolutePath().normalize();
+            Path directory = filePath.getParent();
+            if (directory == null) continue;
+
+            List<ReadMetricsFromFileThread> readers = readMetricsFromFileThreads_ByFilePath_.get(filePath);
+            if (readers == null) {
+                readers = new ArrayList<>();
+                readMetricsFromFileThreads_ByFilePath_.put(filePath, readers);
+
+                List<Path> filePaths = filePaths_ByDirectory_.get(directory);
+                if (filePaths == null) {
+                    filePaths = new ArrayList<>();
+                    filePaths_ByDirectory_.put(directory, filePaths);
+                }
+                filePaths.add(filePath);
+            }
+            readers.add(readMetricsFromFileThread);
+        }
+    }
+
+    @Override
+    public void run() {
+
+        try {
+            watchService_ = FileSystems.getDefault().newWatchService();
+        }
+        catch (Exception e) {
+            watchService_ = null;
+            logger.warn("Unable to create a directory watch service. Falling back to polling external metric collector output files. " + e.toString());
+        }
+
+        long nextFullCheckTimestamp = 0;
+
+        while (true) {
+            try {
+                long currentTimestamp = System.currentTimeMillis();
+
+                if (currentTimestamp >= nextFullCheckTimestamp) {
+                    registerDirectories();
+                    lastEventTimestamps_ByFilePath_.clear();
+                    for (ReadMetricsFromFileThread readMetricsFromFileThread : readMetricsFromFileThreads_) queueRead(readMetricsFromFileThread);
+                    nextFullCheckTimestamp = currentTimestamp + checkFilesIntervalInMilliseconds_;
+                }
+
+                long waitTimeInMs = Math.max(nextFullCheckTimestamp - currentTimestamp, 1);
+                if (!lastEventTimestamps_ByFilePath_.isEmpty()) waitTimeInMs = Math.min(waitTimeInMs, QUIET_PERIOD_IN_MS);
+
+                if (watchService_ == null) {
+                    Threads.sleepMilliseconds(waitTimeInMs);
+                    continue;
+                }
+
+                WatchKey watchKey = watchService_.poll(waitTimeInMs, TimeUnit.MILLISECONDS);
+                while (watchKey != null) {
+                    processWatchKey(watchKey);
+                    watchKey = watchService_.poll();
+                }
+
+                queueQuietFiles(System.currentTimeMillis());
+            }
+            catch (Exception e) {
+                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+                Threads.sleepMilliseconds(1000);
+            }
+        }
+
+    }
+
+    /*
+    Registers any output directories that aren't already being watched. Directories that don't exist yet are retried on the next full check.
+    */
+    private void registerDirectories() {
+
+        if (watchService_ == null) return;
+
+        for (Path directory : filePaths_ByDirectory_.keySet()) {
+            if (directories_ByWatchKey_.containsValue(directory) || !Files.isDirectory(directory)) continue;
+
+            try {
+                WatchKey watchKey = directory.register(watchService_, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                directories_ByWatchKey_.put(watchKey, directory);
+                logger.debug("Watching directory for external metric collector output. Directory=\"" + directory + "\"");
+            }
+            catch (Exception e) {
+                logger.warn("Unable to watch directory. Directory=\"" + directory + "\", " + e.toString());
+            }
+        }
+
+    }
+
+    private void processWatchKey(WatchKey watchKey) {
+
+        Path directory = directories_ByWatchKey_.get(watchKey);
+        if (directory == null) {
+            watchKey.cancel();
+            return;
+        }
+
+        long currentTimestamp = System.currentTimeMillis();
+
+        for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+            if (watchEvent.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, so every file in the directory has to be assumed changed
+                for (Path filePath : filePaths_ByDirectory_.get(directory)) lastEventTimestamps_ByFilePath_.put(filePath, currentTimestamp);
+                continue;
+            }
+
+            Object context = watchEvent.context();
+            if (!(context instanceof Path)) continue;
+
+            Path filePath = directory.resolve((Path) context);
+            if (readMetricsFromFileThreads_ByFilePath_.containsKey(filePath)) lastEventTimestamps_ByFilePath_.put(filePath, currentTimestamp);
+        }
+
+        // the directory was deleted (or became inaccessible). it gets re-registered on the next full check if it comes back.
+        if (!watchKey.reset()) directories_ByWatchKey_.remove(watchKey);
+
+    }
+
+    private void queueQuietFiles(long currentTimestamp) {
+
+        Iterator<Map.Entry<Path,Long>> iterator = lastEventTimestamps_ByFilePath_.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Path,Long> entry = iterator.next();
+            if ((currentTimestamp - entry.getValue()) < QUIET_PERIOD_IN_MS) continue;
+
+            for (ReadMetricsFromFileThread readMetricsFromFileThread : readMetricsFromFileThreads_ByFilePath_.get(entry.getKey())) queueRead(readMetricsFromFileThread);
+            iterator.remove();
+        }
+
+    }
+
+    /*
+    Queues a read on the shared thread pool, unless one is already queued for this reader (bursts of events coalesce into one read).
+    */
+    private void queueRead(final ReadMetricsFromFileThread readMetricsFromFileThread) {
+
+        if (!readMetricsFromFileThread.markReadQueued()) return;
+
+        readerThreadPool_.execute(new Runnable() {
+            @Override
+            public void run() {
+                readMetricsFromFileThread.readMetricsFromFile();
+            }
+        });
+
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.pearson.statspoller.external_metric_collectors;
+
+import com.pearson.statspoller.globals.ApplicationConfiguration;
+import com.pearson.statspoller.globals.GlobalVariables;
+import com.pearson.statspoller.metric_formats.GenericMetricFormat;
+import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbMetric;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Hands the metrics from one external metric collector off to the output queues.
+ * Metrics are only output if they're newer than the newest previously output metric of the same series (so re-reading the same output doesn't re-send metrics).
+ */
+public class ExternalMetricOutput {
+
+    private final String metricPrefix_;
+    private final MetricTimestampIndex previousMetricTimestamps_ = new MetricTimestampIndex(ApplicationConfiguration.getMaxMetricAge());
+
+    public ExternalMetricOutput(String metricCollectorPrefix) {
+        this.metricPrefix_ = buildMetricPrefix(metricCollectorPrefix);
+    }
+
+    /*
+    Outputs the metrics that haven't been output before. Returns the metrics that were output.
+    Synchronized because the previous-timestamps state isn't thread-safe.
+    */
+    public synchronized List<GenericMetricFormat> outputNewMetrics(List<GenericMetricFormat> metrics) {
+
+        long oldestValidMetricTimestampInMs = System.currentTimeMillis() - ApplicationConfiguration.getMaxMetricAge();
+
+        List<GenericMetricFormat> newMetrics = new ArrayList<>();
+
+        if (metrics != null) {
+            for (GenericMetricFormat metric : metrics) {
+                // a series that is older than 'max_metric_age' has been forgotten (see below), so it can only be kept from being re-output here
+                if (metric.getMetricTimestampInMilliseconds() < oldestValidMetricTimestampInMs) continue;
+                if (!previousMetricTimestamps_.updateIfNewer(metric.getMetricKey(), metric.getMetricTimestampInMilliseconds())) continue;
+
+                metric.setMetricHashKey(GlobalVariables.metricHashKeyGenerator.incrementAndGet());
+                if (metric instanceof GraphiteMetric) GlobalVariables.graphiteMetrics.put(metric.getMetricHashKey(), (GraphiteMetric) metric);
+                else if (metric instanceof OpenTsdbMetric) GlobalVariables.openTsdbMetrics.put(metric.getMetricHashKey(), (OpenTsdbMetric) metric);
+                newMetrics.add(metric);
+            }
+        }
+
+        // forgets series whose newest timestamp is older than 'max_metric_age'. only the expiry slots that have passed since the last call are visited.
+        previousMetricTimestamps_.expire(oldestValidMetricTimestampInMs);
+
+        return newMetrics;
+    }
+
+    /*
+    The global metric prefix + the collector's metric prefix, each followed by a '.'
+    */
+    public static String buildMetricPrefix(String metricCollectorPrefix) {
+
+        String metricPrefix = "";
+        if (ApplicationConfiguration.isGlobalMetricNamePrefixEnabled() && (ApplicationConfiguration.getGlobalMetricNamePrefix() != null)) metricPrefix += ApplicationConfiguration.getGlobalMetricNamePrefix();
+        if (!metricPrefix.isEmpty() && !metricPrefix.endsWith(".")) metricPrefix += ".";
+        if (metricCollectorPrefix != null) metricPrefix += metricCollectorPrefix;
+        if (!metricPrefix.isEmpty() && !metricPrefix.endsWith(".")) metricPrefix += ".";
+
+        return metricPrefix;
+    }
+
+    public String getMetricPrefix() {
+        return metricPrefix_;
+    }
+
+}
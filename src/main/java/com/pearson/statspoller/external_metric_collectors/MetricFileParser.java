@@ -0,0 +1,521 @@
+package com.pearson.statspoller.external_metric_collectors;
+
+import com.pearson.statspoller.metric_formats.GenericMetricFormat;
+import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbMetric;
+import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbTag;
+import com.pearson.statspoller.utilities.core_utils.LongHashSet;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.Threads;
+import com.pearson.statspoller.utilities.math_utils.XxHash64;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Single-pass, byte-level parser for the metric files that are written by external metric collectors.
+ *
+ * The file is read into a reusable byte buffer, and each line is trimmed, tokenized, classified (graphite vs opentsdb), and parsed in place.
+ * Token positions are tracked in reusable int arrays & metric values are decoded through a reusable char array, so the only objects that
+ * get created for a valid line are the ones that make up the final metric (metric path/name, value, tags, and the metric object itself).
+ *
+ * A line with exactly 3 space-delimited fields is treated as a graphite metric. A line with more than 3 fields is treated as an opentsdb metric.
+ *
+ * Optionally, lines that are byte-for-byte identical to a line from the previous parse are skipped before they're parsed.
+ * An unchanged line can only produce a metric that was already output, so for files that are mostly rewritten with the same content,
+ * the per-line cost drops to a hash (xxHash64) & a primitive set lookup.
+ *
+ * Instances are not thread-safe. Each ReadMetricsFromFileThread owns its own parser.
+ */
+public class MetricFileParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricFileParser.class.getName());
+
+    private static final int DEFAULT_INITIAL_BUFFER_SIZE = 65536;
+    private static final int MAX_METRIC_VALUE_LENGTH = 100;
+
+    private byte[] buffer_;
+    private int bufferLength_ = 0;
+
+    private int[] tokenStartPositions_ = new int[16];
+    private int[] tokenEndPositions_ = new int[16];
+    private char[] charBuffer_ = new char[256];
+
+    // hashes of every line from the previous (& current) parse. swapped after each parse, so lines that disappear from the file are forgotten.
+    private LongHashSet previousLineHashes_ = new LongHashSet();
+    private LongHashSet currentLineHashes_ = new LongHashSet();
+    private int numUnchangedLinesSkipped_ = 0;
+
+    // optional. when set, lines that consist of only this marker are counted as 'end of frame' instead of being parsed (see ExternalMetricCollectorDaemon).
+    private byte[] frameTerminator_ = null;
+    private long numFramesCompleted_ = 0;
+
+    public MetricFileParser() {
+        this.buffer_ = new byte[DEFAULT_INITIAL_BUFFER_SIZE];
+    }
+
+    public MetricFileParser(int initialBufferSize) {
+        this.buffer_ = new byte[Math.max(initialBufferSize, 16)];
+    }
+
+    /*
+    Reads the entire file into the parser's buffer. Returns false if the file couldn't be read after all retries.
+    */
+    public boolean readFile(File file, int numRetries, int timeBetweenRetriesInMilliseconds) {
+
+        if ((file == null) || (numRetries < 0) || (timeBetweenRetriesInMilliseconds < 0)) {
+            return false;
+        }
+
+        for (int i = 0; i <= numRetries; i++) {
+            boolean isReadSuccess = readFile(file);
+            if (isReadSuccess) return true;
+            if (i < numRetries) Threads.sleepMilliseconds(timeBetweenRetriesInMilliseconds);
+        }
+
+        return false;
+    }
+
+    private boolean readFile(File file) {
+
+        FileInputStream fileInputStream = null;
+        bufferLength_ = 0;
+
+        try {
+            fileInputStream = new FileInputStream(file);
+
+            // +1 so that a file that is exactly the expected size can be read to EOF without growing the buffer
+            long expectedFileSize = fileInputStream.getChannel().size();
+            ensureBufferCapacity(expectedFileSize + 1);
+
+            int numBytesRead;
+            while ((numBytesRead = fileInputStream.read(buffer_, bufferLength_, buffer_.length - bufferLength_)) != -1) {
+                bufferLength_ += numBytesRead;
+                if (bufferLength_ == buffer_.length) ensureBufferCapacity((long) buffer_.length * 2);
+            }
+
+            return true;
+        }
+        catch (Exception e) {
+            logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            bufferLength_ = 0;
+            return false;
+        }
+        finally {
+            try {
+                if (fileInputStream != null) fileInputStream.close();
+            }
+            catch (Exception e) {
+                logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+        }
+    }
+
+    public void setBufferContents(String unparsedMetrics) {
+
+        if (unparsedMetrics == null) {
+            bufferLength_ = 0;
+            return;
+        }
+
+        byte[] unparsedMetricsBytes = unparsedMetrics.getBytes(StandardCharsets.UTF_8);
+        ensureBufferCapacity(unparsedMetricsBytes.length);
+        System.arraycopy(unparsedMetricsBytes, 0, buffer_, 0, unparsedMetricsBytes.length);
+        bufferLength_ = unparsedMetricsBytes.length;
+    }
+
+    /*
+    Parses every line in the buffer. Metrics with a timestamp (in ms) that is not newer than 'oldestAllowedMetricTimestamp' are skipped before any objects are created for them.
+    */
+    public List<GenericMetricFormat> parseMetrics(String metricPrefix, long oldestAllowedMetricTimestamp, long metricReceivedTimestampInMilliseconds) {
+        return parseMetrics(metricPrefix, oldestAllowedMetricTimestamp, metricReceivedTimestampInMilliseconds, false);
+    }
+
+    /*
+    Same as above, but when 'skipUnchangedLines' is true, lines that were also present in the previous 'skipUnchangedLines' parse are skipped.
+    The metric prefix & 'oldestAllowedMetricTimestamp' are assumed to be the same between parses (they're part of what made the line produce, or not produce, a metric).
+    */
+    public List<GenericMetricFormat> parseMetrics(String metricPrefix, long oldestAllowedMetricTimestamp, long metricReceivedTimestampInMilliseconds, boolean skipUnchangedLines) {
+
+        List<GenericMetricFormat> metrics = new ArrayList<>();
+        parseLines(bufferLength_, metricPrefix, oldestAllowedMetricTimestamp, metricReceivedTimestampInMilliseconds, skipUnchangedLines, metrics);
+
+        if (skipUnchangedLines) {
+            LongHashSet lineHashes = previousLineHashes_;
+            previousLineHashes_ = currentLineHashes_;
+            currentLineHashes_ = lineHashes;
+            currentLineHashes_.clear();
+        }
+
+        return metrics;
+    }
+
+    /*
+    Appends the bytes that are currently readable from the stream to the buffer (blocking until at least one byte can be read).
+    Returns the number of bytes read, or -1 at the end of the stream. Used with parseBufferedLines to parse a stream (ex- a process's stdout) as it arrives.
+    */
+    public int readFromStream(InputStream inputStream) throws IOException {
+
+        if (bufferLength_ == buffer_.length) ensureBufferCapacity((long) buffer_.length * 2);
+
+        int numBytesRead = inputStream.read(buffer_, bufferLength_, buffer_.length - bufferLength_);
+        if (numBytesRead > 0) bufferLength_ += numBytesRead;
+
+        return numBytesRead;
+    }
+
+    /*
+    Parses the complete (newline-terminated) lines in the buffer, & keeps any trailing partial line in the buffer for the next call.
+    At the end of a stream, 'isEndOfStream' should be true so that a final unterminated line gets parsed too.
+    */
+    public List<GenericMetricFormat> parseBufferedLines(String metricPrefix, long oldestAllowedMetricTimestamp, long metricReceivedTimestampInMilliseconds, boolean isEndOfStream) {
+
+        List<GenericMetricFormat> metrics = new ArrayList<>();
+
+        int parseEnd = bufferLength_;
+        if (!isEndOfStream) {
+            while ((parseEnd > 0) && (buffer_[parseEnd - 1] != '\n')) parseEnd--;
+        }
+
+        parseLines(parseEnd, metricPrefix, oldestAllowedMetricTimestamp, metricReceivedTimestampInMilliseconds, false, metrics);
+
+        // move the partial line (if any) to the start of the buffer
+        bufferLength_ -= parseEnd;
+        if (bufferLength_ > 0) System.arraycopy(buffer_, parseEnd, buffer_, 0, bufferLength_);
+
+        return metrics;
+    }
+
+    private void parseLines(int parseEnd, String metricPrefix, long oldestAllowedMetricTimestamp, long metricReceivedTimestampInMilliseconds,
+            boolean skipUnchangedLines, List<GenericMetricFormat> metrics) {
+
+        numUnchangedLinesSkipped_ = 0;
+
+        int lineStart = 0;
+
+        while (lineStart < parseEnd) {
+            int lineEnd = lineStart;
+            while ((lineEnd < parseEnd) && (buffer_[lineEnd] != '\n')) lineEnd++;
+
+            if (skipUnchangedLines) {
+                long lineHash = XxHash64.hash(buffer_, lineStart, lineEnd - lineStart);
+                currentLineHashes_.add(lineHash);
+
+                if (previousLineHashes_.contains(lineHash)) {
+                    numUnchangedLinesSkipped_++;
+                    lineStart = lineEnd + 1;
+                    continue;
+                }
+            }
+
+            if ((frameTerminator_ != null) && isFrameTerminator(lineStart, lineEnd)) {
+                numFramesCompleted_++;
+                lineStart = lineEnd + 1;
+                continue;
+            }
+
+            try {
+                GenericMetricFormat metric = parseLine(lineStart, lineEnd, metricPrefix, oldestAllowedMetricTimestamp, metricReceivedTimestampInMilliseconds);
+                if (metric != null) metrics.add(metric);
+            }
+            catch (Exception e) {
+                logger.error("Error on " + getString(lineStart, lineEnd) + System.lineSeparator() + e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    /*
+    Forgets the line hashes from previous parses, so that the next parse processes every line.
+    */
+    public void resetUnchangedLineTracking() {
+        previousLineHashes_.clear();
+        currentLineHashes_.clear();
+    }
+
+    public int getNumUnchangedLinesSkipped() {
+        return numUnchangedLinesSkipped_;
+    }
+
+    public void setFrameTerminator(String frameTerminator) {
+        this.frameTerminator_ = (frameTerminator == null) ? null : frameTerminator.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /*
+    The number of frame terminator lines that have been seen (across all parses).
+    */
+    public long getNumFramesCompleted() {
+        return numFramesCompleted_;
+    }
+
+    private boolean isFrameTerminator(int lineStart, int lineEnd) {
+
+        int start = lineStart, end = lineEnd;
+        while ((start < end) && ((buffer_[start] & 0xff) <= ' ')) start++;
+        while ((end > start) && ((buffer_[end - 1] & 0xff) <= ' ')) end--;
+
+        if ((end - start) != frameTerminator_.length) return false;
+
+        for (int i = 0; i < frameTerminator_.length; i++) {
+            if (buffer_[start + i] != frameTerminator_[i]) return false;
+        }
+
+        return true;
+    }
+
+    private GenericMetricFormat parseLine(int lineStart, int lineEnd, String metricPrefix, long oldestAllowedMetricTimestamp, long metricReceivedTimestampInMilliseconds) {
+
+        // trim -- same semantics as String.trim()
+        int start = lineStart, end = lineEnd;
+        while ((start < end) && ((buffer_[start] & 0xff) <= ' ')) start++;
+        while ((end > start) && ((buffer_[end - 1] & 0xff) <= ' ')) end--;
+        if (start == end) return null;
+
+        int numTokens = tokenize(start, end);
+
+        if (numTokens == 3) {
+            return parseGraphiteMetric(start, end, metricPrefix, oldestAllowedMetricTimestamp, metricReceivedTimestampInMilliseconds);
+        }
+        else if (numTokens > 3) {
+            return parseOpenTsdbMetric(start, end, numTokens, metricPrefix, oldestAllowedMetricTimestamp, metricReceivedTimestampInMilliseconds);
+        }
+        else {
+            logger.error("Invalid metric -- unrecognized format. Metric=\"" + getString(lineStart, lineEnd) + "\"");
+            return null;
+        }
+    }
+
+    /*
+    Splits the line on runs of space characters. Token positions are stored in the reusable token position arrays. Returns the number of tokens.
+    */
+    private int tokenize(int start, int end) {
+
+        int numTokens = 0;
+        int position = start;
+
+        while (position < end) {
+            while ((position < end) && (buffer_[position] == ' ')) position++;
+            if (position == end) break;
+
+            int tokenStart = position;
+            while ((position < end) && (buffer_[position] != ' ')) position++;
+
+            if (numTokens == tokenStartPositions_.length) {
+                int[] newTokenStartPositions = new int[tokenStartPositions_.length * 2];
+                int[] newTokenEndPositions = new int[tokenEndPositions_.length * 2];
+                System.arraycopy(tokenStartPositions_, 0, newTokenStartPositions, 0, numTokens);
+                System.arraycopy(tokenEndPositions_, 0, newTokenEndPositions, 0, numTokens);
+                tokenStartPositions_ = newTokenStartPositions;
+                tokenEndPositions_ = newTokenEndPositions;
+            }
+
+            tokenStartPositions_[numTokens] = tokenStart;
+            tokenEndPositions_[numTokens] = position;
+            numTokens++;
+        }
+
+        return numTokens;
+    }
+
+    // format: "metric.path value timestamp_seconds"
+    private GraphiteMetric parseGraphiteMetric(int start, int end, String metricPrefix, long oldestAllowedMetricTimestamp, long metricReceivedTimestampInMilliseconds) {
+
+        long metricTimestamp = parseDigits(tokenStartPositions_[2], tokenEndPositions_[2]);
+
+        if ((metricTimestamp < 0) || ((tokenEndPositions_[2] - tokenStartPositions_[2]) != 10) || (metricTimestamp > Integer.MAX_VALUE)) {
+            logger.warn("Metric parse error: \"" + getString(start, end) + "\"");
+            return null;
+        }
+
+        if ((metricTimestamp * 1000) <= oldestAllowedMetricTimestamp) return null;
+
+        BigDecimal metricValue = parseMetricValue(tokenStartPositions_[1], tokenEndPositions_[1], start, end);
+        if (metricValue == null) return null;
+
+        String metricPath = getString(metricPrefix, tokenStartPositions_[0], tokenEndPositions_[0]);
+
+        return new GraphiteMetric(metricPath, metricValue, (int) metricTimestamp, metricReceivedTimestampInMilliseconds);
+    }
+
+    // format: "metric timestamp value tagk1=tagv1 [tagk2=tagv2 ...]". timestamp can be in seconds (10 digits) or milliseconds (13 digits).
+    private OpenTsdbMetric parseOpenTsdbMetric(int start, int end, int numTokens, String metricPrefix, long oldestAllowedMetricTimestamp, long metricReceivedTimestampInMilliseconds) {
+
+        int metricTimestampLength = tokenEndPositions_[1] - tokenStartPositions_[1];
+        long metricTimestamp = parseDigits(tokenStartPositions_[1], tokenEndPositions_[1]);
+
+        if ((metricTimestamp < 0) || ((metricTimestampLength != 10) && (metricTimestampLength != 13))) {
+            logger.warn("Metric parse error: \"" + getString(start, end) + "\"");
+            return null;
+        }
+
+        boolean isTimestampInMilliseconds = (metricTimestampLength == 13);
+        long metricTimestampInMilliseconds = isTimestampInMilliseconds ? metricTimestamp : (metricTimestamp * 1000);
+        if (metricTimestampInMilliseconds <= oldestAllowedMetricTimestamp) return null;
+
+        // validate the tags before creating any objects. tokens without an '=' are ignored. duplicate tag keys invalidate the metric.
+        int numTags = 0;
+        for (int i = 3; i < numTokens; i++) {
+            int equalsPosition = indexOf('=', tokenStartPositions_[i], tokenEndPositions_[i]);
+            if (equalsPosition < 0) continue;
+
+            for (int j = 3; j < i; j++) {
+                int previousEqualsPosition = indexOf('=', tokenStartPositions_[j], tokenEndPositions_[j]);
+                if (previousEqualsPosition < 0) continue;
+
+                if (areBytesEqual(tokenStartPositions_[i], equalsPosition, tokenStartPositions_[j], previousEqualsPosition)) {
+                    logger.info("Duplicate Tag-Key Detected: " + getString(tokenStartPositions_[i], equalsPosition));
+                    logger.warn("Metric parse error: \"" + getString(start, end) + "\"");
+                    return null;
+                }
+            }
+
+            numTags++;
+        }
+
+        if (numTags == 0) {
+            logger.warn("Metric parse error: \"" + getString(start, end) + "\"");
+            return null;
+        }
+
+        BigDecimal metricValue = parseMetricValue(tokenStartPositions_[2], tokenEndPositions_[2], start, end);
+        if (metricValue == null) return null;
+
+        String metric = getString(metricPrefix, tokenStartPositions_[0], tokenEndPositions_[0]);
+
+        List<OpenTsdbTag> openTsdbTags = new ArrayList<>(numTags);
+        for (int i = 3; i < numTokens; i++) {
+            if (indexOf('=', tokenStartPositions_[i], tokenEndPositions_[i]) < 0) continue;
+            openTsdbTags.add(new OpenTsdbTag(getString(null, tokenStartPositions_[i], tokenEndPositions_[i])));
+        }
+
+        OpenTsdbMetric openTsdbMetric = new OpenTsdbMetric(metric, metricTimestamp, metricValue, openTsdbTags, isTimestampInMilliseconds, metricReceivedTimestampInMilliseconds);
+
+        if ((openTsdbMetric.getMetricKey() != null) && (openTsdbMetric.getMetricTimestampInMilliseconds() > -1)) return openTsdbMetric;
+        else return null;
+    }
+
+    /*
+    Returns the numeric value of an unsigned run of ascii digits, or -1 if the range is empty, contains a non-digit, or is too long to fit in a long.
+    */
+    private long parseDigits(int start, int end) {
+
+        if ((start >= end) || ((end - start) > 18)) return -1;
+
+        long value = 0;
+
+        for (int i = start; i < end; i++) {
+            int digit = buffer_[i] - '0';
+            if ((digit < 0) || (digit > 9)) return -1;
+            value = (value * 10) + digit;
+        }
+
+        return value;
+    }
+
+    private BigDecimal parseMetricValue(int start, int end, int lineStart, int lineEnd) {
+
+        int length = end - start;
+
+        if (length > MAX_METRIC_VALUE_LENGTH) {
+            logger.debug("Metric parse error. Metric value can't be more than " + MAX_METRIC_VALUE_LENGTH + " characters long. Metric value was \"" + length + "\" characters long.");
+            logger.warn("Metric parse error: \"" + getString(lineStart, lineEnd) + "\"");
+            return null;
+        }
+
+        ensureCharBufferCapacity(length);
+
+        for (int i = 0; i < length; i++) {
+            byte currentByte = buffer_[start + i];
+
+            // a numeric value is always pure ascii
+            if (currentByte < 0) {
+                logger.warn("Metric parse error: \"" + getString(lineStart, lineEnd) + "\"");
+                return null;
+            }
+
+            charBuffer_[i] = (char) currentByte;
+        }
+
+        try {
+            return new BigDecimal(charBuffer_, 0, length);
+        }
+        catch (NumberFormatException e) {
+            logger.error("Error on " + getString(lineStart, lineEnd) + System.lineSeparator() + e.toString() + System.lineSeparator());
+            return null;
+        }
+    }
+
+    private int indexOf(char character, int start, int end) {
+
+        for (int i = start; i < end; i++) {
+            if (buffer_[i] == character) return i;
+        }
+
+        return -1;
+    }
+
+    private boolean areBytesEqual(int start1, int end1, int start2, int end2) {
+
+        if ((end1 - start1) != (end2 - start2)) return false;
+
+        for (int i = 0; i < (end1 - start1); i++) {
+            if (buffer_[start1 + i] != buffer_[start2 + i]) return false;
+        }
+
+        return true;
+    }
+
+    private String getString(int start, int end) {
+        return new String(buffer_, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /*
+    Builds prefix + the decoded byte range as a single String. Ascii is decoded directly into the reusable char buffer; anything else falls back to the utf-8 decoder.
+    */
+    private String getString(String prefix, int start, int end) {
+
+        int prefixLength = (prefix == null) ? 0 : prefix.length();
+        ensureCharBufferCapacity(prefixLength + (end - start));
+        if (prefixLength > 0) prefix.getChars(0, prefixLength, charBuffer_, 0);
+
+        int position = prefixLength;
+
+        for (int i = start; i < end; i++) {
+            byte currentByte = buffer_[i];
+
+            if (currentByte < 0) {
+                String decoded = getString(start, end);
+                return (prefixLength > 0) ? (prefix + decoded) : decoded;
+            }
+
+            charBuffer_[position++] = (char) currentByte;
+        }
+
+        return new String(charBuffer_, 0, position);
+    }
+
+    private void ensureBufferCapacity(long capacity) {
+
+        if (capacity <= buffer_.length) return;
+        if (capacity > (Integer.MAX_VALUE - 8)) throw new IllegalStateException("File is too large to parse. Size=" + capacity);
+
+        byte[] newBuffer = new byte[(int) capacity];
+        System.arraycopy(buffer_, 0, newBuffer, 0, bufferLength_);
+        buffer_ = newBuffer;
+    }
+
+    private void ensureCharBufferCapacity(int capacity) {
+        if (capacity > charBuffer_.length) charBuffer_ = new char[Math.max(capacity, charBuffer_.length * 2)];
+    }
+
+}
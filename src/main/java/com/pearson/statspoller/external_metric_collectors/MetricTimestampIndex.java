@@ -0,0 +1,113 @@
+package com.pearson.statspoller.external_metric_collectors;
+
+import com.pearson.statspoller.utilities.core_utils.Hashing;
+import com.pearson.statspoller.utilities.core_utils.LongLongHashMap;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Remembers the newest timestamp that has been output for each metric series of a file, & forgets series whose newest timestamp has aged out.
+ *
+ * Series are keyed by a 64-bit hash of the metric key, & stored in a primitive map (hash -> newest timestamp in ms).
+ * Expiry uses a hashed timing wheel: each series sits in exactly one wheel slot, based on its timestamp at the time it was scheduled.
+ * When a slot's time passes, each of its series is either removed (if its newest timestamp is still too old) or moved to the slot for its newest timestamp.
+ * Updating a series never touches the wheel, so both lookups & expiry are O(1) amortized, with no full scans.
+ *
+ * A 64-bit hash collision between two series (vanishingly rare) would make them share a timestamp. Not thread-safe.
+ */
+public class MetricTimestampIndex {
+
+    private static final long NOT_FOUND = Long.MIN_VALUE;
+    private static final long MINIMUM_SLOT_DURATION_IN_MS = 1000;
+    private static final int MAXIMUM_NUM_SLOTS = 1024;
+
+    private final LongLongHashMap newestTimestamps_BySeriesHash_ = new LongLongHashMap();
+
+    private final long slotDurationInMs_;
+    private final long[][] wheelSlots_;
+    private final int[] wheelSlotSizes_;
+    private long[] spareSlot_ = new long[16];
+    private long lastExpiredSlotNumber_ = Long.MIN_VALUE;
+
+    public MetricTimestampIndex(long maxMetricAgeInMs) {
+
+        long maxMetricAge = Math.max(maxMetricAgeInMs, MINIMUM_SLOT_DURATION_IN_MS);
+        this.slotDurationInMs_ = Math.max(MINIMUM_SLOT_DURATION_IN_MS, (maxMetricAge + MAXIMUM_NUM_SLOTS - 1) / MAXIMUM_NUM_SLOTS);
+
+        int numSlots = (int) Math.min(MAXIMUM_NUM_SLOTS, (maxMetricAge / slotDurationInMs_) + 1);
+        this.wheelSlots_ = new long[numSlots][];
+        this.wheelSlotSizes_ = new int[numSlots];
+        for (int i = 0; i < numSlots; i++) wheelSlots_[i] = new long[16];
+    }
+
+    /*
+    Returns true (& records the timestamp) if the series has never been seen, or if 'timestampInMs' is newer than the newest timestamp seen for the series.
+    */
+    public boolean updateIfNewer(String metricKey, long timestampInMs) {
+
+        long seriesHash = Hashing.mix64(Hashing.fnv1a64(metricKey));
+        long newestTimestamp = newestTimestamps_BySeriesHash_.get(seriesHash, NOT_FOUND);
+
+        if (newestTimestamp == NOT_FOUND) {
+            newestTimestamps_BySeriesHash_.put(seriesHash, timestampInMs);
+            schedule(seriesHash, timestampInMs);
+            return true;
+        }
+
+        if (newestTimestamp < timestampInMs) {
+            newestTimestamps_BySeriesHash_.put(seriesHash, timestampInMs);
+            return true;
+        }
+
+        return false;
+    }
+
+    /*
+    Forgets every series whose newest timestamp is older than 'oldestValidTimestampInMs'. Only the wheel slots that have passed since the previous call are visited.
+    */
+    public void expire(long oldestValidTimestampInMs) {
+
+        long targetSlotNumber = Math.floorDiv(oldestValidTimestampInMs, slotDurationInMs_) - 1;
+        if ((lastExpiredSlotNumber_ == Long.MIN_VALUE) || ((targetSlotNumber - lastExpiredSlotNumber_) > wheelSlots_.length)) lastExpiredSlotNumber_ = targetSlotNumber - wheelSlots_.length;
+
+        while (lastExpiredSlotNumber_ < targetSlotNumber) {
+            lastExpiredSlotNumber_++;
+            int slotIndex = (int) Math.floorMod(lastExpiredSlotNumber_, (long) wheelSlots_.length);
+
+            // swap the slot out before walking it, since series that are still valid may get rescheduled into the same slot
+            long[] seriesHashes = wheelSlots_[slotIndex];
+            int numSeriesHashes = wheelSlotSizes_[slotIndex];
+            wheelSlots_[slotIndex] = spareSlot_;
+            wheelSlotSizes_[slotIndex] = 0;
+
+            for (int i = 0; i < numSeriesHashes; i++) {
+                long newestTimestamp = newestTimestamps_BySeriesHash_.get(seriesHashes[i], NOT_FOUND);
+                if (newestTimestamp == NOT_FOUND) continue;
+
+                if (newestTimestamp < oldestValidTimestampInMs) newestTimestamps_BySeriesHash_.remove(seriesHashes[i]);
+                else schedule(seriesHashes[i], newestTimestamp);
+            }
+
+            // keep a big array around as the spare only if it's likely to be needed again
+            spareSlot_ = (seriesHashes.length > (numSeriesHashes * 4) && (seriesHashes.length > 16)) ? new long[Math.max(16, numSeriesHashes)] : seriesHashes;
+        }
+    }
+
+    public int size() {
+        return newestTimestamps_BySeriesHash_.size();
+    }
+
+    private void schedule(long seriesHash, long timestampInMs) {
+
+        int slotIndex = (int) Math.floorMod(Math.floorDiv(timestampInMs, slotDurationInMs_), (long) wheelSlots_.length);
+
+        if (wheelSlotSizes_[slotIndex] == wheelSlots_[slotIndex].length) {
+            long[] newSlot = new long[wheelSlots_[slotIndex].length * 2];
+            System.arraycopy(wheelSlots_[slotIndex], 0, newSlot, 0, wheelSlotSizes_[slotIndex]);
+            wheelSlots_[slotIndex] = newSlot;
+        }
+
+        wheelSlots_[slotIndex][wheelSlotSizes_[slotIndex]++] = seriesHash;
+    }
+
+}
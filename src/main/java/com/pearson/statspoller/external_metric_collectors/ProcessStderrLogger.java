@@ -0,0 +1,91 @@
+package com.pearson.statspoller.external_metric_collectors;
+
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Logs the stderr output of an external metric collector, with rate limiting.
+ * At most 'maxLinesPerWindow' lines are logged per window (per collector, across runs). Lines beyond that are counted, & the count is logged when the next window starts.
+ * One instance is shared by every run of a collector; drainStream is called (on its own thread) for each run's stderr stream.
+ */
+public class ProcessStderrLogger {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessStderrLogger.class.getName());
+
+    private static final int MAX_LOGGED_LINE_LENGTH = 1000;
+
+    private final String collectorName_;
+    private final int maxLinesPerWindow_;
+    private final long windowDurationInMs_;
+
+    private long windowStartTimestamp_ = 0;
+    private int numLinesLoggedInWindow_ = 0;
+    private long numLinesSuppressedInWindow_ = 0;
+
+    public ProcessStderrLogger(String collectorName, int maxLinesPerWindow, long windowDurationInMs) {
+        this.collectorName_ = collectorName;
+        this.maxLinesPerWindow_ = maxLinesPerWindow;
+        this.windowDurationInMs_ = windowDurationInMs;
+    }
+
+    /*
+    Reads the stream until it is closed, logging each line (subject to rate limiting). The stream must always be drained, or the child process can block on a full pipe.
+    */
+    public void drainStream(InputStream stderrInputStream) {
+
+        BufferedReader bufferedReader = null;
+
+        try {
+            bufferedReader = new BufferedReader(new InputStreamReader(stderrInputStream, StandardCharsets.UTF_8));
+
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+                logLine(line);
+            }
+        }
+        catch (Exception e) {
+            logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+        finally {
+            try {
+                if (bufferedReader != null) bufferedReader.close();
+            }
+            catch (Exception e) {
+                logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+        }
+    }
+
+    private synchronized void logLine(String line) {
+
+        long currentTimestamp = System.currentTimeMillis();
+
+        if ((currentTimestamp - windowStartTimestamp_) >= windowDurationInMs_) {
+            if (numLinesSuppressedInWindow_ > 0) {
+                logger.warn("Collector=\"" + collectorName_ + "\", Message=\"Suppressed stderr output from external metric collector\", SuppressedLineCount=" + numLinesSuppressedInWindow_);
+            }
+
+            windowStartTimestamp_ = currentTimestamp;
+            numLinesLoggedInWindow_ = 0;
+            numLinesSuppressedInWindow_ = 0;
+        }
+
+        if (numLinesLoggedInWindow_ >= maxLinesPerWindow_) {
+            numLinesSuppressedInWindow_++;
+            return;
+        }
+
+        numLinesLoggedInWindow_++;
+        if (line.length() > MAX_LOGGED_LINE_LENGTH) line = line.substring(0, MAX_LOGGED_LINE_LENGTH) + "...";
+        logger.warn("Collector=\"" + collectorName_ + "\", Stderr=\"" + line + "\"");
+    }
+
+}
@@ -3,6 +3,7 @@ package com.pearson.statspoller.globals;
 import com.opencsv.CSVReader;
 import com.pearson.statspoller.utilities.config_utils.HierarchicalIniConfigurationWrapper;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.VirtualThreads;
 import com.pearson.statspoller.external_metric_collectors.ExternalMetricCollector;
 import java.io.StringReader;
 import java.util.ArrayList;
@@ -21,6 +22,7 @@ import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbHttpOutputModule;
 import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbMetric;
 import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbTag;
 import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbTelnetOutputModule;
+import com.pearson.statspoller.output.OutputSplay;
 import com.pearson.statspoller.utilities.web_utils.NetIo;
 import java.net.InetAddress;
 import org.apache.commons.lang3.SystemUtils;
@@ -43,9 +45,19 @@ public class ApplicationConfiguration {
     private static boolean globalMetricNamePrefixEnabled_ = false;
     private static String globalMetricNamePrefix_ = null;
     private static long outputInterval_ = VALUE_NOT_SET_CODE;
+    private static int outputSplayMode_ = OutputSplay.MODE_HASH;
     
     private static long checkOutputFilesInterval_ = VALUE_NOT_SET_CODE;
     private static boolean alwaysCheckOutputFiles_ = false;
+    private static boolean watchOutputFiles_ = true;
+    private static int checkOutputFilesThreads_ = 2;
+    private static int externalMetricCollectorMaxConcurrentRuns_ = 4;
+    private static long externalMetricCollectorRunTimeout_ = 0;
+    private static int collectorSchedulerThreads_ = 8;
+    private static boolean virtualThreadsEnabled_ = false;
+    private static boolean alignCollectionTimestamps_ = false;
+    private static long collectionSplay_ = 0;
+    private static long startupWindow_ = 0;
     private static long maxMetricAge_ = VALUE_NOT_SET_CODE;
     private static boolean outputInternalMetricsToDisk_ = true;
     private static boolean legacyMode_ = false;
@@ -62,10 +74,20 @@ public class ApplicationConfiguration {
     private static String linuxProcLocation_ = null;
     private static String linuxSysLocation_ = null;
     private static long linuxMetricCollectorCollectionInterval_ = VALUE_NOT_SET_CODE;
+    private static int linuxProcessScanThreads_ = 1;
+    private static boolean linuxTcpStateCollectorEnable_ = false;
+    private static boolean linuxCgroupCollectorEnable_ = false;
+    private static long linuxHighResolutionSamplingInterval_ = 0;
+    private static String linuxHighResolutionStatistics_ = null;
+    private static double linuxHighResolutionCpuBudgetPct_ = 1;
     
     private static final List<String[]> processCounterPrefixesAndRegexes_ = new ArrayList<>();
     private static long processCounterMetricCollectorCollectionInterval_ = VALUE_NOT_SET_CODE;
+    private static boolean processResourceCollectorEnable_ = false;
+    private static int processResourceTopN_ = 0;
     private static final List<FileCounterMetricCollector> fileCounterMetricCollectors_ = new ArrayList<>();
+    private static int fileCounterThreads_ = 1;
+    private static long fileCounterRescanInterval_ = VALUE_NOT_SET_CODE;
     private static final List<ExternalMetricCollector> externalMetricCollectors_ = new ArrayList<>();
     private static final List<JmxMetricCollector> jmxMetricCollectors_ = new ArrayList<>();
     private static final List<ApacheHttpMetricCollector> apacheHttpMetricCollectors_ = new ArrayList<>();
@@ -125,10 +147,40 @@ public class ApplicationConfiguration {
             else if ((alwaysCheckOutputFiles != null) && alwaysCheckOutputFiles.equalsIgnoreCase("false")) alwaysCheckOutputFiles_ = false;
             else alwaysCheckOutputFiles_ = !SystemUtils.IS_OS_WINDOWS;
             
+            String checkOutputFilesMode = applicationConfiguration_.safeGetString("check_output_files_mode", "watch");
+            watchOutputFiles_ = (checkOutputFilesMode == null) || !checkOutputFilesMode.trim().equalsIgnoreCase("poll");
+            checkOutputFilesThreads_ = applicationConfiguration_.safeGetInteger("check_output_files_threads", 2);
+            if (checkOutputFilesThreads_ < 1) checkOutputFilesThreads_ = 1;
+            
+            externalMetricCollectorMaxConcurrentRuns_ = applicationConfiguration_.safeGetInteger("external_metric_collector_max_concurrent_runs", 4);
+            if (externalMetricCollectorMaxConcurrentRuns_ < 1) externalMetricCollectorMaxConcurrentRuns_ = 1;
+            double externalMetricCollectorRunTimeout = applicationConfiguration_.safeGetDouble("external_metric_collector_run_timeout", 0);
+            externalMetricCollectorRunTimeout_ = legacyMode_ ? (long) externalMetricCollectorRunTimeout : (long) (externalMetricCollectorRunTimeout * 1000);
+            
+            collectorSchedulerThreads_ = applicationConfiguration_.safeGetInteger("collector_scheduler_threads", 8);
+            if (collectorSchedulerThreads_ < 1) collectorSchedulerThreads_ = 1;
+            
+            String collectorThreadMode = applicationConfiguration_.safeGetString("collector_thread_mode", "platform");
+            virtualThreadsEnabled_ = (collectorThreadMode != null) && collectorThreadMode.trim().equalsIgnoreCase("virtual");
+            if (virtualThreadsEnabled_ && !VirtualThreads.isSupported()) {
+                logger.warn("collector_thread_mode is set to 'virtual', but this JVM (" + System.getProperty("java.version") + ") doesn't support virtual threads. Java 21+ is required. Using platform threads.");
+                virtualThreadsEnabled_ = false;
+            }
+            
+            alignCollectionTimestamps_ = applicationConfiguration_.safeGetBoolean("align_collection_timestamps", false);
+            double collectionSplay = applicationConfiguration_.safeGetDouble("collection_splay", legacyMode_ ? 5000 : 5);
+            collectionSplay_ = legacyMode_ ? (long) collectionSplay : (long) (collectionSplay * 1000);
+            if (collectionSplay_ < 0) collectionSplay_ = 0;
+            
+            double startupWindow = applicationConfiguration_.safeGetDouble("startup_window", legacyMode_ ? 3000 : 3);
+            startupWindow_ = legacyMode_ ? (long) startupWindow : (long) (startupWindow * 1000);
+            if (startupWindow_ < 0) startupWindow_ = 0;
+            
             // core statspoller configuration values
             globalMetricNamePrefixEnabled_ = true;
             double outputInterval = applicationConfiguration_.safeGetDouble("output_interval", 30);            
             outputInterval_ = legacyMode_ ? (long) outputInterval : (long) (outputInterval * 1000);  
+            outputSplayMode_ = OutputSplay.getModeFromString(applicationConfiguration_.safeGetString("output_splay_mode", "hash"));
             globalMetricNamePrefix_ = getGlobalMetricNamePrefix_FromApplicationConfFile_CurrentAndLegacy();
             if ((globalMetricNamePrefix_ == null) || globalMetricNamePrefix_.trim().isEmpty()) {
                 logger.error("global_metric_name_prefix cannot be blank. Aborting application initialization");
@@ -159,9 +211,22 @@ public class ApplicationConfiguration {
             linuxSysLocation_ = applicationConfiguration_.safeGetString("linux_sys_location", "/sys");
             double linuxMetricCollectorCollectionInterval = applicationConfiguration_.safeGetDouble("linux_metric_collector_collection_interval", 30);
             linuxMetricCollectorCollectionInterval_ = legacyMode_ ? (long) linuxMetricCollectorCollectionInterval : (long) (linuxMetricCollectorCollectionInterval * 1000);
+            linuxProcessScanThreads_ = applicationConfiguration_.safeGetInteger("linux_process_scan_threads", 1);
+            if (linuxProcessScanThreads_ < 1) linuxProcessScanThreads_ = 1;
+            linuxTcpStateCollectorEnable_ = applicationConfiguration_.safeGetBoolean("linux_tcp_state_collector_enable", false);
+            linuxCgroupCollectorEnable_ = applicationConfiguration_.safeGetBoolean("linux_cgroup_collector_enable", false);
+            double linuxHighResolutionSamplingInterval = applicationConfiguration_.safeGetDouble("linux_high_resolution_sampling_interval", 0);
+            linuxHighResolutionSamplingInterval_ = legacyMode_ ? (long) linuxHighResolutionSamplingInterval : (long) (linuxHighResolutionSamplingInterval * 1000);
+            if (linuxHighResolutionSamplingInterval_ < 0) linuxHighResolutionSamplingInterval_ = 0;
+            else if ((linuxHighResolutionSamplingInterval_ > 0) && (linuxHighResolutionSamplingInterval_ < 100)) linuxHighResolutionSamplingInterval_ = 100;
+            linuxHighResolutionStatistics_ = applicationConfiguration_.safeGetString("linux_high_resolution_statistics", "min,max,mean,p95,p99");
+            linuxHighResolutionCpuBudgetPct_ = applicationConfiguration_.safeGetDouble("linux_high_resolution_cpu_budget_pct", 1);
             
             double processCounterInterval = applicationConfiguration_.safeGetDouble("process_counter_interval", 30);
             processCounterMetricCollectorCollectionInterval_ = legacyMode_ ? (long) processCounterInterval : (long) (processCounterInterval * 1000); 
+            processResourceCollectorEnable_ = applicationConfiguration_.safeGetBoolean("process_resource_collector_enable", false);
+            processResourceTopN_ = applicationConfiguration_.safeGetInteger("process_resource_top_n", 0);
+            if (processResourceTopN_ < 0) processResourceTopN_ = 0;
             
             // record application startup time
             applicationStartTimeInMs_ = System.currentTimeMillis();
@@ -185,6 +250,10 @@ public class ApplicationConfiguration {
             externalMetricCollectors_.addAll(readExternalMetricCollectors(legacyMode_));
             
             // add file counter collectors
+            fileCounterThreads_ = applicationConfiguration_.safeGetInteger("file_counter_threads", 1);
+            if (fileCounterThreads_ < 1) fileCounterThreads_ = 1;
+            double fileCounterRescanInterval = applicationConfiguration_.safeGetDouble("file_counter_rescan_interval", legacyMode_ ? 600000 : 600);
+            fileCounterRescanInterval_ = legacyMode_ ? (long) fileCounterRescanInterval : (long) (fileCounterRescanInterval * 1000);
             fileCounterMetricCollectors_.addAll(readFileCounterMetricCollectors(legacyMode_));
 
             // add linux process counter collectors
@@ -234,7 +303,6 @@ public class ApplicationConfiguration {
                 mysqlMetricCollector = readMysqlMetricCollector(collectorSuffix, legacyMode_);
                 if (mysqlMetricCollector != null) mysqlMetricCollectors_.add(mysqlMetricCollector);
             }
-            if (!mysqlMetricCollectors_.isEmpty()) loadMySQLDrivers();
             
             // add postgres collectors
             PostgresMetricCollector postgresMetricCollector = readPostgresMetricCollector("", legacyMode_);
@@ -253,7 +321,6 @@ public class ApplicationConfiguration {
                 dbQuerier = readDbQuerierMetricCollector(collectorSuffix, legacyMode_);
                 if (dbQuerier != null) dbQuerier_.add(dbQuerier);
             }
-            if (!dbQuerier_.isEmpty()) loadMySQLDrivers();
 
             return true;    
         } 
@@ -579,7 +646,7 @@ public class ApplicationConfiguration {
             if ((csvValuesArray != null) && !csvValuesArray.isEmpty() && (csvValuesArray.get(0) != null)) {
                 String[] csvValues = csvValuesArray.get(0);
             
-                if (csvValues.length == 4) {  
+                if ((csvValues.length == 4) || (csvValues.length == 5)) {  
                     String path = csvValues[0];
                     String countSubdirectories = csvValues[1];
                     boolean countSubdirectories_Boolean = Boolean.parseBoolean(countSubdirectories);
@@ -588,9 +655,16 @@ public class ApplicationConfiguration {
                     String metricPrefix = csvValues[3];
                     String outputFile = "./output/" + "filecounter_" + metricPrefix + ".out";
                     
+                    String mode = (csvValues.length == 5) ? csvValues[4].trim().toLowerCase() : FileCounterMetricCollector.MODE_FULL;
+                    if (mode.isEmpty()) mode = FileCounterMetricCollector.MODE_FULL;
+                    if (!mode.equals(FileCounterMetricCollector.MODE_FULL) && !mode.equals(FileCounterMetricCollector.MODE_INCREMENTAL)) {
+                        logger.error("Invalid file counter mode. Mode=\"" + mode + "\", Collector=\"" + metricPrefix + "\"");
+                        return null;
+                    }
+                    
                     FileCounterMetricCollector fileCounterMetricCollector = new FileCounterMetricCollector(true,
                             collectionIntervalInMilliseconds, "FileCounter." + metricPrefix, outputFile, outputInternalMetricsToDisk_,
-                            path, countSubdirectories_Boolean);
+                            path, countSubdirectories_Boolean, mode);
                     
                     return fileCounterMetricCollector;
                 }
@@ -649,14 +723,21 @@ public class ApplicationConfiguration {
             if ((csvValuesArray != null) && !csvValuesArray.isEmpty() && (csvValuesArray.get(0) != null)) {
                 String[] csvValues = csvValuesArray.get(0);
 
-                if (csvValues.length == 4) {
+                if ((csvValues.length == 4) || (csvValues.length == 5)) {
                     String programPathAndFilename = csvValues[0].trim();
                     double collectionIntervalInSeconds = Long.valueOf(csvValues[1].trim());
                     long collectionIntervalInMilliseconds = legacyMode ? (long) collectionIntervalInSeconds  : (long) (collectionIntervalInSeconds * 1000);     
                     String outputPathAndFilename = csvValues[2].trim();
                     String metricPrefix = csvValues[3].trim();
+                    
+                    String mode = (csvValues.length == 5) ? csvValues[4].trim().toLowerCase() : ExternalMetricCollector.MODE_FILE;
+                    if (mode.isEmpty()) mode = ExternalMetricCollector.MODE_FILE;
+                    if (!mode.equals(ExternalMetricCollector.MODE_FILE) && !mode.equals(ExternalMetricCollector.MODE_STDOUT) && !mode.equals(ExternalMetricCollector.MODE_DAEMON)) {
+                        logger.error("Invalid external metric collector mode. Mode=\"" + mode + "\", Collector=\"" + metricPrefix + "\"");
+                        return null;
+                    }
 
-                    ExternalMetricCollector externalMetricCollector = new ExternalMetricCollector(programPathAndFilename, collectionIntervalInMilliseconds, outputPathAndFilename, metricPrefix);
+                    ExternalMetricCollector externalMetricCollector = new ExternalMetricCollector(programPathAndFilename, collectionIntervalInMilliseconds, outputPathAndFilename, metricPrefix, mode);
                     return externalMetricCollector;
                 }
             }
@@ -719,6 +800,14 @@ public class ApplicationConfiguration {
             String jmxDerivedMetricsEnabledKey = "jmx_derived_metrics_enabled" + collectorSuffix;
             boolean jmxDerivedMetricsEnabledValue = applicationConfiguration_.safeGetBoolean(jmxDerivedMetricsEnabledKey, true);
 
+            String jmxFetchThreadsKey = "jmx_fetch_threads" + collectorSuffix;
+            int jmxFetchThreadsValue = applicationConfiguration_.safeGetInteger(jmxFetchThreadsKey, JmxMetricCollector.DEFAULT_FETCH_THREADS);
+            if (jmxFetchThreadsValue < 1) jmxFetchThreadsValue = 1;
+            
+            String jmxFetchTimeoutKey = "jmx_fetch_timeout" + collectorSuffix;
+            double jmxFetchTimeoutValue = applicationConfiguration_.safeGetDouble(jmxFetchTimeoutKey, legacyMode ? JmxMetricCollector.DEFAULT_FETCH_TIMEOUT_IN_MS : (JmxMetricCollector.DEFAULT_FETCH_TIMEOUT_IN_MS / 1000.0));
+            long jmxFetchTimeoutValue_Long = legacyMode ? (long) jmxFetchTimeoutValue : (long) (jmxFetchTimeoutValue * 1000);    
+
             String jmxMetricPrefixKey = "jmx_metric_prefix" + collectorSuffix;
             String jmxMetricPrefixValue = applicationConfiguration_.safeGetString(jmxMetricPrefixKey, "JMX");
             String graphiteSanitizedJmxMetricPrefix = GraphiteMetric.getGraphiteSanitizedString(jmxMetricPrefixValue, true, true);
@@ -758,7 +847,8 @@ public class ApplicationConfiguration {
                     jmxSleepAfterConnectTimeValue_Long, jmxQueryMetricTreeValue_Long, 
                     jmxCollectStringAttributesValue, jmxDerivedMetricsEnabledValue,
                     jmxUsernameValue, jmxPasswordValue, jmxBlacklistObjectNameRegexsValueStrings, 
-                    jmxBlacklistRegexsValueStrings, jmxWhitelistRegexsValueStrings);
+                    jmxBlacklistRegexsValueStrings, jmxWhitelistRegexsValueStrings,
+                    jmxFetchThreadsValue, jmxFetchTimeoutValue_Long);
 
             return jmxMetricCollector;
         }
@@ -1094,27 +1184,6 @@ public class ApplicationConfiguration {
         }
     }
     
-    private static void loadMySQLDrivers() {
-        
-        if ((mysqlMetricCollectors_ == null) || mysqlMetricCollectors_.isEmpty()) {
-            return;
-        }
-
-        try {
-            Class.forName("org.mariadb.jdbc.Driver").newInstance();
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-        }
-        
-        try {
-            Class.forName("com.mysql.jdbc.Driver").newInstance();
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-        }
-    }
-    
     public static boolean isGlobalMetricNamePrefixEnabled() {
         return globalMetricNamePrefixEnabled_;
     }
@@ -1126,6 +1195,10 @@ public class ApplicationConfiguration {
     public static long getOutputInterval() {
         return outputInterval_;
     }
+    
+    public static int getOutputSplayMode() {
+        return outputSplayMode_;
+    }
 
     public static long getCheckOutputFilesInterval() {
         return checkOutputFilesInterval_;
@@ -1134,6 +1207,42 @@ public class ApplicationConfiguration {
     public static boolean isAlwaysCheckOutputFiles() {
         return alwaysCheckOutputFiles_;
     }
+    
+    public static boolean isWatchOutputFiles() {
+        return watchOutputFiles_;
+    }
+    
+    public static int getCheckOutputFilesThreads() {
+        return checkOutputFilesThreads_;
+    }
+    
+    public static int getExternalMetricCollectorMaxConcurrentRuns() {
+        return externalMetricCollectorMaxConcurrentRuns_;
+    }
+    
+    public static long getExternalMetricCollectorRunTimeout() {
+        return externalMetricCollectorRunTimeout_;
+    }
+    
+    public static int getCollectorSchedulerThreads() {
+        return collectorSchedulerThreads_;
+    }
+    
+    public static boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled_;
+    }
+    
+    public static boolean isAlignCollectionTimestamps() {
+        return alignCollectionTimestamps_;
+    }
+    
+    public static long getCollectionSplay() {
+        return collectionSplay_;
+    }
+    
+    public static long getStartupWindow() {
+        return startupWindow_;
+    }
 
     public static long getMaxMetricAge() {
         return maxMetricAge_;
@@ -1190,6 +1299,30 @@ public class ApplicationConfiguration {
         return linuxMetricCollectorCollectionInterval_;
     }
 
+    public static int getLinuxProcessScanThreads() {
+        return linuxProcessScanThreads_;
+    }
+
+    public static boolean isLinuxTcpStateCollectorEnable() {
+        return linuxTcpStateCollectorEnable_;
+    }
+
+    public static boolean isLinuxCgroupCollectorEnable() {
+        return linuxCgroupCollectorEnable_;
+    }
+
+    public static long getLinuxHighResolutionSamplingInterval() {
+        return linuxHighResolutionSamplingInterval_;
+    }
+
+    public static String getLinuxHighResolutionStatistics() {
+        return linuxHighResolutionStatistics_;
+    }
+
+    public static double getLinuxHighResolutionCpuBudgetPct() {
+        return linuxHighResolutionCpuBudgetPct_;
+    }
+
     public static List<String[]> getProcessCounterPrefixesAndRegexes() {
         if (processCounterPrefixesAndRegexes_ == null) return null;
         return new ArrayList<>(processCounterPrefixesAndRegexes_);
@@ -1199,10 +1332,26 @@ public class ApplicationConfiguration {
         return processCounterMetricCollectorCollectionInterval_;
     }
 
+    public static boolean isProcessResourceCollectorEnable() {
+        return processResourceCollectorEnable_;
+    }
+
+    public static int getProcessResourceTopN() {
+        return processResourceTopN_;
+    }
+
     public static List<FileCounterMetricCollector> getFileCounterMetricCollectors() {
         if (fileCounterMetricCollectors_ == null) return null;
         return new ArrayList<>(fileCounterMetricCollectors_);
     }
+
+    public static int getFileCounterThreads() {
+        return fileCounterThreads_;
+    }
+
+    public static long getFileCounterRescanInterval() {
+        return fileCounterRescanInterval_;
+    }
     
     public static List<ExternalMetricCollector> getExternalMetricCollectors() {
         if (externalMetricCollectors_ == null) return null;
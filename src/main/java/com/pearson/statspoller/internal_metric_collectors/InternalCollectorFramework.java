@@ -1,5 +1,7 @@
 package com.pearson.statspoller.internal_metric_collectors;
 
+import com.pearson.statspoller.collector_scheduler.CollectionTimestamp;
+import com.pearson.statspoller.collector_scheduler.SchedulableCollector;
 import com.pearson.statspoller.globals.ApplicationConfiguration;
 import com.pearson.statspoller.globals.GlobalVariables;
 import java.util.List;
@@ -16,7 +18,7 @@ import org.slf4j.LoggerFactory;
 /**
  * @author Jeffrey Schmidt
  */
-public abstract class InternalCollectorFramework {
+public abstract class InternalCollectorFramework implements SchedulableCollector {
     
     private static final Logger logger = LoggerFactory.getLogger(InternalCollectorFramework.class.getName());
     
@@ -47,6 +49,13 @@ public abstract class InternalCollectorFramework {
         this.finalOutputFilePathAndFilename_ = this.outputFilePathAndFilename_;
     }
     
+    @Override
+    public void initializeCollector() {
+    }
+    
+    @Override
+    public abstract void collectMetrics();
+    
     public void outputGraphiteMetrics(List<GraphiteMetric> graphiteMetrics) {
         
         if (graphiteMetrics == null) return;
@@ -56,7 +65,7 @@ public abstract class InternalCollectorFramework {
                 if (graphiteMetric == null) continue;
 
                 String graphiteMetricPathWithPrefix = fullInternalCollectorMetricPrefix_ + graphiteMetric.getMetricPath();
-                GraphiteMetric outputGraphiteMetric = new GraphiteMetric(graphiteMetricPathWithPrefix, graphiteMetric.getMetricValue(), graphiteMetric.getMetricTimestampInSeconds());
+                GraphiteMetric outputGraphiteMetric = new GraphiteMetric(graphiteMetricPathWithPrefix, graphiteMetric.getMetricValue(), getOutputTimestampInSeconds(graphiteMetric.getMetricTimestampInSeconds()));
 
                 outputGraphiteMetric.setHashKey(GlobalVariables.metricHashKeyGenerator.incrementAndGet());
                 GlobalVariables.graphiteMetrics.put(outputGraphiteMetric.getHashKey(), outputGraphiteMetric);
@@ -82,7 +91,7 @@ public abstract class InternalCollectorFramework {
                 if (openTsdbMetric == null) continue;
 
                 String metricNameWithPrefix = fullInternalCollectorMetricPrefix_ + openTsdbMetric.getMetric();
-                GraphiteMetric outputGraphiteMetric = new GraphiteMetric(metricNameWithPrefix, openTsdbMetric.getMetricValue(), openTsdbMetric.getMetricTimestampInSeconds());
+                GraphiteMetric outputGraphiteMetric = new GraphiteMetric(metricNameWithPrefix, openTsdbMetric.getMetricValue(), getOutputTimestampInSeconds(openTsdbMetric.getMetricTimestampInSeconds()));
 
                 outputGraphiteMetric.setHashKey(GlobalVariables.metricHashKeyGenerator.incrementAndGet());
                 GlobalVariables.graphiteMetrics.put(outputGraphiteMetric.getHashKey(), outputGraphiteMetric);
@@ -98,7 +107,7 @@ public abstract class InternalCollectorFramework {
             for (OpenTsdbMetric openTsdbMetric : openTsdbMetrics) {
                 try {
                     if (openTsdbMetric == null) continue;
-                    GraphiteMetric graphiteMetric = new GraphiteMetric(openTsdbMetric.getMetric(), openTsdbMetric.getMetricValue(), openTsdbMetric.getMetricTimestampInSeconds());
+                    GraphiteMetric graphiteMetric = new GraphiteMetric(openTsdbMetric.getMetric(), openTsdbMetric.getMetricValue(), getOutputTimestampInSeconds(openTsdbMetric.getMetricTimestampInSeconds()));
                     graphiteMetrics.add(graphiteMetric);
                 } 
                 catch (Exception e) {
@@ -121,7 +130,7 @@ public abstract class InternalCollectorFramework {
                 if (openTsdbMetric == null) continue;
 
                 String metricNameWithPrefix = fullInternalCollectorMetricPrefix_ + openTsdbMetric.getMetric();
-                OpenTsdbMetric outputOpenTsdbMetric = new OpenTsdbMetric(metricNameWithPrefix, openTsdbMetric.getMetricTimestampInMilliseconds(), 
+                OpenTsdbMetric outputOpenTsdbMetric = new OpenTsdbMetric(metricNameWithPrefix, getOutputTimestampInMilliseconds(openTsdbMetric.getMetricTimestampInMilliseconds()), 
                         openTsdbMetric.getMetricValue(), openTsdbMetric.getTags());
 
                 outputOpenTsdbMetric.setHashKey(GlobalVariables.metricHashKeyGenerator.incrementAndGet());
@@ -139,6 +148,19 @@ public abstract class InternalCollectorFramework {
         
     }
     
+    /*
+    When the collector scheduler is clock-aligned, every metric in a collection round is stamped with the round's aligned timestamp.
+    */
+    private static int getOutputTimestampInSeconds(int metricTimestampInSeconds) {
+        long alignedTimestampInMs = CollectionTimestamp.getAlignedTimestampInMs();
+        return (alignedTimestampInMs >= 0) ? (int) (alignedTimestampInMs / 1000) : metricTimestampInSeconds;
+    }
+    
+    private static long getOutputTimestampInMilliseconds(long metricTimestampInMilliseconds) {
+        long alignedTimestampInMs = CollectionTimestamp.getAlignedTimestampInMs();
+        return (alignedTimestampInMs >= 0) ? alignedTimestampInMs : metricTimestampInMilliseconds;
+    }
+    
     private void writeGraphiteMetricsToFile(String output) {
         
         if ((output == null) || output.isEmpty()) {
@@ -176,7 +198,7 @@ public abstract class InternalCollectorFramework {
 
                 if (stripPrefix && (metricPrefix != null)) {
                     String graphiteMetricPathNoPrefix = StringUtils.removeStart(graphiteMetric.getMetricPath(), metricPrefix);
-                    outputGraphiteMetric = new GraphiteMetric(graphiteMetricPathNoPrefix, graphiteMetric.getMetricValue(), graphiteMetric.getMetricTimestampInSeconds());
+                    outputGraphiteMetric = new GraphiteMetric(graphiteMetricPathNoPrefix, graphiteMetric.getMetricValue(), getOutputTimestampInSeconds(graphiteMetric.getMetricTimestampInSeconds()));
                 }
 
                 stringBuilder.append(outputGraphiteMetric.getGraphiteFormatString(true, true)).append("\n");
@@ -205,7 +227,7 @@ public abstract class InternalCollectorFramework {
 
                 if (stripPrefix && (metricPrefix != null)) {
                     String openTsdbMetricNameNoPrefix = StringUtils.removeStart(openTsdbMetric.getMetric(), metricPrefix);
-                    outputOpenTsdbMetric = new OpenTsdbMetric(openTsdbMetricNameNoPrefix, openTsdbMetric.getMetricTimestampInMilliseconds(), 
+                    outputOpenTsdbMetric = new OpenTsdbMetric(openTsdbMetricNameNoPrefix, getOutputTimestampInMilliseconds(openTsdbMetric.getMetricTimestampInMilliseconds()), 
                             openTsdbMetric.getMetricValue(), openTsdbMetric.getTags());
                 }
 
@@ -280,6 +302,7 @@ public abstract class InternalCollectorFramework {
         return isEnabled_;
     }
 
+    @Override
     public long getCollectionInterval() {
         return collectionInterval_;
     }
@@ -1,7 +1,6 @@
 package com.pearson.statspoller.internal_metric_collectors.apache_http;
 
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
 import java.io.BufferedReader;
 import java.io.StringReader;
 import java.math.BigDecimal;
@@ -16,7 +15,7 @@ import org.slf4j.LoggerFactory;
 /**
  * @author Jeffrey Schmidt
  */
-public class ApacheHttpMetricCollector extends InternalCollectorFramework implements Runnable {
+public class ApacheHttpMetricCollector extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(ApacheHttpMetricCollector.class.getName());
     
@@ -34,47 +33,37 @@ public class ApacheHttpMetricCollector extends InternalCollectorFramework implem
     }
     
     @Override
-    public void run() {
-        
+    public void collectMetrics() {
         String url = protocol_ + "://" + host_ + ":" + port_ + "/server-status?auto";
- 
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            String serverStatusRaw = NetIo.downloadUrl(url, 0, 1, true);
-            long serverStatusDownloadTime = System.currentTimeMillis();
-
-            List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
-            boolean downloadSuccess;
-            
-            if (serverStatusRaw == null) {
-                downloadSuccess = false;
-                GraphiteMetric isAvailable = new GraphiteMetric("Available", BigDecimal.ZERO, ((int) (serverStatusDownloadTime / 1000)));
-                graphiteMetrics.add(isAvailable);
-            }
-            else {
-                downloadSuccess = true;
-                GraphiteMetric isAvailable = new GraphiteMetric("Available", BigDecimal.ONE, ((int) (serverStatusDownloadTime / 1000)));
-                graphiteMetrics.add(isAvailable);
-                graphiteMetrics.addAll(parseApacheServerStatusMachine(serverStatusRaw, serverStatusDownloadTime));
-            }
-            
-            super.outputGraphiteMetrics(graphiteMetrics);
-                    
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            logger.info("Finished Apache HTTP metric collection routine. ApacheHttpServer=" + host_ + ":" + port_ + 
-                    ", ConnectionSuccess=" + downloadSuccess +
-                    ", ApacheHttpMetricsCollected=" + graphiteMetrics.size() +
-                    ", ApacheHttpMetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
+        
+        long routineStartTime = System.currentTimeMillis();
+        
+        String serverStatusRaw = NetIo.downloadUrl(url, 0, 1, true);
+        long serverStatusDownloadTime = System.currentTimeMillis();
 
-            if (sleepTimeInMs >= 0) {
-                Threads.sleepMilliseconds(sleepTimeInMs);
-            }
+        List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
+        boolean downloadSuccess;
+        
+        if (serverStatusRaw == null) {
+            downloadSuccess = false;
+            GraphiteMetric isAvailable = new GraphiteMetric("Available", BigDecimal.ZERO, ((int) (serverStatusDownloadTime / 1000)));
+            graphiteMetrics.add(isAvailable);
         }
-
+        else {
+            downloadSuccess = true;
+            GraphiteMetric isAvailable = new GraphiteMetric("Available", BigDecimal.ONE, ((int) (serverStatusDownloadTime / 1000)));
+            graphiteMetrics.add(isAvailable);
+            graphiteMetrics.addAll(parseApacheServerStatusMachine(serverStatusRaw, serverStatusDownloadTime));
+        }
+        
+        super.outputGraphiteMetrics(graphiteMetrics);
+                
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+        
+        logger.info("Finished Apache HTTP metric collection routine. ApacheHttpServer=" + host_ + ":" + port_ + 
+                ", ConnectionSuccess=" + downloadSuccess +
+                ", ApacheHttpMetricsCollected=" + graphiteMetrics.size() +
+                ", ApacheHttpMetricCollectionTime=" + routineTimeElapsed);
     }
     
     public List<GraphiteMetric> parseApacheServerStatusMachine(String apacheServerStatusMachineRaw, long serverStatusDownloadTime) {
@@ -12,7 +12,6 @@ import com.pearson.statspoller.internal_metric_collectors.cadvisor.machine_json.
 import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbMetric;
 import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbTag;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
 import com.pearson.statspoller.utilities.json_utils.JsonUtils;
 import com.pearson.statspoller.utilities.web_utils.HttpRequest;
 import java.math.BigDecimal;
@@ -36,7 +35,7 @@ import org.slf4j.LoggerFactory;
  * 
  * The serialized docker json stuff comes from using http://www.jsonschema2pojo.org/
  */
-public class CadvisorMetricCollector extends InternalCollectorFramework implements Runnable {
+public class CadvisorMetricCollector extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(CadvisorMetricCollector.class.getName());
     
@@ -56,6 +55,7 @@ public class CadvisorMetricCollector extends InternalCollectorFramework implemen
     private final String apiVersion_;
     
     private Map<String,PreviousStatMetadata> previousStatMetadatas_ByDockerId_ = new HashMap<>();
+    private boolean isValidApiVersion_ = false;
     
     public CadvisorMetricCollector(boolean isEnabled, long collectionInterval, String metricPrefix, 
                 String outputFilePathAndFilename, boolean writeOutputFiles,
@@ -70,118 +70,117 @@ public class CadvisorMetricCollector extends InternalCollectorFramework implemen
     }
     
     @Override
-    public void run() {
+    public void initializeCollector() {
          
-        boolean isValidApiVersion = isValidApiVersion(apiVersion_);
-        if (!isValidApiVersion) {
+        isValidApiVersion_ = isValidApiVersion(apiVersion_);
+        if (!isValidApiVersion_) {
             logger.error("Error running cAdvisor metric collection routine. Invalid API version specified.  " +
                     "cAdvisorLocation=\"" + protocol_ + "://" + host_ + ":" + port_ + "\", Version=\"" + apiVersion_ + "\"");
-            return;
         }
         
         if ((previousStatMetadatas_ByDockerId_ != null) && !previousStatMetadatas_ByDockerId_.isEmpty()) {
             previousStatMetadatas_ByDockerId_.clear();
         }
         
-        while(super.isEnabled()) {
-
-            long routineStartTime = System.currentTimeMillis();
-            long routineTimeElapsed = -1;
-            boolean didConnectToCadvisor = false;
+    }
+    
+    @Override
+    public void collectMetrics() {
+        
+        if (!isValidApiVersion_) return;
+        
+        long routineStartTime = System.currentTimeMillis();
+        long routineTimeElapsed = -1;
+        boolean didConnectToCadvisor = false;
+        
+        try {      
+            List<OpenTsdbMetric> openTsdbMetrics = new ArrayList<>();
+            Map<String,PreviousStatMetadata> previousStatMetadatas_ByDockerId = new HashMap<>();
             
-            try {      
-                List<OpenTsdbMetric> openTsdbMetrics = new ArrayList<>();
-                Map<String,PreviousStatMetadata> previousStatMetadatas_ByDockerId = new HashMap<>();
+            // get raw docker metrics & serialize into java objects
+            String dockerJson = getCadvisorDockerJson();
+            List<Docker> dockers = parseCadvisorDockerJson(dockerJson);
+            
+            // get raw machine metric & serialize into java objects
+            String machineJson = getCadvisorMachineJson();
+            Machine machine = parseCadvisorMachineJson(machineJson);
+            
+            if ((dockers != null) && !dockers.isEmpty() && (machine != null) && (machine.getSystemUuid() != null) && !machine.getSystemUuid().isEmpty()) {
+                didConnectToCadvisor = true;
+            }
+            
+            // for each docker container, get metrics
+            for (Docker docker : dockers) {
+                if ((docker == null) || (docker.getId() == null) || docker.getId().isEmpty() || (docker.getSpec() == null) || (docker.getStats() == null)) continue;
+                if (machine == null) continue;
                 
-                // get raw docker metrics & serialize into java objects
-                String dockerJson = getCadvisorDockerJson();
-                List<Docker> dockers = parseCadvisorDockerJson(dockerJson);
+                PreviousStatMetadata previousStatMetadata_CurrentIteration = previousStatMetadatas_ByDockerId_.get(docker.getId());
+                                    
+                // get timestamp
+                Stat latestStat = getLatestStatForDocker(docker);
+                Date statTimestamp = getDateFromTimestampString(latestStat.getTimestamp());
                 
-                // get raw machine metric & serialize into java objects
-                String machineJson = getCadvisorMachineJson();
-                Machine machine = parseCadvisorMachineJson(machineJson);
+                // create StatsMetadata objects. The 'previous' one one is stored for use in the next iteration, of this metric collector 
+                CurrentStatMetadata currentStatMetadata = new CurrentStatMetadata(docker, latestStat, statTimestamp, machine);
+                PreviousStatMetadata previousStatMetadata_NextIteration = new PreviousStatMetadata(latestStat, statTimestamp, machine);
+                previousStatMetadatas_ByDockerId.put(docker.getId(), previousStatMetadata_NextIteration);
                 
-                if ((dockers != null) && !dockers.isEmpty() && (machine != null) && (machine.getSystemUuid() != null) && !machine.getSystemUuid().isEmpty()) {
-                    didConnectToCadvisor = true;
+                // get metric prefix
+                String cadvisorScopedMetricPrefix = getCadvisorScopedMetricPrefix(docker);
+                if (cadvisorScopedMetricPrefix == null) continue;
+                
+                // get opentsdb tags
+                List<OpenTsdbTag> openTsdbTags = getOpenTsdbTags(docker);
+                
+                // get memory metrics
+                if ((docker.getSpec().getHasMemory() != null) && docker.getSpec().getHasMemory()) {
+                    List<OpenTsdbMetric> cadvisorDockerMemory_OpenTsdbMetrics = getDockerStatsMetrics_Memory(currentStatMetadata, cadvisorScopedMetricPrefix, openTsdbTags);
+                    if (cadvisorDockerMemory_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerMemory_OpenTsdbMetrics);
                 }
                 
-                // for each docker container, get metrics
-                for (Docker docker : dockers) {
-                    if ((docker == null) || (docker.getId() == null) || docker.getId().isEmpty() || (docker.getSpec() == null) || (docker.getStats() == null)) continue;
-                    if (machine == null) continue;
-                    
-                    PreviousStatMetadata previousStatMetadata_CurrentIteration = previousStatMetadatas_ByDockerId_.get(docker.getId());
-                                        
-                    // get timestamp
-                    Stat latestStat = getLatestStatForDocker(docker);
-                    Date statTimestamp = getDateFromTimestampString(latestStat.getTimestamp());
-                    
-                    // create StatsMetadata objects. The 'previous' one one is stored for use in the next iteration, of this metric collector 
-                    CurrentStatMetadata currentStatMetadata = new CurrentStatMetadata(docker, latestStat, statTimestamp, machine);
-                    PreviousStatMetadata previousStatMetadata_NextIteration = new PreviousStatMetadata(latestStat, statTimestamp, machine);
-                    previousStatMetadatas_ByDockerId.put(docker.getId(), previousStatMetadata_NextIteration);
-                    
-                    // get metric prefix
-                    String cadvisorScopedMetricPrefix = getCadvisorScopedMetricPrefix(docker);
-                    if (cadvisorScopedMetricPrefix == null) continue;
-                    
-                    // get opentsdb tags
-                    List<OpenTsdbTag> openTsdbTags = getOpenTsdbTags(docker);
-                    
-                    // get memory metrics
-                    if ((docker.getSpec().getHasMemory() != null) && docker.getSpec().getHasMemory()) {
-                        List<OpenTsdbMetric> cadvisorDockerMemory_OpenTsdbMetrics = getDockerStatsMetrics_Memory(currentStatMetadata, cadvisorScopedMetricPrefix, openTsdbTags);
-                        if (cadvisorDockerMemory_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerMemory_OpenTsdbMetrics);
-                    }
-                    
-                    //// get filesystem metrics -- disabled because this doesn't seem to work at all
-                    ///if ((docker.getSpec().getHasFilesystem() != null) && docker.getSpec().getHasFilesystem()) {
-                    //    List<OpenTsdbMetric> cadvisorDockerFilesystem_OpenTsdbMetrics = getDockerStatsMetrics_Filesystem(statMetadata, cadvisorScopedMetricPrefix, openTsdbTags);
-                    //    if (cadvisorDockerFilesystem_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerFilesystem_OpenTsdbMetrics);
-                    //}
-                    
-                    // get network metrics
-                    if ((previousStatMetadata_CurrentIteration != null) && (docker.getSpec().getHasNetwork() != null) && docker.getSpec().getHasNetwork()) {
-                        List<OpenTsdbMetric> cadvisorDockerNetwork_OpenTsdbMetrics = getDockerStatsMetrics_Network(currentStatMetadata, previousStatMetadata_CurrentIteration, cadvisorScopedMetricPrefix, openTsdbTags);
-                        if (cadvisorDockerNetwork_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerNetwork_OpenTsdbMetrics);
-                    }
-                    
-                    // get task stats metrics -- disabled because these always seem to be 0
-                    //List<OpenTsdbMetric> cadvisorDockerTaskStats_OpenTsdbMetrics = getDockerStatsMetrics_TaskStats(statMetadata, cadvisorScopedMetricPrefix, openTsdbTags);
-                    //if (cadvisorDockerTaskStats_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerTaskStats_OpenTsdbMetrics);
-                    
-                    // get container uptime metrics
-                    List<OpenTsdbMetric> cadvisorDockerUptime_OpenTsdbMetrics = getDockerStatsMetrics_Uptime(currentStatMetadata, cadvisorScopedMetricPrefix, openTsdbTags);
-                    if (cadvisorDockerUptime_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerUptime_OpenTsdbMetrics);
-                    
-                    // get cpu metrics
-                    if ((previousStatMetadata_CurrentIteration != null) && (docker.getSpec().getHasCpu() != null) && docker.getSpec().getHasCpu()) {
-                        List<OpenTsdbMetric> cadvisorDockerCpu_OpenTsdbMetrics = getDockerStatsMetrics_Cpu(currentStatMetadata, previousStatMetadata_CurrentIteration, cadvisorScopedMetricPrefix, openTsdbTags);
-                        if (cadvisorDockerCpu_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerCpu_OpenTsdbMetrics);
-                    }
+                //// get filesystem metrics -- disabled because this doesn't seem to work at all
+                ///if ((docker.getSpec().getHasFilesystem() != null) && docker.getSpec().getHasFilesystem()) {
+                //    List<OpenTsdbMetric> cadvisorDockerFilesystem_OpenTsdbMetrics = getDockerStatsMetrics_Filesystem(statMetadata, cadvisorScopedMetricPrefix, openTsdbTags);
+                //    if (cadvisorDockerFilesystem_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerFilesystem_OpenTsdbMetrics);
+                //}
+                
+                // get network metrics
+                if ((previousStatMetadata_CurrentIteration != null) && (docker.getSpec().getHasNetwork() != null) && docker.getSpec().getHasNetwork()) {
+                    List<OpenTsdbMetric> cadvisorDockerNetwork_OpenTsdbMetrics = getDockerStatsMetrics_Network(currentStatMetadata, previousStatMetadata_CurrentIteration, cadvisorScopedMetricPrefix, openTsdbTags);
+                    if (cadvisorDockerNetwork_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerNetwork_OpenTsdbMetrics);
                 }
                 
-                previousStatMetadatas_ByDockerId_ = previousStatMetadatas_ByDockerId;
+                // get task stats metrics -- disabled because these always seem to be 0
+                //List<OpenTsdbMetric> cadvisorDockerTaskStats_OpenTsdbMetrics = getDockerStatsMetrics_TaskStats(statMetadata, cadvisorScopedMetricPrefix, openTsdbTags);
+                //if (cadvisorDockerTaskStats_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerTaskStats_OpenTsdbMetrics);
+                
+                // get container uptime metrics
+                List<OpenTsdbMetric> cadvisorDockerUptime_OpenTsdbMetrics = getDockerStatsMetrics_Uptime(currentStatMetadata, cadvisorScopedMetricPrefix, openTsdbTags);
+                if (cadvisorDockerUptime_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerUptime_OpenTsdbMetrics);
+                
+                // get cpu metrics
+                if ((previousStatMetadata_CurrentIteration != null) && (docker.getSpec().getHasCpu() != null) && docker.getSpec().getHasCpu()) {
+                    List<OpenTsdbMetric> cadvisorDockerCpu_OpenTsdbMetrics = getDockerStatsMetrics_Cpu(currentStatMetadata, previousStatMetadata_CurrentIteration, cadvisorScopedMetricPrefix, openTsdbTags);
+                    if (cadvisorDockerCpu_OpenTsdbMetrics != null) openTsdbMetrics.addAll(cadvisorDockerCpu_OpenTsdbMetrics);
+                }
+            }
+            
+            previousStatMetadatas_ByDockerId_ = previousStatMetadatas_ByDockerId;
 
-                super.outputOpenTsdbMetrics(openTsdbMetrics);
+            super.outputOpenTsdbMetrics(openTsdbMetrics);
 
-                routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+            routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
 
-                logger.info("Finished cAdvisor metric collection routine. cAdvisorLocation=\"" + protocol_ + "://" + host_ + ":" + port_ + "\"" +
-                        ", ConnectionSuccess=" + didConnectToCadvisor +
-                        ", cAdvisorMetricsCollected=" + openTsdbMetrics.size() +
-                        ", cAdvisorMetricCollectionTime=" + routineTimeElapsed);
-            }
-            catch (Exception e) {
-                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-                logger.info("Finished cAdvisor metric collection routine. cAdvisorLocation=\"" + protocol_ + "://" + host_ + ":" + port_ + "\"" +
-                        ", ConnectionSuccess=" + didConnectToCadvisor +
-                        ", cAdvisorMetricCollectionTime=" + routineTimeElapsed);
-            }
-            
-            if (routineTimeElapsed == -1) routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
+            logger.info("Finished cAdvisor metric collection routine. cAdvisorLocation=\"" + protocol_ + "://" + host_ + ":" + port_ + "\"" +
+                    ", ConnectionSuccess=" + didConnectToCadvisor +
+                    ", cAdvisorMetricsCollected=" + openTsdbMetrics.size() +
+                    ", cAdvisorMetricCollectionTime=" + routineTimeElapsed);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            logger.info("Finished cAdvisor metric collection routine. cAdvisorLocation=\"" + protocol_ + "://" + host_ + ":" + port_ + "\"" +
+                    ", ConnectionSuccess=" + didConnectToCadvisor +
+                    ", cAdvisorMetricCollectionTime=" + routineTimeElapsed);
         }
 
     }
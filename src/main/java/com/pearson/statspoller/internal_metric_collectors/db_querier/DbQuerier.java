@@ -3,7 +3,6 @@ package com.pearson.statspoller.internal_metric_collectors.db_querier;
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
 import com.pearson.statspoller.utilities.db_utils.DatabaseUtils;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -18,7 +17,7 @@ import org.slf4j.LoggerFactory;
 /**
  * @author Jeffrey Schmidt
  */
-public class DbQuerier extends InternalCollectorFramework implements Runnable {
+public class DbQuerier extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(DbQuerier.class.getName());
     
@@ -43,33 +42,25 @@ public class DbQuerier extends InternalCollectorFramework implements Runnable {
     }
 
     @Override
-    public void run() {
-         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // connect to the db
-            Connection connection = DatabaseUtils.connect(jdbcString_, username_, password_);
-            
-            List<GraphiteMetric> graphiteMetrics = getMetrics(connection);
-            
-            // disconnect from the db
-            DatabaseUtils.disconnect(connection);
-            
-            // output opentsdb metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
-            
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-
-            logger.info("Finished Database Querier metric collection routine. Server=\"" + jdbcString_ + "\"" +
-                    ", MetricsCollected=" + graphiteMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
-
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
-        }
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
+        
+        // connect to the db
+        Connection connection = DatabaseUtils.connect(jdbcString_, username_, password_);
+        
+        List<GraphiteMetric> graphiteMetrics = getMetrics(connection);
+        
+        // disconnect from the db
+        DatabaseUtils.disconnect(connection);
+        
+        // output opentsdb metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
+        
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
 
+        logger.info("Finished Database Querier metric collection routine. Server=\"" + jdbcString_ + "\"" +
+                ", MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
 
     private List<GraphiteMetric> getMetrics(Connection connection) {
@@ -0,0 +1,54 @@
+package com.pearson.statspoller.internal_metric_collectors.file_counter;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * The files directly inside one directory (not in its subdirectories), as counted by FileCountWalker.
+ */
+public class DirectoryFileCount implements Comparable<DirectoryFileCount> {
+
+    public static final long NO_FILES = Long.MAX_VALUE;
+
+    private final String relativePath_;
+    private long fileCount_ = 0;
+    private long totalFileSizeInBytes_ = 0;
+    private long oldestLastModifiedTimestampInMs_ = NO_FILES;
+
+    /*
+    'relativePath' is the directory's path, relative to the root of the walk ("" for the root itself).
+    */
+    public DirectoryFileCount(String relativePath) {
+        this.relativePath_ = relativePath;
+    }
+
+    protected void addFile(long sizeInBytes, long lastModifiedTimestampInMs) {
+        fileCount_++;
+        totalFileSizeInBytes_ += Math.max(sizeInBytes, 0);
+        if (lastModifiedTimestampInMs < oldestLastModifiedTimestampInMs_) oldestLastModifiedTimestampInMs_ = lastModifiedTimestampInMs;
+    }
+
+    @Override
+    public int compareTo(DirectoryFileCount directoryFileCount) {
+        return relativePath_.compareTo(directoryFileCount.getRelativePath());
+    }
+
+    public String getRelativePath() {
+        return relativePath_;
+    }
+
+    public long getFileCount() {
+        return fileCount_;
+    }
+
+    public long getTotalFileSizeInBytes() {
+        return totalFileSizeInBytes_;
+    }
+
+    /*
+    The last-modified timestamp of the oldest file in the directory, or NO_FILES if the directory has no files.
+    */
+    public long getOldestLastModifiedTimestampInMs() {
+        return oldestLastModifiedTimestampInMs_;
+    }
+
+}
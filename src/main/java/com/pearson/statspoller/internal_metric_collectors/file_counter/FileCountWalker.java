@@ -0,0 +1,200 @@
+package com.pearson.statspoller.internal_metric_collectors.file_counter;
+
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.Threads;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RecursiveAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Counts the files in a directory tree, along with their total size & the age of the oldest file, in a single pass.
+ * Directory entries are streamed (DirectoryStream), & only the per-directory totals are kept -- so memory use depends on the number of directories, not the number of files.
+ * With more than one thread, each subdirectory is counted by its own fork-join task.
+ *
+ * Files are regular files, & symbolic links to regular files. Symbolic links to directories aren't followed (so a link cycle can't make the walk loop).
+ */
+public class FileCountWalker {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileCountWalker.class.getName());
+
+    /*
+    Called just before each directory is counted. With more than one thread, it is called from the walk's threads.
+    */
+    public interface DirectoryCountListener {
+        public void beforeCount(String relativePath);
+    }
+
+    /*
+    Returns the per-directory counts, sorted by relative path. Returns an empty list if 'rootDirectory' isn't a readable directory.
+    */
+    public static List<DirectoryFileCount> walk(Path rootDirectory, boolean includeSubdirectories, int numThreads) {
+        return walk(rootDirectory, includeSubdirectories, numThreads, null);
+    }
+
+    public static List<DirectoryFileCount> walk(Path rootDirectory, boolean includeSubdirectories, int numThreads, DirectoryCountListener directoryCountListener) {
+
+        Queue<DirectoryFileCount> directoryFileCounts = new ConcurrentLinkedQueue<>();
+
+        if ((rootDirectory == null) || !Files.isDirectory(rootDirectory)) return new ArrayList<>();
+
+        if (includeSubdirectories && (numThreads > 1)) {
+            Threads.getForkJoinPool("FileCountWalker", numThreads).invoke(new CountTask(rootDirectory, "", directoryFileCounts, directoryCountListener));
+        }
+        else if (includeSubdirectories) {
+            // depth-first, without recursion (a deep tree can't overflow the stack)
+            Deque<DirectoryToCount> directoriesToCount = new ArrayDeque<>();
+            directoriesToCount.push(new DirectoryToCount(rootDirectory, ""));
+
+            while (!directoriesToCount.isEmpty()) {
+                DirectoryToCount directoryToCount = directoriesToCount.pop();
+                List<DirectoryToCount> subdirectories = new ArrayList<>();
+                countDirectory(directoryToCount.directory_, directoryToCount.relativePath_, subdirectories, directoryFileCounts, directoryCountListener);
+                for (DirectoryToCount subdirectory : subdirectories) directoriesToCount.push(subdirectory);
+            }
+        }
+        else {
+            countDirectory(rootDirectory, "", null, directoryFileCounts, directoryCountListener);
+        }
+
+        List<DirectoryFileCount> sortedDirectoryFileCounts = new ArrayList<>(directoryFileCounts);
+        Collections.sort(sortedDirectoryFileCounts);
+        return sortedDirectoryFileCounts;
+    }
+
+    /*
+    Counts the files directly inside 'directory', & adds the names of its subdirectories to 'subdirectoryNames'. Returns null if the directory can't be read.
+    */
+    public static DirectoryFileCount countDirectory(Path directory, Set<String> subdirectoryNames) {
+
+        Queue<DirectoryFileCount> directoryFileCounts = new ConcurrentLinkedQueue<>();
+        List<DirectoryToCount> subdirectories = new ArrayList<>();
+        countDirectory(directory, "", subdirectories, directoryFileCounts, null);
+
+        for (DirectoryToCount subdirectory : subdirectories) subdirectoryNames.add(subdirectory.relativePath_);
+        return directoryFileCounts.peek();
+    }
+
+    /*
+    Counts the files directly inside 'directory'. Subdirectories are added to 'subdirectories' (if it isn't null).
+    A directory that can't be read (ex- it was deleted during the walk) is skipped.
+    */
+    private static void countDirectory(Path directory, String relativePath, List<DirectoryToCount> subdirectories, Queue<DirectoryFileCount> directoryFileCounts,
+            DirectoryCountListener directoryCountListener) {
+
+        if (directoryCountListener != null) directoryCountListener.beforeCount(relativePath);
+        countDirectory(directory, relativePath, subdirectories, directoryFileCounts);
+    }
+
+    private static void countDirectory(Path directory, String relativePath, List<DirectoryToCount> subdirectories, Queue<DirectoryFileCount> directoryFileCounts) {
+
+        DirectoryFileCount directoryFileCount = new DirectoryFileCount(relativePath);
+        DirectoryStream<Path> directoryStream = null;
+
+        try {
+            directoryStream = Files.newDirectoryStream(directory);
+
+            for (Path entry : directoryStream) {
+                BasicFileAttributes attributes = readAttributes(entry, LinkOption.NOFOLLOW_LINKS);
+                if (attributes == null) continue;
+
+                if (attributes.isSymbolicLink()) attributes = readAttributes(entry);
+                else if (attributes.isDirectory()) {
+                    if (subdirectories != null) {
+                        String fileName = entry.getFileName().toString();
+                        subdirectories.add(new DirectoryToCount(entry, relativePath.isEmpty() ? fileName : (relativePath + "/" + fileName)));
+                    }
+                    continue;
+                }
+
+                if ((attributes != null) && attributes.isRegularFile()) directoryFileCount.addFile(attributes.size(), attributes.lastModifiedTime().toMillis());
+            }
+
+            directoryFileCounts.add(directoryFileCount);
+        }
+        catch (IOException | DirectoryIteratorException e) {
+            logger.debug("Message=\"Unable to read directory\", Directory=\"" + directory + "\", Exception=\"" + e.toString() + "\"");
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+        finally {
+            try {
+                if (directoryStream != null) directoryStream.close();
+            }
+            catch (Exception e) {
+                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+        }
+    }
+
+    // returns null if the file no longer exists (or can't be read)
+    private static BasicFileAttributes readAttributes(Path path, LinkOption... linkOptions) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, linkOptions);
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static class DirectoryToCount {
+
+        private final Path directory_;
+        private final String relativePath_;
+
+        public DirectoryToCount(Path directory, String relativePath) {
+            this.directory_ = directory;
+            this.relativePath_ = relativePath;
+        }
+
+    }
+
+    /*
+    Counts one directory, then counts its subdirectories in parallel.
+    */
+    private static class CountTask extends RecursiveAction {
+
+        private final Path directory_;
+        private final String relativePath_;
+        private final Queue<DirectoryFileCount> directoryFileCounts_;
+        private final DirectoryCountListener directoryCountListener_;
+
+        public CountTask(Path directory, String relativePath, Queue<DirectoryFileCount> directoryFileCounts, DirectoryCountListener directoryCountListener) {
+            this.directory_ = directory;
+            this.relativePath_ = relativePath;
+            this.directoryFileCounts_ = directoryFileCounts;
+            this.directoryCountListener_ = directoryCountListener;
+        }
+
+        @Override
+        protected void compute() {
+
+            List<DirectoryToCount> subdirectories = new ArrayList<>();
+            countDirectory(directory_, relativePath_, subdirectories, directoryFileCounts_, directoryCountListener_);
+            if (subdirectories.isEmpty()) return;
+
+            List<CountTask> subdirectoryTasks = new ArrayList<>(subdirectories.size());
+            for (DirectoryToCount subdirectory : subdirectories) subdirectoryTasks.add(new CountTask(subdirectory.directory_, subdirectory.relativePath_, directoryFileCounts_, directoryCountListener_));
+            invokeAll(subdirectoryTasks);
+        }
+
+    }
+
+}
@@ -1,66 +1,89 @@
 package com.pearson.statspoller.internal_metric_collectors.file_counter;
 
+import com.pearson.statspoller.globals.ApplicationConfiguration;
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
-import java.io.File;
 import java.math.BigDecimal;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.DirectoryFileFilter;
-import org.apache.commons.io.filefilter.TrueFileFilter;
-import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.SystemUtils;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * @author Jeffrey Schmidt
+ * 
+ * Counts the files in a directory (& optionally in each of its subdirectories). See FileCountWalker.
+ * In 'incremental' mode, the counts are kept up to date from directory events (see IncrementalFileCounter), instead of recounting on every run.
  */
-public class FileCounterMetricCollector extends InternalCollectorFramework implements Runnable {
+public class FileCounterMetricCollector extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(FileCounterMetricCollector.class.getName());
     
+    public static final String MODE_FULL = "full";
+    public static final String MODE_INCREMENTAL = "incremental";
+    
     private final String rootDirectory_;
     private final boolean countFilesInSubdirectories_;
+    private final String mode_;
+    
+    private IncrementalFileCounter incrementalFileCounter_ = null;
     
     public FileCounterMetricCollector(boolean isEnabled, long collectionInterval, String metricPrefix, 
             String outputFilePathAndFilename, boolean writeOutputFiles,
             String rootDirectory, boolean countFilesInSubdirectories) {
+        this(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles, rootDirectory, countFilesInSubdirectories, MODE_FULL);
+    }
+    
+    public FileCounterMetricCollector(boolean isEnabled, long collectionInterval, String metricPrefix, 
+            String outputFilePathAndFilename, boolean writeOutputFiles,
+            String rootDirectory, boolean countFilesInSubdirectories, String mode) {
         super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
         
         rootDirectory_ = removeTrailingSlashes(rootDirectory);
         countFilesInSubdirectories_ = countFilesInSubdirectories;
+        mode_ = (mode == null) ? MODE_FULL : mode;
     }
     
     @Override
-    public void run() {
+    public void initializeCollector() {
         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // get the update stats in graphite format
-            List<GraphiteMetric> graphiteMetrics = getFileCountMetrics();
-
-            // output graphite metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
+        if (!MODE_INCREMENTAL.equals(mode_) || (rootDirectory_ == null) || (incrementalFileCounter_ != null)) return;
+        
+        incrementalFileCounter_ = new IncrementalFileCounter(Paths.get(rootDirectory_), countFilesInSubdirectories_, 
+                ApplicationConfiguration.getFileCounterRescanInterval(), getCollectionInterval(), ApplicationConfiguration.getFileCounterThreads());
+        
+        Thread incrementalFileCounterThread = new Thread(incrementalFileCounter_, "FileCounter-Watcher-" + getInternalCollectorMetricPrefix());
+        incrementalFileCounterThread.setDaemon(true);
+        incrementalFileCounterThread.start();
+    }
+    
+    @Override
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
+        
+        // get the update stats in graphite format
+        boolean isIncremental = (incrementalFileCounter_ != null) && incrementalFileCounter_.isActive();
+        List<GraphiteMetric> graphiteMetrics = isIncremental ? getIncrementalFileCountMetrics() : getFileCountMetrics();
 
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            logger.info("Finished Linux-Uptime metric collection routine. " +
-                    "MetricsCollected=" + graphiteMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
 
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
-        }
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
         
+        logger.info("Finished FileCounter metric collection routine. " +
+                "Directory=\"" + rootDirectory_ + "\"" +
+                ", Mode=" + (isIncremental ? MODE_INCREMENTAL : MODE_FULL) +
+                (isIncremental ? (", EventsProcessed=" + incrementalFileCounter_.getNumEventsProcessed() + ", FullCounts=" + incrementalFileCounter_.getNumRescans()) : "") +
+                ", MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
     
+    /*
+    Walks the directory (& optionally its subdirectories) once, & outputs the file count, total file size, & oldest file age of each directory.
+    */
     private List<GraphiteMetric> getFileCountMetrics() {
         
         if (rootDirectory_ == null) {
@@ -70,33 +93,21 @@ public class FileCounterMetricCollector extends InternalCollectorFramework imple
         List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
         
         try {
-            Collection<File> directories = new ArrayList<>();
-            File rootDirectory_File = new File(rootDirectory_);
+            List<DirectoryFileCount> directoryFileCounts = FileCountWalker.walk(Paths.get(rootDirectory_), countFilesInSubdirectories_, ApplicationConfiguration.getFileCounterThreads());
             
-            if (countFilesInSubdirectories_) {
-                Collection<File> subdirectories = FileUtils.listFilesAndDirs(rootDirectory_File, DirectoryFileFilter.DIRECTORY, TrueFileFilter.TRUE);
-                if (subdirectories != null) directories.addAll(subdirectories);
-            }
-            else if (rootDirectory_File.isDirectory()) {
-                directories.add(rootDirectory_File);
-            }
+            long currentTimestampInMilliseconds = System.currentTimeMillis();
+            int currentTimestampInSeconds = (int) (currentTimestampInMilliseconds / 1000);
             
-            for (File directory : directories) {
-                int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
-                Collection<File> files = FileUtils.listFiles(directory, null, false);
-                if (files == null) continue;
+            for (DirectoryFileCount directoryFileCount : directoryFileCounts) {
+                String metricPathPrefix = getMetricPathPrefix(directoryFileCount.getRelativePath());
                 
-                String metricPath = StringUtils.removeStart(directory.getCanonicalPath(), rootDirectory_);
-                if (metricPath == null) metricPath = "";
-                metricPath = removeLeadingSlashes(metricPath);
-                if (SystemUtils.IS_OS_WINDOWS) metricPath = metricPath.replace('\\', '.');
-                else metricPath = metricPath.replace('/', '.');
+                graphiteMetrics.add(new GraphiteMetric(metricPathPrefix + "filecount", new BigDecimal(directoryFileCount.getFileCount()), currentTimestampInSeconds));
+                graphiteMetrics.add(new GraphiteMetric(metricPathPrefix + "filesize-bytes", new BigDecimal(directoryFileCount.getTotalFileSizeInBytes()), currentTimestampInSeconds));
                 
-                String graphiteFriendlyMetricPath = GraphiteMetric.getGraphiteSanitizedString(metricPath, true, true);
-                String finalMetricPath = (graphiteFriendlyMetricPath.isEmpty()) ? "filecount" : (graphiteFriendlyMetricPath + ".filecount");
-                
-                GraphiteMetric graphiteMetric = new GraphiteMetric(finalMetricPath, new BigDecimal(files.size()), currentTimestampInSeconds);
-                graphiteMetrics.add(graphiteMetric);
+                if (directoryFileCount.getOldestLastModifiedTimestampInMs() != DirectoryFileCount.NO_FILES) {
+                    long oldestFileAgeInMs = Math.max(currentTimestampInMilliseconds - directoryFileCount.getOldestLastModifiedTimestampInMs(), 0);
+                    graphiteMetrics.add(new GraphiteMetric(metricPathPrefix + "oldestfileage-seconds", new BigDecimal(oldestFileAgeInMs / 1000), currentTimestampInSeconds));
+                }
             }
         }
         catch (Exception e) {
@@ -106,6 +117,47 @@ public class FileCounterMetricCollector extends InternalCollectorFramework imple
         return graphiteMetrics;
     }
     
+    /*
+    Outputs the file count of each directory, as of the most recent directory event. 
+    The total file size & oldest file age can't be kept up to date from events, so they're only output in 'full' mode.
+    */
+    private List<GraphiteMetric> getIncrementalFileCountMetrics() {
+        
+        List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
+        
+        try {
+            // nothing is output until the first full count has finished
+            Map<String,Long> fileCounts_ByRelativePath = incrementalFileCounter_.getFileCounts_ByRelativePath();
+            if (fileCounts_ByRelativePath == null) return graphiteMetrics;
+            
+            int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
+            
+            for (Map.Entry<String,Long> fileCount : fileCounts_ByRelativePath.entrySet()) {
+                String metricPathPrefix = getMetricPathPrefix(fileCount.getKey());
+                graphiteMetrics.add(new GraphiteMetric(metricPathPrefix + "filecount", new BigDecimal(fileCount.getValue()), currentTimestampInSeconds));
+            }
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+        
+        return graphiteMetrics;
+    }
+    
+    private static String getMetricPathPrefix(String relativePath) {
+        
+        String metricPath = removeLeadingSlashes(relativePath);
+        if (metricPath == null) metricPath = "";
+        metricPath = metricPath.replace('/', '.');
+
+        String graphiteFriendlyMetricPath = GraphiteMetric.getGraphiteSanitizedString(metricPath, true, true);
+        return (graphiteFriendlyMetricPath.isEmpty()) ? "" : (graphiteFriendlyMetricPath + ".");
+    }
+    
+    public String getMode() {
+        return mode_;
+    }
+    
     private static String removeLeadingSlashes(String input) {
         if ((input == null) || input.isEmpty()) return input;
         
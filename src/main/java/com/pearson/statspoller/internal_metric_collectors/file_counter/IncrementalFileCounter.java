@@ -0,0 +1,400 @@
+package com.pearson.statspoller.internal_metric_collectors.file_counter;
+
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Keeps per-directory file counts up to date from WatchService create & delete events, so that counting a very large directory costs
+ * about as much as the number of files that changed, rather than the number of files in the directory.
+ *
+ * The directory tree is fully counted (FileCountWalker) at startup, every 'rescan interval' (to correct any drift), & after events are lost (an overflow).
+ * During a full count, each directory is watched (& its queued events are thrown away) just before it is counted, so the events that are applied on top
+ * of a directory's new count are the ones that happened after it was counted.
+ * Deleted entries are assumed to be files, unless they were known directories. Entries that aren't files (ex- a symbolic link to a directory) can
+ * make the counts drift a little between full counts.
+ *
+ * If the directories can't be watched (ex- the inotify watch limit was reached), this stops, & isActive() returns false.
+ */
+public class IncrementalFileCounter implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalFileCounter.class.getName());
+
+    private final Path rootDirectory_;
+    private final boolean includeSubdirectories_;
+    private final long rescanIntervalInMs_;
+    private final long minTimeBetweenRescansInMs_;
+    private final int numWalkerThreads_;
+
+    // only modified by the watcher thread. read (copied) by the collector thread, under the lock.
+    private final Map<String,Long> fileCounts_ByRelativePath_ = new HashMap<>();
+
+    private final Map<WatchKey,String> relativePaths_ByWatchKey_ = new HashMap<>();
+    // also modified by the walk's threads during a full count, under the lock
+    private final Map<String,WatchKey> watchKeys_ByRelativePath_ = new HashMap<>();
+    
+    // when subdirectories aren't counted, the root's subdirectories still have to be known, so that deleting one isn't counted as deleting a file
+    private final Set<String> uncountedSubdirectoryNames_ = new HashSet<>();
+
+    private WatchService watchService_ = null;
+    private volatile boolean isActive_ = true;
+    private volatile boolean hasCounted_ = false;
+    private volatile boolean isRescanNeeded_ = false;
+    private long lastRescanTimestamp_ = 0;
+    private volatile long numEventsProcessed_ = 0;
+    private volatile long numRescans_ = 0;
+
+    /*
+    'minTimeBetweenRescansInMs' limits how often an overflow can cause a full count (ex- the collection interval).
+    */
+    public IncrementalFileCounter(Path rootDirectory, boolean includeSubdirectories, long rescanIntervalInMs, long minTimeBetweenRescansInMs, int numWalkerThreads) {
+        this.rootDirectory_ = rootDirectory;
+        this.includeSubdirectories_ = includeSubdirectories;
+        this.rescanIntervalInMs_ = Math.max(rescanIntervalInMs, 1);
+        this.minTimeBetweenRescansInMs_ = Math.max(minTimeBetweenRescansInMs, 0);
+        this.numWalkerThreads_ = numWalkerThreads;
+    }
+
+    @Override
+    public void run() {
+
+        try {
+            watchService_ = FileSystems.getDefault().newWatchService();
+        }
+        catch (Exception e) {
+            logger.warn("Message=\"Unable to create a directory watch service. Falling back to full file counts.\", Directory=\"" + rootDirectory_ + "\", Exception=\"" + e.toString() + "\"");
+            isActive_ = false;
+            return;
+        }
+
+        long nextRescanTimestamp = 0;
+
+        while (isActive_) {
+            try {
+                long currentTimestamp = System.currentTimeMillis();
+
+                if ((currentTimestamp >= nextRescanTimestamp) || (isRescanNeeded_ && (currentTimestamp >= (lastRescanTimestamp_ + minTimeBetweenRescansInMs_)))) {
+                    rescan();
+                    nextRescanTimestamp = System.currentTimeMillis() + rescanIntervalInMs_;
+                    continue;
+                }
+
+                long waitTimeInMs = nextRescanTimestamp - currentTimestamp;
+                if (isRescanNeeded_) waitTimeInMs = Math.min(waitTimeInMs, (lastRescanTimestamp_ + minTimeBetweenRescansInMs_) - currentTimestamp);
+
+                WatchKey watchKey = watchService_.poll(Math.max(waitTimeInMs, 1), TimeUnit.MILLISECONDS);
+                while (watchKey != null) {
+                    processWatchKey(watchKey);
+                    watchKey = watchService_.poll();
+                }
+            }
+            catch (ClosedWatchServiceException e) {
+                isActive_ = false;
+            }
+            catch (InterruptedException e) {
+                isActive_ = false;
+                Thread.currentThread().interrupt();
+            }
+            catch (Exception e) {
+                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+                isRescanNeeded_ = true;
+            }
+        }
+
+        stop();
+    }
+
+    /*
+    Fully counts the directory tree. Each directory is watched before it is counted (see watchBeforeCount).
+    */
+    private void rescan() {
+
+        long rescanStartTimestamp = System.currentTimeMillis();
+        List<DirectoryFileCount> directoryFileCounts;
+        isRescanNeeded_ = false;
+
+        FileCountWalker.DirectoryCountListener directoryCountListener = new FileCountWalker.DirectoryCountListener() {
+            @Override
+            public void beforeCount(String relativePath) {
+                beforeDirectoryCounted(relativePath);
+                watchBeforeCount(relativePath);
+            }
+        };
+
+        if (includeSubdirectories_) {
+            directoryFileCounts = FileCountWalker.walk(rootDirectory_, true, numWalkerThreads_, directoryCountListener);
+        }
+        else {
+            directoryFileCounts = new ArrayList<>();
+            uncountedSubdirectoryNames_.clear();
+            directoryCountListener.beforeCount("");
+            DirectoryFileCount directoryFileCount = FileCountWalker.countDirectory(rootDirectory_, uncountedSubdirectoryNames_);
+            if (directoryFileCount != null) directoryFileCounts.add(directoryFileCount);
+        }
+
+        Set<String> relativePaths = new HashSet<>();
+        for (DirectoryFileCount directoryFileCount : directoryFileCounts) relativePaths.add(directoryFileCount.getRelativePath());
+
+        // stop watching directories that no longer exist
+        Iterator<Map.Entry<String,WatchKey>> iterator = watchKeys_ByRelativePath_.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String,WatchKey> entry = iterator.next();
+            if (relativePaths.contains(entry.getKey())) continue;
+            entry.getValue().cancel();
+            relativePaths_ByWatchKey_.remove(entry.getValue());
+            iterator.remove();
+        }
+
+        synchronized (fileCounts_ByRelativePath_) {
+            fileCounts_ByRelativePath_.clear();
+            for (DirectoryFileCount directoryFileCount : directoryFileCounts) fileCounts_ByRelativePath_.put(directoryFileCount.getRelativePath(), directoryFileCount.getFileCount());
+        }
+
+        lastRescanTimestamp_ = System.currentTimeMillis();
+        hasCounted_ = true;
+        numRescans_++;
+
+        logger.debug("Message=\"Counted files\", Directory=\"" + rootDirectory_ + "\", Directories=" + directoryFileCounts.size() +
+                ", WatchedDirectories=" + watchKeys_ByRelativePath_.size() + ", CountTime=" + (lastRescanTimestamp_ - rescanStartTimestamp));
+    }
+
+    /*
+    Called (by the walk's threads) just before a directory is counted. Watches the directory if it isn't already watched. Otherwise, throws away its queued events, 
+    since the count that is about to be stored already includes them. 
+    A file that is created while the directory is being listed can still be counted twice (until the next full count).
+    */
+    private void watchBeforeCount(String relativePath) {
+
+        synchronized (watchKeys_ByRelativePath_) {
+            WatchKey watchKey = watchKeys_ByRelativePath_.get(relativePath);
+            
+            if (watchKey == null) {
+                register(relativePath);
+                return;
+            }
+
+            for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+                // directories that were already counted may have lost events too
+                if (watchEvent.kind() == StandardWatchEventKinds.OVERFLOW) isRescanNeeded_ = true;
+            }
+        }
+    }
+
+    // lets tests change the tree at a known point of a full count. called (by the walk's threads) just before a directory is watched & counted.
+    void beforeDirectoryCounted(String relativePath) {
+    }
+
+    private void register(String relativePath) {
+
+        if (!isActive_) return;
+
+        try {
+            WatchKey watchKey = getPath(relativePath).register(watchService_, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+            
+            synchronized (watchKeys_ByRelativePath_) {
+                watchKeys_ByRelativePath_.put(relativePath, watchKey);
+                relativePaths_ByWatchKey_.put(watchKey, relativePath);
+            }
+        }
+        catch (ClosedWatchServiceException e) {
+            isActive_ = false;
+        }
+        catch (IOException e) {
+            // usually the inotify watch limit (fs.inotify.max_user_watches). a directory that was just deleted is picked up by its parent's delete event.
+            if (Files.isDirectory(getPath(relativePath))) {
+                logger.warn("Message=\"Unable to watch directory. Falling back to full file counts.\", Directory=\"" + getPath(relativePath) + "\", Exception=\"" + e.toString() + "\"");
+                stop();
+            }
+        }
+    }
+
+    private void processWatchKey(WatchKey watchKey) {
+
+        String relativePath = relativePaths_ByWatchKey_.get(watchKey);
+        if (relativePath == null) {
+            watchKey.cancel();
+            return;
+        }
+
+        for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+            numEventsProcessed_++;
+
+            if (watchEvent.kind() == StandardWatchEventKinds.OVERFLOW) {
+                if (!isRescanNeeded_) logger.info("Message=\"Directory events were lost. Recounting.\", Directory=\"" + rootDirectory_ + "\"");
+                isRescanNeeded_ = true;
+                continue;
+            }
+
+            Object context = watchEvent.context();
+            if (!(context instanceof Path)) continue;
+            String fileName = context.toString();
+            String childRelativePath = relativePath.isEmpty() ? fileName : (relativePath + "/" + fileName);
+
+            if (watchEvent.kind() == StandardWatchEventKinds.ENTRY_CREATE) processCreate(relativePath, childRelativePath);
+            else if (watchEvent.kind() == StandardWatchEventKinds.ENTRY_DELETE) processDelete(relativePath, childRelativePath);
+        }
+
+        // the directory was deleted (or became inaccessible)
+        if (!watchKey.reset()) {
+            relativePaths_ByWatchKey_.remove(watchKey);
+            watchKeys_ByRelativePath_.remove(relativePath);
+            if (relativePath.isEmpty()) isRescanNeeded_ = true;
+        }
+    }
+
+    private void processCreate(String relativePath, String childRelativePath) {
+
+        Path childPath = getPath(childRelativePath);
+        BasicFileAttributes attributes = readAttributes(childPath, LinkOption.NOFOLLOW_LINKS);
+
+        if ((attributes != null) && attributes.isDirectory()) {
+            if (!includeSubdirectories_) {
+                uncountedSubdirectoryNames_.add(childRelativePath);
+                return;
+            }
+
+            // the new directory can already have files (& subdirectories) in it -- ex- it was moved here
+            addDirectory(childRelativePath);
+            return;
+        }
+
+        if ((attributes != null) && attributes.isSymbolicLink()) attributes = readAttributes(childPath);
+
+        // a file that was deleted right after it was created is counted here, & uncounted by its delete event
+        if ((attributes == null) || attributes.isRegularFile()) addToFileCount(relativePath, 1);
+    }
+
+    /*
+    Watches & counts a new directory, & every directory under it. Each directory is watched before it is counted, so that a file created in the meantime isn't missed.
+    */
+    private void addDirectory(String relativePath) {
+
+        Deque<String> relativePathsToAdd = new ArrayDeque<>();
+        relativePathsToAdd.push(relativePath);
+
+        while (!relativePathsToAdd.isEmpty() && isActive_) {
+            String relativePathToAdd = relativePathsToAdd.pop();
+            if (!watchKeys_ByRelativePath_.containsKey(relativePathToAdd)) register(relativePathToAdd);
+
+            Set<String> subdirectoryNames = new HashSet<>();
+            DirectoryFileCount directoryFileCount = FileCountWalker.countDirectory(getPath(relativePathToAdd), subdirectoryNames);
+            if (directoryFileCount == null) continue;
+
+            synchronized (fileCounts_ByRelativePath_) {
+                fileCounts_ByRelativePath_.put(relativePathToAdd, directoryFileCount.getFileCount());
+            }
+
+            for (String subdirectoryName : subdirectoryNames) relativePathsToAdd.push(relativePathToAdd + "/" + subdirectoryName);
+        }
+    }
+
+    private void processDelete(String relativePath, String childRelativePath) {
+
+        if (uncountedSubdirectoryNames_.remove(childRelativePath)) return;
+
+        synchronized (fileCounts_ByRelativePath_) {
+            if (!fileCounts_ByRelativePath_.containsKey(childRelativePath)) {
+                addToFileCount(relativePath, -1);
+                return;
+            }
+
+            // a directory was deleted (or moved away). forget it & everything under it.
+            String childRelativePathPrefix = childRelativePath + "/";
+            Iterator<String> iterator = fileCounts_ByRelativePath_.keySet().iterator();
+
+            while (iterator.hasNext()) {
+                String directoryRelativePath = iterator.next();
+                if (!directoryRelativePath.equals(childRelativePath) && !directoryRelativePath.startsWith(childRelativePathPrefix)) continue;
+
+                iterator.remove();
+                WatchKey watchKey = watchKeys_ByRelativePath_.remove(directoryRelativePath);
+                if (watchKey != null) {
+                    watchKey.cancel();
+                    relativePaths_ByWatchKey_.remove(watchKey);
+                }
+            }
+        }
+    }
+
+    private void addToFileCount(String relativePath, long delta) {
+        synchronized (fileCounts_ByRelativePath_) {
+            Long fileCount = fileCounts_ByRelativePath_.get(relativePath);
+            if (fileCount != null) fileCounts_ByRelativePath_.put(relativePath, Math.max(fileCount + delta, 0));
+        }
+    }
+
+    private Path getPath(String relativePath) {
+        return relativePath.isEmpty() ? rootDirectory_ : rootDirectory_.resolve(relativePath);
+    }
+
+    // returns null if the file no longer exists (or can't be read)
+    private static BasicFileAttributes readAttributes(Path path, LinkOption... linkOptions) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, linkOptions);
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    /*
+    Returns the current file count of each directory, sorted by relative path. Returns null until the first full count has finished.
+    */
+    public Map<String,Long> getFileCounts_ByRelativePath() {
+
+        if (!hasCounted_) return null;
+
+        synchronized (fileCounts_ByRelativePath_) {
+            return new TreeMap<>(fileCounts_ByRelativePath_);
+        }
+    }
+
+    public void stop() {
+
+        isActive_ = false;
+
+        try {
+            if (watchService_ != null) watchService_.close();
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+    }
+
+    public boolean isActive() {
+        return isActive_;
+    }
+
+    public long getNumEventsProcessed() {
+        return numEventsProcessed_;
+    }
+
+    public long getNumRescans() {
+        return numRescans_;
+    }
+
+}
@@ -7,6 +7,15 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import javax.management.Attribute;
 import javax.management.AttributeList;
@@ -30,13 +39,22 @@ import org.slf4j.LoggerFactory;
 
 /**
  * @author Jeffrey Schmidt
+ * 
+ * With more than one fetch thread, attributes are fetched from up to 'fetchThreads' mbeans at a time (over the same JMX connection), so that a JVM with thousands of mbeans 
+ * isn't limited by one network round trip per mbean. Each mbean's fetch then has a timeout. With one fetch thread, the mbeans are fetched one at a time on the collector's thread.
  */
-public class JmxMetricCollector extends InternalCollectorFramework implements Runnable {
+public class JmxMetricCollector extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(JmxMetricCollector.class.getName());
 
     private static final String REMOTE_JMX_NAME_FIELD_IDENTIFIER = "$REMOTE-JMX-NAME";
     
+    public static final int DEFAULT_FETCH_THREADS = 1;
+    public static final long DEFAULT_FETCH_TIMEOUT_IN_MS = 10000;
+    
+    // fetch threads that have been idle for this long are stopped, so a collector only has fetch threads while it is fetching
+    private static final long FETCH_THREAD_KEEP_ALIVE_TIME_IN_MS = 5000;
+    
     private final String host_;
     private final int port_;
     private final String jmxServiceUrl_;
@@ -52,6 +70,8 @@ public class JmxMetricCollector extends InternalCollectorFramework implements Ru
     private final List<String> whitelistRegexs_;
     private final List<String> numericDerivedRegexs_;
     private final List<String> stringDerivedRegexs_;
+    private final int fetchThreads_;
+    private final long fetchTimeoutInMs_;
     
     private final JmxDerivedMetrics jmxDerivedMetrics_ = new JmxDerivedMetrics();
     
@@ -94,11 +114,32 @@ public class JmxMetricCollector extends InternalCollectorFramework implements Ru
     // k=unformatted graphite metric path, v=formatted graphite metric path
     private Map<String,String> graphiteFormattedMetricPaths_ = new HashMap<>();
     
+    // created on the first fetch
+    private ThreadPoolExecutor fetchThreadPool_ = null;
+    
+    // timings & timeouts of the most recent collection routine
+    private volatile long lastQueryMBeansTimeInMs_ = -1;
+    private volatile long lastFetchMetricAttributesTimeInMs_ = -1;
+    private volatile int lastNumTimedOutMBeans_ = 0;
+    private boolean didEveryFetchTimeOut_ = false;
+    
     public JmxMetricCollector(boolean isEnabled, long collectionInterval, String jmxMetricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles,
             String host, int port, String jmxServiceUrl, int numConnectionAttemptRetries, long sleepAfterConnectTime, long queryMetricTreeInterval,
             boolean collectStringAttributes, boolean isDerivedMetricsEnabled,
             String username, String password, List<String> blacklistObjectNameRegexs, List<String> blacklistRegexs, List<String> whitelistRegexs) {
         
+        this(isEnabled, collectionInterval, jmxMetricPrefix, outputFilePathAndFilename, writeOutputFiles, 
+                host, port, jmxServiceUrl, numConnectionAttemptRetries, sleepAfterConnectTime, queryMetricTreeInterval,
+                collectStringAttributes, isDerivedMetricsEnabled, username, password, blacklistObjectNameRegexs, blacklistRegexs, whitelistRegexs,
+                DEFAULT_FETCH_THREADS, DEFAULT_FETCH_TIMEOUT_IN_MS);
+    }
+    
+    public JmxMetricCollector(boolean isEnabled, long collectionInterval, String jmxMetricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles,
+            String host, int port, String jmxServiceUrl, int numConnectionAttemptRetries, long sleepAfterConnectTime, long queryMetricTreeInterval,
+            boolean collectStringAttributes, boolean isDerivedMetricsEnabled,
+            String username, String password, List<String> blacklistObjectNameRegexs, List<String> blacklistRegexs, List<String> whitelistRegexs,
+            int fetchThreads, long fetchTimeoutInMs) {
+        
         super(isEnabled, collectionInterval, jmxMetricPrefix, outputFilePathAndFilename, writeOutputFiles);
         super.createAndUpdateFullInternalCollectorMetricPrefix(REMOTE_JMX_NAME_FIELD_IDENTIFIER, "");
         super.updateOutputFilePathAndFilename(REMOTE_JMX_NAME_FIELD_IDENTIFIER, "");
@@ -116,6 +157,8 @@ public class JmxMetricCollector extends InternalCollectorFramework implements Ru
         this.blacklistObjectNameRegexs_ = blacklistObjectNameRegexs;
         this.blacklistRegexs_ = blacklistRegexs;
         this.whitelistRegexs_ = whitelistRegexs;
+        this.fetchThreads_ = Math.max(fetchThreads, 1);
+        this.fetchTimeoutInMs_ = (fetchTimeoutInMs > 0) ? fetchTimeoutInMs : DEFAULT_FETCH_TIMEOUT_IN_MS;
         
         if (isDerivedMetricsEnabled_) {
             this.numericDerivedRegexs_ = jmxDerivedMetrics_.getNumericDerivedMetricRegexs();
@@ -208,107 +251,117 @@ public class JmxMetricCollector extends InternalCollectorFramework implements Ru
     }
     
     @Override
-    public void run() {
-         
+    public void initializeCollector() {
         this.close();
+    }
+    
+    @Override
+    public void collectMetrics() {
         
-        while(super.isEnabled()) {
-            
-            long routineStartTime = System.currentTimeMillis();
-            
-            long makeConnectionStartTime = System.currentTimeMillis();
-            didConnectOnThisInterval_ = false;
-            boolean isConnected = connect();
-            long makeConnectionTimeElapsed = System.currentTimeMillis() - makeConnectionStartTime;
+        long routineStartTime = System.currentTimeMillis();
+        
+        long makeConnectionStartTime = System.currentTimeMillis();
+        didConnectOnThisInterval_ = false;
+        boolean isConnected = connect();
+        long makeConnectionTimeElapsed = System.currentTimeMillis() - makeConnectionStartTime;
 
-            currentTimestamp_ = (int) (System.currentTimeMillis() / 1000);
-            List<GraphiteMetric> allJmxGraphiteMetricsForOutput = new ArrayList<>();
+        currentTimestamp_ = (int) (System.currentTimeMillis() / 1000);
+        List<GraphiteMetric> allJmxGraphiteMetricsForOutput = new ArrayList<>();
+        
+        if (!isConnected) {
+            boolean allowAvailabilityOutput = false;
             
-            if (!isConnected) {
-                boolean allowAvailabilityOutput = false;
-                
-                if ((super.getInternalCollectorMetricPrefix() != null) && super.getInternalCollectorMetricPrefix().contains(REMOTE_JMX_NAME_FIELD_IDENTIFIER) && hasJvmEverBeenConnectedTo_) {
-                    super.createAndUpdateFullInternalCollectorMetricPrefix(REMOTE_JMX_NAME_FIELD_IDENTIFIER, remoteJvmJmxName_);
-                    super.updateOutputFilePathAndFilename(REMOTE_JMX_NAME_FIELD_IDENTIFIER, remoteJvmJmxName_);
-                    allowAvailabilityOutput = true;
-                }
-                else if ((super.getInternalCollectorMetricPrefix() != null) && !super.getInternalCollectorMetricPrefix().contains(REMOTE_JMX_NAME_FIELD_IDENTIFIER)) {
-                    allowAvailabilityOutput = true;
-                }
-                
-                GraphiteMetric isAvailable = createGraphiteMetric("Availability.Available", BigDecimal.ZERO, currentTimestamp_);
-                allJmxGraphiteMetricsForOutput.add(isAvailable);
-                
-                if (allowAvailabilityOutput) super.outputGraphiteMetrics(allJmxGraphiteMetricsForOutput);
-                
-                long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-                
-                logger.info("Finished JMX metric collection routine. JmxConnection=" + host_ + ":" + port_ + 
-                        ", TotalJmxMetricsCollected=" + allJmxGraphiteMetricsForOutput.size() +
-                        ", JmxMetricCollectionTime=" + routineTimeElapsed);
+            if ((super.getInternalCollectorMetricPrefix() != null) && super.getInternalCollectorMetricPrefix().contains(REMOTE_JMX_NAME_FIELD_IDENTIFIER) && hasJvmEverBeenConnectedTo_) {
+                super.createAndUpdateFullInternalCollectorMetricPrefix(REMOTE_JMX_NAME_FIELD_IDENTIFIER, remoteJvmJmxName_);
+                super.updateOutputFilePathAndFilename(REMOTE_JMX_NAME_FIELD_IDENTIFIER, remoteJvmJmxName_);
+                allowAvailabilityOutput = true;
             }
-            else {
-                logger.debug("JMX - Start Refresh Available Metrics");
-                long queryMBeansStartTime = System.currentTimeMillis();
-                boolean didRefreshObjectInstancesAndMBeanInfos = getObjectInstancesAndMBeanInfos(mBeanServerConnection_);
-                long queryMBeansTimeElapsed = System.currentTimeMillis() - queryMBeansStartTime;
-                logger.debug("JMX - End Refresh Available Metrics. TimeElapsed=" + queryMBeansTimeElapsed);
-
-                logger.debug("JMX - Start Fetch Attributes");
-                long fetchMetricAttributesStartTime = System.currentTimeMillis();
-                List<JmxMetricRaw> jmxMetricsRaw = getJmxMetrics_Filtered(mBeanServerConnection_);
-                long fetchMetricAttributesTimeElapsed = System.currentTimeMillis() - fetchMetricAttributesStartTime;
-                logger.debug("JMX - End Fetch Attributes. TimeElapsed=" + fetchMetricAttributesTimeElapsed);
+            else if ((super.getInternalCollectorMetricPrefix() != null) && !super.getInternalCollectorMetricPrefix().contains(REMOTE_JMX_NAME_FIELD_IDENTIFIER)) {
+                allowAvailabilityOutput = true;
+            }
+            
+            GraphiteMetric isAvailable = createGraphiteMetric("Availability.Available", BigDecimal.ZERO, currentTimestamp_);
+            allJmxGraphiteMetricsForOutput.add(isAvailable);
+            
+            if (allowAvailabilityOutput) super.outputGraphiteMetrics(allJmxGraphiteMetricsForOutput);
+            
+            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+            
+            logger.info("Finished JMX metric collection routine. JmxConnection=" + host_ + ":" + port_ + 
+                    ", TotalJmxMetricsCollected=" + allJmxGraphiteMetricsForOutput.size() +
+                    ", JmxMetricCollectionTime=" + routineTimeElapsed);
+        }
+        else {
+            logger.debug("JMX - Start Refresh Available Metrics");
+            long queryMBeansStartTime = System.currentTimeMillis();
+            boolean didRefreshObjectInstancesAndMBeanInfos = getObjectInstancesAndMBeanInfos(mBeanServerConnection_);
+            long queryMBeansTimeElapsed = System.currentTimeMillis() - queryMBeansStartTime;
+            logger.debug("JMX - End Refresh Available Metrics. TimeElapsed=" + queryMBeansTimeElapsed);
 
-                GraphiteMetric isAvailable = createGraphiteMetric("Availability.Available", BigDecimal.ONE, currentTimestamp_);
-                allJmxGraphiteMetricsForOutput.add(isAvailable);
-                hasJvmEverBeenConnectedTo_ = true;
-                
-                List<GraphiteMetric> jmxGraphiteMetrics = createGraphiteMetrics_Filtered(jmxMetricsRaw);
-                allJmxGraphiteMetricsForOutput.addAll(jmxGraphiteMetrics);
-                 
-                logger.debug("JMX - Start Fetch Derived Attributes");
-                long fetchDerivedMetricAttributesStartTime = System.currentTimeMillis();
-                if (isDerivedMetricsEnabled_) {
-                    List<JmxMetricRaw> derivedJmxMetricsRaw = jmxDerivedMetrics_.createDerivedMetrics(jmxMetricsRaw);
-                    List<GraphiteMetric> derivedJmxGraphiteMetrics = createGraphiteMetrics_Unfiltered(derivedJmxMetricsRaw);
-                    allJmxGraphiteMetricsForOutput.addAll(derivedJmxGraphiteMetrics);
-                }
-                long fetchDerivedMetricAttributesTimeElapsed = System.currentTimeMillis() - fetchDerivedMetricAttributesStartTime;
-                logger.debug("JMX - End Fetch Derived Attributes. TimeElapsed=" + fetchDerivedMetricAttributesTimeElapsed);
+            logger.debug("JMX - Start Fetch Attributes");
+            long fetchMetricAttributesStartTime = System.currentTimeMillis();
+            List<JmxMetricRaw> jmxMetricsRaw = getJmxMetrics_Filtered(mBeanServerConnection_);
+            long fetchMetricAttributesTimeElapsed = System.currentTimeMillis() - fetchMetricAttributesStartTime;
+            logger.debug("JMX - End Fetch Attributes. TimeElapsed=" + fetchMetricAttributesTimeElapsed);
+            lastQueryMBeansTimeInMs_ = queryMBeansTimeElapsed;
+            lastFetchMetricAttributesTimeInMs_ = fetchMetricAttributesTimeElapsed;
 
-                super.outputGraphiteMetrics(allJmxGraphiteMetricsForOutput);
-                
-                long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-                long adjustedRoutineTimeElasped = (didConnectOnThisInterval_) ? (routineTimeElapsed - sleepAfterConnectTime_) : routineTimeElapsed;
-                
-                if (adjustedRoutineTimeElasped >= 10000) {
-                    logger.warn(("JMX routine excessive runtime. " + 
-                            "ConnectionTime=" + makeConnectionTimeElapsed +
-                            ", QueryMBeansTime=" + queryMBeansTimeElapsed +
-                            ", FetchMetricAttributesTime=" + fetchMetricAttributesTimeElapsed + 
-                            ", FetchDerivedMetricAttributesTime=" + fetchDerivedMetricAttributesTimeElapsed));
-                }
-                
-                if ((jmxServiceUrl_ == null) || jmxServiceUrl_.isEmpty()) {
-                    logger.info("Finished JMX metric collection routine. JmxConnection=\"" + host_ + ":" + port_ + "\"" + 
-                            ", JmxMetricsCollected=" + jmxMetricsRaw.size() +
-                            ", OutputJmxMetrics=" + allJmxGraphiteMetricsForOutput.size() +
-                            ", JmxMetricCollectionTime=" + routineTimeElapsed);
-                }
-                else {
-                    logger.info("Finished JMX metric collection routine. JmxConnection=\"" + jmxServiceUrl_ + "\"" + 
-                            ", JmxMetricsCollected=" + jmxMetricsRaw.size() +
-                            ", OutputJmxMetrics=" + allJmxGraphiteMetricsForOutput.size() +
-                            ", JmxMetricCollectionTime=" + routineTimeElapsed);                    
-                }
+            GraphiteMetric isAvailable = createGraphiteMetric("Availability.Available", BigDecimal.ONE, currentTimestamp_);
+            allJmxGraphiteMetricsForOutput.add(isAvailable);
+            hasJvmEverBeenConnectedTo_ = true;
+            
+            List<GraphiteMetric> jmxGraphiteMetrics = createGraphiteMetrics_Filtered(jmxMetricsRaw);
+            allJmxGraphiteMetricsForOutput.addAll(jmxGraphiteMetrics);
+             
+            logger.debug("JMX - Start Fetch Derived Attributes");
+            long fetchDerivedMetricAttributesStartTime = System.currentTimeMillis();
+            if (isDerivedMetricsEnabled_) {
+                List<JmxMetricRaw> derivedJmxMetricsRaw = jmxDerivedMetrics_.createDerivedMetrics(jmxMetricsRaw);
+                List<GraphiteMetric> derivedJmxGraphiteMetrics = createGraphiteMetrics_Unfiltered(derivedJmxMetricsRaw);
+                allJmxGraphiteMetricsForOutput.addAll(derivedJmxGraphiteMetrics);
             }
+            long fetchDerivedMetricAttributesTimeElapsed = System.currentTimeMillis() - fetchDerivedMetricAttributesStartTime;
+            logger.debug("JMX - End Fetch Derived Attributes. TimeElapsed=" + fetchDerivedMetricAttributesTimeElapsed);
 
+            super.outputGraphiteMetrics(allJmxGraphiteMetricsForOutput);
+            
             long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
-
-            if (sleepTimeInMs >= 0) {
-                Threads.sleepMilliseconds(sleepTimeInMs);
+            long adjustedRoutineTimeElasped = (didConnectOnThisInterval_) ? (routineTimeElapsed - sleepAfterConnectTime_) : routineTimeElapsed;
+            
+            if (adjustedRoutineTimeElasped >= 10000) {
+                logger.warn(("JMX routine excessive runtime. " + 
+                        "ConnectionTime=" + makeConnectionTimeElapsed +
+                        ", QueryMBeansTime=" + queryMBeansTimeElapsed +
+                        ", FetchMetricAttributesTime=" + fetchMetricAttributesTimeElapsed + 
+                        ", FetchDerivedMetricAttributesTime=" + fetchDerivedMetricAttributesTimeElapsed +
+                        ", FetchThreads=" + fetchThreads_ + 
+                        ", TimedOutMBeans=" + lastNumTimedOutMBeans_));
+            }
+            
+            if ((jmxServiceUrl_ == null) || jmxServiceUrl_.isEmpty()) {
+                logger.info("Finished JMX metric collection routine. JmxConnection=\"" + host_ + ":" + port_ + "\"" + 
+                        ", JmxMetricsCollected=" + jmxMetricsRaw.size() +
+                        ", OutputJmxMetrics=" + allJmxGraphiteMetricsForOutput.size() +
+                        ", QueryMBeansTime=" + queryMBeansTimeElapsed +
+                        ", FetchMetricAttributesTime=" + fetchMetricAttributesTimeElapsed +
+                        ", TimedOutMBeans=" + lastNumTimedOutMBeans_ +
+                        ", JmxMetricCollectionTime=" + routineTimeElapsed);
+            }
+            else {
+                logger.info("Finished JMX metric collection routine. JmxConnection=\"" + jmxServiceUrl_ + "\"" + 
+                        ", JmxMetricsCollected=" + jmxMetricsRaw.size() +
+                        ", OutputJmxMetrics=" + allJmxGraphiteMetricsForOutput.size() +
+                        ", QueryMBeansTime=" + queryMBeansTimeElapsed +
+                        ", FetchMetricAttributesTime=" + fetchMetricAttributesTimeElapsed +
+                        ", TimedOutMBeans=" + lastNumTimedOutMBeans_ +
+                        ", JmxMetricCollectionTime=" + routineTimeElapsed);                    
+            }
+            
+            // when every fetch times out, the connection is hung. closing it frees the fetch threads that are blocked on it, & the next run reconnects.
+            if (didEveryFetchTimeOut_) {
+                logger.warn("Message=\"Every JMX mbean attribute fetch timed out. Closing the JMX connection.\", JmxConnection=\"" + (((jmxServiceUrl_ == null) || jmxServiceUrl_.isEmpty()) ? (host_ + ":" + port_) : jmxServiceUrl_) + "\"" +
+                        ", TimedOutMBeans=" + lastNumTimedOutMBeans_);
+                close();
             }
         }
         
@@ -536,6 +589,10 @@ public class JmxMetricCollector extends InternalCollectorFramework implements Ru
         return isMetricAllowed;
     }
     
+    /*
+    With more than one fetch thread, the mbeans' attributes are fetched in parallel (see AttributeFetchTask), but the results are processed on this thread, in the same order that the fetches were queued.
+    An mbean that doesn't respond within the fetch timeout is skipped on this run.
+    */
     private List<JmxMetricRaw> getJmxMetrics_Filtered(MBeanServerConnection mBeanServerConnection) {
 
         if (mBeanServerConnection == null) {
@@ -543,59 +600,195 @@ public class JmxMetricCollector extends InternalCollectorFramework implements Ru
         }
         
         List<JmxMetricRaw> jmxMetricsRaw = new ArrayList<>();
+        List<AttributeFetchTask> attributeFetchTasks = new ArrayList<>();
+        List<Future<AttributeFetchTask>> attributeFetchFutures = new ArrayList<>();
+        int numTimedOutMBeans = 0;
         
         try {
             for (ObjectInstance objectInstance : objectInstances_) {
-                
-                String objectInstanceName = objectInstance.getObjectName().toString();
                 MBeanInfo mBeanInfo = mBeanInfoByObjectInstance_.get(objectInstance);
                 MBeanAttributeInfo[] mBeanAttributeInfos = mBeanInfo.getAttributes();
                 String[] attributeNames = getObjectInstanceAttributeNames_Filtered(objectInstance, mBeanAttributeInfos);
 
                 if ((objectInstance.getObjectName() != null) && (attributeNames != null) && (attributeNames.length > 0)) {
-                    HashMap<String,Object> attributesObjects = new HashMap<>();
-                    HashMap<String,Long> attributesRetrievalTimestamps = new HashMap<>();
-
-                    try {
-                        AttributeList attributeList = mBeanServerConnection.getAttributes(objectInstance.getObjectName(), attributeNames);
-                        Long metricRetrievalTimestampInMs = System.currentTimeMillis();
-                        
-                        for (Object attributeObject : attributeList) {
-                            Attribute attribute = (Attribute) attributeObject;
-                            attributesObjects.put(attribute.getName(), attribute.getValue());
-                            attributesRetrievalTimestamps.put(attribute.getName(), metricRetrievalTimestampInMs);
-                        }
-                    }
-                    catch (Exception e) {
-                        logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-
-                        for (String attributeName : attributeNames) {
-                            Object attributeValue = getObjectInstanceAttributeValue_Filtered(mBeanServerConnection, objectInstance, attributeName);
-                            Long metricRetrievalTimestampInMs = System.currentTimeMillis();
-                            
-                            if (attributeValue != null) {
-                                attributesObjects.put(attributeName, attributeValue);
-                                attributesRetrievalTimestamps.put(attributeName, metricRetrievalTimestampInMs);
-                            }
-                            else {
-                                addMetricToNeverDownloadTheseMetricAttributes(objectInstanceName, attributeName);
-                            }
-                        }
-                    }
+                    AttributeFetchTask attributeFetchTask = new AttributeFetchTask(mBeanServerConnection, objectInstance, attributeNames);
+                    attributeFetchTasks.add(attributeFetchTask);
+                    if (fetchThreads_ > 1) attributeFetchFutures.add(getFetchThreadPool().submit(attributeFetchTask));
+                }
+            }
+            
+            // a hung connection can't hold up the routine for longer than a collection interval
+            long fetchDeadline = System.currentTimeMillis() + Math.max(getCollectionInterval(), fetchTimeoutInMs_);
+            
+            for (int i = 0; i < attributeFetchTasks.size(); i++) {
+                AttributeFetchTask attributeFetchTask = attributeFetchTasks.get(i);
+                boolean isFetched = true;
+                
+                if (fetchThreads_ > 1) isFetched = waitForAttributeFetch(attributeFetchTask, attributeFetchFutures.get(i), fetchDeadline);
+                else attributeFetchTask.call();
+                
+                if (!isFetched) {
+                    numTimedOutMBeans++;
+                    continue;
+                }
+                
+                String objectInstanceName = attributeFetchTask.objectInstance_.getObjectName().toString();
+                for (String attributeName : attributeFetchTask.failedAttributeNames_) addMetricToNeverDownloadTheseMetricAttributes(objectInstanceName, attributeName);
 
-                    for (String attributeName : attributesObjects.keySet()) {
-                        createJmxMetricRaw(objectInstanceName, attributesObjects.get(attributeName), attributeName, 
-                                attributesRetrievalTimestamps.get(attributeName), jmxMetricsRaw, collectStringAttributes_);
-                    }
+                for (String attributeName : attributeFetchTask.attributesObjects_.keySet()) {
+                    createJmxMetricRaw(objectInstanceName, attributeFetchTask.attributesObjects_.get(attributeName), attributeName, 
+                            attributeFetchTask.attributesRetrievalTimestamps_.get(attributeName), jmxMetricsRaw, collectStringAttributes_);
                 }
             }
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            for (Future<AttributeFetchTask> attributeFetchFuture : attributeFetchFutures) attributeFetchFuture.cancel(true);
+        }
+        
+        // cancelled fetches that never started would otherwise stay in the fetch thread pool's queue
+        if (fetchThreads_ > 1) getFetchThreadPool().purge();
+        
+        lastNumTimedOutMBeans_ = numTimedOutMBeans;
+        didEveryFetchTimeOut_ = (numTimedOutMBeans > 0) && (numTimedOutMBeans == attributeFetchTasks.size());
+        
+        if (numTimedOutMBeans > 0) {
+            logger.warn("Message=\"JMX mbean attribute fetches timed out\", JmxConnection=\"" + (((jmxServiceUrl_ == null) || jmxServiceUrl_.isEmpty()) ? (host_ + ":" + port_) : jmxServiceUrl_) + "\"" +
+                    ", TimedOutMBeans=" + numTimedOutMBeans + ", FetchTimeout=" + fetchTimeoutInMs_);
         }
 
         return jmxMetricsRaw;
     }
+    
+    /*
+    Waits for one mbean's fetch. The fetch timeout starts when the fetch starts (not when it is queued). A fetch that is still queued at the overall deadline is cancelled.
+    Returns false if the fetch timed out (or failed).
+    */
+    private boolean waitForAttributeFetch(AttributeFetchTask attributeFetchTask, Future<AttributeFetchTask> attributeFetchFuture, long fetchDeadline) {
+        
+        try {
+            while (true) {
+                long currentTime = System.currentTimeMillis();
+                long fetchStartTime = attributeFetchTask.fetchStartTimestamp_;
+                long mBeanDeadline = (fetchStartTime > 0) ? Math.min(fetchStartTime + fetchTimeoutInMs_, fetchDeadline) : fetchDeadline;
+                long waitTime = mBeanDeadline - currentTime;
+                
+                if (waitTime <= 0) {
+                    if (attributeFetchFuture.isDone()) {
+                        attributeFetchFuture.get();
+                        return true;
+                    }
+                    
+                    // a jmx call that is in progress usually can't be interrupted, but a queued fetch won't start
+                    attributeFetchFuture.cancel(true);
+                    logger.debug("Message=\"JMX mbean attribute fetch timed out\", MBean=\"" + attributeFetchTask.objectInstance_.getObjectName() + "\"");
+                    return false;
+                }
+                
+                try {
+                    // re-checks at least once a second, in case a queued fetch has started (& its own timeout now applies)
+                    attributeFetchFuture.get(Math.min(waitTime, 1000), TimeUnit.MILLISECONDS);
+                    return true;
+                }
+                catch (TimeoutException e) {}
+            }
+        }
+        catch (InterruptedException e) {
+            attributeFetchFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch (ExecutionException e) {
+            logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return false;
+        }
+        catch (Exception e) {
+            logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return false;
+        }
+    }
+    
+    private synchronized ThreadPoolExecutor getFetchThreadPool() {
+        
+        if (fetchThreadPool_ == null) {
+            final String threadNamePrefix = "JMX-Fetch-" + super.getInternalCollectorMetricPrefix() + "-";
+            
+            fetchThreadPool_ = new ThreadPoolExecutor(fetchThreads_, fetchThreads_, FETCH_THREAD_KEEP_ALIVE_TIME_IN_MS, TimeUnit.MILLISECONDS, 
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger threadCount_ = new AtomicInteger(0);
+                        
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, threadNamePrefix + threadCount_.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            
+            fetchThreadPool_.allowCoreThreadTimeOut(true);
+        }
+        
+        return fetchThreadPool_;
+    }
+    
+    /*
+    Fetches one mbean's attributes with a single 'getAttributes' call. If that fails, falls back to fetching the attributes one at a time.
+    Runs on a fetch thread, so it doesn't touch the collector's state: 'attributeNames' was already filtered against the never/always download lists (on the collector's thread) when the task was created. 
+    The attributes that couldn't be fetched are recorded, & added to the 'never download' list by the collector's thread.
+    */
+    private class AttributeFetchTask implements Callable<AttributeFetchTask> {
+        
+        private final MBeanServerConnection mBeanServerConnection_;
+        private final ObjectInstance objectInstance_;
+        private final String[] attributeNames_;
+        
+        private final HashMap<String,Object> attributesObjects_ = new HashMap<>();
+        private final HashMap<String,Long> attributesRetrievalTimestamps_ = new HashMap<>();
+        private final List<String> failedAttributeNames_ = new ArrayList<>();
+        private volatile long fetchStartTimestamp_ = 0;
+        
+        public AttributeFetchTask(MBeanServerConnection mBeanServerConnection, ObjectInstance objectInstance, String[] attributeNames) {
+            this.mBeanServerConnection_ = mBeanServerConnection;
+            this.objectInstance_ = objectInstance;
+            this.attributeNames_ = attributeNames;
+        }
+        
+        @Override
+        public AttributeFetchTask call() {
+            
+            fetchStartTimestamp_ = System.currentTimeMillis();
+            
+            try {
+                AttributeList attributeList = mBeanServerConnection_.getAttributes(objectInstance_.getObjectName(), attributeNames_);
+                Long metricRetrievalTimestampInMs = System.currentTimeMillis();
+
+                for (Object attributeObject : attributeList) {
+                    Attribute attribute = (Attribute) attributeObject;
+                    attributesObjects_.put(attribute.getName(), attribute.getValue());
+                    attributesRetrievalTimestamps_.put(attribute.getName(), metricRetrievalTimestampInMs);
+                }
+            }
+            catch (Exception e) {
+                logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+
+                for (String attributeName : attributeNames_) {
+                    Object attributeValue = getObjectInstanceAttributeValue(mBeanServerConnection_, objectInstance_, attributeName);
+                    Long metricRetrievalTimestampInMs = System.currentTimeMillis();
+
+                    if (attributeValue != null) {
+                        attributesObjects_.put(attributeName, attributeValue);
+                        attributesRetrievalTimestamps_.put(attributeName, metricRetrievalTimestampInMs);
+                    }
+                    else {
+                        failedAttributeNames_.add(attributeName);
+                    }
+                }
+            }
+            
+            return this;
+        }
+        
+    }
 
     private String[] getObjectInstanceAttributeNames_Filtered(ObjectInstance objectInstance, MBeanAttributeInfo[] mBeanAttributeInfos) {
         
@@ -638,40 +831,15 @@ public class JmxMetricCollector extends InternalCollectorFramework implements Ru
         return null;
     }
     
-    private Object getObjectInstanceAttributeValue_Filtered(MBeanServerConnection mBeanServerConnection, ObjectInstance objectInstance, String attributeName) {
+    private static Object getObjectInstanceAttributeValue(MBeanServerConnection mBeanServerConnection, ObjectInstance objectInstance, String attributeName) {
         
         if ((mBeanServerConnection == null) || (objectInstance == null) || (objectInstance.getObjectName() == null) || (attributeName == null)) {
             return null;
         }
         
         try {
-            boolean allowQuery = true;
-
-            String objectInstanceName = objectInstance.getObjectName().toString();
-            
-            if (neverDownloadTheseMetricAttributes_.containsKey(objectInstanceName)) {
-                List<String> alwaysDownladTheseAttributesForThisObjectInstance = null;
-                if (alwaysDownloadTheseMetricAttributes_.containsKey(objectInstanceName)) {
-                    alwaysDownladTheseAttributesForThisObjectInstance = alwaysDownloadTheseMetricAttributes_.get(objectInstanceName);
-                }
-                
-                List<String> neverDownladTheseAttributesForThisObjectInstance = neverDownloadTheseMetricAttributes_.get(objectInstanceName);
-
-                if ((alwaysDownladTheseAttributesForThisObjectInstance != null) && alwaysDownladTheseAttributesForThisObjectInstance.contains(attributeName)) {
-                    allowQuery = true;
-                }
-                else if (!neverDownladTheseAttributesForThisObjectInstance.contains(attributeName)) {
-                    allowQuery = true;
-                }
-                else {
-                    allowQuery = false;
-                }
-            }
-
-            if (allowQuery) {
-                Object attributeObject = mBeanServerConnection.getAttribute(objectInstance.getObjectName(), attributeName);
-                return attributeObject;
-            }
+            Object attributeObject = mBeanServerConnection.getAttribute(objectInstance.getObjectName(), attributeName);
+            return attributeObject;
         }
         catch (Exception e) {
             logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
@@ -1007,6 +1175,26 @@ public class JmxMetricCollector extends InternalCollectorFramework implements Ru
         return sleepAfterConnectTime_;
     }
     
+    public int getFetchThreads() {
+        return fetchThreads_;
+    }
+    
+    public long getFetchTimeoutInMs() {
+        return fetchTimeoutInMs_;
+    }
+    
+    public long getLastQueryMBeansTimeInMs() {
+        return lastQueryMBeansTimeInMs_;
+    }
+    
+    public long getLastFetchMetricAttributesTimeInMs() {
+        return lastFetchMetricAttributesTimeInMs_;
+    }
+    
+    public int getLastNumTimedOutMBeans() {
+        return lastNumTimedOutMBeans_;
+    }
+    
     public long getJmxQueryMetricTreeInterval() {
         return queryMetricTreeInterval_;
     }
@@ -0,0 +1,189 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.Cgroup;
+
+import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileParser;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSnapshot;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSystem;
+import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.math_utils.CounterDeltaTracker;
+import com.pearson.statspoller.utilities.math_utils.MathUtilities;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Collects per-container cpu, memory, block io, & pids metrics directly from the kernel's cgroup accounting (cgroup v1 or v2), without going through cAdvisor.
+ * Containers are discovered incrementally (see CgroupContainerDiscovery), & their accounting files are read by CgroupStatsReader.
+ * Metric names match the cAdvisor collector's where the two overlap. Containers are identified by their short (12 hex digit) container id.
+ */
+public class CgroupCollector extends InternalCollectorFramework {
+
+    private static final Logger logger = LoggerFactory.getLogger(CgroupCollector.class.getName());
+
+    private static final int SCALE = 7;
+    private static final int SHORT_CONTAINER_ID_LENGTH = 12;
+    private static final byte[] CPU = ProcFileParser.getBytes("cpu");
+
+    private final String procStatPath_;
+    private final CgroupStatsReader reader_;
+    private final CgroupContainerDiscovery discovery_;
+    private final ProcFileParser parser_ = new ProcFileParser();
+    private final CgroupStats stats_ = new CgroupStats();
+    private final CounterDeltaTracker counterTracker_ = new CounterDeltaTracker();
+    private final long[] counters_ = new long[CgroupStats.NUM_COUNTERS];
+    private final long[] deltas_ = new long[CgroupStats.NUM_COUNTERS];
+
+    public CgroupCollector(boolean isEnabled, long collectionInterval, String metricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles) {
+        super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
+        this.procStatPath_ = super.getLinuxProcFileSystemLocation() + "/stat";
+        this.reader_ = new CgroupStatsReader(super.getLinuxSysFileSystemLocation() + "/fs/cgroup");
+        this.discovery_ = (reader_.getDiscoveryRootPath() != null) ? new CgroupContainerDiscovery(reader_.getDiscoveryRootPath()) : null;
+
+        if (discovery_ == null) logger.warn("Message=\"No cgroup cpuacct or memory hierarchy found\", CgroupLocation=\"" + super.getLinuxSysFileSystemLocation() + "/fs/cgroup\"");
+    }
+
+    @Override
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
+
+        // get the container stats in graphite format
+        List<GraphiteMetric> graphiteMetrics = getCgroupMetrics();
+
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
+
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+
+        logger.info("Finished Linux-Cgroup metric collection routine. " +
+                "Containers=" + ((discovery_ == null) ? 0 : discovery_.getContainerIds_ByRelativePath().size()) +
+                ", MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
+    }
+
+    private List<GraphiteMetric> getCgroupMetrics() {
+
+        List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
+
+        if (discovery_ == null) return graphiteMetrics;
+
+        try {
+            long currentTimestampInMilliseconds = System.currentTimeMillis();
+            int currentTimestampInSeconds = (int) (currentTimestampInMilliseconds / 1000);
+
+            if (!discovery_.refresh()) return graphiteMetrics;
+            int numCpus = getNumCpus();
+
+            for (Map.Entry<String,String> container : discovery_.getContainerIds_ByRelativePath().entrySet()) {
+                String containerId = container.getValue();
+                if (!reader_.read(container.getKey(), stats_)) continue;
+
+                String prefix = containerId.substring(0, SHORT_CONTAINER_ID_LENGTH) + ".";
+                addGaugeMetrics(graphiteMetrics, prefix, currentTimestampInSeconds);
+
+                stats_.getCounters(counters_);
+                long millisecondsBetweenSamples = counterTracker_.update(containerId, counters_, CgroupStats.NUM_COUNTERS, currentTimestampInMilliseconds, deltas_);
+                if (millisecondsBetweenSamples != CounterDeltaTracker.NO_DELTA) addRateMetrics(graphiteMetrics, prefix, millisecondsBetweenSamples, numCpus, currentTimestampInSeconds);
+            }
+
+            // forget the containers that were removed
+            counterTracker_.removeStaleSamples(currentTimestampInMilliseconds);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+
+        return graphiteMetrics;
+    }
+
+    private void addGaugeMetrics(List<GraphiteMetric> graphiteMetrics, String prefix, int currentTimestampInSeconds) {
+
+        long usageInBytes = stats_.get(CgroupStats.MEMORY_USAGE_BYTES);
+
+        // the working set is what cAdvisor (& the kubelet) report: usage, minus the memory that the kernel can easily reclaim
+        if (stats_.has(CgroupStats.MEMORY_USAGE_BYTES) && stats_.has(CgroupStats.MEMORY_INACTIVE_FILE_BYTES)) {
+            long workingSetInBytes = Math.max(0, usageInBytes - stats_.get(CgroupStats.MEMORY_INACTIVE_FILE_BYTES));
+            graphiteMetrics.add(new GraphiteMetric(prefix + "Memory.WorkingSet-Bytes", BigDecimal.valueOf(workingSetInBytes), currentTimestampInSeconds));
+        }
+
+        addGaugeMetric(graphiteMetrics, prefix + "Memory.RSS-Bytes", CgroupStats.MEMORY_RSS_BYTES, currentTimestampInSeconds);
+        addGaugeMetric(graphiteMetrics, prefix + "Memory.Cache-Bytes", CgroupStats.MEMORY_CACHE_BYTES, currentTimestampInSeconds);
+        addGaugeMetric(graphiteMetrics, prefix + "Memory.Swap-Bytes", CgroupStats.MEMORY_SWAP_BYTES, currentTimestampInSeconds);
+        addGaugeMetric(graphiteMetrics, prefix + "Memory.Usage-Bytes", CgroupStats.MEMORY_USAGE_BYTES, currentTimestampInSeconds);
+        addGaugeMetric(graphiteMetrics, prefix + "Memory.PageFault-Hierarchical-Count", CgroupStats.MEMORY_PAGE_FAULTS, currentTimestampInSeconds);
+        addGaugeMetric(graphiteMetrics, prefix + "Memory.PageFaultMajor-Hierarchical-Count", CgroupStats.MEMORY_MAJOR_PAGE_FAULTS, currentTimestampInSeconds);
+
+        if (stats_.has(CgroupStats.MEMORY_USAGE_BYTES) && stats_.has(CgroupStats.MEMORY_LIMIT_BYTES)) {
+            double usageRelativeToHardLimitPercent = CounterDeltaTracker.getPercent(usageInBytes, stats_.get(CgroupStats.MEMORY_LIMIT_BYTES));
+            addMetric(graphiteMetrics, prefix + "Memory.UsageRelativeToHardLimit-Pct", usageRelativeToHardLimitPercent, currentTimestampInSeconds);
+        }
+
+        addGaugeMetric(graphiteMetrics, prefix + "Pids.Current-Count", CgroupStats.PIDS_CURRENT, currentTimestampInSeconds);
+    }
+
+    private void addRateMetrics(List<GraphiteMetric> graphiteMetrics, String prefix, long millisecondsBetweenSamples, int numCpus, int currentTimestampInSeconds) {
+
+        // the cpu time that the host had available between the two samples
+        long hostCpuTimeInNs = millisecondsBetweenSamples * 1000000L * numCpus;
+
+        if (stats_.has(CgroupStats.CPU_USAGE_NS)) {
+            addMetric(graphiteMetrics, prefix + "Cpu.CpuOverallUsage-RelativeToHost-Pct", CounterDeltaTracker.getPercent(deltas_[CgroupStats.CPU_USAGE_NS], hostCpuTimeInNs), currentTimestampInSeconds);
+        }
+
+        if (stats_.has(CgroupStats.CPU_USER_NS)) {
+            addMetric(graphiteMetrics, prefix + "Cpu.CpuUserUsage-RelativeToHost-Pct", CounterDeltaTracker.getPercent(deltas_[CgroupStats.CPU_USER_NS], hostCpuTimeInNs), currentTimestampInSeconds);
+        }
+
+        if (stats_.has(CgroupStats.CPU_SYSTEM_NS)) {
+            addMetric(graphiteMetrics, prefix + "Cpu.CpuSystemUsage-RelativeToHost-Pct", CounterDeltaTracker.getPercent(deltas_[CgroupStats.CPU_SYSTEM_NS], hostCpuTimeInNs), currentTimestampInSeconds);
+        }
+
+        addRateMetric(graphiteMetrics, prefix + "Blkio.Read-Bytes-Second", CgroupStats.IO_READ_BYTES, millisecondsBetweenSamples, currentTimestampInSeconds);
+        addRateMetric(graphiteMetrics, prefix + "Blkio.Write-Bytes-Second", CgroupStats.IO_WRITE_BYTES, millisecondsBetweenSamples, currentTimestampInSeconds);
+        addRateMetric(graphiteMetrics, prefix + "Blkio.Read-Ops-Second", CgroupStats.IO_READ_OPS, millisecondsBetweenSamples, currentTimestampInSeconds);
+        addRateMetric(graphiteMetrics, prefix + "Blkio.Write-Ops-Second", CgroupStats.IO_WRITE_OPS, millisecondsBetweenSamples, currentTimestampInSeconds);
+    }
+
+    private void addGaugeMetric(List<GraphiteMetric> graphiteMetrics, String metricPath, int index, int currentTimestampInSeconds) {
+        if (stats_.has(index)) graphiteMetrics.add(new GraphiteMetric(metricPath, BigDecimal.valueOf(stats_.get(index)), currentTimestampInSeconds));
+    }
+
+    private void addRateMetric(List<GraphiteMetric> graphiteMetrics, String metricPath, int index, long millisecondsBetweenSamples, int currentTimestampInSeconds) {
+        if (stats_.has(index)) addMetric(graphiteMetrics, metricPath, CounterDeltaTracker.getRatePerSecond(deltas_[index], millisecondsBetweenSamples), currentTimestampInSeconds);
+    }
+
+    private static void addMetric(List<GraphiteMetric> graphiteMetrics, String metricPath, double value, int currentTimestampInSeconds) {
+        BigDecimal metricValue = MathUtilities.getBigDecimalFromDouble(value, SCALE);
+        if ((metricValue != null) && (metricValue.signum() >= 0)) graphiteMetrics.add(new GraphiteMetric(metricPath, metricValue, currentTimestampInSeconds));
+    }
+
+    /*
+    The number of cpus on the host (the 'cpuN' lines of /proc/stat). The JVM's processor count isn't used, since it is limited by StatsPoller's own cgroup.
+    */
+    private int getNumCpus() {
+
+        ProcFileSnapshot snapshot = ProcFileSystem.acquireSnapshot(procStatPath_);
+        if (snapshot == null) return Runtime.getRuntime().availableProcessors();
+
+        int numCpus = 0;
+
+        try {
+            parser_.reset(snapshot);
+
+            do {
+                if (parser_.lineStartsWith(CPU) && parser_.nextToken() && (parser_.getTokenLength() > CPU.length)) numCpus++;
+            } while (parser_.nextLine());
+        }
+        finally {
+            snapshot.release();
+        }
+
+        return (numCpus > 0) ? numCpus : Runtime.getRuntime().availableProcessors();
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.Cgroup;
+
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Finds the container cgroups under a cgroup hierarchy's root (ex- /sys/fs/cgroup/system.slice/docker-(id).scope, /sys/fs/cgroup/cpuacct/docker/(id),
+ * /sys/fs/cgroup/kubepods.slice/.../cri-containerd-(id).scope). A directory is a container if its name contains a 64 hex digit container id.
+ * The cgroups of a container (its sub-cgroups) aren't searched.
+ *
+ * Discovery is incremental. On cgroupfs (kernfs), a directory's link count is 2 + its number of sub-directories, so after the first search,
+ * a directory is only re-listed if its link count changed (a cgroup was created or removed under it). A steady-state refresh is one stat per (non-container) directory.
+ * On file systems that don't count sub-directories in the link count, every directory is re-listed on every refresh.
+ *
+ * Not thread-safe.
+ */
+public class CgroupContainerDiscovery {
+
+    private static final Logger logger = LoggerFactory.getLogger(CgroupContainerDiscovery.class.getName());
+
+    private static final int MAX_DEPTH = 8;
+    private static final int CONTAINER_ID_LENGTH = 64;
+
+    private final File root_;
+
+    // the directories that were searched (relative path -> link count). the root's relative path is "".
+    private final Map<String,Long> linkCounts_ByDirectory_ = new HashMap<>();
+    private final Map<String,String> containerIds_ByRelativePath_ = new HashMap<>();
+    private long numDirectoryListings_ = 0;
+
+    public CgroupContainerDiscovery(String rootPath) {
+        this.root_ = new File(rootPath);
+    }
+
+    /*
+    Updates the set of containers. Returns false if the root couldn't be read.
+    */
+    public boolean refresh() {
+
+        if (!root_.isDirectory()) {
+            linkCounts_ByDirectory_.clear();
+            containerIds_ByRelativePath_.clear();
+            return false;
+        }
+
+        if (linkCounts_ByDirectory_.isEmpty()) {
+            search("", 0);
+            return true;
+        }
+
+        for (String relativePath : new ArrayList<>(linkCounts_ByDirectory_.keySet())) {
+            Long previousLinkCount = linkCounts_ByDirectory_.get(relativePath);
+            if (previousLinkCount == null) continue; // removed by the search of an ancestor directory
+
+            long linkCount = getLinkCount(getFile(relativePath));
+
+            if (linkCount < 0) remove(relativePath);
+            else if ((linkCount != previousLinkCount) || (linkCount <= 1)) search(relativePath, getDepth(relativePath));
+        }
+
+        return true;
+    }
+
+    /*
+    Container cgroups, keyed by their path relative to the root (ex- 'system.slice/docker-(id).scope').
+    */
+    public Map<String,String> getContainerIds_ByRelativePath() {
+        return containerIds_ByRelativePath_;
+    }
+
+    public long getNumDirectoryListings() {
+        return numDirectoryListings_;
+    }
+
+    private void search(String relativePath, int depth) {
+
+        File directory = getFile(relativePath);
+        linkCounts_ByDirectory_.put(relativePath, getLinkCount(directory));
+
+        File[] files = directory.listFiles();
+        numDirectoryListings_++;
+        if (files == null) return;
+
+        Set<String> childRelativePaths = new HashSet<>();
+
+        for (File file : files) {
+            if (!file.isDirectory()) continue;
+
+            String childRelativePath = relativePath.isEmpty() ? file.getName() : (relativePath + "/" + file.getName());
+            childRelativePaths.add(childRelativePath);
+
+            String containerId = getContainerId(file.getName());
+
+            if (containerId != null) {
+                if (!containerIds_ByRelativePath_.containsKey(childRelativePath)) containerIds_ByRelativePath_.put(childRelativePath, containerId);
+            }
+            else if ((depth < MAX_DEPTH) && !linkCounts_ByDirectory_.containsKey(childRelativePath)) {
+                search(childRelativePath, depth + 1);
+            }
+        }
+
+        // forget the children that were removed
+        String childPrefix = relativePath.isEmpty() ? "" : (relativePath + "/");
+        removeChildren(linkCounts_ByDirectory_.keySet().iterator(), childPrefix, childRelativePaths);
+        removeChildren(containerIds_ByRelativePath_.keySet().iterator(), childPrefix, childRelativePaths);
+    }
+
+    private static void removeChildren(Iterator<String> relativePaths, String childPrefix, Set<String> childRelativePaths) {
+        while (relativePaths.hasNext()) {
+            String relativePath = relativePaths.next();
+            if (relativePath.isEmpty() || !relativePath.startsWith(childPrefix)) continue;
+
+            // a descendant of a removed child (or the removed child itself)
+            int endOfChild = relativePath.indexOf('/', childPrefix.length());
+            String childRelativePath = (endOfChild == -1) ? relativePath : relativePath.substring(0, endOfChild);
+            if (!childRelativePaths.contains(childRelativePath)) relativePaths.remove();
+        }
+    }
+
+    private void remove(String relativePath) {
+        String prefix = relativePath + "/";
+        linkCounts_ByDirectory_.remove(relativePath);
+
+        Iterator<String> directories = linkCounts_ByDirectory_.keySet().iterator();
+        while (directories.hasNext()) if (directories.next().startsWith(prefix)) directories.remove();
+
+        Iterator<String> containers = containerIds_ByRelativePath_.keySet().iterator();
+        while (containers.hasNext()) if (containers.next().startsWith(prefix)) containers.remove();
+    }
+
+    private File getFile(String relativePath) {
+        return relativePath.isEmpty() ? root_ : new File(root_, relativePath);
+    }
+
+    private static int getDepth(String relativePath) {
+        if (relativePath.isEmpty()) return 0;
+
+        int depth = 1;
+        for (int i = 0; i < relativePath.length(); i++) if (relativePath.charAt(i) == '/') depth++;
+        return depth;
+    }
+
+    /*
+    Returns -1 if the directory doesn't exist.
+    */
+    private static long getLinkCount(File directory) {
+
+        try {
+            Object linkCount = Files.getAttribute(directory.toPath(), "unix:nlink");
+            return (linkCount instanceof Number) ? ((Number) linkCount).longValue() : 0;
+        }
+        catch (java.nio.file.NoSuchFileException e) {
+            return -1;
+        }
+        catch (UnsupportedOperationException e) {
+            return 0;
+        }
+        catch (Exception e) {
+            logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return directory.isDirectory() ? 0 : -1;
+        }
+    }
+
+    /*
+    Returns the 64 hex digit container id in a cgroup directory name (ex- 'docker-(id).scope', 'cri-containerd-(id).scope', '(id)'), or null if there isn't one.
+    */
+    protected static String getContainerId(String directoryName) {
+
+        int runStart = 0;
+
+        for (int i = 0; i <= directoryName.length(); i++) {
+            boolean isHexDigit = (i < directoryName.length()) && isLowercaseHexDigit(directoryName.charAt(i));
+            if (isHexDigit) continue;
+
+            if ((i - runStart) == CONTAINER_ID_LENGTH) return directoryName.substring(runStart, i);
+            runStart = i + 1;
+        }
+
+        return null;
+    }
+
+    private static boolean isLowercaseHexDigit(char character) {
+        return ((character >= '0') && (character <= '9')) || ((character >= 'a') && (character <= 'f'));
+    }
+
+}
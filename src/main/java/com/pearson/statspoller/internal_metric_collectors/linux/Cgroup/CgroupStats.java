@@ -0,0 +1,78 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.Cgroup;
+
+import java.util.Arrays;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * The accounting values of one container cgroup, normalized across cgroup v1 & v2 (see CgroupStatsReader).
+ * Values are stored in a primitive array, indexed by the constants below. A value that the kernel didn't report is NO_VALUE.
+ * Not thread-safe. Reusable (see 'clear').
+ */
+public class CgroupStats {
+
+    public static final long NO_VALUE = -1;
+
+    // cumulative counters
+    public static final int CPU_USAGE_NS = 0;
+    public static final int CPU_USER_NS = 1;
+    public static final int CPU_SYSTEM_NS = 2;
+    public static final int IO_READ_BYTES = 3;
+    public static final int IO_WRITE_BYTES = 4;
+    public static final int IO_READ_OPS = 5;
+    public static final int IO_WRITE_OPS = 6;
+    public static final int MEMORY_PAGE_FAULTS = 7;
+    public static final int MEMORY_MAJOR_PAGE_FAULTS = 8;
+    public static final int NUM_COUNTERS = 9;
+
+    // gauges
+    public static final int MEMORY_USAGE_BYTES = 9;
+    public static final int MEMORY_LIMIT_BYTES = 10;
+    public static final int MEMORY_RSS_BYTES = 11;
+    public static final int MEMORY_CACHE_BYTES = 12;
+    public static final int MEMORY_SWAP_BYTES = 13;
+    public static final int MEMORY_INACTIVE_FILE_BYTES = 14;
+    public static final int PIDS_CURRENT = 15;
+    public static final int NUM_VALUES = 16;
+
+    private final long[] values_ = new long[NUM_VALUES];
+
+    public CgroupStats() {
+        clear();
+    }
+
+    public long get(int index) {
+        return values_[index];
+    }
+
+    public boolean has(int index) {
+        return values_[index] != NO_VALUE;
+    }
+
+    /*
+    Negative values (ex- a file that couldn't be parsed) are stored as NO_VALUE.
+    */
+    public void set(int index, long value) {
+        values_[index] = (value < 0) ? NO_VALUE : value;
+    }
+
+    /*
+    Adds to a value (ex- summing the per-device io counters). Negative values are ignored.
+    */
+    public void add(int index, long value) {
+        if (value < 0) return;
+        values_[index] = (values_[index] == NO_VALUE) ? value : (values_[index] + value);
+    }
+
+    /*
+    Copies the counters (CPU_USAGE_NS through MEMORY_MAJOR_PAGE_FAULTS) into 'counters', for a CounterDeltaTracker. Counters without a value are copied as 0.
+    */
+    public void getCounters(long[] counters) {
+        for (int i = 0; i < NUM_COUNTERS; i++) counters[i] = (values_[i] == NO_VALUE) ? 0 : values_[i];
+    }
+
+    public void clear() {
+        Arrays.fill(values_, NO_VALUE);
+    }
+
+}
@@ -0,0 +1,354 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.Cgroup;
+
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFile;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileParser;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSnapshot;
+import java.io.File;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Reads a container's cpu, memory, block io, & pids accounting straight from its cgroup, on both cgroup v1 (a hierarchy per controller, ex- /sys/fs/cgroup/memory/docker/(id))
+ * & cgroup v2 (the unified hierarchy, ex- /sys/fs/cgroup/system.slice/docker-(id).scope). The version is detected from the cgroup mount.
+ *
+ *   cgroup v1 : cpuacct.usage, cpuacct.stat, memory.usage_in_bytes, memory.limit_in_bytes, memory.stat (the hierarchical 'total_' fields),
+ *               blkio.throttle.io_service_bytes, blkio.throttle.io_serviced, pids.current
+ *   cgroup v2 : cpu.stat, memory.current, memory.max, memory.swap.current, memory.stat, io.stat, pids.current
+ *
+ * A container's files are opened, read, & closed on every read (rather than kept open by ProcFileSystem), so that a host with hundreds of containers
+ * doesn't hold thousands of file descriptors, & so that nothing is left behind when a container is removed.
+ *
+ * Not thread-safe. A reader can be reused.
+ */
+public class CgroupStatsReader {
+
+    // cpuacct.stat is in USER_HZ ticks, which is 100/second on every architecture that linux supports
+    private static final long NANOSECONDS_PER_TICK = 10000000L;
+    private static final long NANOSECONDS_PER_MICROSECOND = 1000L;
+
+    // cgroup v1 reports 'no limit' as the largest page-aligned long
+    private static final long UNLIMITED_MEMORY_THRESHOLD = 1L << 62;
+
+    private static final byte[] USER = ProcFileParser.getBytes("user");
+    private static final byte[] SYSTEM = ProcFileParser.getBytes("system");
+    private static final byte[] USAGE_USEC = ProcFileParser.getBytes("usage_usec");
+    private static final byte[] USER_USEC = ProcFileParser.getBytes("user_usec");
+    private static final byte[] SYSTEM_USEC = ProcFileParser.getBytes("system_usec");
+    private static final byte[] READ = ProcFileParser.getBytes("Read");
+    private static final byte[] WRITE = ProcFileParser.getBytes("Write");
+    private static final byte[] RBYTES = ProcFileParser.getBytes("rbytes");
+    private static final byte[] WBYTES = ProcFileParser.getBytes("wbytes");
+    private static final byte[] RIOS = ProcFileParser.getBytes("rios");
+    private static final byte[] WIOS = ProcFileParser.getBytes("wios");
+    private static final byte[] MAX = ProcFileParser.getBytes("max");
+
+    private static final byte[][] V1_MEMORY_STAT_KEYS = {
+        ProcFileParser.getBytes("total_rss"), ProcFileParser.getBytes("total_cache"), ProcFileParser.getBytes("total_swap"),
+        ProcFileParser.getBytes("total_inactive_file"), ProcFileParser.getBytes("total_pgfault"), ProcFileParser.getBytes("total_pgmajfault")};
+
+    private static final byte[][] V2_MEMORY_STAT_KEYS = {
+        ProcFileParser.getBytes("anon"), ProcFileParser.getBytes("file"), null,
+        ProcFileParser.getBytes("inactive_file"), ProcFileParser.getBytes("pgfault"), ProcFileParser.getBytes("pgmajfault")};
+
+    private static final int[] MEMORY_STAT_INDEXES = {
+        CgroupStats.MEMORY_RSS_BYTES, CgroupStats.MEMORY_CACHE_BYTES, CgroupStats.MEMORY_SWAP_BYTES,
+        CgroupStats.MEMORY_INACTIVE_FILE_BYTES, CgroupStats.MEMORY_PAGE_FAULTS, CgroupStats.MEMORY_MAJOR_PAGE_FAULTS};
+
+    private final boolean isUnified_;
+    private final String discoveryRootPath_;
+    private final String cpuacctRootPath_;
+    private final String memoryRootPath_;
+    private final String blkioRootPath_;
+    private final String pidsRootPath_;
+
+    private final ProcFileParser parser_ = new ProcFileParser();
+
+    /*
+    'cgroupMountPath' is where the cgroup filesystem(s) are mounted (ex- /sys/fs/cgroup).
+    */
+    public CgroupStatsReader(String cgroupMountPath) {
+
+        this.isUnified_ = new File(cgroupMountPath, "cgroup.controllers").isFile();
+
+        if (isUnified_) {
+            this.cpuacctRootPath_ = cgroupMountPath;
+            this.memoryRootPath_ = cgroupMountPath;
+            this.blkioRootPath_ = cgroupMountPath;
+            this.pidsRootPath_ = cgroupMountPath;
+            this.discoveryRootPath_ = cgroupMountPath;
+        }
+        else {
+            this.cpuacctRootPath_ = getControllerRootPath(cgroupMountPath, "cpuacct", "cpu,cpuacct", "cpuacct,cpu");
+            this.memoryRootPath_ = getControllerRootPath(cgroupMountPath, "memory");
+            this.blkioRootPath_ = getControllerRootPath(cgroupMountPath, "blkio");
+            this.pidsRootPath_ = getControllerRootPath(cgroupMountPath, "pids");
+            this.discoveryRootPath_ = (cpuacctRootPath_ != null) ? cpuacctRootPath_ : memoryRootPath_;
+        }
+    }
+
+    private static String getControllerRootPath(String cgroupMountPath, String... controllerDirectoryNames) {
+
+        for (String controllerDirectoryName : controllerDirectoryNames) {
+            File controllerDirectory = new File(cgroupMountPath, controllerDirectoryName);
+            if (controllerDirectory.isDirectory()) return controllerDirectory.getPath();
+        }
+
+        return null;
+    }
+
+    /*
+    Reads a container's accounting into 'stats'. 'relativePath' is the container's cgroup path, relative to the discovery root (see getDiscoveryRootPath).
+    Returns false if the container's cgroup couldn't be read (ex- the container was removed).
+    */
+    public boolean read(String relativePath, CgroupStats stats) {
+
+        stats.clear();
+
+        if (isUnified_) {
+            String path = memoryRootPath_ + "/" + relativePath + "/";
+            if (!readCpuStat(path + "cpu.stat", stats)) return false;
+
+            stats.set(CgroupStats.MEMORY_USAGE_BYTES, readLong(path + "memory.current"));
+            stats.set(CgroupStats.MEMORY_LIMIT_BYTES, readLong(path + "memory.max"));
+            stats.set(CgroupStats.MEMORY_SWAP_BYTES, readLong(path + "memory.swap.current"));
+            readMemoryStat(path + "memory.stat", V2_MEMORY_STAT_KEYS, stats);
+            readIoStat(path + "io.stat", stats);
+            stats.set(CgroupStats.PIDS_CURRENT, readLong(path + "pids.current"));
+            return true;
+        }
+
+        if (cpuacctRootPath_ != null) {
+            String path = cpuacctRootPath_ + "/" + relativePath + "/";
+            long usageInNs = readLong(path + "cpuacct.usage");
+            if (usageInNs == ProcFileParser.NO_VALUE) return false;
+
+            stats.set(CgroupStats.CPU_USAGE_NS, usageInNs);
+            readCpuacctStat(path + "cpuacct.stat", stats);
+        }
+
+        if (memoryRootPath_ != null) {
+            String path = memoryRootPath_ + "/" + relativePath + "/";
+            stats.set(CgroupStats.MEMORY_USAGE_BYTES, readLong(path + "memory.usage_in_bytes"));
+
+            long limitInBytes = readLong(path + "memory.limit_in_bytes");
+            if (limitInBytes < UNLIMITED_MEMORY_THRESHOLD) stats.set(CgroupStats.MEMORY_LIMIT_BYTES, limitInBytes);
+
+            readMemoryStat(path + "memory.stat", V1_MEMORY_STAT_KEYS, stats);
+        }
+
+        if (blkioRootPath_ != null) {
+            String path = blkioRootPath_ + "/" + relativePath + "/";
+            readBlkioThrottle(path + "blkio.throttle.io_service_bytes", CgroupStats.IO_READ_BYTES, CgroupStats.IO_WRITE_BYTES, stats);
+            readBlkioThrottle(path + "blkio.throttle.io_serviced", CgroupStats.IO_READ_OPS, CgroupStats.IO_WRITE_OPS, stats);
+        }
+
+        if (pidsRootPath_ != null) stats.set(CgroupStats.PIDS_CURRENT, readLong(pidsRootPath_ + "/" + relativePath + "/pids.current"));
+
+        return true;
+    }
+
+    /*
+    Opens, reads, & closes a file. Returns null if the file couldn't be read. The caller must release the returned snapshot.
+    */
+    private static ProcFileSnapshot readFile(String path) {
+
+        ProcFile procFile = new ProcFile(path);
+
+        try {
+            return procFile.acquireSnapshot(0);
+        }
+        finally {
+            procFile.close();
+        }
+    }
+
+    /*
+    Reads a single value file (ex- memory.current). Returns ProcFileParser.NO_VALUE if the file couldn't be read, or if the value is 'max' (no limit).
+    */
+    private long readLong(String path) {
+
+        ProcFileSnapshot snapshot = readFile(path);
+        if (snapshot == null) return ProcFileParser.NO_VALUE;
+
+        try {
+            parser_.reset(snapshot);
+            if (parser_.lineStartsWith(MAX)) return ProcFileParser.NO_VALUE;
+            return parser_.nextLong();
+        }
+        finally {
+            snapshot.release();
+        }
+    }
+
+    /*
+    cgroup v2 cpu.stat. ex-
+      usage_usec 8066270
+      user_usec 5531234
+      system_usec 2535036
+    */
+    private boolean readCpuStat(String path, CgroupStats stats) {
+
+        ProcFileSnapshot snapshot = readFile(path);
+        if (snapshot == null) return false;
+
+        try {
+            parser_.reset(snapshot);
+
+            do {
+                if (!parser_.nextToken()) continue;
+
+                int index;
+                if (parser_.tokenEquals(USAGE_USEC)) index = CgroupStats.CPU_USAGE_NS;
+                else if (parser_.tokenEquals(USER_USEC)) index = CgroupStats.CPU_USER_NS;
+                else if (parser_.tokenEquals(SYSTEM_USEC)) index = CgroupStats.CPU_SYSTEM_NS;
+                else continue;
+
+                long valueInUs = parser_.nextLong();
+                if (valueInUs >= 0) stats.set(index, valueInUs * NANOSECONDS_PER_MICROSECOND);
+            } while (parser_.nextLine());
+
+            return stats.has(CgroupStats.CPU_USAGE_NS);
+        }
+        finally {
+            snapshot.release();
+        }
+    }
+
+    /*
+    cgroup v1 cpuacct.stat (in ticks). ex-
+      user 553
+      system 253
+    */
+    private void readCpuacctStat(String path, CgroupStats stats) {
+
+        ProcFileSnapshot snapshot = readFile(path);
+        if (snapshot == null) return;
+
+        try {
+            parser_.reset(snapshot);
+
+            do {
+                if (!parser_.nextToken()) continue;
+
+                int index;
+                if (parser_.tokenEquals(USER)) index = CgroupStats.CPU_USER_NS;
+                else if (parser_.tokenEquals(SYSTEM)) index = CgroupStats.CPU_SYSTEM_NS;
+                else continue;
+
+                long valueInTicks = parser_.nextLong();
+                if (valueInTicks >= 0) stats.set(index, valueInTicks * NANOSECONDS_PER_TICK);
+            } while (parser_.nextLine());
+        }
+        finally {
+            snapshot.release();
+        }
+    }
+
+    /*
+    memory.stat is 'key value' lines. 'keys' are matched to MEMORY_STAT_INDEXES (a null key isn't read).
+    */
+    private void readMemoryStat(String path, byte[][] keys, CgroupStats stats) {
+
+        ProcFileSnapshot snapshot = readFile(path);
+        if (snapshot == null) return;
+
+        try {
+            parser_.reset(snapshot);
+
+            do {
+                if (!parser_.nextToken()) continue;
+
+                for (int i = 0; i < keys.length; i++) {
+                    if ((keys[i] == null) || !parser_.tokenEquals(keys[i])) continue;
+                    stats.set(MEMORY_STAT_INDEXES[i], parser_.nextLong());
+                    break;
+                }
+            } while (parser_.nextLine());
+        }
+        finally {
+            snapshot.release();
+        }
+    }
+
+    /*
+    cgroup v1 blkio.throttle.io_service_bytes & blkio.throttle.io_serviced. The 'Read' & 'Write' lines of every device are summed. ex-
+      8:0 Read 4096
+      8:0 Write 8192
+      8:0 Sync 12288
+      8:0 Async 0
+      8:0 Total 12288
+      Total 12288
+    */
+    private void readBlkioThrottle(String path, int readIndex, int writeIndex, CgroupStats stats) {
+
+        ProcFileSnapshot snapshot = readFile(path);
+        if (snapshot == null) return;
+
+        try {
+            parser_.reset(snapshot);
+
+            do {
+                if (!parser_.nextToken() || !parser_.nextToken()) continue;
+
+                if (parser_.tokenEquals(READ)) stats.add(readIndex, parser_.nextLong());
+                else if (parser_.tokenEquals(WRITE)) stats.add(writeIndex, parser_.nextLong());
+            } while (parser_.nextLine());
+
+            // a container that hasn't done any io has no device lines
+            if (!stats.has(readIndex)) stats.set(readIndex, 0);
+            if (!stats.has(writeIndex)) stats.set(writeIndex, 0);
+        }
+        finally {
+            snapshot.release();
+        }
+    }
+
+    /*
+    cgroup v2 io.stat. The counters of every device are summed. ex-
+      8:0 rbytes=4096 wbytes=8192 rios=1 wios=2 dbytes=0 dios=0
+    */
+    private void readIoStat(String path, CgroupStats stats) {
+
+        ProcFileSnapshot snapshot = readFile(path);
+        if (snapshot == null) return;
+
+        try {
+            parser_.reset(snapshot);
+
+            do {
+                // the device
+                if (!parser_.nextToken()) continue;
+
+                while (parser_.nextToken((byte) '=')) {
+                    if (parser_.tokenEquals(RBYTES)) stats.add(CgroupStats.IO_READ_BYTES, parser_.nextLong());
+                    else if (parser_.tokenEquals(WBYTES)) stats.add(CgroupStats.IO_WRITE_BYTES, parser_.nextLong());
+                    else if (parser_.tokenEquals(RIOS)) stats.add(CgroupStats.IO_READ_OPS, parser_.nextLong());
+                    else if (parser_.tokenEquals(WIOS)) stats.add(CgroupStats.IO_WRITE_OPS, parser_.nextLong());
+                    else parser_.nextToken();
+                }
+            } while (parser_.nextLine());
+
+            // a container that hasn't done any io has no device lines
+            if (!stats.has(CgroupStats.IO_READ_BYTES)) stats.set(CgroupStats.IO_READ_BYTES, 0);
+            if (!stats.has(CgroupStats.IO_WRITE_BYTES)) stats.set(CgroupStats.IO_WRITE_BYTES, 0);
+            if (!stats.has(CgroupStats.IO_READ_OPS)) stats.set(CgroupStats.IO_READ_OPS, 0);
+            if (!stats.has(CgroupStats.IO_WRITE_OPS)) stats.set(CgroupStats.IO_WRITE_OPS, 0);
+        }
+        finally {
+            snapshot.release();
+        }
+    }
+
+    public boolean isUnified() {
+        return isUnified_;
+    }
+
+    /*
+    The root of the hierarchy that containers are discovered in (the unified hierarchy on cgroup v2, the cpuacct hierarchy on cgroup v1).
+    Returns null if there isn't a usable cgroup hierarchy.
+    */
+    public String getDiscoveryRootPath() {
+        return discoveryRootPath_;
+    }
+
+}
@@ -1,16 +1,14 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.Connections;
 
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileParser;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSnapshot;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSystem;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
-import com.pearson.statspoller.utilities.file_utils.FileIo;
-import java.io.BufferedReader;
-import java.io.StringReader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
-import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,142 +18,76 @@ import org.slf4j.LoggerFactory;
  * Collects TCP & UDP connection count metrics
  * Reads from /proc/net/sockstat & /proc/net/sockstat6
  */
-public class ConnectionsCollector extends InternalCollectorFramework implements Runnable {
+public class ConnectionsCollector extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(ConnectionsCollector.class.getName());
     
+    private static final byte[] TCP_LINE_PREFIX = ProcFileParser.getBytes("TCP:");
+    private static final byte[] UDP_LINE_PREFIX = ProcFileParser.getBytes("UDP:");
+    private static final byte[] TCP6_LINE_PREFIX = ProcFileParser.getBytes("TCP6:");
+    private static final byte[] UDP6_LINE_PREFIX = ProcFileParser.getBytes("UDP6:");
+    private static final byte[] INUSE = ProcFileParser.getBytes("inuse");
+    
+    private final String procNetSockstatPath_;
+    private final String procNetSockstat6Path_;
+    private final ProcFileParser parser_ = new ProcFileParser();
+    
     public ConnectionsCollector(boolean isEnabled, long collectionInterval, String metricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles) {
         super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
+        this.procNetSockstatPath_ = super.getLinuxProcFileSystemLocation() + "/net/sockstat";
+        this.procNetSockstat6Path_ = super.getLinuxProcFileSystemLocation() + "/net/sockstat6";
     }
     
     @Override
-    public void run() {
-         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // get the connection stats in graphite format
-            List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
-            graphiteMetrics.addAll(getSockstatMetrics(super.getLinuxProcFileSystemLocation()));
-            graphiteMetrics.addAll(getSockstat6Metrics(super.getLinuxProcFileSystemLocation()));
-
-            // output graphite metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
-
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            logger.info("Finished Linux-Connections metric collection routine. " +
-                    "MetricsCollected=" + graphiteMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
-
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
-        }
-
-    }
-    
-    private static List<GraphiteMetric> getSockstatMetrics(String procFileSystemLocation) {
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
         
+        // get the connection stats in graphite format
         List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
+        graphiteMetrics.addAll(getSockstatMetrics(procNetSockstatPath_, TCP_LINE_PREFIX, "TcpIPv4-ConnectionCount", UDP_LINE_PREFIX, "UdpIPv4-ConnectionCount"));
+        graphiteMetrics.addAll(getSockstatMetrics(procNetSockstat6Path_, TCP6_LINE_PREFIX, "TcpIPv6-ConnectionCount", UDP6_LINE_PREFIX, "UdpIPv6-ConnectionCount"));
 
-        try {
-            int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
-            String procNetSockstat = FileIo.readFileToString(procFileSystemLocation + "/net/sockstat");
-            if (procNetSockstat == null) return graphiteMetrics;
-
-            BufferedReader reader = null;
-            
-            try {
-                reader = new BufferedReader(new StringReader(procNetSockstat));
-                String currentLine = reader.readLine();
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
 
-                while (currentLine != null) {
-                    try {
-                        if (currentLine.startsWith("TCP:")) {
-                            GraphiteMetric graphiteMetric = getInuseValueFromSockstatLine(currentLine, "TcpIPv4-ConnectionCount", currentTimestampInSeconds);
-                            if (graphiteMetric != null) graphiteMetrics.add(graphiteMetric);
-                        }
-                        
-                        if (currentLine.startsWith("UDP:")) {
-                            GraphiteMetric graphiteMetric = getInuseValueFromSockstatLine(currentLine, "UdpIPv4-ConnectionCount", currentTimestampInSeconds);
-                            if (graphiteMetric != null) graphiteMetrics.add(graphiteMetric);
-                        }
-                    } 
-                    catch (Exception e) {
-                        logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-                    }
-                    
-                    currentLine = reader.readLine();
-                } 
-            }
-            catch (Exception e) {
-                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            }
-            finally {
-                try {
-                    if (reader != null) {
-                        reader.close();
-                    }
-                }
-                catch (Exception e) {
-                    logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-                }
-            }
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-        }
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
         
-        return graphiteMetrics;
+        logger.info("Finished Linux-Connections metric collection routine. " +
+                "MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
-
-    private static List<GraphiteMetric> getSockstat6Metrics(String procFileSystemLocation) {
+    
+    /*
+    Reads the 'inuse' values from the TCP & UDP lines of /proc/net/sockstat (or /proc/net/sockstat6). 
+    ex- 'TCP: inuse 5 orphan 0 tw 2 alloc 7 mem 1'
+    */
+    private List<GraphiteMetric> getSockstatMetrics(String sockstatPath, byte[] tcpLinePrefix, String tcpGraphiteMetricPath, byte[] udpLinePrefix, String udpGraphiteMetricPath) {
         
         List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
 
         try {
             int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
-            String procNetSockstat6 = FileIo.readFileToString(procFileSystemLocation + "/net/sockstat6");
-            if (procNetSockstat6 == null) return graphiteMetrics;
-
-            BufferedReader reader = null;
+            ProcFileSnapshot procNetSockstat = ProcFileSystem.acquireSnapshot(sockstatPath);
+            if (procNetSockstat == null) return graphiteMetrics;
             
             try {
-                reader = new BufferedReader(new StringReader(procNetSockstat6));
-                String currentLine = reader.readLine();
+                parser_.reset(procNetSockstat);
 
-                while (currentLine != null) {
-                    try {
-                        if (currentLine.startsWith("TCP6:")) {
-                            GraphiteMetric graphiteMetric = getInuseValueFromSockstatLine(currentLine, "TcpIPv6-ConnectionCount", currentTimestampInSeconds);
-                            if (graphiteMetric != null) graphiteMetrics.add(graphiteMetric);
-                        }
-                        
-                        if (currentLine.startsWith("UDP6:")) {
-                            GraphiteMetric graphiteMetric = getInuseValueFromSockstatLine(currentLine, "UdpIPv6-ConnectionCount", currentTimestampInSeconds);
-                            if (graphiteMetric != null) graphiteMetrics.add(graphiteMetric);
-                        }
-                    } 
-                    catch (Exception e) {
-                        logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+                while (parser_.hasRemaining()) {
+                    if (parser_.lineStartsWith(tcpLinePrefix)) {
+                        GraphiteMetric graphiteMetric = getInuseValueFromSockstatLine(tcpGraphiteMetricPath, currentTimestampInSeconds);
+                        if (graphiteMetric != null) graphiteMetrics.add(graphiteMetric);
+                    }
+                    else if (parser_.lineStartsWith(udpLinePrefix)) {
+                        GraphiteMetric graphiteMetric = getInuseValueFromSockstatLine(udpGraphiteMetricPath, currentTimestampInSeconds);
+                        if (graphiteMetric != null) graphiteMetrics.add(graphiteMetric);
                     }
                     
-                    currentLine = reader.readLine();
+                    parser_.nextLine();
                 } 
             }
-            catch (Exception e) {
-                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            }
             finally {
-                try {
-                    if (reader != null) {
-                        reader.close();
-                    }
-                }
-                catch (Exception e) {
-                    logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-                }
+                procNetSockstat.release();
             }
         }
         catch (Exception e) {
@@ -165,37 +97,21 @@ public class ConnectionsCollector extends InternalCollectorFramework implements
         return graphiteMetrics;
     }
     
-    private static GraphiteMetric getInuseValueFromSockstatLine(String currentLineInSockStat, String graphiteMetricPath, int timestampInSeconds) {
+    private GraphiteMetric getInuseValueFromSockstatLine(String graphiteMetricPath, int timestampInSeconds) {
         
-        if ((currentLineInSockStat == null) || (graphiteMetricPath == null) || (timestampInSeconds < 0)) {
+        if ((graphiteMetricPath == null) || (timestampInSeconds < 0)) {
             return null;
         }
         
-        GraphiteMetric graphiteMetric = null;
-        
-        try {
-            String inuse = "inuse";
-            int indexOfInuse = currentLineInSockStat.indexOf(inuse);
-
-            if (indexOfInuse > 0) {
-                int indexOfInuseValue = indexOfInuse + inuse.length() + 1;
-                int indexOfSpaceAfterInuseValue = currentLineInSockStat.indexOf(" ", indexOfInuseValue);
-
-                if (indexOfSpaceAfterInuseValue > 0) {
-                    String inuseValue = currentLineInSockStat.substring(indexOfInuseValue, indexOfSpaceAfterInuseValue);
-                    if (StringUtils.isNumeric(inuseValue)) graphiteMetric = new GraphiteMetric(graphiteMetricPath, new BigDecimal(inuseValue), timestampInSeconds);
-                }
-                else { // this covers the case of 'inuse' being the last metric on the line
-                    String inuseValue = currentLineInSockStat.substring(indexOfInuseValue, currentLineInSockStat.length());
-                    if (StringUtils.isNumeric(inuseValue)) graphiteMetric = new GraphiteMetric(graphiteMetricPath, new BigDecimal(inuseValue), timestampInSeconds);
-                }
+        while (parser_.nextToken()) {
+            if (parser_.tokenEquals(INUSE)) {
+                long inuseValue = parser_.nextLong();
+                if (inuseValue >= 0) return new GraphiteMetric(graphiteMetricPath, BigDecimal.valueOf(inuseValue), timestampInSeconds);
+                else return null;
             }
         }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-        }
         
-        return graphiteMetric;
+        return null;
     }
     
 }
@@ -0,0 +1,170 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.Connections;
+
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcBufferPool;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Streams /proc/net/tcp (or /proc/net/tcp6) through a fixed-size buffer, & counts each socket's state & local port into a TcpConnectionCounts.
+ * Unlike the other procfs reads (see ProcFileSystem), the file is never held in memory: on a host with hundreds of thousands of sockets, the table is tens of megabytes.
+ *
+ * Each line is parsed in place, & only up to its state field. ex-
+ *    sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt   uid  timeout inode
+ *    0: 0100007F:0CEA 00000000:0000 0A 00000000:00000000 00:00000000 00000000   999        0 12345 1 ...
+ * tcp6 is the same, with 32 hex digit addresses.
+ *
+ * Not thread-safe. A parser can be reused.
+ */
+public class ProcNetTcpParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcNetTcpParser.class.getName());
+
+    protected static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] HEX_VALUES = getHexValues();
+
+    private static byte[] getHexValues() {
+        byte[] hexValues = new byte[256];
+        Arrays.fill(hexValues, (byte) -1);
+        for (int i = 0; i < 10; i++) hexValues['0' + i] = (byte) i;
+        for (int i = 0; i < 6; i++) hexValues['A' + i] = hexValues['a' + i] = (byte) (10 + i);
+        return hexValues;
+    }
+
+    private long numLinesParsed_ = 0;
+    private long numLinesSkipped_ = 0;
+
+    /*
+    Adds every socket in the file to 'counts'. Returns false if the file couldn't be read (ex- IPv6 is disabled, so there is no tcp6).
+    */
+    public boolean parse(String path, int ipVersion, TcpConnectionCounts counts) {
+
+        numLinesParsed_ = 0;
+        numLinesSkipped_ = 0;
+
+        FileChannel channel = null;
+        ByteBuffer buffer = null;
+
+        try {
+            channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+            buffer = ProcBufferPool.acquire(BUFFER_SIZE);
+
+            boolean isHeaderLine = true;
+
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+
+                // parse every complete line in the buffer. a partial line at the end is moved to the start of the buffer, & completed by the next read.
+                int lineStart = buffer.position();
+                int limit = buffer.limit();
+
+                for (int i = lineStart; i < limit; i++) {
+                    if (buffer.get(i) != '\n') continue;
+
+                    if (isHeaderLine) isHeaderLine = false;
+                    else parseLine(buffer, lineStart, i, ipVersion, counts);
+
+                    lineStart = i + 1;
+                }
+
+                buffer.position(lineStart);
+                buffer.compact();
+
+                // a line that doesn't fit in the buffer isn't a /proc/net/tcp line
+                if (!buffer.hasRemaining()) {
+                    logger.warn("Message=\"Line too long\", File=\"" + path + "\"");
+                    return false;
+                }
+            }
+
+            return true;
+        }
+        catch (Exception e) {
+            logger.debug("Message=\"Unable to read file\", File=\"" + path + "\", Exception=\"" + e.toString() + "\"");
+            return false;
+        }
+        finally {
+            ProcBufferPool.release(buffer);
+
+            try {
+                if (channel != null) channel.close();
+            }
+            catch (Exception e) {
+                logger.debug("Message=\"Unable to close file\", File=\"" + path + "\", Exception=\"" + e.toString() + "\"");
+            }
+        }
+    }
+
+    private void parseLine(ByteBuffer buffer, int start, int end, int ipVersion, TcpConnectionCounts counts) {
+
+        int position = skipSpaces(buffer, start, end);
+
+        // the slot number ('0:')
+        position = skipToken(buffer, position, end);
+        position = skipSpaces(buffer, position, end);
+
+        // the local address is 'address:port'. only the port is needed.
+        while ((position < end) && (buffer.get(position) != ':')) position++;
+        int localPort = parseHex(buffer, position + 1, position + 5, end);
+        position = skipToken(buffer, position, end);
+        position = skipSpaces(buffer, position, end);
+
+        // the remote address
+        position = skipToken(buffer, position, end);
+        position = skipSpaces(buffer, position, end);
+
+        int state = parseHex(buffer, position, position + 2, end);
+
+        if ((localPort < 0) || (state < 0) || (state >= TcpConnectionCounts.NUM_STATES)) {
+            numLinesSkipped_++;
+            return;
+        }
+
+        counts.add(ipVersion, state, localPort);
+        numLinesParsed_++;
+    }
+
+    private static int skipSpaces(ByteBuffer buffer, int position, int end) {
+        while ((position < end) && (buffer.get(position) == ' ')) position++;
+        return position;
+    }
+
+    private static int skipToken(ByteBuffer buffer, int position, int end) {
+        while ((position < end) && (buffer.get(position) != ' ')) position++;
+        return position;
+    }
+
+    /*
+    Returns -1 if the range isn't entirely hex digits, or if it goes past the end of the line.
+    */
+    private static int parseHex(ByteBuffer buffer, int start, int end, int lineEnd) {
+
+        if (end > lineEnd) return -1;
+
+        int value = 0;
+
+        for (int i = start; i < end; i++) {
+            int digit = HEX_VALUES[buffer.get(i) & 0xFF];
+            if (digit < 0) return -1;
+            value = (value << 4) | digit;
+        }
+
+        return value;
+    }
+
+    public long getNumLinesParsed() {
+        return numLinesParsed_;
+    }
+
+    public long getNumLinesSkipped() {
+        return numLinesSkipped_;
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.Connections;
+
+import java.util.Arrays;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Primitive counters for the sockets in /proc/net/tcp & /proc/net/tcp6.
+ *   By state : the number of sockets in each tcp state, per ip version.
+ *   By listen port : for every local port that has a listening socket, the number of sockets on that port in the ESTABLISHED, SYN_RECV, TIME_WAIT, & CLOSE_WAIT states.
+ *     Listen port counts are combined across ip versions (an IPv6 wildcard listener also accepts IPv4 connections).
+ *
+ * The memory is fixed (about 1MB, mostly the per-port counters), no matter how many sockets are counted. Not thread-safe. Reusable (see 'clear').
+ */
+public class TcpConnectionCounts {
+
+    public static final int IPV4 = 0;
+    public static final int IPV6 = 1;
+
+    // tcp states, as numbered by the kernel (include/net/tcp_states.h)
+    public static final int STATE_ESTABLISHED = 0x01;
+    public static final int STATE_SYN_SENT = 0x02;
+    public static final int STATE_SYN_RECV = 0x03;
+    public static final int STATE_FIN_WAIT1 = 0x04;
+    public static final int STATE_FIN_WAIT2 = 0x05;
+    public static final int STATE_TIME_WAIT = 0x06;
+    public static final int STATE_CLOSE = 0x07;
+    public static final int STATE_CLOSE_WAIT = 0x08;
+    public static final int STATE_LAST_ACK = 0x09;
+    public static final int STATE_LISTEN = 0x0A;
+    public static final int STATE_CLOSING = 0x0B;
+    public static final int STATE_NEW_SYN_RECV = 0x0C;
+    public static final int NUM_STATES = 16;
+
+    public static final int[] LISTEN_PORT_STATES = {STATE_ESTABLISHED, STATE_SYN_RECV, STATE_TIME_WAIT, STATE_CLOSE_WAIT};
+
+    private static final int NUM_PORTS = 65536;
+    private static final int NUM_LISTEN_PORT_STATES = 4;
+    private static final int[] LISTEN_PORT_STATE_SLOTS = getListenPortStateSlots();
+
+    private final long[][] connectionCounts_ByIpVersion_ByState_ = new long[2][NUM_STATES];
+    private final boolean[] isListening_ByPort_ = new boolean[NUM_PORTS];
+
+    // indexed by (port * NUM_LISTEN_PORT_STATES) + slot, so a port's counters are adjacent
+    private final int[] connectionCounts_ByPort_ByState_ = new int[NUM_PORTS * NUM_LISTEN_PORT_STATES];
+
+    private static int[] getListenPortStateSlots() {
+        int[] listenPortStateSlots = new int[NUM_STATES];
+        Arrays.fill(listenPortStateSlots, -1);
+        for (int i = 0; i < LISTEN_PORT_STATES.length; i++) listenPortStateSlots[LISTEN_PORT_STATES[i]] = i;
+        return listenPortStateSlots;
+    }
+
+    /*
+    'state' & 'localPort' are assumed to be in range (a 4-bit state & a 16-bit port, as parsed from their hex fields).
+    */
+    public void add(int ipVersion, int state, int localPort) {
+
+        connectionCounts_ByIpVersion_ByState_[ipVersion][state]++;
+
+        if (state == STATE_LISTEN) {
+            isListening_ByPort_[localPort] = true;
+            return;
+        }
+
+        int slot = LISTEN_PORT_STATE_SLOTS[state];
+        if (slot >= 0) connectionCounts_ByPort_ByState_[(localPort * NUM_LISTEN_PORT_STATES) + slot]++;
+    }
+
+    public long getConnectionCount(int ipVersion, int state) {
+        return connectionCounts_ByIpVersion_ByState_[ipVersion][state];
+    }
+
+    public boolean isListening(int port) {
+        return isListening_ByPort_[port];
+    }
+
+    /*
+    'state' must be one of LISTEN_PORT_STATES.
+    */
+    public int getListenPortConnectionCount(int port, int state) {
+        return connectionCounts_ByPort_ByState_[(port * NUM_LISTEN_PORT_STATES) + LISTEN_PORT_STATE_SLOTS[state]];
+    }
+
+    public void clear() {
+        Arrays.fill(connectionCounts_ByIpVersion_ByState_[IPV4], 0);
+        Arrays.fill(connectionCounts_ByIpVersion_ByState_[IPV6], 0);
+        Arrays.fill(isListening_ByPort_, false);
+        Arrays.fill(connectionCounts_ByPort_ByState_, 0);
+    }
+
+}
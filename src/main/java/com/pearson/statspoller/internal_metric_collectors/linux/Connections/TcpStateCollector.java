@@ -0,0 +1,111 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.Connections;
+
+import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Collects TCP connection counts by state (ESTABLISHED, TIME_WAIT, etc), & by listening port.
+ * Reads from /proc/net/tcp & /proc/net/tcp6 (streamed, see ProcNetTcpParser), so it works on hosts with hundreds of thousands of sockets.
+ */
+public class TcpStateCollector extends InternalCollectorFramework {
+
+    private static final Logger logger = LoggerFactory.getLogger(TcpStateCollector.class.getName());
+
+    private static final String[] STATE_NAMES = getStateNames();
+
+    private final String procNetTcpPath_;
+    private final String procNetTcp6Path_;
+    private final ProcNetTcpParser parser_ = new ProcNetTcpParser();
+    private final TcpConnectionCounts counts_ = new TcpConnectionCounts();
+
+    public TcpStateCollector(boolean isEnabled, long collectionInterval, String metricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles) {
+        super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
+        this.procNetTcpPath_ = super.getLinuxProcFileSystemLocation() + "/net/tcp";
+        this.procNetTcp6Path_ = super.getLinuxProcFileSystemLocation() + "/net/tcp6";
+    }
+
+    private static String[] getStateNames() {
+        String[] stateNames = new String[TcpConnectionCounts.NUM_STATES];
+        stateNames[TcpConnectionCounts.STATE_ESTABLISHED] = "Established";
+        stateNames[TcpConnectionCounts.STATE_SYN_SENT] = "SynSent";
+        stateNames[TcpConnectionCounts.STATE_SYN_RECV] = "SynRecv";
+        stateNames[TcpConnectionCounts.STATE_FIN_WAIT1] = "FinWait1";
+        stateNames[TcpConnectionCounts.STATE_FIN_WAIT2] = "FinWait2";
+        stateNames[TcpConnectionCounts.STATE_TIME_WAIT] = "TimeWait";
+        stateNames[TcpConnectionCounts.STATE_CLOSE] = "Close";
+        stateNames[TcpConnectionCounts.STATE_CLOSE_WAIT] = "CloseWait";
+        stateNames[TcpConnectionCounts.STATE_LAST_ACK] = "LastAck";
+        stateNames[TcpConnectionCounts.STATE_LISTEN] = "Listen";
+        stateNames[TcpConnectionCounts.STATE_CLOSING] = "Closing";
+        stateNames[TcpConnectionCounts.STATE_NEW_SYN_RECV] = "NewSynRecv";
+        return stateNames;
+    }
+
+    @Override
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
+
+        // get the tcp state stats in graphite format
+        List<GraphiteMetric> graphiteMetrics = getTcpStateMetrics();
+
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
+
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+
+        logger.info("Finished Linux-TcpState metric collection routine. " +
+                "MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
+    }
+
+    private List<GraphiteMetric> getTcpStateMetrics() {
+
+        List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
+
+        try {
+            int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
+            counts_.clear();
+
+            boolean isTcpRead = parser_.parse(procNetTcpPath_, TcpConnectionCounts.IPV4, counts_);
+            boolean isTcp6Read = parser_.parse(procNetTcp6Path_, TcpConnectionCounts.IPV6, counts_);
+
+            if (isTcpRead) addStateMetrics(graphiteMetrics, TcpConnectionCounts.IPV4, "TcpIPv4.", currentTimestampInSeconds);
+            if (isTcp6Read) addStateMetrics(graphiteMetrics, TcpConnectionCounts.IPV6, "TcpIPv6.", currentTimestampInSeconds);
+            if (isTcpRead || isTcp6Read) addListenPortMetrics(graphiteMetrics, currentTimestampInSeconds);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+
+        return graphiteMetrics;
+    }
+
+    private void addStateMetrics(List<GraphiteMetric> graphiteMetrics, int ipVersion, String prefix, int timestampInSeconds) {
+        for (int state = 0; state < STATE_NAMES.length; state++) {
+            if (STATE_NAMES[state] == null) continue;
+            graphiteMetrics.add(new GraphiteMetric(prefix + STATE_NAMES[state], BigDecimal.valueOf(counts_.getConnectionCount(ipVersion, state)), timestampInSeconds));
+        }
+    }
+
+    // the number of listening ports is small, even on a host with a very large number of connections, so the number of output metrics stays bounded
+    private void addListenPortMetrics(List<GraphiteMetric> graphiteMetrics, int timestampInSeconds) {
+        for (int port = 0; port < 65536; port++) {
+            if (!counts_.isListening(port)) continue;
+
+            String prefix = "ListenPort." + port + ".";
+
+            for (int state : TcpConnectionCounts.LISTEN_PORT_STATES) {
+                graphiteMetrics.add(new GraphiteMetric(prefix + STATE_NAMES[state], BigDecimal.valueOf(counts_.getListenPortConnectionCount(port, state)), timestampInSeconds));
+            }
+        }
+    }
+
+}
@@ -1,12 +1,16 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.Cpu;
 
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.internal_metric_collectors.linux.HighResolution.HighResolutionSampleable;
+import com.pearson.statspoller.internal_metric_collectors.linux.HighResolution.HighResolutionSamples;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileParser;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSnapshot;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSystem;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcTokenCache;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
-import com.pearson.statspoller.utilities.file_utils.FileIo;
-import java.io.BufferedReader;
-import java.io.StringReader;
+import com.pearson.statspoller.utilities.math_utils.CounterDeltaTracker;
+import com.pearson.statspoller.utilities.math_utils.MathUtilities;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -20,78 +24,117 @@ import org.slf4j.LoggerFactory;
  * 
  * Collects CPU % metrics -- similar to the metrics collected by mpstat
  * Based on raw data from /proc/stat
+ * If high-resolution sampling is enabled, each cpu's Used-Pct & Iowait-Pct are also sampled between runs, & summarized on each run (see HighResolutionSamples).
  */
-public class CpuCollector extends InternalCollectorFramework implements Runnable {
+public class CpuCollector extends InternalCollectorFramework implements HighResolutionSampleable {
 
     private static final Logger logger = LoggerFactory.getLogger(CpuCollector.class.getName());
     
-    private static String previousRawProcStats_ = null;
+    private static final byte[] CPU_LINE_PREFIX = ProcFileParser.getBytes("cpu");
+    private static final int MAX_CPU_FIELDS = 32;
+    private static final int MIN_CPU_FIELDS = 4;
+    private static final int PERCENT_SCALE = 5;
+    
+    private static final String[] CPU_METRIC_NAMES = {".User-Pct", ".Nice-Pct", ".System-Pct", ".Idle-Pct", ".Iowait-Pct", ".Irq-Pct", 
+        ".SoftIrq-Pct", ".Steal-Pct", ".Guest-Pct", ".GuestNice-Pct", ".Extra-Pct", ".Used-Pct"};
+    
+    private static final String[] HIGH_RESOLUTION_METRIC_NAMES = {".Used-Pct", ".Iowait-Pct"};
+    
+    private final String procStatPath_;
+    private final ProcFileParser parser_ = new ProcFileParser();
+    private final ProcTokenCache tokenCache_ = new ProcTokenCache();
+    private final CounterDeltaTracker cpuStatsTracker_ = new CounterDeltaTracker();
+    private final long[] cpuFields_ = new long[MAX_CPU_FIELDS];
+    private final long[] cpuFieldDeltas_ = new long[MAX_CPU_FIELDS];
+    private final Map<String,String[]> cpuMetricPaths_ByCpuName_ = new HashMap<>();
+    
+    // high-resolution sampling runs on the sampler's thread, so it has its own parser & tracker
+    private HighResolutionSamples highResolutionSamples_ = null;
+    private final ProcFileParser highResolutionParser_ = new ProcFileParser();
+    private final ProcTokenCache highResolutionTokenCache_ = new ProcTokenCache();
+    private final CounterDeltaTracker highResolutionTracker_ = new CounterDeltaTracker();
+    private final long[] highResolutionCpuFields_ = new long[MAX_CPU_FIELDS];
+    private final long[] highResolutionCpuFieldDeltas_ = new long[MAX_CPU_FIELDS];
+    private final Map<String,String> formattedCpuNames_ByCpuName_ = new HashMap<>();
     
     public CpuCollector(boolean isEnabled, long collectionInterval, String metricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles) {
         super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
+        this.procStatPath_ = super.getLinuxProcFileSystemLocation() + "/stat";
     }
     
     @Override
-    public void run() {
+    public void initializeCollector() {
         resetVariables();
+    }
+    
+    @Override
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // get the cpu usage percentages in graphite format
-            List<GraphiteMetric> graphiteMetrics = getCpuMetrics();
-
-            // output graphite metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
-
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            logger.info("Finished Linux-Cpu metric collection routine. " +
-                    "MetricsCollected=" + graphiteMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
+        // get the cpu usage percentages in graphite format
+        List<GraphiteMetric> graphiteMetrics = getCpuMetrics();
+        
+        // summarize the high-resolution samples that were taken since the previous run
+        if (highResolutionSamples_ != null) highResolutionSamples_.addGraphiteMetrics(graphiteMetrics, PERCENT_SCALE, (int) (System.currentTimeMillis() / 1000));
 
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
-        }
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
 
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+        
+        logger.info("Finished Linux-Cpu metric collection routine. " +
+                "MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
     
     private void resetVariables() {
-        previousRawProcStats_ = null;
+        cpuStatsTracker_.clear();
     }
     
+    /*
+    Each 'cpu' line of /proc/stat is compared to the same cpu's line from the previous run. ex- 'cpu0 4705 356 584 3699 23 23 0 0 0 0'
+    */
     private List<GraphiteMetric> getCpuMetrics() {
         
         List<GraphiteMetric> allGraphiteMetrics = new ArrayList<>();
 
         try {
             int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
-            String currentRawProcStats = FileIo.readFileToString(super.getLinuxProcFileSystemLocation() + "/stat");
-
-            if ((currentRawProcStats == null) || currentRawProcStats.isEmpty()) {
+            
+            ProcFileSnapshot procStat = ProcFileSystem.acquireSnapshot(procStatPath_);
+            
+            if (procStat == null) {
                 logger.warn("Unabled to read cpu stats");
-                previousRawProcStats_ = null;
-                return allGraphiteMetrics;
-            }
-            else if (previousRawProcStats_ == null) {
-                previousRawProcStats_ = currentRawProcStats;
+                cpuStatsTracker_.clear();
                 return allGraphiteMetrics;
             }
             
-            String previousRawProcStats_Local = previousRawProcStats_;
-            previousRawProcStats_ = currentRawProcStats;
-            
-            Map<String,String> rawCpuStats_ByCpu_Previous = getCpuMetrics_GetRawCpuStats_ByCpu(previousRawProcStats_Local);
-            Map<String,String> rawCpuStats_ByCpu_Current = getCpuMetrics_GetRawCpuStats_ByCpu(currentRawProcStats);
-            if (rawCpuStats_ByCpu_Previous.isEmpty() || rawCpuStats_ByCpu_Current.isEmpty()) return allGraphiteMetrics;
+            try {
+                parser_.reset(procStat);
+
+                while (parser_.hasRemaining()) {
+                    if (parser_.lineStartsWith(CPU_LINE_PREFIX) && parser_.nextToken()) {
+                        String cpuName = parser_.getToken(tokenCache_);
+                        int numFields = readCpuFields(parser_, cpuFields_);
+
+                        if (numFields >= MIN_CPU_FIELDS) {
+                            long millisecondsBetweenSamples = cpuStatsTracker_.update(cpuName, cpuFields_, numFields, procStat.getReadTimestampInMs(), cpuFieldDeltas_);
+                            
+                            if (millisecondsBetweenSamples != CounterDeltaTracker.NO_DELTA) {
+                                CpuStat_Delta cpuStat = new CpuStat_Delta(cpuName, cpuFieldDeltas_, numFields);
+                                getCpuMetrics_AddGraphiteMetricsFromCpuStatsDelta(allGraphiteMetrics, cpuName, cpuStat, currentTimestampInSeconds);
+                            }
+                        }
+                    }
 
-            Map<String,String> rawCpuStats_DeltaBetweenPreviousAndCurrent = getCpuMetrics_GetDeltaBetweenRawCpuStatsSets(rawCpuStats_ByCpu_Previous, rawCpuStats_ByCpu_Current);
-            if (rawCpuStats_DeltaBetweenPreviousAndCurrent == null) return allGraphiteMetrics;
-            
-            for (String cpuName : rawCpuStats_DeltaBetweenPreviousAndCurrent.keySet()) {
-                String rawCpuStatsDelta = rawCpuStats_DeltaBetweenPreviousAndCurrent.get(cpuName);
-                allGraphiteMetrics.addAll(getCpuMetrics_GetGraphiteMetricsFromCpuStatsDelta(rawCpuStatsDelta, currentTimestampInSeconds));
+                    parser_.nextLine();
+                } 
+                
+                // forget cpus that went offline
+                cpuStatsTracker_.removeStaleSamples(procStat.getReadTimestampInMs());
+            }
+            finally {
+                procStat.release();
             }
         }
         catch (Exception e) {
@@ -101,159 +144,105 @@ public class CpuCollector extends InternalCollectorFramework implements Runnable
         return allGraphiteMetrics;
     }
     
-    private Map<String,String> getCpuMetrics_GetRawCpuStats_ByCpu(String rawProcStats) {
+    // reads the numeric fields that are left on the parser's current line into 'cpuFields'. returns the number of fields.
+    private static int readCpuFields(ProcFileParser parser, long[] cpuFields) {
         
-        if (rawProcStats == null) {
-            return new HashMap<>();
-        }
-        
-        Map<String,String> cpuStats_ByCpuName = new HashMap<>();
+        int numFields = 0;
         
-        BufferedReader reader = null;
-
-        try {
-            reader = new BufferedReader(new StringReader(rawProcStats));
-            String currentLine = reader.readLine();
-            
-            while (currentLine != null) {
-                String trimmedCurrentLine = currentLine.trim();
-                
-                if (trimmedCurrentLine.startsWith("cpu")) {
-                    int indexOfFirstSpace = trimmedCurrentLine.indexOf(' ');
-
-                    if (indexOfFirstSpace > 0) {
-                        String cpuName = trimmedCurrentLine.substring(0, indexOfFirstSpace);
-                        cpuStats_ByCpuName.put(cpuName, trimmedCurrentLine);
-                    }
-                }
-                
-                currentLine = reader.readLine();
-            } 
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-        }
-        finally {
-            try {
-                if (reader != null) {
-                    reader.close();
-                }
-            }
-            catch (Exception e) {
-                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            }
+        while (numFields < MAX_CPU_FIELDS) {
+            long field = parser.nextLong();
+            if (field == ProcFileParser.NO_VALUE) break;
+            cpuFields[numFields++] = field;
         }
         
-        return cpuStats_ByCpuName;
+        return numFields;
     }
     
     /*
-    Returns the delta for each cpu's stats (from two different samples of /proc/stat)
-    In the event of an error and/or an abnormal data, a blank hashmap is returned
+    Enables high-resolution sampling. Each sampled metric keeps up to 'capacity' samples between runs (see HighResolutionSamples.getCapacity).
+    Must be called before the collector is scheduled.
     */
-    private Map<String,String> getCpuMetrics_GetDeltaBetweenRawCpuStatsSets(Map<String,String> rawCpuStats_Previous, Map<String,String> rawCpuStats_Current) {
+    public void enableHighResolutionSampling(int capacity, int[] statistics) {
+        highResolutionSamples_ = new HighResolutionSamples(HIGH_RESOLUTION_METRIC_NAMES, capacity, statistics);
+    }
+    
+    /*
+    Re-reads /proc/stat (bypassing the shared snapshot, which can be older than the sampling interval), & samples each cpu's usage since the previous sample.
+    */
+    @Override
+    public void sampleHighResolution() {
         
-        if ((rawCpuStats_Previous == null) || (rawCpuStats_Current == null)) {
-            return new HashMap<>();
-        }
+        if (highResolutionSamples_ == null) return;
         
-        Map<String,String> rawCpuStatsDeltas_ByCpuName = new HashMap<>();
+        ProcFileSnapshot procStat = ProcFileSystem.acquireSnapshot(procStatPath_, 0);
         
-        for (String cpuName : rawCpuStats_Current.keySet()) {
-            try {
-                String cpuStats_Previous = rawCpuStats_Previous.get(cpuName);
-                String cpuStats_Current = rawCpuStats_Current.get(cpuName);
-                if ((cpuStats_Current == null) || cpuStats_Current.isEmpty() || (cpuStats_Previous == null) || cpuStats_Previous.isEmpty()) continue;
-
-                String[] rawCpuStats_DelimtedBySpace_Previous = cpuStats_Previous.split("\\s+");
-                String[] rawCpuStats_DelimtedBySpace_Current = cpuStats_Current.split("\\s+");
-
-                if ((rawCpuStats_DelimtedBySpace_Previous == null) || (rawCpuStats_DelimtedBySpace_Current == null)) return rawCpuStatsDeltas_ByCpuName;
-                if (rawCpuStats_DelimtedBySpace_Previous.length != rawCpuStats_DelimtedBySpace_Current.length) return rawCpuStatsDeltas_ByCpuName;
-                if (rawCpuStats_DelimtedBySpace_Previous.length < 5) return rawCpuStatsDeltas_ByCpuName;
-
-                StringBuilder rawCpuStats_Delta = new StringBuilder();
-                rawCpuStats_Delta.append(cpuName).append(" ");
-
-                for (int i = 1; i < rawCpuStats_DelimtedBySpace_Current.length; i++) {
-                    try {
-                        BigDecimal previousValue = new BigDecimal(rawCpuStats_DelimtedBySpace_Previous[i]);
-                        BigDecimal currentValue = new BigDecimal(rawCpuStats_DelimtedBySpace_Current[i]);
-                        BigDecimal deltaValue = currentValue.subtract(previousValue);
-                        if (deltaValue.compareTo(BigDecimal.ZERO) == -1) return new HashMap<>();
-                        rawCpuStats_Delta.append(deltaValue.stripTrailingZeros().toPlainString()).append(" ");
-                    }
-                    catch (Exception e) {
-                        logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-                    }
-                }
-
-                rawCpuStatsDeltas_ByCpuName.put(cpuName, rawCpuStats_Delta.toString().trim());
-            }
-            catch (Exception e) {
-                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            }
+        if (procStat == null) {
+            highResolutionTracker_.clear();
+            return;
         }
         
-        return rawCpuStatsDeltas_ByCpuName;
-    }
-    
-    private List<GraphiteMetric> getCpuMetrics_GetGraphiteMetricsFromCpuStatsDelta(String rawCpuStats_Delta, int currentTimestampInSeconds) {
-        
-        if (rawCpuStats_Delta == null) {
-            return new ArrayList<>();
-        }
-
-        List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
-
         try {
-            String[] statsDelimitedBySpace = rawCpuStats_Delta.split("\\s+");
-            if ((statsDelimitedBySpace == null) || (statsDelimitedBySpace.length == 0)) return graphiteMetrics;
+            highResolutionParser_.reset(procStat);
             
-            boolean isCpuMetric = rawCpuStats_Delta.startsWith("cpu");
-            if (!isCpuMetric) return graphiteMetrics;
-                
-            // handles extra fields that may have been added after this version of statspoller was compiled
-            List<String> extraFields = new ArrayList<>();
-            if (statsDelimitedBySpace.length > 11) {
-                for (int i = 11; i < statsDelimitedBySpace.length; i++) {
-                    extraFields.add(statsDelimitedBySpace[i]);
+            while (highResolutionParser_.hasRemaining()) {
+                if (highResolutionParser_.lineStartsWith(CPU_LINE_PREFIX) && highResolutionParser_.nextToken()) {
+                    String cpuName = highResolutionParser_.getToken(highResolutionTokenCache_);
+                    int numFields = readCpuFields(highResolutionParser_, highResolutionCpuFields_);
+                    
+                    if ((numFields >= MIN_CPU_FIELDS) && (highResolutionTracker_.update(cpuName, highResolutionCpuFields_, numFields, 
+                            procStat.getReadTimestampInMs(), highResolutionCpuFieldDeltas_) != CounterDeltaTracker.NO_DELTA)) {
+                        CpuStat_Delta cpuStat = new CpuStat_Delta(cpuName, highResolutionCpuFieldDeltas_, numFields);
+                        
+                        String formattedCpuName = formattedCpuNames_ByCpuName_.get(cpuName);
+                        if (formattedCpuName == null) {
+                            formattedCpuName = cpuStat.getFormattedCpuName();
+                            formattedCpuNames_ByCpuName_.put(cpuName, formattedCpuName);
+                        }
+                        
+                        highResolutionSamples_.add(formattedCpuName, 0, cpuStat.getUsedPercent());
+                        highResolutionSamples_.add(formattedCpuName, 1, cpuStat.getIowaitPercent());
+                    }
                 }
+                
+                highResolutionParser_.nextLine();
             }
             
-            // handles old versions of linux that didn't have 11 fields for cpu stats
-            if (statsDelimitedBySpace.length < 11) {
-                String[] statsDelimitedBySpace_OldKernel = new String[11];
-                for (int i = 0; i < statsDelimitedBySpace_OldKernel.length; i++) statsDelimitedBySpace_OldKernel[i] = null;
-                for (int i = 0; i < statsDelimitedBySpace.length; i++) statsDelimitedBySpace_OldKernel[i] = statsDelimitedBySpace[i];
-                statsDelimitedBySpace = statsDelimitedBySpace_OldKernel;
-            }
-            
-            CpuStat_Delta cpuStat = new CpuStat_Delta(statsDelimitedBySpace[0], statsDelimitedBySpace[1], statsDelimitedBySpace[2], statsDelimitedBySpace[3],
-                    statsDelimitedBySpace[4], statsDelimitedBySpace[5], statsDelimitedBySpace[6], statsDelimitedBySpace[7], statsDelimitedBySpace[8],
-                    statsDelimitedBySpace[9], statsDelimitedBySpace[10], extraFields.toArray(new String[extraFields.size()]));
-
-            if (cpuStat.getFormattedCpuName() == null) return graphiteMetrics;
-            
-            String cpuName = cpuStat.getFormattedCpuName();
-            if ((cpuStat.getUserPercent() != null) && (cpuStat.getUserPercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".User-Pct", cpuStat.getUserPercent(), currentTimestampInSeconds));
-            if ((cpuStat.getNicePercent() != null) && (cpuStat.getNicePercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".Nice-Pct", cpuStat.getNicePercent(), currentTimestampInSeconds));
-            if ((cpuStat.getSystemPercent() != null) && (cpuStat.getSystemPercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".System-Pct", cpuStat.getSystemPercent(), currentTimestampInSeconds));
-            if ((cpuStat.getIdlePercent() != null) && (cpuStat.getIdlePercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".Idle-Pct", cpuStat.getIdlePercent(), currentTimestampInSeconds));
-            if ((cpuStat.getIowaitPercent() != null) && (cpuStat.getIowaitPercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".Iowait-Pct", cpuStat.getIowaitPercent(), currentTimestampInSeconds));
-            if ((cpuStat.getIrqPercent() != null) && (cpuStat.getIrqPercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".Irq-Pct", cpuStat.getIrqPercent(), currentTimestampInSeconds));
-            if ((cpuStat.getSoftIrqPercent() != null) && (cpuStat.getSoftIrqPercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".SoftIrq-Pct", cpuStat.getSoftIrqPercent(), currentTimestampInSeconds));
-            if ((cpuStat.getStealPercent() != null) && (cpuStat.getStealPercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".Steal-Pct", cpuStat.getStealPercent(), currentTimestampInSeconds));
-            if ((cpuStat.getGuestPercent() != null) && (cpuStat.getGuestPercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".Guest-Pct", cpuStat.getGuestPercent(), currentTimestampInSeconds));
-            if ((cpuStat.getGuestNicePercent() != null) && (cpuStat.getGuestNicePercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".GuestNice-Pct", cpuStat.getGuestNicePercent(), currentTimestampInSeconds));
-            if ((cpuStat.getExtraPercent() != null) && (cpuStat.getExtraPercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".Extra-Pct", cpuStat.getExtraPercent(), currentTimestampInSeconds));
-            if ((cpuStat.getUsedPercent() != null) && (cpuStat.getUsedPercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(cpuName + ".Used-Pct", cpuStat.getUsedPercent(), currentTimestampInSeconds));
+            highResolutionTracker_.removeStaleSamples(procStat.getReadTimestampInMs());
         }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        finally {
+            procStat.release();
+        }
+    }
+    
+    private void getCpuMetrics_AddGraphiteMetricsFromCpuStatsDelta(List<GraphiteMetric> graphiteMetrics, String cpuName, CpuStat_Delta cpuStat, int currentTimestampInSeconds) {
+        
+        String[] metricPaths = cpuMetricPaths_ByCpuName_.get(cpuName);
+        
+        // the metric paths are the same every run, so they're only built once per cpu
+        if (metricPaths == null) {
+            String formattedCpuName = cpuStat.getFormattedCpuName();
+            metricPaths = new String[CPU_METRIC_NAMES.length];
+            for (int i = 0; i < CPU_METRIC_NAMES.length; i++) metricPaths[i] = formattedCpuName + CPU_METRIC_NAMES[i];
+            cpuMetricPaths_ByCpuName_.put(cpuName, metricPaths);
         }
         
-        return graphiteMetrics;
+        addPercentMetric(graphiteMetrics, metricPaths[0], cpuStat.getUserPercent(), currentTimestampInSeconds);
+        addPercentMetric(graphiteMetrics, metricPaths[1], cpuStat.getNicePercent(), currentTimestampInSeconds);
+        addPercentMetric(graphiteMetrics, metricPaths[2], cpuStat.getSystemPercent(), currentTimestampInSeconds);
+        addPercentMetric(graphiteMetrics, metricPaths[3], cpuStat.getIdlePercent(), currentTimestampInSeconds);
+        addPercentMetric(graphiteMetrics, metricPaths[4], cpuStat.getIowaitPercent(), currentTimestampInSeconds);
+        addPercentMetric(graphiteMetrics, metricPaths[5], cpuStat.getIrqPercent(), currentTimestampInSeconds);
+        addPercentMetric(graphiteMetrics, metricPaths[6], cpuStat.getSoftIrqPercent(), currentTimestampInSeconds);
+        addPercentMetric(graphiteMetrics, metricPaths[7], cpuStat.getStealPercent(), currentTimestampInSeconds);
+        addPercentMetric(graphiteMetrics, metricPaths[8], cpuStat.getGuestPercent(), currentTimestampInSeconds);
+        addPercentMetric(graphiteMetrics, metricPaths[9], cpuStat.getGuestNicePercent(), currentTimestampInSeconds);
+        addPercentMetric(graphiteMetrics, metricPaths[10], cpuStat.getExtraPercent(), currentTimestampInSeconds);
+        addPercentMetric(graphiteMetrics, metricPaths[11], cpuStat.getUsedPercent(), currentTimestampInSeconds);
+    }
+    
+    private static void addPercentMetric(List<GraphiteMetric> graphiteMetrics, String metricPath, double percent, int currentTimestampInSeconds) {
+        BigDecimal metricValue = MathUtilities.getBigDecimalFromDouble(percent, PERCENT_SCALE);
+        if ((metricValue != null) && (metricValue.signum() >= 0)) graphiteMetrics.add(new GraphiteMetric(metricPath, metricValue, currentTimestampInSeconds));
     }
     
 }
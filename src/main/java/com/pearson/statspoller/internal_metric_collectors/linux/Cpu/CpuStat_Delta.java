@@ -1,334 +1,118 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.Cpu;
 
-import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.math_utils.MathUtilities;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /**
  * @author Jeffrey Schmidt
  *
- * Derives CPU % values by reading /proc/stat 
+ * Derives CPU % values by reading /proc/stat
  * /proc/stat docs: http://man7.org/linux/man-pages/man5/proc.5.html
- * 
+ *
  * This class is intended to hold the delta of the values from two reads of /proc/stat
+ * Percentages that can't be computed (ex- a field that old kernels don't have) are NaN.
  */
 public class CpuStat_Delta {
 
-    private static final Logger logger = LoggerFactory.getLogger(CpuStat_Delta.class.getName());
+    public static final int NUM_CPU_FIELDS = 10;
 
-    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
-    private static final int SCALE = 7;
-    private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
+    private static final int USER = 0;
+    private static final int NICE = 1;
+    private static final int SYSTEM = 2;
+    private static final int IDLE = 3;
+    private static final int IOWAIT = 4;
+    private static final int IRQ = 5;
+    private static final int SOFT_IRQ = 6;
+    private static final int STEAL = 7;
+    private static final int GUEST = 8;
+    private static final int GUEST_NICE = 9;
 
     private final String cpuName_;
-    private final BigDecimal rawUser_;
-    private final BigDecimal rawNice_;
-    private final BigDecimal rawSystem_;
-    private final BigDecimal rawIdle_;
-    private final BigDecimal rawIowait_;
-    private final BigDecimal rawIrq_;
-    private final BigDecimal rawSoftIrq_;
-    private final BigDecimal rawSteal_;
-    private final BigDecimal rawGuest_;
-    private final BigDecimal rawGuestNice_;
-    private final BigDecimal rawExtra_;
-
-    private final BigDecimal sumCpuStats_;
-
-    private BigDecimal userPercent_;
-    private BigDecimal nicePercent_;
-    private BigDecimal systemPercent_;
-    private BigDecimal idlePercent_;
-    private BigDecimal iowaitPercent_;
-    private BigDecimal irqPercent_;
-    private BigDecimal softIrqPercent_;
-    private BigDecimal stealPercent_;
-    private BigDecimal guestPercent_;
-    private BigDecimal guestNicePercent_;
-    private BigDecimal extraPercent_;
-    private BigDecimal usedPercent_;
-
-    public CpuStat_Delta(String cpuName,
-            String rawUser, String rawNice, String rawSystem, String rawIdle,
-            String rawIowait, String rawIrq, String rawSoftIrq, String rawSteal, String rawGuest, String rawGuestNice,
-            String... rawExtraFields) {
+    private final long[] rawFields_;
+    private final int numRawFields_;
+    private final long rawExtra_;
+    private final long sumCpuStats_;
+
+    /*
+    'rawFields' holds the deltas of the numeric fields of a /proc/stat cpu line, in order (user, nice, system, idle, etc).
+    Old kernels have fewer than 10 fields. Fields after the 10th are summed into 'extra'.
+    The values are read when this object is constructed, so 'rawFields' can be re-used afterwards.
+    */
+    public CpuStat_Delta(String cpuName, long[] rawFields, int numRawFields) {
 
         this.cpuName_ = cpuName;
+        this.numRawFields_ = Math.min(numRawFields, NUM_CPU_FIELDS);
+        this.rawFields_ = new long[NUM_CPU_FIELDS];
+        System.arraycopy(rawFields, 0, this.rawFields_, 0, this.numRawFields_);
 
-        this.rawUser_ = MathUtilities.safeGetBigDecimal(rawUser);
-        this.rawNice_ = MathUtilities.safeGetBigDecimal(rawNice);
-        this.rawSystem_ = MathUtilities.safeGetBigDecimal(rawSystem);
-        this.rawIdle_ = MathUtilities.safeGetBigDecimal(rawIdle);
-        this.rawIowait_ = MathUtilities.safeGetBigDecimal(rawIowait);
-        this.rawIrq_ = MathUtilities.safeGetBigDecimal(rawIrq);
-        this.rawSoftIrq_ = MathUtilities.safeGetBigDecimal(rawSoftIrq);
-        this.rawSteal_ = MathUtilities.safeGetBigDecimal(rawSteal);
-        this.rawGuest_ = MathUtilities.safeGetBigDecimal(rawGuest);
-        this.rawGuestNice_ = MathUtilities.safeGetBigDecimal(rawGuestNice);
-
-        if (rawExtraFields != null) {
-            BigDecimal rawExtra = BigDecimal.ZERO;
+        long rawExtra = 0;
+        for (int i = NUM_CPU_FIELDS; i < numRawFields; i++) rawExtra += rawFields[i];
+        this.rawExtra_ = rawExtra;
 
-            for (String rawExtraField : rawExtraFields) {
-                if (rawExtraField != null) {
-                    BigDecimal rawExtraField_BigDecimal = MathUtilities.safeGetBigDecimal(rawExtraField);
-                    if (rawExtraField_BigDecimal != null) {
-                        rawExtra = rawExtra.add(rawExtraField_BigDecimal);
-                    }
-                }
-            }
-
-            rawExtra_ = rawExtra;
-        }
-        else {
-            rawExtra_ = null;
-        }
-
-        sumCpuStats_ = sumCpuStats();
+        long sumCpuStats = rawExtra;
+        for (int i = 0; i < this.numRawFields_; i++) sumCpuStats += rawFields[i];
+        this.sumCpuStats_ = sumCpuStats;
     }
 
-    private BigDecimal sumCpuStats() {
-
-        BigDecimal sumCpuStats = new BigDecimal(0);
-
-        if (rawUser_ != null) sumCpuStats = sumCpuStats.add(rawUser_);
-        if (rawNice_ != null) sumCpuStats = sumCpuStats.add(rawNice_);
-        if (rawSystem_ != null) sumCpuStats = sumCpuStats.add(rawSystem_);
-        if (rawIdle_ != null) sumCpuStats = sumCpuStats.add(rawIdle_);
-        if (rawIowait_ != null) sumCpuStats = sumCpuStats.add(rawIowait_);
-        if (rawIrq_ != null) sumCpuStats = sumCpuStats.add(rawIrq_);
-        if (rawSoftIrq_ != null) sumCpuStats = sumCpuStats.add(rawSoftIrq_);
-        if (rawSteal_ != null) sumCpuStats = sumCpuStats.add(rawSteal_);
-        if (rawGuest_ != null) sumCpuStats = sumCpuStats.add(rawGuest_);
-        if (rawGuestNice_ != null) sumCpuStats = sumCpuStats.add(rawGuestNice_);
-        if (rawExtra_ != null) sumCpuStats = sumCpuStats.add(rawExtra_);
-
-        return sumCpuStats;
+    private double getPercent(int field) {
+        if ((field >= numRawFields_) || (sumCpuStats_ <= 0)) return Double.NaN;
+        return (rawFields_[field] * 100.0) / sumCpuStats_;
     }
 
-    public BigDecimal getUserPercent() {
-        
-        if (userPercent_ != null) return userPercent_;
-        if ((rawUser_ == null) || (sumCpuStats_ == null)) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            userPercent_ = rawUser_.divide(sumCpuStats_, SCALE, ROUNDING_MODE).multiply(ONE_HUNDRED);
-            return userPercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getUserPercent() {
+        return getPercent(USER);
     }
 
-    public BigDecimal getNicePercent() {
-
-        if (nicePercent_ != null) return nicePercent_;
-        if ((rawNice_ == null) || (sumCpuStats_ == null)) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            nicePercent_ = rawNice_.divide(sumCpuStats_, SCALE, ROUNDING_MODE).multiply(ONE_HUNDRED);
-            return nicePercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getNicePercent() {
+        return getPercent(NICE);
     }
 
-    public BigDecimal getSystemPercent() {
-        
-        if (systemPercent_ != null) return systemPercent_;
-        if ((rawSystem_ == null) || (sumCpuStats_ == null)) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            systemPercent_ = rawSystem_.divide(sumCpuStats_, SCALE, ROUNDING_MODE).multiply(ONE_HUNDRED);
-            return systemPercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getSystemPercent() {
+        return getPercent(SYSTEM);
     }
 
-    public BigDecimal getIdlePercent() {
-
-        if (idlePercent_ != null) return idlePercent_;
-        if ((rawIdle_ == null) || (sumCpuStats_ == null)) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            idlePercent_ = rawIdle_.divide(sumCpuStats_, SCALE, ROUNDING_MODE).multiply(ONE_HUNDRED);
-            return idlePercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getIdlePercent() {
+        return getPercent(IDLE);
     }
 
-    public BigDecimal getIowaitPercent() {
-
-        if (iowaitPercent_ != null) return iowaitPercent_;
-        if ((rawIowait_ == null) || (sumCpuStats_ == null)) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            iowaitPercent_ = rawIowait_.divide(sumCpuStats_, SCALE, ROUNDING_MODE).multiply(ONE_HUNDRED);
-            return iowaitPercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getIowaitPercent() {
+        return getPercent(IOWAIT);
     }
 
-    public BigDecimal getIrqPercent() {
-
-        if (irqPercent_ != null) return irqPercent_;
-        if ((rawIrq_ == null) || (sumCpuStats_ == null)) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            irqPercent_ = rawIrq_.divide(sumCpuStats_, SCALE, ROUNDING_MODE).multiply(ONE_HUNDRED);
-            return irqPercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getIrqPercent() {
+        return getPercent(IRQ);
     }
 
-    public BigDecimal getSoftIrqPercent() {
-
-        if (softIrqPercent_ != null) return softIrqPercent_;
-        if ((rawSoftIrq_ == null) || (sumCpuStats_ == null)) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            softIrqPercent_ = rawSoftIrq_.divide(sumCpuStats_, SCALE, ROUNDING_MODE).multiply(ONE_HUNDRED);
-            return softIrqPercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getSoftIrqPercent() {
+        return getPercent(SOFT_IRQ);
     }
 
-    public BigDecimal getStealPercent() {
-
-        if (stealPercent_ != null) return stealPercent_;
-        if ((rawSteal_ == null) || (sumCpuStats_ == null)) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            stealPercent_ = rawSteal_.divide(sumCpuStats_, SCALE, ROUNDING_MODE).multiply(ONE_HUNDRED);
-            return stealPercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getStealPercent() {
+        return getPercent(STEAL);
     }
 
-    public BigDecimal getGuestPercent() {
-        
-        if (guestPercent_ != null) return guestPercent_;
-        if ((rawGuest_ == null) || (sumCpuStats_ == null)) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            guestPercent_ = rawGuest_.divide(sumCpuStats_, SCALE, ROUNDING_MODE).multiply(ONE_HUNDRED);
-            return guestPercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getGuestPercent() {
+        return getPercent(GUEST);
     }
 
-    public BigDecimal getGuestNicePercent() {
-
-        if (guestNicePercent_ != null) return guestNicePercent_;
-        if ((rawGuestNice_ == null) || (sumCpuStats_ == null)) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            guestNicePercent_ = rawGuestNice_.divide(sumCpuStats_, SCALE, ROUNDING_MODE).multiply(ONE_HUNDRED);
-            return guestNicePercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getGuestNicePercent() {
+        return getPercent(GUEST_NICE);
     }
 
-    public BigDecimal getExtraPercent() {
-
-        if (extraPercent_ != null) return extraPercent_;
-        if ((rawExtra_ == null) || (sumCpuStats_ == null)) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            extraPercent_ = rawExtra_.divide(sumCpuStats_, SCALE, ROUNDING_MODE).multiply(ONE_HUNDRED);
-            return extraPercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getExtraPercent() {
+        if (sumCpuStats_ <= 0) return Double.NaN;
+        return (rawExtra_ * 100.0) / sumCpuStats_;
     }
 
-    public BigDecimal getUsedPercent() {
-
-        if (usedPercent_ != null) return usedPercent_;
-        if (getIdlePercent() == null) return null;
-
-        boolean isSumCpuStatsEqualToZero = MathUtilities.areBigDecimalsNumericallyEqual(sumCpuStats_, BigDecimal.ZERO);
-        if (isSumCpuStatsEqualToZero) return null;
-
-        try {
-            usedPercent_ = ONE_HUNDRED.subtract(getIdlePercent());
-            return usedPercent_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getUsedPercent() {
+        return 100.0 - getIdlePercent();
     }
 
     public String getFormattedCpuName() {
-        if (cpuName_ == null) return null;
-        if (cpuName_.trim().equals("cpu")) return "CPU-All";
-        else return cpuName_.trim().replace("cpu", "CPU-");
+        return getFormattedCpuName(cpuName_);
+    }
+
+    public static String getFormattedCpuName(String cpuName) {
+        if (cpuName == null) return null;
+        if (cpuName.trim().equals("cpu")) return "CPU-All";
+        else return cpuName.trim().replace("cpu", "CPU-");
     }
 
 }
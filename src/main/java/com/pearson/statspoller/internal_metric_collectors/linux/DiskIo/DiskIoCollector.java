@@ -1,17 +1,25 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.DiskIo;
 
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.internal_metric_collectors.linux.HighResolution.HighResolutionSampleable;
+import com.pearson.statspoller.internal_metric_collectors.linux.HighResolution.HighResolutionSamples;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileParser;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSnapshot;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSystem;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcTokenCache;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
 import com.pearson.statspoller.utilities.file_utils.FileIo;
-import java.io.BufferedReader;
-import java.io.StringReader;
+import com.pearson.statspoller.utilities.math_utils.CounterDeltaTracker;
+import com.pearson.statspoller.utilities.math_utils.MathUtilities;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,47 +28,77 @@ import org.slf4j.LoggerFactory;
  * 
  * Collects Disk IO metrics -- similar to the metrics collected by iostat
  * Based on raw data from /sys/block/(deviceName)/stat or /proc/diskstats
+ * If high-resolution sampling is enabled, each device's read & write throughput & queue length are also sampled between runs (from /proc/diskstats, 
+ * for the devices that the previous run found), & summarized on each run (see HighResolutionSamples).
  */
-public class DiskIoCollector extends InternalCollectorFramework implements Runnable {
+public class DiskIoCollector extends InternalCollectorFramework implements HighResolutionSampleable {
 
     private static final Logger logger = LoggerFactory.getLogger(DiskIoCollector.class.getName());
     
-    private static Map<String,String> previousRawDiskStats_ = null;
-    private static long previousRawDiskStats_ReadTimestamp_ = -1;
+    private static final int MAX_DISK_STAT_FIELDS = 32;
+    private static final int SCALE = 7;
+    
+    private static final String[] DISK_METRIC_NAMES = {".Read-Requests|Second", ".Read-Bytes|Second", ".Read-Megabytes|Second", ".Read-AvgRequestTime|Millisecond",
+        ".Write-Requests|Second", ".Write-Bytes|Second", ".Write-Megabytes|Second", ".Write-AvgRequestTime|Millisecond", 
+        ".AverageRequestTime|Millisecond", ".AverageQueueLength"};
+    
+    private static final String[] HIGH_RESOLUTION_METRIC_NAMES = {".Read-Bytes|Second", ".Write-Bytes|Second", ".AverageQueueLength"};
+    
+    private final String sysBlockPath_;
+    private final String procDiskstatsPath_;
+    private final ProcFileParser parser_ = new ProcFileParser();
+    private final ProcTokenCache tokenCache_ = new ProcTokenCache();
+    // the time fields of /proc/diskstats are 32-bit on older kernels (even 64-bit ones)
+    private final CounterDeltaTracker diskStatsTracker_ = new CounterDeltaTracker(true);
+    private final long[] diskStatFields_ = new long[MAX_DISK_STAT_FIELDS];
+    private final long[] diskStatCounters_ = new long[DiskIoStat_Delta.NUM_COUNTERS];
+    private final long[] diskStatCounterDeltas_ = new long[DiskIoStat_Delta.NUM_COUNTERS];
+    private final Map<String,String[]> diskMetricPaths_ByDeviceName_ = new HashMap<>();
+    private final Set<String> currentDeviceNames_ = new HashSet<>();
+    
+    // high-resolution sampling runs on the sampler's thread, so it has its own parser & tracker
+    private HighResolutionSamples highResolutionSamples_ = null;
+    private volatile Set<String> highResolutionDeviceNames_ = Collections.emptySet();
+    private final ProcFileParser highResolutionParser_ = new ProcFileParser();
+    private final ProcTokenCache highResolutionTokenCache_ = new ProcTokenCache();
+    private final CounterDeltaTracker highResolutionTracker_ = new CounterDeltaTracker(true);
+    private final long[] highResolutionFields_ = new long[MAX_DISK_STAT_FIELDS];
+    private final long[] highResolutionCounters_ = new long[DiskIoStat_Delta.NUM_COUNTERS];
+    private final long[] highResolutionCounterDeltas_ = new long[DiskIoStat_Delta.NUM_COUNTERS];
      
     public DiskIoCollector(boolean isEnabled, long collectionInterval, String metricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles) {
         super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
+        this.sysBlockPath_ = super.getLinuxSysFileSystemLocation() + "/block";
+        this.procDiskstatsPath_ = super.getLinuxProcFileSystemLocation() + "/diskstats";
     }
     
     @Override
-    public void run() {
+    public void initializeCollector() {
         resetVariables();
+    }
+    
+    @Override
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // get the io usage stats in graphite format
-            List<GraphiteMetric> graphiteMetrics = getDiskMetrics();
-
-            // output graphite metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
-
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            logger.info("Finished Linux-DiskIO metric collection routine. " +
-                    "MetricsCollected=" + graphiteMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
+        // get the io usage stats in graphite format
+        List<GraphiteMetric> graphiteMetrics = getDiskMetrics();
+        
+        // summarize the high-resolution samples that were taken since the previous run
+        if (highResolutionSamples_ != null) highResolutionSamples_.addGraphiteMetrics(graphiteMetrics, SCALE, (int) (System.currentTimeMillis() / 1000));
 
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
-        }
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
 
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+        
+        logger.info("Finished Linux-DiskIO metric collection routine. " +
+                "MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
     
     private void resetVariables() {
-        previousRawDiskStats_ = null;
-        previousRawDiskStats_ReadTimestamp_ = -1;
+        diskStatsTracker_.clear();
     }
     
     private List<GraphiteMetric> getDiskMetrics() {
@@ -70,38 +108,22 @@ public class DiskIoCollector extends InternalCollectorFramework implements Runna
         try {
             long currentTimestampInMilliseconds = System.currentTimeMillis();
             int currentTimestampInSeconds = (int) (currentTimestampInMilliseconds / 1000);
+            currentDeviceNames_.clear();
             
-            Map<String,String> currentRawDiskStats = getDiskMetrics_GetRawDiskStats_ByDeviceName_FromSys();
-            if ((currentRawDiskStats == null) || currentRawDiskStats.isEmpty()) currentRawDiskStats = getDiskMetrics_GetRawDiskStats_ByDeviceName_FromProc();
+            int numDevices = getDiskMetrics_FromSys(allGraphiteMetrics, currentTimestampInSeconds);
+            if (numDevices == 0) numDevices = getDiskMetrics_FromProc(allGraphiteMetrics, currentTimestampInSeconds);
             
-            if ((currentRawDiskStats == null) || currentRawDiskStats.keySet().isEmpty()) {
+            if (numDevices == 0) {
                 logger.warn("Unabled to read disk io stats");
-                previousRawDiskStats_ReadTimestamp_ = -1;
-                previousRawDiskStats_ = null;
+                diskStatsTracker_.clear();
                 return allGraphiteMetrics;
             }
-            else if (previousRawDiskStats_ == null) {
-                previousRawDiskStats_ReadTimestamp_ = currentTimestampInMilliseconds;
-                previousRawDiskStats_ = currentRawDiskStats;
-                return allGraphiteMetrics;
-            }
-
-            Map<String,String> previousRawDiskStats_Local = previousRawDiskStats_;
-            long previousRawDiskStats_ReadTimestamp_Local = previousRawDiskStats_ReadTimestamp_;
-            previousRawDiskStats_ = currentRawDiskStats;
-            previousRawDiskStats_ReadTimestamp_ = currentTimestampInMilliseconds;
-
-            if ((previousRawDiskStats_ReadTimestamp_Local <= 0) || (currentTimestampInMilliseconds <= 0)) return allGraphiteMetrics;
-            if ((previousRawDiskStats_Local == null) || (currentRawDiskStats == null)) return allGraphiteMetrics;
-            if (previousRawDiskStats_Local.isEmpty() || currentRawDiskStats.isEmpty()) return allGraphiteMetrics;
             
-            Map<String,String> rawDiskStats_DeltaBetweenPreviousAndCurrent = getDiskMetrics_GetDeltaBetweenRawDiskStatsSets(previousRawDiskStats_Local, currentRawDiskStats);
-            long millisecondsBetweenPreviousAndCurrentDiskStats = currentTimestampInMilliseconds - previousRawDiskStats_ReadTimestamp_Local;
+            // forget devices that were removed. a shared snapshot can be a little older than this run.
+            diskStatsTracker_.removeStaleSamples(currentTimestampInMilliseconds - ProcFileSystem.DEFAULT_MAX_SNAPSHOT_AGE_IN_MS);
             
-            for (String deviceName : rawDiskStats_DeltaBetweenPreviousAndCurrent.keySet()) {
-                String rawDiskStatsDelta = rawDiskStats_DeltaBetweenPreviousAndCurrent.get(deviceName);
-                allGraphiteMetrics.addAll(getDiskMetrics_GetGraphiteMetricsFromDiskStatsDelta(rawDiskStatsDelta, millisecondsBetweenPreviousAndCurrentDiskStats, currentTimestampInSeconds));
-            }
+            // the devices to sample until the next run
+            if (highResolutionSamples_ != null) highResolutionDeviceNames_ = new HashSet<>(currentDeviceNames_);
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
@@ -110,177 +132,211 @@ public class DiskIoCollector extends InternalCollectorFramework implements Runna
         return allGraphiteMetrics;
     }
     
-    private Map<String,String> getDiskMetrics_GetRawDiskStats_ByDeviceName_FromSys() {
+    /*
+    Reads /sys/block/(deviceName)/stat for every device. Returns the number of (active) devices that were read.
+    */
+    private int getDiskMetrics_FromSys(List<GraphiteMetric> graphiteMetrics, int currentTimestampInSeconds) {
  
-        Map<String,String> stats_ByDeviceName = new HashMap<>();
+        int numDevices = 0;
         
         try {   
-            List<String> devices = FileIo.getListOfDirectoryNamesInADirectory(super.getLinuxSysFileSystemLocation() + "/block");
+            List<String> devices = FileIo.getListOfDirectoryNamesInADirectory(sysBlockPath_);
             
             for (String deviceName : devices) {
-                String deviceStatFilePath = super.getLinuxSysFileSystemLocation() + "/block/" + deviceName + "/stat";
-                String deviceStat = FileIo.readFileToString(deviceStatFilePath);
+                String deviceStatFilePath = sysBlockPath_ + "/" + deviceName + "/stat";
+                ProcFileSnapshot deviceStat = ProcFileSystem.acquireSnapshot(deviceStatFilePath);
                 
-                if ((deviceStat == null) || deviceStat.isEmpty()) {
+                if (deviceStat == null) {
                     logger.debug(deviceStatFilePath + " cannot be null or empty");
                     continue;
                 }
                 
-                deviceStat = deviceStat.trim();
-                String[] deviceStatSplitFields = deviceStat.split("\\s+");
+                int numFields;
+                long readTimestampInMs = deviceStat.getReadTimestampInMs();
+                
+                try {
+                    numFields = readDiskStatFields(parser_.reset(deviceStat), diskStatFields_);
+                }
+                finally {
+                    deviceStat.release();
+                }
                 
-                if (deviceStatSplitFields.length < 11) {
+                if (numFields == 0) {
+                    logger.debug(deviceStatFilePath + " cannot be null or empty");
+                    continue;
+                }
+                else if (numFields < DiskIoStat_Delta.NUM_FIELDS) {
                     logger.error("Unexpected number of fields in " + deviceStatFilePath + ". Expected 11 or more fields.");
                     break;
                 }
                 
-                int countOfZeros = 0;
-                for (String deviceStatSplitField : deviceStatSplitFields) if (deviceStatSplitField.equals("0")) countOfZeros++;
-                boolean isAllZeros = (countOfZeros == deviceStatSplitFields.length);
-                
-                deviceStat = "0 0 " + deviceName + " " + deviceStat; // makes the format compatible with /proc/diskstats from a field-count perspective
-                
-                if (!isAllZeros && !deviceName.isEmpty()) stats_ByDeviceName.put(deviceName, deviceStat);
+                if (!isAllZeros(diskStatFields_, numFields) && !deviceName.isEmpty()) {
+                    numDevices++;
+                    addDiskMetrics(graphiteMetrics, deviceName, readTimestampInMs, currentTimestampInSeconds);
+                }
             }
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
         }
         
-        return stats_ByDeviceName;
+        return numDevices;
     }
     
-    private Map<String,String> getDiskMetrics_GetRawDiskStats_ByDeviceName_FromProc() {
+    /*
+    Each line of /proc/diskstats is 'major minor deviceName' followed by the same fields as /sys/block/(deviceName)/stat
+    Returns the number of (active) devices that were read.
+    */
+    private int getDiskMetrics_FromProc(List<GraphiteMetric> graphiteMetrics, int currentTimestampInSeconds) {
         
-        Map<String,String> diskStats_ByDeviceName = new HashMap<>();
-        BufferedReader reader = null;
+        int numDevices = 0;
 
         try {
-            String rawProcDiskStats = FileIo.readFileToString(super.getLinuxProcFileSystemLocation() + "/diskstats");
+            ProcFileSnapshot procDiskStats = ProcFileSystem.acquireSnapshot(procDiskstatsPath_);
+            if (procDiskStats == null) return numDevices;
             
-            reader = new BufferedReader(new StringReader(rawProcDiskStats));
-            String currentLine = reader.readLine();
-            
-            while (currentLine != null) {
-                String trimmedCurrentLine = currentLine.trim();                
-                String[] deviceStatSplitFields = trimmedCurrentLine.split("\\s+");
-                
-                if (deviceStatSplitFields.length < 14) {
-                    logger.error("Unexpected number of fields in " + super.getLinuxProcFileSystemLocation() + "/diskstat. Expected 14 or more fields.");
-                    break;
-                }
-                
-                String deviceName = deviceStatSplitFields[2].trim();
+            try {
+                parser_.reset(procDiskStats);
 
-                int countOfZeros = 0;
-                for (int i = 3; i < deviceStatSplitFields.length; i++) if (deviceStatSplitFields[i].equals("0")) countOfZeros++;
-                boolean isAllZeros = (countOfZeros == (deviceStatSplitFields.length - 3));
-                
-                if (!isAllZeros && !deviceName.isEmpty()) diskStats_ByDeviceName.put(deviceName, trimmedCurrentLine);
-                
-                currentLine = reader.readLine();
-            } 
+                while (parser_.hasRemaining()) {
+                    boolean isValidLine = (parser_.nextLong() != ProcFileParser.NO_VALUE) && (parser_.nextLong() != ProcFileParser.NO_VALUE) && parser_.nextToken();
+                    String deviceName = isValidLine ? parser_.getToken(tokenCache_) : null;
+                    int numFields = isValidLine ? readDiskStatFields(parser_, diskStatFields_) : 0;
+
+                    if (numFields < DiskIoStat_Delta.NUM_FIELDS) {
+                        logger.error("Unexpected number of fields in " + procDiskstatsPath_ + ". Expected 14 or more fields.");
+                        break;
+                    }
+
+                    if (!isAllZeros(diskStatFields_, numFields) && !deviceName.isEmpty()) {
+                        numDevices++;
+                        addDiskMetrics(graphiteMetrics, deviceName, procDiskStats.getReadTimestampInMs(), currentTimestampInSeconds);
+                    }
+
+                    parser_.nextLine();
+                } 
+            }
+            finally {
+                procDiskStats.release();
+            }
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
         }
-        finally {
-            try {
-                if (reader != null) {
-                    reader.close();
-                }
-            }
-            catch (Exception e) {
-                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            }
-        }
         
-        return diskStats_ByDeviceName;
+        return numDevices;
     }
     
-    private Map<String,String> getDiskMetrics_GetDeltaBetweenRawDiskStatsSets(Map<String,String> rawDiskStats_Previous, Map<String,String> rawDiskStats_Current) {
+    // reads the numeric fields that are left on the parser's current line into 'diskStatFields'. returns the number of fields.
+    private static int readDiskStatFields(ProcFileParser parser, long[] diskStatFields) {
+        
+        int numFields = 0;
         
-        if ((rawDiskStats_Previous == null) || (rawDiskStats_Current == null)) {
-            return new HashMap<>();
+        while (numFields < MAX_DISK_STAT_FIELDS) {
+            long field = parser.nextLong();
+            if (field == ProcFileParser.NO_VALUE) break;
+            diskStatFields[numFields++] = field;
         }
         
-        Map<String,String> rawDiskStatsDeltas_ByDeviceName = new HashMap<>();
+        return numFields;
+    }
+    
+    private static boolean isAllZeros(long[] fields, int numFields) {
+        for (int i = 0; i < numFields; i++) if (fields[i] != 0) return false;
+        return true;
+    }
+    
+    /*
+    Compares the device's fields (in diskStatFields_) to the device's fields from the previous run, & outputs the rates
+    */
+    private void addDiskMetrics(List<GraphiteMetric> graphiteMetrics, String deviceName, long readTimestampInMs, int currentTimestampInSeconds) {
         
-        for (String deviceName : rawDiskStats_Current.keySet()) {
-            try {
-                String diskStats_Previous = rawDiskStats_Previous.get(deviceName);
-                String diskStats_Current = rawDiskStats_Current.get(deviceName);
-                if ((diskStats_Current == null) || diskStats_Current.isEmpty() || (diskStats_Previous == null) || diskStats_Previous.isEmpty()) continue;
-
-                String[] rawDiskStats_DelimtedBySpace_Previous = diskStats_Previous.split("\\s+");
-                String[] rawDiskStats_DelimtedBySpace_Current = diskStats_Current.split("\\s+");
-
-                if ((rawDiskStats_DelimtedBySpace_Previous == null) || (rawDiskStats_DelimtedBySpace_Current == null)) return rawDiskStatsDeltas_ByDeviceName;
-                if (rawDiskStats_DelimtedBySpace_Previous.length != rawDiskStats_DelimtedBySpace_Current.length) return rawDiskStatsDeltas_ByDeviceName;
-                if (rawDiskStats_DelimtedBySpace_Previous.length < 14) return rawDiskStatsDeltas_ByDeviceName;
-
-                StringBuilder rawDiskStats_Delta = new StringBuilder();
-                
-                for (int i = 0; i < 3; i++) rawDiskStats_Delta.append(rawDiskStats_DelimtedBySpace_Current[i]).append(" ");
-
-                for (int i = 3; i < rawDiskStats_DelimtedBySpace_Current.length; i++) {
-                    try {
-                        BigDecimal previousValue = new BigDecimal(rawDiskStats_DelimtedBySpace_Previous[i]);
-                        BigDecimal currentValue = new BigDecimal(rawDiskStats_DelimtedBySpace_Current[i]);
-                        BigDecimal deltaValue = currentValue.subtract(previousValue);
-                        rawDiskStats_Delta.append(deltaValue.stripTrailingZeros().toPlainString()).append(" ");
-                    }
-                    catch (Exception e) {
-                        logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-                    }
-                }
-
-                rawDiskStatsDeltas_ByDeviceName.put(deviceName, rawDiskStats_Delta.toString().trim());
-            }
-            catch (Exception e) {
-                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            }
+        currentDeviceNames_.add(deviceName);
+        
+        DiskIoStat_Delta.getCountersFromFields(diskStatFields_, diskStatCounters_);
+        long millisecondsBetweenSamples = diskStatsTracker_.update(deviceName, diskStatCounters_, DiskIoStat_Delta.NUM_COUNTERS, readTimestampInMs, diskStatCounterDeltas_);
+        if (millisecondsBetweenSamples == CounterDeltaTracker.NO_DELTA) return;
+        
+        DiskIoStat_Delta diskStat = new DiskIoStat_Delta(millisecondsBetweenSamples, deviceName, diskStatCounterDeltas_);
+        
+        String[] metricPaths = diskMetricPaths_ByDeviceName_.get(deviceName);
+        
+        if (metricPaths == null) {
+            metricPaths = new String[DISK_METRIC_NAMES.length];
+            for (int i = 0; i < DISK_METRIC_NAMES.length; i++) metricPaths[i] = deviceName + DISK_METRIC_NAMES[i];
+            diskMetricPaths_ByDeviceName_.put(deviceName, metricPaths);
         }
         
-        return rawDiskStatsDeltas_ByDeviceName;
+        addMetric(graphiteMetrics, metricPaths[0], diskStat.getReadRequestsPerSecond(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[1], diskStat.getBytesReadPerSecond(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[2], diskStat.getMegabytesReadPerSecond(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[3], diskStat.getReadRequestAverageTimeInMilliseconds(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[4], diskStat.getWriteRequestsPerSecond(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[5], diskStat.getBytesWrittenPerSecond(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[6], diskStat.getMegabytesWrittenPerSecond(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[7], diskStat.getWriteRequestAverageTimeInMilliseconds(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[8], diskStat.getAverageRequestTimeInMilliseconds(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[9], diskStat.getAverageQueueLength(), currentTimestampInSeconds);
+    }
+    
+    /*
+    Enables high-resolution sampling. Each sampled metric keeps up to 'capacity' samples between runs (see HighResolutionSamples.getCapacity).
+    Must be called before the collector is scheduled.
+    */
+    public void enableHighResolutionSampling(int capacity, int[] statistics) {
+        highResolutionSamples_ = new HighResolutionSamples(HIGH_RESOLUTION_METRIC_NAMES, capacity, statistics);
     }
     
-    private List<GraphiteMetric> getDiskMetrics_GetGraphiteMetricsFromDiskStatsDelta(String rawDiskStats_Delta, 
-            long millisecondsBetweenPreviousAndCurrentDiskstats, int currentTimestampInSeconds) {
+    /*
+    Samples /proc/diskstats (a single read, rather than a file per device), bypassing the shared snapshot, which can be older than the sampling interval.
+    Only the devices that the collector's previous run output are sampled, so the sampled devices always match the collector's own metrics.
+    */
+    @Override
+    public void sampleHighResolution() {
+        
+        Set<String> deviceNames = highResolutionDeviceNames_;
+        if ((highResolutionSamples_ == null) || deviceNames.isEmpty()) return;
         
-        if (rawDiskStats_Delta == null) {
-            return new ArrayList<>();
+        ProcFileSnapshot procDiskStats = ProcFileSystem.acquireSnapshot(procDiskstatsPath_, 0);
+        
+        if (procDiskStats == null) {
+            highResolutionTracker_.clear();
+            return;
         }
-
-        List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
-
+        
         try {
-            String[] statsDelimitedBySpace = rawDiskStats_Delta.split("\\s+");
-            if ((statsDelimitedBySpace == null) || (statsDelimitedBySpace.length == 0)) return graphiteMetrics;
-            
-            DiskIoStat_Delta diskStat = new DiskIoStat_Delta(millisecondsBetweenPreviousAndCurrentDiskstats, statsDelimitedBySpace[2], statsDelimitedBySpace[3],
-                    statsDelimitedBySpace[4], statsDelimitedBySpace[5], statsDelimitedBySpace[6], statsDelimitedBySpace[7], statsDelimitedBySpace[8],
-                    statsDelimitedBySpace[9], statsDelimitedBySpace[10], statsDelimitedBySpace[11], statsDelimitedBySpace[12], statsDelimitedBySpace[13]);
+            highResolutionParser_.reset(procDiskStats);
+            long readTimestampInMs = procDiskStats.getReadTimestampInMs();
 
-            if (diskStat.getDeviceName() == null) return graphiteMetrics;
+            while (highResolutionParser_.hasRemaining()) {
+                boolean isValidLine = (highResolutionParser_.nextLong() != ProcFileParser.NO_VALUE) && (highResolutionParser_.nextLong() != ProcFileParser.NO_VALUE) && highResolutionParser_.nextToken();
+                String deviceName = isValidLine ? highResolutionParser_.getToken(highResolutionTokenCache_) : null;
+                
+                if ((deviceName != null) && deviceNames.contains(deviceName) && (readDiskStatFields(highResolutionParser_, highResolutionFields_) >= DiskIoStat_Delta.NUM_FIELDS)) {
+                    DiskIoStat_Delta.getCountersFromFields(highResolutionFields_, highResolutionCounters_);
+                    long millisecondsBetweenSamples = highResolutionTracker_.update(deviceName, highResolutionCounters_, DiskIoStat_Delta.NUM_COUNTERS, readTimestampInMs, highResolutionCounterDeltas_);
+                    
+                    if ((millisecondsBetweenSamples != CounterDeltaTracker.NO_DELTA) && (millisecondsBetweenSamples > 0)) {
+                        DiskIoStat_Delta diskStat = new DiskIoStat_Delta(millisecondsBetweenSamples, deviceName, highResolutionCounterDeltas_);
+                        highResolutionSamples_.add(deviceName, 0, diskStat.getBytesReadPerSecond());
+                        highResolutionSamples_.add(deviceName, 1, diskStat.getBytesWrittenPerSecond());
+                        highResolutionSamples_.add(deviceName, 2, diskStat.getAverageQueueLength());
+                    }
+                }
+
+                highResolutionParser_.nextLine();
+            }
             
-            String deviceName = diskStat.getDeviceName();
-            if ((diskStat.getReadRequestsPerSecond() != null) && (diskStat.getReadRequestsPerSecond().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(deviceName + ".Read-Requests|Second", diskStat.getReadRequestsPerSecond(), currentTimestampInSeconds));
-            if ((diskStat.getBytesReadPerSecond() != null) && (diskStat.getBytesReadPerSecond().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(deviceName + ".Read-Bytes|Second", diskStat.getBytesReadPerSecond(), currentTimestampInSeconds));
-            if ((diskStat.getMegabytesReadPerSecond() != null) && (diskStat.getMegabytesReadPerSecond().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(deviceName + ".Read-Megabytes|Second", diskStat.getMegabytesReadPerSecond(), currentTimestampInSeconds));
-            if ((diskStat.getReadRequestAverageTimeInMilliseconds() != null) && (diskStat.getReadRequestAverageTimeInMilliseconds().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(deviceName + ".Read-AvgRequestTime|Millisecond", diskStat.getReadRequestAverageTimeInMilliseconds(), currentTimestampInSeconds));
-            if ((diskStat.getWriteRequestsPerSecond() != null) && (diskStat.getWriteRequestsPerSecond().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(deviceName + ".Write-Requests|Second", diskStat.getWriteRequestsPerSecond(), currentTimestampInSeconds));
-            if ((diskStat.getBytesWrittenPerSecond() != null) && (diskStat.getBytesWrittenPerSecond().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(deviceName + ".Write-Bytes|Second", diskStat.getBytesWrittenPerSecond(), currentTimestampInSeconds));
-            if ((diskStat.getMegabytesWrittenPerSecond() != null) && (diskStat.getMegabytesWrittenPerSecond().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(deviceName + ".Write-Megabytes|Second", diskStat.getMegabytesWrittenPerSecond(), currentTimestampInSeconds));
-            if ((diskStat.getWriteRequestAverageTimeInMilliseconds() != null) && (diskStat.getWriteRequestAverageTimeInMilliseconds().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(deviceName + ".Write-AvgRequestTime|Millisecond", diskStat.getWriteRequestAverageTimeInMilliseconds(), currentTimestampInSeconds));
-            if ((diskStat.getAverageRequestTimeInMilliseconds() != null) && (diskStat.getAverageRequestTimeInMilliseconds().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(deviceName + ".AverageRequestTime|Millisecond", diskStat.getAverageRequestTimeInMilliseconds(), currentTimestampInSeconds));
-            if ((diskStat.getAverageQueueLength() != null) && (diskStat.getAverageQueueLength().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(deviceName + ".AverageQueueLength", diskStat.getAverageQueueLength(), currentTimestampInSeconds));
+            highResolutionTracker_.removeStaleSamples(readTimestampInMs);
         }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        finally {
+            procDiskStats.release();
         }
-        
-        return graphiteMetrics;
     }
     
-}
\ No newline at end of file
+    private static void addMetric(List<GraphiteMetric> graphiteMetrics, String metricPath, double value, int currentTimestampInSeconds) {
+        BigDecimal metricValue = MathUtilities.getBigDecimalFromDouble(value, SCALE);
+        if ((metricValue != null) && (metricValue.signum() >= 0)) graphiteMetrics.add(new GraphiteMetric(metricPath, metricValue, currentTimestampInSeconds));
+    }
+    
+}
@@ -1,15 +1,8 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.DiskIo;
 
-import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.math_utils.MathUtilities;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /**
  * @author Jeffrey Schmidt
- * 
+ *
  * Field 1 -- # of reads issued
  * Field 2 -- # of reads merged
  * Field 3 -- # of sectors read
@@ -20,210 +13,107 @@ import org.slf4j.LoggerFactory;
  * Field 8 -- # of milliseconds spent writing
  * Field 9 -- # of I/Os currently in progress
  * Field 10 -- # of milliseconds spent doing I/Os
- * Field 11 -- weighted # of milliseconds spent doing I/Os 
- * 
+ * Field 11 -- weighted # of milliseconds spent doing I/Os
+ *
  * http://users.sosdg.org/~qiyong/lxr/diff/Documentation/block/stat.txt?diffvar=a;diffval=um
+ *
+ * Field 9 is a gauge (not a counter), so it isn't part of the deltas. The deltas are the other 10 fields, in order (see getCountersFromFields).
  */
 public class DiskIoStat_Delta {
-    
-    private static final Logger logger = LoggerFactory.getLogger(DiskIoStat_Delta.class.getName());
-
-    private static final BigDecimal ONE_THOUSAND = new BigDecimal("1000");
-    private static final BigDecimal FIVE_HUNDRED_TWELVE = new BigDecimal("512");
-    private static final BigDecimal BYTES_TO_MEGABYTES_DIVISOR = new BigDecimal("1048576");
-    private static final int SCALE = 7;
-    private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
-    
-    private final BigDecimal millisecondsBetweenSamples_;
+
+    public static final int NUM_FIELDS = 11;
+    public static final int NUM_COUNTERS = 10;
+
+    private static final int NUM_READS_COMPLETED = 0;
+    private static final int NUM_SECTORS_READ = 2;
+    private static final int NUM_MILLISECONDS_SPENT_READING = 3;
+    private static final int NUM_WRITES_COMPLETED = 4;
+    private static final int NUM_SECTORS_WRITTEN = 6;
+    private static final int NUM_MILLISECONDS_SPENT_WRITING = 7;
+    private static final int WEIGHTED_NUM_MILLISECONDS_SPENT_DOING_IO = 9;
+
+    private static final int IOS_CURRENTLY_IN_PROGRESS_FIELD = 8;
+    private static final double BYTES_PER_SECTOR = 512;
+    private static final double BYTES_TO_MEGABYTES_DIVISOR = 1048576;
+
+    private final long millisecondsBetweenSamples_;
     private final String deviceName_;
-    private final BigDecimal numReadsCompleted_;
-    private final BigDecimal numReadsMerged_;
-    private final BigDecimal numSectorsRead_;
-    private final BigDecimal numMillisecondsSpentReading_;
-    private final BigDecimal numWritesCompleted_;
-    private final BigDecimal numWritesMerged_;
-    private final BigDecimal numSectorsWritten_;
-    private final BigDecimal numMillisecondsSpentWriting_;
-    private final BigDecimal numIosCurrentInProgress_;
-    private final BigDecimal numMillisecondsSpentDoingIo_;
-    private final BigDecimal weightedNumMillisecondsSpentDoingIo_;
-
-    private BigDecimal readRequestsPerSecond_;
-    private BigDecimal readBytesPerSecond_;
-    private BigDecimal readMegabytesPerSecond_;
-    private BigDecimal readRequestAverageTimeInMilliseconds_;
-    private BigDecimal writeRequestsPerSecond_;
-    private BigDecimal writeBytesPerSecond_;
-    private BigDecimal writeMegabytesPerSecond_;
-    private BigDecimal writeRequestAverageTimeInMilliseconds_;
-    private BigDecimal averageRequestTimeInMilliseconds_;
-    private BigDecimal averageQueueLength_;
-    
-    public DiskIoStat_Delta(long millisecondsBetweenSamples, String deviceName,
-            String numReadsCompleted, String numReadsMerged, String numSectorsRead, String numMillisecondsSpentReading,
-            String numWritesCompleted, String numWritesMerged, String numSectorsWritten, String numMillisecondsSpentWriting,
-            String numIosCurrentInProgress, String numMillisecondsSpentDoingIo, String weightedNumMillisecondsSpentDoingIo) {
-
-        this.millisecondsBetweenSamples_ = new BigDecimal(millisecondsBetweenSamples);
-        
+    private final long[] counterDeltas_ = new long[NUM_COUNTERS];
+
+    /*
+    'counterDeltas' holds the deltas of the 10 counters (see getCountersFromFields).
+    The values are read when this object is constructed, so 'counterDeltas' can be re-used afterwards.
+    */
+    public DiskIoStat_Delta(long millisecondsBetweenSamples, String deviceName, long[] counterDeltas) {
+        this.millisecondsBetweenSamples_ = millisecondsBetweenSamples;
         this.deviceName_ = deviceName;
-        this.numReadsCompleted_ = MathUtilities.safeGetBigDecimal(numReadsCompleted);
-        this.numReadsMerged_ = MathUtilities.safeGetBigDecimal(numReadsMerged);
-        this.numSectorsRead_ = MathUtilities.safeGetBigDecimal(numSectorsRead);
-        this.numMillisecondsSpentReading_ = MathUtilities.safeGetBigDecimal(numMillisecondsSpentReading);
-        this.numWritesCompleted_ = MathUtilities.safeGetBigDecimal(numWritesCompleted);
-        this.numWritesMerged_ = MathUtilities.safeGetBigDecimal(numWritesMerged);
-        this.numSectorsWritten_ = MathUtilities.safeGetBigDecimal(numSectorsWritten);
-        this.numMillisecondsSpentWriting_ = MathUtilities.safeGetBigDecimal(numMillisecondsSpentWriting);
-        this.numIosCurrentInProgress_ = MathUtilities.safeGetBigDecimal(numIosCurrentInProgress);
-        this.numMillisecondsSpentDoingIo_ = MathUtilities.safeGetBigDecimal(numMillisecondsSpentDoingIo);
-        this.weightedNumMillisecondsSpentDoingIo_ = MathUtilities.safeGetBigDecimal(weightedNumMillisecondsSpentDoingIo);
+        System.arraycopy(counterDeltas, 0, counterDeltas_, 0, NUM_COUNTERS);
+    }
+
+    /*
+    Copies the 10 counters out of the 11 fields of a disk stat line (skipping the 'I/Os currently in progress' gauge).
+    */
+    public static void getCountersFromFields(long[] fields, long[] counters) {
+        for (int i = 0, counter = 0; i < NUM_FIELDS; i++) {
+            if (i != IOS_CURRENTLY_IN_PROGRESS_FIELD) counters[counter++] = fields[i];
+        }
     }
 
     public String getDeviceName() {
         return deviceName_;
     }
-    
-    public BigDecimal getReadRequestsPerSecond() {
-        if (readRequestsPerSecond_ != null) return readRequestsPerSecond_;
-        
-        try {
-            if (millisecondsBetweenSamples_.compareTo(BigDecimal.ZERO) <= 0) readRequestsPerSecond_ = BigDecimal.ZERO;
-            else readRequestsPerSecond_ = numReadsCompleted_.divide(millisecondsBetweenSamples_, SCALE, ROUNDING_MODE).multiply(ONE_THOUSAND);
-            return readRequestsPerSecond_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+
+    private double getPerSecond(double value) {
+        if (millisecondsBetweenSamples_ <= 0) return 0;
+        return (value * 1000) / millisecondsBetweenSamples_;
     }
-    
-    public BigDecimal getBytesReadPerSecond() {
-        if (readBytesPerSecond_ != null) return readBytesPerSecond_;
-        
-        try {
-            if (millisecondsBetweenSamples_.compareTo(BigDecimal.ZERO) <= 0) readBytesPerSecond_ = BigDecimal.ZERO;
-            else readBytesPerSecond_ = numSectorsRead_.divide(millisecondsBetweenSamples_, SCALE, ROUNDING_MODE).multiply(ONE_THOUSAND).multiply(FIVE_HUNDRED_TWELVE);
-            return readBytesPerSecond_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+
+    private static double getAverage(double sum, double count) {
+        if (count <= 0) return 0;
+        return sum / count;
     }
-    
-    public BigDecimal getMegabytesReadPerSecond() {
-        if (readMegabytesPerSecond_ != null) return readMegabytesPerSecond_;
-        
-        try {
-            readMegabytesPerSecond_ = getBytesReadPerSecond().divide(BYTES_TO_MEGABYTES_DIVISOR, SCALE, ROUNDING_MODE);
-            return readMegabytesPerSecond_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+
+    public double getReadRequestsPerSecond() {
+        return getPerSecond(counterDeltas_[NUM_READS_COMPLETED]);
     }
-    
-    public BigDecimal getReadRequestAverageTimeInMilliseconds() {
-        if (readRequestAverageTimeInMilliseconds_ != null) return readRequestAverageTimeInMilliseconds_;
-        
-        try {
-            if (numReadsCompleted_.compareTo(BigDecimal.ZERO) <= 0) readRequestAverageTimeInMilliseconds_ = BigDecimal.ZERO;
-            else readRequestAverageTimeInMilliseconds_ = numMillisecondsSpentReading_.divide(numReadsCompleted_, SCALE, ROUNDING_MODE);
-            return readRequestAverageTimeInMilliseconds_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+
+    public double getBytesReadPerSecond() {
+        return getPerSecond(counterDeltas_[NUM_SECTORS_READ] * BYTES_PER_SECTOR);
     }
-    
-    public BigDecimal getWriteRequestsPerSecond() {
-        if (writeRequestsPerSecond_ != null) return writeRequestsPerSecond_;
-        
-        try {
-            writeRequestsPerSecond_ = numWritesCompleted_.divide(millisecondsBetweenSamples_, SCALE, ROUNDING_MODE).multiply(ONE_THOUSAND);
-            return writeRequestsPerSecond_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+
+    public double getMegabytesReadPerSecond() {
+        return getBytesReadPerSecond() / BYTES_TO_MEGABYTES_DIVISOR;
     }
 
-    public BigDecimal getBytesWrittenPerSecond() {
-        if (writeBytesPerSecond_ != null) return writeBytesPerSecond_;
-        
-        try {
-            if (millisecondsBetweenSamples_.compareTo(BigDecimal.ZERO) <= 0) writeBytesPerSecond_ = BigDecimal.ZERO;
-            else writeBytesPerSecond_ = numSectorsWritten_.divide(millisecondsBetweenSamples_, SCALE, ROUNDING_MODE).multiply(ONE_THOUSAND).multiply(FIVE_HUNDRED_TWELVE);
-            return writeBytesPerSecond_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+    public double getReadRequestAverageTimeInMilliseconds() {
+        return getAverage(counterDeltas_[NUM_MILLISECONDS_SPENT_READING], counterDeltas_[NUM_READS_COMPLETED]);
     }
-    
-    public BigDecimal getMegabytesWrittenPerSecond() {
-        if (writeMegabytesPerSecond_ != null) return writeMegabytesPerSecond_;
-        
-        try {
-            writeMegabytesPerSecond_ = getBytesWrittenPerSecond().divide(BYTES_TO_MEGABYTES_DIVISOR, SCALE, ROUNDING_MODE);
-            return writeMegabytesPerSecond_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+
+    public double getWriteRequestsPerSecond() {
+        return getPerSecond(counterDeltas_[NUM_WRITES_COMPLETED]);
     }
-    
-    public BigDecimal getWriteRequestAverageTimeInMilliseconds() {
-        if (writeRequestAverageTimeInMilliseconds_ != null) return writeRequestAverageTimeInMilliseconds_;
-        
-        try {
-            if (numWritesCompleted_.compareTo(BigDecimal.ZERO) <= 0) writeRequestAverageTimeInMilliseconds_ = BigDecimal.ZERO;
-            else writeRequestAverageTimeInMilliseconds_ = numMillisecondsSpentWriting_.divide(numWritesCompleted_, SCALE, ROUNDING_MODE);
-            
-            return writeRequestAverageTimeInMilliseconds_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+
+    public double getBytesWrittenPerSecond() {
+        return getPerSecond(counterDeltas_[NUM_SECTORS_WRITTEN] * BYTES_PER_SECTOR);
     }
-    
-    public BigDecimal getAverageRequestTimeInMilliseconds() {
-        if (averageRequestTimeInMilliseconds_ != null) return averageRequestTimeInMilliseconds_;
-        
-        try {
-            BigDecimal sumMillisecondsActive = numMillisecondsSpentReading_.add(numMillisecondsSpentWriting_);
-            BigDecimal sumIosCompleted = numReadsCompleted_.add(numWritesCompleted_);
-            
-            if (sumIosCompleted.compareTo(BigDecimal.ZERO) <= 0) averageRequestTimeInMilliseconds_ = BigDecimal.ZERO;
-            else averageRequestTimeInMilliseconds_ = sumMillisecondsActive.divide(sumIosCompleted, SCALE, ROUNDING_MODE);
-            
-            return averageRequestTimeInMilliseconds_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+
+    public double getMegabytesWrittenPerSecond() {
+        return getBytesWrittenPerSecond() / BYTES_TO_MEGABYTES_DIVISOR;
     }
-                
-    public BigDecimal getAverageQueueLength() {
-        if (averageQueueLength_ != null) return averageQueueLength_;
-        
-        try {
-            if (millisecondsBetweenSamples_.compareTo(BigDecimal.ZERO) <= 0) averageQueueLength_ = BigDecimal.ZERO;
-            else averageQueueLength_ = weightedNumMillisecondsSpentDoingIo_.divide(millisecondsBetweenSamples_, SCALE, ROUNDING_MODE);
-            return averageQueueLength_;
-        }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            return null;
-        }
+
+    public double getWriteRequestAverageTimeInMilliseconds() {
+        return getAverage(counterDeltas_[NUM_MILLISECONDS_SPENT_WRITING], counterDeltas_[NUM_WRITES_COMPLETED]);
     }
-    
+
+    public double getAverageRequestTimeInMilliseconds() {
+        double sumMillisecondsActive = counterDeltas_[NUM_MILLISECONDS_SPENT_READING] + counterDeltas_[NUM_MILLISECONDS_SPENT_WRITING];
+        double sumIosCompleted = counterDeltas_[NUM_READS_COMPLETED] + counterDeltas_[NUM_WRITES_COMPLETED];
+        return getAverage(sumMillisecondsActive, sumIosCompleted);
+    }
+
+    public double getAverageQueueLength() {
+        if (millisecondsBetweenSamples_ <= 0) return 0;
+        return (double) counterDeltas_[WEIGHTED_NUM_MILLISECONDS_SPENT_DOING_IO] / millisecondsBetweenSamples_;
+    }
+
 }
@@ -180,6 +180,22 @@ public class Df_Fields {
         this.blocksUsedPercent_ = blocksUsedPercent;
     }
 
+    /*
+    Sets the disk space from byte counts (ex- from a FileStore) rather than from df's 1024-byte block counts.
+    The used percentage is computed the same way that df computes it: used / (used + available), rounded up.
+    */
+    public void setDiskSpace(long totalBytes, long usedBytes, long availableBytes) {
+        this.diskSpaceTotalBytes_ = new BigDecimal(totalBytes);
+        this.diskSpaceTotalGigabytes_ = null;
+        this.diskSpaceUsedBytes_ = new BigDecimal(usedBytes);
+        this.diskSpaceUsedGigabytes_ = null;
+        this.diskSpaceFreeBytes_ = new BigDecimal(availableBytes);
+        this.diskSpaceFreeGigabytes_ = null;
+
+        long usableBytes = usedBytes + availableBytes;
+        this.diskSpaceUsedPercent_ = (usableBytes > 0) ? new BigDecimal(usedBytes).multiply(new BigDecimal(100)).divide(new BigDecimal(usableBytes), 0, RoundingMode.CEILING) : null;
+    }
+
     public void setNumInodes(String numInodes) {
         this.numInodes_ = numInodes;
     }
@@ -1,20 +1,38 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.FileSystem;
 
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileParser;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSnapshot;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSystem;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcTokenCache;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
 import com.pearson.statspoller.utilities.os_utils.ProcessUtils;
 import java.io.BufferedReader;
 import java.io.StringReader;
 import java.math.BigDecimal;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,55 +41,131 @@ import org.slf4j.LoggerFactory;
  * 
  * Collects file system metrics, such as disk-space-usage & inode-usage
  * 
- * This collector is based (and depends on) the 'df' program (part of gnu coreutils). 
- * This is not ideal as it creates a dependency on 'df', but it was necessary due to the complexity of acquiring the raw data.
+ * The mounts are read from /proc/self/mountinfo, & disk space is read in-process (a FileStore per mount, which is a statvfs call).
+ * Each mount is read on a separate thread with its own deadline, so a hung mount (ex- an unreachable NFS server) only times out itself.
+ * A mount that timed out isn't read again until its previous read returns.
  * 
- * In the event that this metric collector fails ('df' not available, 'df' output format is not supported, etc), then
- * the "StatsPoller Native" metric collector can also be used to acquire disk-space-usage metrics.
+ * Java doesn't expose inode counts, so inode metrics still come from 'df -P -i' (part of gnu coreutils). 'df' is only run on the mounts
+ * whose disk space was read successfully in the same run (so it never touches a hung mount), & it is killed if it doesn't finish in time.
+ * 
+ * In the event that this metric collector fails, the "StatsPoller Native" metric collector can also be used to acquire disk-space-usage metrics.
  */
-public class FileSystemCollector extends InternalCollectorFramework implements Runnable {
+public class FileSystemCollector extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(FileSystemCollector.class.getName());
     
+    private static final long FILE_STORE_READ_TIMEOUT_IN_MS = 5000;
+    private static final long DF_TIMEOUT_IN_MS = 10000;
+    
+    // pseudo file systems that never have disk space (df hides these too). autofs is skipped because reading it would trigger a mount.
+    private static final Set<String> IGNORED_FILE_SYSTEM_TYPES = new HashSet<>(Arrays.asList("autofs", "binfmt_misc", "bpf", "cgroup", "cgroup2", 
+            "configfs", "debugfs", "devpts", "efivarfs", "fusectl", "hugetlbfs", "mqueue", "nsfs", "proc", "pstore", "rpc_pipefs", "securityfs", 
+            "selinuxfs", "sysfs", "tracefs"));
+    
+    private static final byte[] OPTIONAL_FIELDS_SEPARATOR = ProcFileParser.getBytes("-");
+    
+    private static final ExecutorService fileStoreReaderThreadPool_ = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadCount_ = new AtomicInteger(0);
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "FileSystem-Reader-" + threadCount_.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    
+    private final String procMountInfoPath_;
+    private final ProcFileParser procFileParser_ = new ProcFileParser();
+    private final ProcTokenCache tokenCache_ = new ProcTokenCache();
+    private final Map<String,FileStore> fileStores_ByMountPoint_ = new ConcurrentHashMap<>();
+    private final Map<String,Future<long[]>> timedOutReads_ByMountPoint_ = new HashMap<>();
+    
     public FileSystemCollector(boolean isEnabled, long collectionInterval, String metricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles) {
         super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
+        this.procMountInfoPath_ = super.getLinuxProcFileSystemLocation() + "/self/mountinfo";
     }
     
     @Override
-    public void run() {
-         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // get the disk space stats in graphite format
-            List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
-            graphiteMetrics.addAll(getDiskSpaceMetrics());
-            graphiteMetrics.addAll(getDiskInodeMetrics());
-            
-            // output graphite metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
-
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            logger.info("Finished Linux-FileSystem metric collection routine. " +
-                    "MetricsCollected=" + graphiteMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
-
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
-        }
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
+        
+        // get the disk space stats in graphite format
+        List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
+        List<String> readableMountPoints = new ArrayList<>();
+        graphiteMetrics.addAll(getDiskSpaceMetrics(readableMountPoints));
+        graphiteMetrics.addAll(getDiskInodeMetrics(readableMountPoints));
+        
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
 
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+        
+        logger.info("Finished Linux-FileSystem metric collection routine. " +
+                "MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
 
-    private List<GraphiteMetric> getDiskSpaceMetrics() {
+    /*
+    Adds the mount points whose disk space was read to 'readableMountPoints'.
+    */
+    private List<GraphiteMetric> getDiskSpaceMetrics(List<String> readableMountPoints) {
         
         List<GraphiteMetric> allGraphiteMetrics = new ArrayList<>();
         
         try {
             int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
-            String dfOutput_DiskSpace = ProcessUtils.runProcessAndGetProcessOutput("df -P");
-            allGraphiteMetrics = getMetricsFromDfOutput(dfOutput_DiskSpace, currentTimestampInSeconds);
+            Map<String,Df_Fields> mounts_ByMountPoint = readMounts();
+            if (mounts_ByMountPoint == null) return allGraphiteMetrics;
+            
+            // unmounted file systems aren't tracked anymore
+            fileStores_ByMountPoint_.keySet().retainAll(mounts_ByMountPoint.keySet());
+            timedOutReads_ByMountPoint_.keySet().retainAll(mounts_ByMountPoint.keySet());
+            
+            // start reading every mount at once, so the deadline of each mount is the same amount of time after the start of the routine
+            long deadlineTimestampInMs = System.currentTimeMillis() + FILE_STORE_READ_TIMEOUT_IN_MS;
+            Map<String,Future<long[]>> reads_ByMountPoint = new LinkedHashMap<>();
+            
+            for (String mountPoint : mounts_ByMountPoint.keySet()) {
+                Future<long[]> timedOutRead = timedOutReads_ByMountPoint_.get(mountPoint);
+                
+                if (timedOutRead != null) {
+                    if (!timedOutRead.isDone()) {
+                        logger.warn("Message=\"Skipping file system. The previous read of this file system has not returned.\", MountPoint=\"" + mountPoint + "\"");
+                        continue;
+                    }
+                    
+                    timedOutReads_ByMountPoint_.remove(mountPoint);
+                }
+                
+                reads_ByMountPoint.put(mountPoint, fileStoreReaderThreadPool_.submit(new FileStoreReader(mountPoint)));
+            }
+            
+            for (Map.Entry<String,Future<long[]>> read : reads_ByMountPoint.entrySet()) {
+                String mountPoint = read.getKey();
+                long[] diskSpace;
+                
+                try {
+                    diskSpace = read.getValue().get(Math.max(deadlineTimestampInMs - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+                }
+                catch (TimeoutException e) {
+                    timedOutReads_ByMountPoint_.put(mountPoint, read.getValue());
+                    logger.warn("Message=\"Timed out reading file system\", MountPoint=\"" + mountPoint + "\", TimeoutInMs=" + FILE_STORE_READ_TIMEOUT_IN_MS);
+                    continue;
+                }
+                catch (ExecutionException e) {
+                    logger.debug("Message=\"Unable to read file system\", MountPoint=\"" + mountPoint + "\", Exception=\"" + e.getCause() + "\"");
+                    continue;
+                }
+                
+                // file systems without any blocks are pseudo file systems (df hides these too)
+                if ((diskSpace == null) || (diskSpace[0] <= 0)) continue;
+                
+                Df_Fields dfFields = mounts_ByMountPoint.get(mountPoint);
+                dfFields.setDiskSpace(diskSpace[0], diskSpace[0] - diskSpace[1], diskSpace[2]);
+                addGraphiteMetrics(allGraphiteMetrics, dfFields, currentTimestampInSeconds);
+                readableMountPoints.add(mountPoint);
+            }
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
@@ -80,14 +174,19 @@ public class FileSystemCollector extends InternalCollectorFramework implements R
         return allGraphiteMetrics;
     }
     
-    private List<GraphiteMetric> getDiskInodeMetrics() {
+    private List<GraphiteMetric> getDiskInodeMetrics(List<String> readableMountPoints) {
         
         List<GraphiteMetric> allGraphiteMetrics = new ArrayList<>();
+        if ((readableMountPoints == null) || readableMountPoints.isEmpty()) return allGraphiteMetrics;
         
         try {
             int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
-            String dfOutput_Inodes = ProcessUtils.runProcessAndGetProcessOutput("df -P -i");
-            allGraphiteMetrics = getMetricsFromDfOutput(dfOutput_Inodes, currentTimestampInSeconds);
+            
+            List<String> commandAndArgs = new ArrayList<>(Arrays.asList("df", "-P", "-i"));
+            commandAndArgs.addAll(readableMountPoints);
+            
+            String dfOutput_Inodes = ProcessUtils.runProcessAndGetProcessOutput(commandAndArgs.toArray(new String[commandAndArgs.size()]), DF_TIMEOUT_IN_MS);
+            if (dfOutput_Inodes != null) allGraphiteMetrics = getMetricsFromDfOutput(dfOutput_Inodes, currentTimestampInSeconds);
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
@@ -96,6 +195,83 @@ public class FileSystemCollector extends InternalCollectorFramework implements R
         return allGraphiteMetrics;
     }
     
+    /*
+    Returns the mounts from /proc/self/mountinfo, with their file system (the mount source) & type, keyed by mount point.
+    If a mount point is mounted over, the last (visible) mount wins. Returns null if mountinfo couldn't be read.
+    */
+    private Map<String,Df_Fields> readMounts() {
+        
+        ProcFileSnapshot snapshot = ProcFileSystem.acquireSnapshot(procMountInfoPath_);
+        if (snapshot == null) return null;
+        
+        try {
+            return getMountsFromMountInfo(procFileParser_.reset(snapshot), tokenCache_);
+        }
+        finally {
+            snapshot.release();
+        }
+    }
+    
+    /*
+    Format (see 'man 5 proc'): 
+    mountId parentId major:minor root mountPoint mountOptions [optionalFields...] - fileSystemType mountSource superOptions
+    */
+    protected static Map<String,Df_Fields> getMountsFromMountInfo(ProcFileParser parser, ProcTokenCache tokenCache) {
+        
+        Map<String,Df_Fields> mounts_ByMountPoint = new LinkedHashMap<>();
+        
+        do {
+            // skip the mount id, parent id, major:minor, & root
+            if (!parser.nextToken() || !parser.nextToken() || !parser.nextToken() || !parser.nextToken()) continue;
+            if (!parser.nextToken()) continue;
+            String mountPoint = unescapeMountInfoField(parser.getToken(tokenCache));
+            
+            boolean isSeparatorFound = false;
+            while (!isSeparatorFound && parser.nextToken()) isSeparatorFound = parser.tokenEquals(OPTIONAL_FIELDS_SEPARATOR);
+            if (!isSeparatorFound || !parser.nextToken()) continue;
+            String type = parser.getToken(tokenCache);
+            
+            String fileSystem = parser.nextToken() ? unescapeMountInfoField(parser.getToken(tokenCache)) : type;
+            
+            mounts_ByMountPoint.remove(mountPoint);
+            if (IGNORED_FILE_SYSTEM_TYPES.contains(type) || !mountPoint.startsWith("/")) continue;
+            
+            Df_Fields dfFields = new Df_Fields();
+            dfFields.setFileSystem(fileSystem);
+            dfFields.setType(type);
+            dfFields.setMountedOn(mountPoint);
+            mounts_ByMountPoint.put(mountPoint, dfFields);
+        } while (parser.nextLine());
+        
+        return mounts_ByMountPoint;
+    }
+    
+    // the kernel escapes spaces, tabs, newlines, & backslashes in mountinfo as octal (ex- '\040' for a space)
+    private static String unescapeMountInfoField(String field) {
+        
+        if ((field == null) || (field.indexOf('\\') == -1)) return field;
+        
+        StringBuilder unescapedField = new StringBuilder(field.length());
+        
+        for (int i = 0; i < field.length(); i++) {
+            char character = field.charAt(i);
+            
+            if ((character == '\\') && ((i + 3) < field.length()) && isOctalDigit(field.charAt(i + 1)) && isOctalDigit(field.charAt(i + 2)) && isOctalDigit(field.charAt(i + 3))) {
+                unescapedField.append((char) Integer.parseInt(field.substring(i + 1, i + 4), 8));
+                i += 3;
+            }
+            else {
+                unescapedField.append(character);
+            }
+        }
+        
+        return unescapedField.toString();
+    }
+    
+    private static boolean isOctalDigit(char character) {
+        return (character >= '0') && (character <= '7');
+    }
+    
     protected List<GraphiteMetric> getMetricsFromDfOutput(String dfOutput, int timestampInSeconds) {
         
         List<GraphiteMetric> allGraphiteMetrics = new ArrayList<>();
@@ -112,31 +288,7 @@ public class FileSystemCollector extends InternalCollectorFramework implements R
             if (allDfFields == null) return allGraphiteMetrics;
             
             // create graphite metrics
-            for (Df_Fields dfFields : allDfFields) {
-                if ((dfFields.getMountedOn() == null) || dfFields.getMountedOn().isEmpty()) continue;
-
-                String graphiteFriendlyFileSystem = GraphiteMetric.getGraphiteSanitizedString(dfFields.getFileSystem(), true, true);
-                if (graphiteFriendlyFileSystem != null) graphiteFriendlyFileSystem = graphiteFriendlyFileSystem.replace('.', '_');
-                String graphiteFriendlyMountedOn = GraphiteMetric.getGraphiteSanitizedString(dfFields.getMountedOn(), true, true);
-                if (graphiteFriendlyMountedOn != null) graphiteFriendlyMountedOn = graphiteFriendlyMountedOn.replace('.', '_');
-                
-                if (graphiteFriendlyFileSystem != null) allGraphiteMetrics.add(new GraphiteMetric(graphiteFriendlyMountedOn + ".FileSystem=" + graphiteFriendlyFileSystem, BigDecimal.ONE, timestampInSeconds));
-
-                String mountNameDiskSpace = graphiteFriendlyMountedOn + ".DiskSpace-";
-                if ((dfFields.getDiskSpaceTotalBytes() != null) && (dfFields.getDiskSpaceTotalBytes().compareTo(BigDecimal.ZERO) != -1)) allGraphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Total-Bytes", dfFields.getDiskSpaceTotalBytes(), timestampInSeconds));
-                if ((dfFields.getDiskSpaceTotalGigabytes() != null) && (dfFields.getDiskSpaceTotalGigabytes().compareTo(BigDecimal.ZERO) != -1)) allGraphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Total-GB", dfFields.getDiskSpaceTotalGigabytes(), timestampInSeconds));
-                if ((dfFields.getDiskSpaceFreeBytes() != null) && (dfFields.getDiskSpaceFreeBytes().compareTo(BigDecimal.ZERO) != -1)) allGraphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Free-Bytes", dfFields.getDiskSpaceFreeBytes(), timestampInSeconds));
-                if ((dfFields.getDiskSpaceFreeGigabytes() != null) && (dfFields.getDiskSpaceFreeGigabytes().compareTo(BigDecimal.ZERO) != -1)) allGraphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Free-GB", dfFields.getDiskSpaceFreeGigabytes(), timestampInSeconds));
-                if ((dfFields.getDiskSpaceUsedBytes() != null) && (dfFields.getDiskSpaceUsedBytes().compareTo(BigDecimal.ZERO) != -1)) allGraphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Used-Bytes", dfFields.getDiskSpaceUsedBytes(), timestampInSeconds));
-                if ((dfFields.getDiskSpaceUsedGigabytes() != null) && (dfFields.getDiskSpaceUsedGigabytes().compareTo(BigDecimal.ZERO) != -1)) allGraphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Used-GB", dfFields.getDiskSpaceUsedGigabytes(), timestampInSeconds));
-                if ((dfFields.getDiskSpaceUsedPercent() != null) && (dfFields.getDiskSpaceUsedPercent().compareTo(BigDecimal.ZERO) != -1)) allGraphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Used-Pct", dfFields.getDiskSpaceUsedPercent(), timestampInSeconds));
-
-                String mountNameInode = graphiteFriendlyMountedOn + ".Inodes-";
-                if ((dfFields.getInodesTotal() != null) && (dfFields.getInodesTotal().compareTo(BigDecimal.ZERO) != -1)) allGraphiteMetrics.add(new GraphiteMetric(mountNameInode + "Total", dfFields.getInodesTotal(), timestampInSeconds));
-                if ((dfFields.getInodesFree() != null) && (dfFields.getInodesFree().compareTo(BigDecimal.ZERO) != -1)) allGraphiteMetrics.add(new GraphiteMetric(mountNameInode + "Free", dfFields.getInodesFree(), timestampInSeconds));
-                if ((dfFields.getInodesUsed() != null) && (dfFields.getInodesUsed().compareTo(BigDecimal.ZERO) != -1)) allGraphiteMetrics.add(new GraphiteMetric(mountNameInode + "Used", dfFields.getInodesUsed(), timestampInSeconds));
-                if ((dfFields.getInodesUsedPercent() != null) && (dfFields.getInodesUsedPercent().compareTo(BigDecimal.ZERO) != -1)) allGraphiteMetrics.add(new GraphiteMetric(mountNameInode + "Used-Pct", dfFields.getInodesUsedPercent(), timestampInSeconds));
-            }
+            for (Df_Fields dfFields : allDfFields) addGraphiteMetrics(allGraphiteMetrics, dfFields, timestampInSeconds);
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
@@ -145,6 +297,33 @@ public class FileSystemCollector extends InternalCollectorFramework implements R
         return allGraphiteMetrics;
     }
     
+    private void addGraphiteMetrics(List<GraphiteMetric> graphiteMetrics, Df_Fields dfFields, int timestampInSeconds) {
+        
+        if ((dfFields.getMountedOn() == null) || dfFields.getMountedOn().isEmpty()) return;
+
+        String graphiteFriendlyFileSystem = GraphiteMetric.getGraphiteSanitizedString(dfFields.getFileSystem(), true, true);
+        if (graphiteFriendlyFileSystem != null) graphiteFriendlyFileSystem = graphiteFriendlyFileSystem.replace('.', '_');
+        String graphiteFriendlyMountedOn = GraphiteMetric.getGraphiteSanitizedString(dfFields.getMountedOn(), true, true);
+        if (graphiteFriendlyMountedOn != null) graphiteFriendlyMountedOn = graphiteFriendlyMountedOn.replace('.', '_');
+        
+        if (graphiteFriendlyFileSystem != null) graphiteMetrics.add(new GraphiteMetric(graphiteFriendlyMountedOn + ".FileSystem=" + graphiteFriendlyFileSystem, BigDecimal.ONE, timestampInSeconds));
+
+        String mountNameDiskSpace = graphiteFriendlyMountedOn + ".DiskSpace-";
+        if ((dfFields.getDiskSpaceTotalBytes() != null) && (dfFields.getDiskSpaceTotalBytes().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Total-Bytes", dfFields.getDiskSpaceTotalBytes(), timestampInSeconds));
+        if ((dfFields.getDiskSpaceTotalGigabytes() != null) && (dfFields.getDiskSpaceTotalGigabytes().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Total-GB", dfFields.getDiskSpaceTotalGigabytes(), timestampInSeconds));
+        if ((dfFields.getDiskSpaceFreeBytes() != null) && (dfFields.getDiskSpaceFreeBytes().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Free-Bytes", dfFields.getDiskSpaceFreeBytes(), timestampInSeconds));
+        if ((dfFields.getDiskSpaceFreeGigabytes() != null) && (dfFields.getDiskSpaceFreeGigabytes().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Free-GB", dfFields.getDiskSpaceFreeGigabytes(), timestampInSeconds));
+        if ((dfFields.getDiskSpaceUsedBytes() != null) && (dfFields.getDiskSpaceUsedBytes().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Used-Bytes", dfFields.getDiskSpaceUsedBytes(), timestampInSeconds));
+        if ((dfFields.getDiskSpaceUsedGigabytes() != null) && (dfFields.getDiskSpaceUsedGigabytes().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Used-GB", dfFields.getDiskSpaceUsedGigabytes(), timestampInSeconds));
+        if ((dfFields.getDiskSpaceUsedPercent() != null) && (dfFields.getDiskSpaceUsedPercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(mountNameDiskSpace + "Used-Pct", dfFields.getDiskSpaceUsedPercent(), timestampInSeconds));
+
+        String mountNameInode = graphiteFriendlyMountedOn + ".Inodes-";
+        if ((dfFields.getInodesTotal() != null) && (dfFields.getInodesTotal().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(mountNameInode + "Total", dfFields.getInodesTotal(), timestampInSeconds));
+        if ((dfFields.getInodesFree() != null) && (dfFields.getInodesFree().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(mountNameInode + "Free", dfFields.getInodesFree(), timestampInSeconds));
+        if ((dfFields.getInodesUsed() != null) && (dfFields.getInodesUsed().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(mountNameInode + "Used", dfFields.getInodesUsed(), timestampInSeconds));
+        if ((dfFields.getInodesUsedPercent() != null) && (dfFields.getInodesUsedPercent().compareTo(BigDecimal.ZERO) != -1)) graphiteMetrics.add(new GraphiteMetric(mountNameInode + "Used-Pct", dfFields.getInodesUsedPercent(), timestampInSeconds));
+    }
+    
     private HashMap<Integer,Set<Integer>> findPositionsOfSpaceCharacters_ByLine(String dfOutput) {
         
         if ((dfOutput == null) || dfOutput.isEmpty()) {
@@ -340,4 +519,30 @@ public class FileSystemCollector extends InternalCollectorFramework implements R
         return allDfFields;
     }
 
+    /*
+    Returns the total, unallocated, & usable (available to non-root users) bytes of the file system that is mounted on 'mountPoint'.
+    */
+    private class FileStoreReader implements Callable<long[]> {
+        
+        private final String mountPoint_;
+        
+        public FileStoreReader(String mountPoint) {
+            this.mountPoint_ = mountPoint;
+        }
+        
+        @Override
+        public long[] call() throws Exception {
+            // looking up a FileStore scans the mount table, so each mount's FileStore is kept. each read of a FileStore is a new statvfs call.
+            FileStore fileStore = fileStores_ByMountPoint_.get(mountPoint_);
+            
+            if (fileStore == null) {
+                fileStore = Files.getFileStore(Paths.get(mountPoint_));
+                fileStores_ByMountPoint_.put(mountPoint_, fileStore);
+            }
+            
+            return new long[] {fileStore.getTotalSpace(), fileStore.getUnallocatedSpace(), fileStore.getUsableSpace()};
+        }
+        
+    }
+
 }
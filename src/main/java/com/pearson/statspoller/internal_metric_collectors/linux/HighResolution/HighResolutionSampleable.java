@@ -0,0 +1,15 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.HighResolution;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * A collector that can take high-resolution (sub-interval) samples. See HighResolutionSampler.
+ */
+public interface HighResolutionSampleable {
+
+    /*
+    Takes one sample, & adds it to the collector's HighResolutionSamples. Called by the sampler's thread, concurrently with the collector's own runs.
+    */
+    public void sampleHighResolution();
+
+}
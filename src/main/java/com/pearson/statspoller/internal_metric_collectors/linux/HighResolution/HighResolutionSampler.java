@@ -0,0 +1,124 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.HighResolution;
+
+import com.pearson.statspoller.collector_scheduler.SchedulableCollector;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Takes high-resolution samples for a set of collectors (ex- every 250ms), on the collector scheduler. The collectors summarize their samples on their own runs.
+ * See HighResolutionSamples.
+ *
+ * The sampler keeps its own cpu usage under a budget (a percentage of one core). The sampler's cpu time is measured over a window of a few seconds.
+ * If it is over budget, the sampler starts skipping ticks (sampling every 2nd tick, then every 4th, etc -- up to one sample per collection interval).
+ * If it is well under budget, it skips fewer ticks again.
+ */
+public class HighResolutionSampler implements SchedulableCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(HighResolutionSampler.class.getName());
+
+    private static final long BUDGET_WINDOW_IN_NS = 10000000000L;
+
+    private final long samplingIntervalInMs_;
+    private final double cpuBudgetPercent_;
+    private final int maxStride_;
+    private final List<HighResolutionSampleable> sampleables_;
+    private final ThreadMXBean threadMXBean_ = ManagementFactory.getThreadMXBean();
+    private final boolean isThreadCpuTimeSupported_;
+
+    private long tick_ = 0;
+    private int stride_ = 1;
+    private long windowStartTimeInNs_ = System.nanoTime();
+    private long windowCpuTimeInNs_ = 0;
+    private long numSamples_ = 0;
+
+    /*
+    'collectionIntervalInMs' is the collection interval of the sampled collectors. A 'cpuBudgetPercent' of 0 (or less) disables the budget.
+    */
+    public HighResolutionSampler(long samplingIntervalInMs, long collectionIntervalInMs, double cpuBudgetPercent, List<? extends HighResolutionSampleable> sampleables) {
+        this.samplingIntervalInMs_ = samplingIntervalInMs;
+        this.cpuBudgetPercent_ = cpuBudgetPercent;
+        this.maxStride_ = (int) Math.max(1, Math.min(collectionIntervalInMs / Math.max(samplingIntervalInMs, 1), Integer.MAX_VALUE));
+        this.sampleables_ = new ArrayList<>(sampleables);
+        this.isThreadCpuTimeSupported_ = threadMXBean_.isCurrentThreadCpuTimeSupported();
+    }
+
+    @Override
+    public void initializeCollector() {
+    }
+
+    @Override
+    public void collectMetrics() {
+
+        tick_++;
+        if ((tick_ % stride_) != 0) return;
+
+        long startCpuTimeInNs = getCpuTimeInNs();
+
+        for (HighResolutionSampleable sampleable : sampleables_) {
+            try {
+                sampleable.sampleHighResolution();
+            }
+            catch (Exception e) {
+                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+        }
+
+        numSamples_++;
+        windowCpuTimeInNs_ += Math.max(getCpuTimeInNs() - startCpuTimeInNs, 0);
+
+        long windowTimeInNs = System.nanoTime() - windowStartTimeInNs_;
+        if (windowTimeInNs >= BUDGET_WINDOW_IN_NS) checkBudget(windowTimeInNs);
+    }
+
+    // the cpu time of the sampling thread (the wall time, if the jvm can't measure thread cpu time)
+    private long getCpuTimeInNs() {
+        return isThreadCpuTimeSupported_ ? threadMXBean_.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private void checkBudget(long windowTimeInNs) {
+
+        double cpuPercent = (windowCpuTimeInNs_ * 100.0) / windowTimeInNs;
+
+        if ((cpuBudgetPercent_ > 0) && (cpuPercent > cpuBudgetPercent_) && (stride_ < maxStride_)) {
+            stride_ = Math.min(stride_ * 2, maxStride_);
+            logger.warn("Message=\"High resolution sampling is over its cpu budget. Reducing the sampling rate.\", CpuPct=" + String.format("%.3f", cpuPercent) +
+                    ", CpuBudgetPct=" + cpuBudgetPercent_ + ", SamplingInterval=" + getEffectiveSamplingIntervalInMs());
+        }
+        else if ((stride_ > 1) && ((cpuBudgetPercent_ <= 0) || ((cpuPercent * 2) < (cpuBudgetPercent_ / 2)))) {
+            // at half the stride, the cpu usage roughly doubles. only step back if that would still leave headroom.
+            stride_ = stride_ / 2;
+            logger.info("Message=\"High resolution sampling is under its cpu budget. Increasing the sampling rate.\", CpuPct=" + String.format("%.3f", cpuPercent) +
+                    ", CpuBudgetPct=" + cpuBudgetPercent_ + ", SamplingInterval=" + getEffectiveSamplingIntervalInMs());
+        }
+        else if (logger.isDebugEnabled()) {
+            logger.debug("Message=\"High resolution sampling cpu usage\", CpuPct=" + String.format("%.3f", cpuPercent) + ", SamplingInterval=" + getEffectiveSamplingIntervalInMs());
+        }
+
+        windowStartTimeInNs_ = System.nanoTime();
+        windowCpuTimeInNs_ = 0;
+    }
+
+    @Override
+    public long getCollectionInterval() {
+        return samplingIntervalInMs_;
+    }
+
+    /*
+    The sampling interval, after any slowdown for the cpu budget.
+    */
+    public long getEffectiveSamplingIntervalInMs() {
+        return samplingIntervalInMs_ * stride_;
+    }
+
+    public long getNumSamples() {
+        return numSamples_;
+    }
+
+}
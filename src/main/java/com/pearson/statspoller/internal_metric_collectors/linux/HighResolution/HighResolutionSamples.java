@@ -0,0 +1,160 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.HighResolution;
+
+import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import com.pearson.statspoller.utilities.math_utils.MathUtilities;
+import com.pearson.statspoller.utilities.math_utils.SampleRingBuffer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * The high-resolution samples of one collector, between two of the collector's runs. Each key (ex- a cpu, disk, or network interface) has a SampleRingBuffer per sampled metric.
+ * On each collector run, every buffer is summarized into the configured statistics (ex- 'CPU-All.Used-Pct-Max', 'CPU-All.Used-Pct-P99'), & cleared.
+ * The number of output metrics depends on the number of statistics, not on the sampling rate.
+ *
+ * Thread-safe (samples are added by the sampler's thread, & summarized by the collector's thread).
+ */
+public class HighResolutionSamples {
+
+    private static final Logger logger = LoggerFactory.getLogger(HighResolutionSamples.class.getName());
+
+    public static final int STATISTIC_MIN = 0;
+    public static final int STATISTIC_MAX = 1;
+    public static final int STATISTIC_MEAN = 2;
+    public static final int STATISTIC_P95 = 3;
+    public static final int STATISTIC_P99 = 4;
+
+    private static final String[] STATISTIC_NAMES = {"Min", "Max", "Mean", "P95", "P99"};
+
+    private final String[] metricNames_;
+    private final int capacity_;
+    private final int[] statistics_;
+    private final Map<String,SampleRingBuffer[]> buffers_ByKey_ = new HashMap<>();
+
+    // indexed by (metricIndex * statistics_.length) + statisticIndex. the paths are the same every run, so they're only built once per key.
+    private final Map<String,String[]> metricPaths_ByKey_ = new HashMap<>();
+
+    /*
+    'metricNames' are appended to each key to form the metric path (ex- '.Used-Pct'). 'capacity' is the number of samples that each buffer holds (see getCapacity).
+    */
+    public HighResolutionSamples(String[] metricNames, int capacity, int[] statistics) {
+        this.metricNames_ = metricNames;
+        this.capacity_ = capacity;
+        this.statistics_ = statistics;
+    }
+
+    /*
+    The number of samples taken during one collection interval (plus one, in case a collector run is a little late).
+    */
+    public static int getCapacity(long collectionIntervalInMs, long samplingIntervalInMs) {
+        if (samplingIntervalInMs <= 0) return 1;
+        return (int) Math.min(((collectionIntervalInMs + samplingIntervalInMs - 1) / samplingIntervalInMs) + 1, 100000);
+    }
+
+    /*
+    Parses a comma separated list of statistic names (ex- 'min,max,mean,p95,p99'). Unknown names are logged & skipped.
+    */
+    public static int[] parseStatistics(String statisticNames) {
+
+        List<Integer> statistics = new ArrayList<>();
+
+        if (statisticNames != null) {
+            for (String statisticName : statisticNames.split(",")) {
+                String trimmedStatisticName = statisticName.trim();
+                if (trimmedStatisticName.isEmpty()) continue;
+
+                int statistic = -1;
+                for (int i = 0; i < STATISTIC_NAMES.length; i++) if (STATISTIC_NAMES[i].equalsIgnoreCase(trimmedStatisticName)) statistic = i;
+
+                if (statistic == -1) logger.warn("Message=\"Unknown high resolution statistic\", Statistic=\"" + trimmedStatisticName + "\"");
+                else if (!statistics.contains(statistic)) statistics.add(statistic);
+            }
+        }
+
+        int[] statisticsArray = new int[statistics.size()];
+        for (int i = 0; i < statisticsArray.length; i++) statisticsArray[i] = statistics.get(i);
+        return statisticsArray;
+    }
+
+    public synchronized void add(String key, int metricIndex, double value) {
+
+        SampleRingBuffer[] buffers = buffers_ByKey_.get(key);
+
+        if (buffers == null) {
+            buffers = new SampleRingBuffer[metricNames_.length];
+            for (int i = 0; i < buffers.length; i++) buffers[i] = new SampleRingBuffer(capacity_);
+            buffers_ByKey_.put(key, buffers);
+        }
+
+        buffers[metricIndex].add(value);
+    }
+
+    /*
+    Summarizes every buffer into 'graphiteMetrics', & clears the buffers. Keys that didn't get any samples since the previous call (ex- a removed device) are forgotten.
+    */
+    public synchronized void addGraphiteMetrics(List<GraphiteMetric> graphiteMetrics, int scale, int currentTimestampInSeconds) {
+
+        Iterator<Map.Entry<String,SampleRingBuffer[]>> iterator = buffers_ByKey_.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<String,SampleRingBuffer[]> entry = iterator.next();
+            String key = entry.getKey();
+            SampleRingBuffer[] buffers = entry.getValue();
+            boolean hasSamples = false;
+
+            for (int metricIndex = 0; metricIndex < buffers.length; metricIndex++) {
+                SampleRingBuffer buffer = buffers[metricIndex];
+                if (buffer.isEmpty()) continue;
+                hasSamples = true;
+
+                String[] metricPaths = getMetricPaths(key);
+
+                for (int i = 0; i < statistics_.length; i++) {
+                    BigDecimal metricValue = MathUtilities.getBigDecimalFromDouble(getStatistic(buffer, statistics_[i]), scale);
+                    if ((metricValue != null) && (metricValue.signum() >= 0)) graphiteMetrics.add(new GraphiteMetric(metricPaths[(metricIndex * statistics_.length) + i], metricValue, currentTimestampInSeconds));
+                }
+
+                buffer.clear();
+            }
+
+            if (!hasSamples) {
+                iterator.remove();
+                metricPaths_ByKey_.remove(key);
+            }
+        }
+    }
+
+    private String[] getMetricPaths(String key) {
+
+        String[] metricPaths = metricPaths_ByKey_.get(key);
+        if (metricPaths != null) return metricPaths;
+
+        metricPaths = new String[metricNames_.length * statistics_.length];
+
+        for (int metricIndex = 0; metricIndex < metricNames_.length; metricIndex++) {
+            for (int i = 0; i < statistics_.length; i++) {
+                metricPaths[(metricIndex * statistics_.length) + i] = key + metricNames_[metricIndex] + "-" + STATISTIC_NAMES[statistics_[i]];
+            }
+        }
+
+        metricPaths_ByKey_.put(key, metricPaths);
+        return metricPaths;
+    }
+
+    private static double getStatistic(SampleRingBuffer buffer, int statistic) {
+        if (statistic == STATISTIC_MIN) return buffer.getMin();
+        else if (statistic == STATISTIC_MAX) return buffer.getMax();
+        else if (statistic == STATISTIC_MEAN) return buffer.getMean();
+        else if (statistic == STATISTIC_P95) return buffer.getPercentile(95);
+        else if (statistic == STATISTIC_P99) return buffer.getPercentile(99);
+        else return Double.NaN;
+    }
+
+}
@@ -1,12 +1,12 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.Memory;
 
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileParser;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSnapshot;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSystem;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcTokenCache;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
-import com.pearson.statspoller.utilities.file_utils.FileIo;
-import java.io.BufferedReader;
-import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
@@ -22,7 +22,7 @@ import org.slf4j.LoggerFactory;
  * Reads /proc/meminfo
  * Outputs the raw values from /proc/meminfo, as well as some metrics derived from /proc/meminfo
  */
-public class MemoryCollector extends InternalCollectorFramework implements Runnable {
+public class MemoryCollector extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(MemoryCollector.class.getName());
     
@@ -32,33 +32,30 @@ public class MemoryCollector extends InternalCollectorFramework implements Runna
     private static final int SCALE = 7;
     private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
     
+    private final String procMeminfoPath_;
+    private final ProcFileParser parser_ = new ProcFileParser();
+    private final ProcTokenCache tokenCache_ = new ProcTokenCache();
+    
     public MemoryCollector(boolean isEnabled, long collectionInterval, String metricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles) {
         super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
+        this.procMeminfoPath_ = super.getLinuxProcFileSystemLocation() + "/meminfo";
     }
     
     @Override
-    public void run() {
-         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // get the memory stats in graphite format
-            List<GraphiteMetric> graphiteMetrics = getMemoryMetrics();
-            
-            // output graphite metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
-
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            logger.info("Finished Linux-Memory metric collection routine. " +
-                    "MetricsCollected=" + graphiteMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
-
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
-        }
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
+        
+        // get the memory stats in graphite format
+        List<GraphiteMetric> graphiteMetrics = getMemoryMetrics();
+        
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
 
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+        
+        logger.info("Finished Linux-Memory metric collection routine. " +
+                "MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
     
     private List<GraphiteMetric> getMemoryMetrics() {
@@ -67,10 +64,21 @@ public class MemoryCollector extends InternalCollectorFramework implements Runna
          
         try {
             int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
-            String rawProcMeminfo = FileIo.readFileToString(super.getLinuxProcFileSystemLocation() + "/meminfo");
-            if ((rawProcMeminfo == null) || rawProcMeminfo.isEmpty()) return allGraphiteMetrics;
+            ProcFileSnapshot procMeminfo = ProcFileSystem.acquireSnapshot(procMeminfoPath_);
+            if ((procMeminfo == null) || (procMeminfo.getLength() == 0)) {
+                if (procMeminfo != null) procMeminfo.release();
+                return allGraphiteMetrics;
+            }
+            
+            Map<String,BigDecimal> memMetrics_ByMemFieldName;
+            
+            try {
+                memMetrics_ByMemFieldName = parseRawMeminfo(procMeminfo);
+            }
+            finally {
+                procMeminfo.release();
+            }
             
-            Map<String,BigDecimal> memMetrics_ByMemFieldName = parseRawMeminfo(rawProcMeminfo);
             if (memMetrics_ByMemFieldName == null) return allGraphiteMetrics;
             
             for (String memFieldName : memMetrics_ByMemFieldName.keySet()) {
@@ -93,52 +101,35 @@ public class MemoryCollector extends InternalCollectorFramework implements Runna
         return allGraphiteMetrics;
     }
     
-    private Map<String,BigDecimal> parseRawMeminfo(String rawProcMeminfo) {
+    /*
+    Each line of /proc/meminfo looks like 'MemFree:  1234 kB'. The values are in kilobytes, & are converted to bytes.
+    */
+    private Map<String,BigDecimal> parseRawMeminfo(ProcFileSnapshot procMeminfo) {
         
-        if (rawProcMeminfo == null) {
+        if (procMeminfo == null) {
             return new HashMap<>();
         }
         
         Map<String,BigDecimal> memMetrics_ByMemFieldName = new HashMap<>();
-        BufferedReader reader = null;
 
         try {
-            reader = new BufferedReader(new StringReader(rawProcMeminfo));
-            String currentLine = reader.readLine();
-            
-            while (currentLine != null) {
-                try {
-                    String trimmedCurrentLine = currentLine.trim();
-                    int indexOfFirstColon = trimmedCurrentLine.indexOf(':');
-
-                    if (indexOfFirstColon > 0) {
-                        String memFieldName = trimmedCurrentLine.substring(0, indexOfFirstColon).trim();
-                        String[] rawMemInfoStats_SpaceDelimited = trimmedCurrentLine.split("\\s+");
-                        String memFieldValue = rawMemInfoStats_SpaceDelimited[1].trim();
-                        BigDecimal memFieldValue_Bytes = new BigDecimal(memFieldValue).multiply(KILOBYTES_TO_BYTES_MULTIPLIER);
-                        memMetrics_ByMemFieldName.put(memFieldName, memFieldValue_Bytes);
+            parser_.reset(procMeminfo);
+            
+            while (parser_.hasRemaining()) {
+                if (parser_.nextToken((byte) ':')) {
+                    String memFieldName = parser_.getToken(tokenCache_);
+                    long memFieldValue = parser_.nextLong();
+                    if ((memFieldValue != ProcFileParser.NO_VALUE) && !memFieldName.isEmpty()) {
+                        memMetrics_ByMemFieldName.put(memFieldName, BigDecimal.valueOf(memFieldValue).multiply(KILOBYTES_TO_BYTES_MULTIPLIER));
                     }
                 }
-                catch (Exception e) {
-                    logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-                }
                 
-                currentLine = reader.readLine();
+                parser_.nextLine();
             } 
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
         }
-        finally {
-            try {
-                if (reader != null) {
-                    reader.close();
-                }
-            }
-            catch (Exception e) {
-                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            }
-        }
         
         return memMetrics_ByMemFieldName;
     }
@@ -1,19 +1,22 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.Network;
 
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.internal_metric_collectors.linux.HighResolution.HighResolutionSampleable;
+import com.pearson.statspoller.internal_metric_collectors.linux.HighResolution.HighResolutionSamples;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileParser;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSnapshot;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSystem;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcTokenCache;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
 import com.pearson.statspoller.utilities.file_utils.FileIo;
-import java.io.BufferedReader;
-import java.io.StringReader;
+import com.pearson.statspoller.utilities.math_utils.CounterDeltaTracker;
+import com.pearson.statspoller.utilities.math_utils.MathUtilities;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,49 +25,72 @@ import org.slf4j.LoggerFactory;
  * 
  * Collects network i/o metrics (ex - bandwidth)
  * Gets the raw data from /sys/class/net/(interface)/statistics/ or /proc/net/dev
+ * If high-resolution sampling is enabled, each interface's received & transmitted bytes/second are also sampled between runs (from /proc/net/dev), 
+ * & summarized on each run (see HighResolutionSamples).
  */
-public class NetworkBandwidthCollector extends InternalCollectorFramework implements Runnable {
+public class NetworkBandwidthCollector extends InternalCollectorFramework implements HighResolutionSampleable {
 
     private static final Logger logger = LoggerFactory.getLogger(NetworkBandwidthCollector.class.getName());
     
-    private static final BigDecimal BYTES_TO_MEGABITS_DIVISOR = new BigDecimal("125000");
     private static final int SCALE = 7;
-    private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
+    private static final int NUM_PROC_NET_DEV_FIELDS = 16;
     
-    private static Map<String,NetworkBandwidthStat> previousNetworkStats_ = null;
+    private static final String[] NETWORK_METRIC_NAMES = {".Received-Bytes-Second", ".Transmitted-Bytes-Second", ".Overall-Bytes-Second", 
+        ".Received-Megabits-Second", ".Transmitted-Megabits-Second", ".Overall-Megabits-Second"};
+    
+    private static final String[] HIGH_RESOLUTION_METRIC_NAMES = {".Received-Bytes-Second", ".Transmitted-Bytes-Second"};
+    
+    private final String sysClassNetPath_;
+    private final String procNetDevPath_;
+    private final ProcFileParser parser_ = new ProcFileParser();
+    private final ProcTokenCache tokenCache_ = new ProcTokenCache();
+    private final CounterDeltaTracker networkStatsTracker_ = new CounterDeltaTracker();
+    private final long[] networkCounters_ = new long[NetworkBandwidthStat.NUM_COUNTERS];
+    private final long[] networkCounterDeltas_ = new long[NetworkBandwidthStat.NUM_COUNTERS];
+    private final Map<String,String[]> networkMetricPaths_ByInterfaceName_ = new HashMap<>();
+    
+    // high-resolution sampling runs on the sampler's thread, so it has its own parser & tracker
+    private HighResolutionSamples highResolutionSamples_ = null;
+    private final ProcFileParser highResolutionParser_ = new ProcFileParser();
+    private final ProcTokenCache highResolutionTokenCache_ = new ProcTokenCache();
+    private final CounterDeltaTracker highResolutionTracker_ = new CounterDeltaTracker();
+    private final long[] highResolutionCounters_ = new long[NetworkBandwidthStat.NUM_COUNTERS];
+    private final long[] highResolutionCounterDeltas_ = new long[NetworkBandwidthStat.NUM_COUNTERS];
+    private final Map<String,String> formattedInterfaceNames_ByInterfaceName_ = new HashMap<>();
     
     public NetworkBandwidthCollector(boolean isEnabled, long collectionInterval, String metricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles) {
         super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
+        this.sysClassNetPath_ = super.getLinuxSysFileSystemLocation() + "/class/net";
+        this.procNetDevPath_ = super.getLinuxProcFileSystemLocation() + "/net/dev";
     }
     
     @Override
-    public void run() {
+    public void initializeCollector() {
         resetVariables();
+    }
+    
+    @Override
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // get the network stats in graphite format
-            List<GraphiteMetric> graphiteMetrics = getNetworkMetrics();
-            
-            // output graphite metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
-
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            logger.info("Finished Linux-Network-Bandwidth metric collection routine. " +
-                    "MetricsCollected=" + graphiteMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
-
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
-        }
+        // get the network stats in graphite format
+        List<GraphiteMetric> graphiteMetrics = getNetworkMetrics();
+        
+        // summarize the high-resolution samples that were taken since the previous run
+        if (highResolutionSamples_ != null) highResolutionSamples_.addGraphiteMetrics(graphiteMetrics, SCALE, (int) (System.currentTimeMillis() / 1000));
+        
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
 
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+        
+        logger.info("Finished Linux-Network-Bandwidth metric collection routine. " +
+                "MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
     
     private void resetVariables() {
-        previousNetworkStats_ = null;
+        networkStatsTracker_.clear();
     }
     
     private List<GraphiteMetric> getNetworkMetrics() {
@@ -72,27 +98,19 @@ public class NetworkBandwidthCollector extends InternalCollectorFramework implem
         List<GraphiteMetric> allGraphiteMetrics = new ArrayList<>();
         
         try {
-            Map<String,NetworkBandwidthStat> currentNetworkStats = getCurrentNetworkStats_FromSys(super.getLinuxSysFileSystemLocation());
-            if ((currentNetworkStats == null) || currentNetworkStats.isEmpty()) currentNetworkStats = getCurrentNetworkStats_FromProc(super.getLinuxProcFileSystemLocation());
+            long currentTimestampInMilliseconds = System.currentTimeMillis();
+            
+            int numInterfaces = getNetworkMetrics_FromSys(allGraphiteMetrics);
+            if (numInterfaces == 0) numInterfaces = getNetworkMetrics_FromProc(allGraphiteMetrics);
             
-            if ((currentNetworkStats == null) || currentNetworkStats.keySet().isEmpty()) {
+            if (numInterfaces == 0) {
                 logger.warn("Unabled to read network stats");
-                previousNetworkStats_ = null;
+                networkStatsTracker_.clear();
                 return allGraphiteMetrics;
             }
-            else if (previousNetworkStats_ == null) {
-                previousNetworkStats_ = currentNetworkStats;
-                return allGraphiteMetrics;
-            }
-            
-            Map<String,NetworkBandwidthStat> previousNetworkStats_Local = previousNetworkStats_;
-            previousNetworkStats_ = currentNetworkStats;
             
-            for (String networkInterface : currentNetworkStats.keySet()) {
-                NetworkBandwidthStat networkStat_Previous = previousNetworkStats_Local.get(networkInterface);
-                NetworkBandwidthStat networkStat_Current = currentNetworkStats.get(networkInterface);
-                allGraphiteMetrics.addAll(getBandwidthGraphiteMetricsForInterface(networkStat_Previous, networkStat_Current));
-            }
+            // forget interfaces that were removed. a shared snapshot can be a little older than this run.
+            networkStatsTracker_.removeStaleSamples(currentTimestampInMilliseconds - ProcFileSystem.DEFAULT_MAX_SNAPSHOT_AGE_IN_MS);
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
@@ -101,141 +119,213 @@ public class NetworkBandwidthCollector extends InternalCollectorFramework implem
         return allGraphiteMetrics;
     }
     
-    private static Map<String,NetworkBandwidthStat> getCurrentNetworkStats_FromSys(String sysFileSystemLocation) {
+    /*
+    Reads /sys/class/net/(interface)/statistics/rx_bytes & tx_bytes for every interface. Returns the number of interfaces that were read.
+    */
+    private int getNetworkMetrics_FromSys(List<GraphiteMetric> graphiteMetrics) {
         
-        Map<String,NetworkBandwidthStat> networkStats = new HashMap<>();
+        int numInterfaces = 0;
 
         try {
-            List<String> networkInterfaces = FileIo.getListOfDirectoryNamesInADirectory(sysFileSystemLocation + "/class/net");
+            List<String> networkInterfaces = FileIo.getListOfDirectoryNamesInADirectory(sysClassNetPath_);
 
-            if (networkInterfaces == null) return networkStats;
+            if (networkInterfaces == null) return numInterfaces;
 
             for (String networkInterface : networkInterfaces) {
                 if (networkInterface.equals("lo")) continue;
                 
-                long currentTimestamp = System.currentTimeMillis();
-                String rxBytes = FileIo.readFileToString(sysFileSystemLocation + "/class/net/" + networkInterface + "/statistics/rx_bytes");
-                String txBytes = FileIo.readFileToString(sysFileSystemLocation + "/class/net/" + networkInterface + "/statistics/tx_bytes");
+                ProcFileSnapshot rxBytesSnapshot = ProcFileSystem.acquireSnapshot(sysClassNetPath_ + "/" + networkInterface + "/statistics/rx_bytes");
+                if (rxBytesSnapshot == null) continue;
+                
+                long readTimestampInMs = rxBytesSnapshot.getReadTimestampInMs();
+                long rxBytes = readSysLong(rxBytesSnapshot);
+                long txBytes = readSysLong(ProcFileSystem.acquireSnapshot(sysClassNetPath_ + "/" + networkInterface + "/statistics/tx_bytes"));
 
-                if ((rxBytes == null) || (txBytes == null)) continue;
+                if ((rxBytes == ProcFileParser.NO_VALUE) || (txBytes == ProcFileParser.NO_VALUE)) continue;
 
-                NetworkBandwidthStat networkStat = new NetworkBandwidthStat(networkInterface, currentTimestamp, rxBytes, txBytes);
-                networkStats.put(networkInterface, networkStat);
+                numInterfaces++;
+                addBandwidthMetrics(graphiteMetrics, networkInterface, rxBytes, txBytes, readTimestampInMs);
             }
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
         }
         
-        return networkStats;
+        return numInterfaces;
+    }
+    
+    // reads (& releases) a sysfs snapshot that holds a single number
+    private long readSysLong(ProcFileSnapshot snapshot) {
+        
+        if (snapshot == null) return ProcFileParser.NO_VALUE;
+        
+        try {
+            return parser_.reset(snapshot).nextLong();
+        }
+        finally {
+            snapshot.release();
+        }
     }
     
-    private static Map<String,NetworkBandwidthStat> getCurrentNetworkStats_FromProc(String procFileSystemLocation) {
+    /*
+    /proc/net/dev has two header lines, followed by a line per interface. ex-
+    '  eth0: 1234 56 0 0 0 0 0 0 7890 12 0 0 0 0 0 0'
+    The 1st number is the received bytes, & the 9th number is the transmitted bytes.
+    Returns the number of interfaces that were read.
+    */
+    private int getNetworkMetrics_FromProc(List<GraphiteMetric> graphiteMetrics) {
         
-        Map<String,NetworkBandwidthStat> networkStats = new HashMap<>();
+        int numInterfaces = 0;
 
         try {
-            long currentTimestampInMilliseconds = System.currentTimeMillis();
-            String procNetDev= FileIo.readFileToString(procFileSystemLocation + "/net/dev");
-            if (procNetDev == null) return networkStats;
+            ProcFileSnapshot procNetDev = ProcFileSystem.acquireSnapshot(procNetDevPath_);
+            if (procNetDev == null) return numInterfaces;
 
-            BufferedReader reader = null;
-            
             try {
-                reader = new BufferedReader(new StringReader(procNetDev));
-                String currentLine = reader.readLine();
-                int lineCounter = 0;
+                parser_.reset(procNetDev);
+                parser_.skipLines(2);
                 
-                while (currentLine != null) {
-                    if (lineCounter <= 1) {
-                        currentLine = reader.readLine();
-                        lineCounter++;
-                        continue;
+                while (parser_.hasRemaining()) {
+                    String interfaceName = parser_.nextToken((byte) ':') ? parser_.getToken(tokenCache_) : null;
+                    
+                    long rxBytes = ProcFileParser.NO_VALUE;
+                    long txBytes = ProcFileParser.NO_VALUE;
+                    int numFields = 0;
+                    
+                    while (true) {
+                        long field = parser_.nextLong();
+                        if (field == ProcFileParser.NO_VALUE) break;
+                        if (numFields == 0) rxBytes = field;
+                        else if (numFields == 8) txBytes = field;
+                        numFields++;
                     }
                     
-                    String trimmedCurrentLine = currentLine.trim();                
-                    String[] splitFields = trimmedCurrentLine.split("\\s+");
-                    if (splitFields.length != 17) {
-                        logger.error("Unexpected number of fields in " + procFileSystemLocation + "/net/dev. Expected 17 fields.");
+                    if ((interfaceName == null) || (numFields != NUM_PROC_NET_DEV_FIELDS)) {
+                        logger.error("Unexpected number of fields in " + procNetDevPath_ + ". Expected 17 fields.");
                         break;
                     }
                     
-                    String interfaceName = StringUtils.remove(splitFields[0], ":");
-                    String rxBytes = splitFields[1].trim();
-                    String txBytes = splitFields[9].trim();
-                    if (!interfaceName.isEmpty() && !rxBytes.isEmpty() && !txBytes.isEmpty() && !interfaceName.equals("lo")) {
-                        NetworkBandwidthStat networkBandwidthStat = new NetworkBandwidthStat(interfaceName, currentTimestampInMilliseconds, rxBytes, txBytes);
-                        networkStats.put(interfaceName, networkBandwidthStat);
+                    if (!interfaceName.isEmpty() && !interfaceName.equals("lo")) {
+                        numInterfaces++;
+                        addBandwidthMetrics(graphiteMetrics, interfaceName, rxBytes, txBytes, procNetDev.getReadTimestampInMs());
                     }
                     
-                    currentLine = reader.readLine();
-                    lineCounter++;
+                    parser_.nextLine();
                 } 
             }
-            catch (Exception e) {
-                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            }
             finally {
-                try {
-                    if (reader != null) {
-                        reader.close();
-                    }
-                }
-                catch (Exception e) {
-                    logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-                }
+                procNetDev.release();
             }
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
         }
         
-        return networkStats;
+        return numInterfaces;
+    }
+    
+    /*
+    Compares the interface's byte counters to the counters from the previous run, & outputs the rates
+    */
+    private void addBandwidthMetrics(List<GraphiteMetric> graphiteMetrics, String interfaceName, long rxBytes, long txBytes, long readTimestampInMs) {
+        
+        networkCounters_[NetworkBandwidthStat.RX_BYTES] = rxBytes;
+        networkCounters_[NetworkBandwidthStat.TX_BYTES] = txBytes;
+        
+        long millisecondsBetweenSamples = networkStatsTracker_.update(interfaceName, networkCounters_, NetworkBandwidthStat.NUM_COUNTERS, readTimestampInMs, networkCounterDeltas_);
+        if ((millisecondsBetweenSamples == CounterDeltaTracker.NO_DELTA) || (millisecondsBetweenSamples == 0)) return;
+        
+        NetworkBandwidthStat networkStat = new NetworkBandwidthStat(interfaceName, millisecondsBetweenSamples, 
+                networkCounterDeltas_[NetworkBandwidthStat.RX_BYTES], networkCounterDeltas_[NetworkBandwidthStat.TX_BYTES]);
+        
+        String[] metricPaths = networkMetricPaths_ByInterfaceName_.get(interfaceName);
+        
+        if (metricPaths == null) {
+            String formattedInterfaceName = networkStat.getFormattedInterfaceName();
+            metricPaths = new String[NETWORK_METRIC_NAMES.length];
+            for (int i = 0; i < NETWORK_METRIC_NAMES.length; i++) metricPaths[i] = formattedInterfaceName + NETWORK_METRIC_NAMES[i];
+            networkMetricPaths_ByInterfaceName_.put(interfaceName, metricPaths);
+        }
+        
+        int currentTimestampInSeconds = (int) (readTimestampInMs / 1000);
+        addMetric(graphiteMetrics, metricPaths[0], networkStat.getRxBytesPerSecond(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[1], networkStat.getTxBytesPerSecond(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[2], networkStat.getOverallBytesPerSecond(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[3], networkStat.getRxMegabitsPerSecond(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[4], networkStat.getTxMegabitsPerSecond(), currentTimestampInSeconds);
+        addMetric(graphiteMetrics, metricPaths[5], networkStat.getOverallMegabitsPerSecond(), currentTimestampInSeconds);
     }
     
-    private List<GraphiteMetric> getBandwidthGraphiteMetricsForInterface(NetworkBandwidthStat networkStat_Previous, NetworkBandwidthStat networkStat_Current) {
+    /*
+    Enables high-resolution sampling. Each sampled metric keeps up to 'capacity' samples between runs (see HighResolutionSamples.getCapacity).
+    Must be called before the collector is scheduled.
+    */
+    public void enableHighResolutionSampling(int capacity, int[] statistics) {
+        highResolutionSamples_ = new HighResolutionSamples(HIGH_RESOLUTION_METRIC_NAMES, capacity, statistics);
+    }
+    
+    /*
+    Samples /proc/net/dev (a single read, rather than two files per interface), bypassing the shared snapshot, which can be older than the sampling interval.
+    */
+    @Override
+    public void sampleHighResolution() {
         
-        if ((networkStat_Previous == null) || (networkStat_Current == null)) {
-            return new ArrayList<>();
+        if (highResolutionSamples_ == null) return;
+        
+        ProcFileSnapshot procNetDev = ProcFileSystem.acquireSnapshot(procNetDevPath_, 0);
+        
+        if (procNetDev == null) {
+            highResolutionTracker_.clear();
+            return;
         }
-         
-        List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
-         
+        
         try {
-            int currentTimestampInSeconds = (int) (networkStat_Current.getTimestampMs() / 1000);
-            long timeElapsedBetweenSamplesInSeconds = ((networkStat_Current.getTimestampMs() - networkStat_Previous.getTimestampMs()) / 1000);
-            BigDecimal timeElapsedBetweenSamplesInSeconds_BigDecimal = new BigDecimal(timeElapsedBetweenSamplesInSeconds);
-
-            if (timeElapsedBetweenSamplesInSeconds_BigDecimal.compareTo(BigDecimal.ZERO) <= 0) return graphiteMetrics;
+            highResolutionParser_.reset(procNetDev);
+            highResolutionParser_.skipLines(2);
+            long readTimestampInMs = procNetDev.getReadTimestampInMs();
             
-            BigDecimal rxBytesPerSecond = (networkStat_Current.getRxBytes().subtract(networkStat_Previous.getRxBytes())).divide(timeElapsedBetweenSamplesInSeconds_BigDecimal, SCALE, ROUNDING_MODE);
-            BigDecimal txBytesPerSecond = (networkStat_Current.getTxBytes().subtract(networkStat_Previous.getTxBytes())).divide(timeElapsedBetweenSamplesInSeconds_BigDecimal, SCALE, ROUNDING_MODE);
-            BigDecimal overallBytesPerSecond = rxBytesPerSecond.add(txBytesPerSecond);
-
-            BigDecimal rxMegabitsPerSecond = rxBytesPerSecond.divide(BYTES_TO_MEGABITS_DIVISOR, SCALE, ROUNDING_MODE);
-            BigDecimal txMegabitsPerSecond = txBytesPerSecond.divide(BYTES_TO_MEGABITS_DIVISOR, SCALE, ROUNDING_MODE);
-            BigDecimal overallMegabitsPerSecond = rxMegabitsPerSecond.add(txMegabitsPerSecond);
-
-            if (rxBytesPerSecond.compareTo(BigDecimal.ZERO) == -1) return graphiteMetrics;
-            if (txBytesPerSecond.compareTo(BigDecimal.ZERO) == -1) return graphiteMetrics;
-            if (overallBytesPerSecond.compareTo(BigDecimal.ZERO) == -1) return graphiteMetrics;
-            if (rxMegabitsPerSecond.compareTo(BigDecimal.ZERO) == -1) return graphiteMetrics;
-            if (txMegabitsPerSecond.compareTo(BigDecimal.ZERO) == -1) return graphiteMetrics;
-            if (overallMegabitsPerSecond.compareTo(BigDecimal.ZERO) == -1) return graphiteMetrics;
-        
-            String interfaceName = networkStat_Current.getFormattedInterfaceName();
-            graphiteMetrics.add(new GraphiteMetric(interfaceName + ".Received-Bytes-Second", rxBytesPerSecond, currentTimestampInSeconds)); 
-            graphiteMetrics.add(new GraphiteMetric(interfaceName + ".Transmitted-Bytes-Second", txBytesPerSecond, currentTimestampInSeconds));
-            graphiteMetrics.add(new GraphiteMetric(interfaceName + ".Overall-Bytes-Second", overallBytesPerSecond, currentTimestampInSeconds));
-            graphiteMetrics.add(new GraphiteMetric(interfaceName + ".Received-Megabits-Second", rxMegabitsPerSecond, currentTimestampInSeconds));
-            graphiteMetrics.add(new GraphiteMetric(interfaceName + ".Transmitted-Megabits-Second", txMegabitsPerSecond, currentTimestampInSeconds));
-            graphiteMetrics.add(new GraphiteMetric(interfaceName + ".Overall-Megabits-Second", overallMegabitsPerSecond, currentTimestampInSeconds));
+            while (highResolutionParser_.hasRemaining()) {
+                String interfaceName = highResolutionParser_.nextToken((byte) ':') ? highResolutionParser_.getToken(highResolutionTokenCache_) : null;
+                
+                long rxBytes = ProcFileParser.NO_VALUE;
+                long txBytes = ProcFileParser.NO_VALUE;
+                
+                for (int i = 0; i <= 8; i++) {
+                    long field = highResolutionParser_.nextLong();
+                    if (i == 0) rxBytes = field;
+                    else if (i == 8) txBytes = field;
+                }
+                
+                if ((interfaceName != null) && !interfaceName.isEmpty() && !interfaceName.equals("lo") && (rxBytes != ProcFileParser.NO_VALUE) && (txBytes != ProcFileParser.NO_VALUE)) {
+                    highResolutionCounters_[NetworkBandwidthStat.RX_BYTES] = rxBytes;
+                    highResolutionCounters_[NetworkBandwidthStat.TX_BYTES] = txBytes;
+                    long millisecondsBetweenSamples = highResolutionTracker_.update(interfaceName, highResolutionCounters_, NetworkBandwidthStat.NUM_COUNTERS, readTimestampInMs, highResolutionCounterDeltas_);
+                    
+                    if ((millisecondsBetweenSamples != CounterDeltaTracker.NO_DELTA) && (millisecondsBetweenSamples > 0)) {
+                        String formattedInterfaceName = formattedInterfaceNames_ByInterfaceName_.get(interfaceName);
+                        if (formattedInterfaceName == null) {
+                            formattedInterfaceName = NetworkBandwidthStat.getFormattedInterfaceName(interfaceName);
+                            formattedInterfaceNames_ByInterfaceName_.put(interfaceName, formattedInterfaceName);
+                        }
+                        
+                        highResolutionSamples_.add(formattedInterfaceName, 0, CounterDeltaTracker.getRatePerSecond(highResolutionCounterDeltas_[NetworkBandwidthStat.RX_BYTES], millisecondsBetweenSamples));
+                        highResolutionSamples_.add(formattedInterfaceName, 1, CounterDeltaTracker.getRatePerSecond(highResolutionCounterDeltas_[NetworkBandwidthStat.TX_BYTES], millisecondsBetweenSamples));
+                    }
+                }
+                
+                highResolutionParser_.nextLine();
+            }
+            
+            highResolutionTracker_.removeStaleSamples(readTimestampInMs);
         }
-        catch (Exception e) {
-            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        finally {
+            procNetDev.release();
         }
-        
-        return graphiteMetrics;
     }
     
-}
\ No newline at end of file
+    private static void addMetric(List<GraphiteMetric> graphiteMetrics, String metricPath, double value, int currentTimestampInSeconds) {
+        BigDecimal metricValue = MathUtilities.getBigDecimalFromDouble(value, SCALE);
+        if ((metricValue != null) && (metricValue.signum() >= 0)) graphiteMetrics.add(new GraphiteMetric(metricPath, metricValue, currentTimestampInSeconds));
+    }
+    
+}
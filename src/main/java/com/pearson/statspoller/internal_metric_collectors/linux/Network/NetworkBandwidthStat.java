@@ -1,49 +1,76 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.Network;
 
-import com.pearson.statspoller.utilities.math_utils.MathUtilities;
-import java.math.BigDecimal;
 import org.apache.commons.lang.StringUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * @author Jeffrey Schmidt
+ *
+ * The received & transmitted bytes of a network interface, between two samples
  */
 public class NetworkBandwidthStat {
 
-    private static final Logger logger = LoggerFactory.getLogger(NetworkBandwidthStat.class.getName());
+    public static final int NUM_COUNTERS = 2;
+    public static final int RX_BYTES = 0;
+    public static final int TX_BYTES = 1;
+
+    private static final double BYTES_TO_MEGABITS_DIVISOR = 125000;
 
     private final String interfaceName_;
-    private final long timestampMs_;
-    private final BigDecimal rxBytes_;
-    private final BigDecimal txBytes_;
-    
-    public NetworkBandwidthStat(String interfaceName, long timestampMs, String rxBytes, String txBytes) {
+    private final long millisecondsBetweenSamples_;
+    private final long rxBytes_;
+    private final long txBytes_;
+
+    public NetworkBandwidthStat(String interfaceName, long millisecondsBetweenSamples, long rxBytes, long txBytes) {
         this.interfaceName_ = interfaceName;
-        this.timestampMs_ = timestampMs;
-        this.rxBytes_ = MathUtilities.safeGetBigDecimal(rxBytes);
-        this.txBytes_ = MathUtilities.safeGetBigDecimal(txBytes);
+        this.millisecondsBetweenSamples_ = millisecondsBetweenSamples;
+        this.rxBytes_ = rxBytes;
+        this.txBytes_ = txBytes;
     }
-    
+
     public String getFormattedInterfaceName() {
-        if (interfaceName_ == null) return null;
-        else return StringUtils.remove(interfaceName_, ':').trim();
+        return getFormattedInterfaceName(interfaceName_);
+    }
+
+    public static String getFormattedInterfaceName(String interfaceName) {
+        if (interfaceName == null) return null;
+        else return StringUtils.remove(interfaceName, ':').trim();
     }
-    
+
     public String getInterfaceName() {
         return interfaceName_;
     }
 
-    public long getTimestampMs() {
-        return timestampMs_;
+    public long getMillisecondsBetweenSamples() {
+        return millisecondsBetweenSamples_;
+    }
+
+    private double getPerSecond(long value) {
+        if ((millisecondsBetweenSamples_ <= 0) || (value < 0)) return Double.NaN;
+        return (value * 1000.0) / millisecondsBetweenSamples_;
     }
-    
-    public BigDecimal getRxBytes() {
-        return rxBytes_;
+
+    public double getRxBytesPerSecond() {
+        return getPerSecond(rxBytes_);
+    }
+
+    public double getTxBytesPerSecond() {
+        return getPerSecond(txBytes_);
+    }
+
+    public double getOverallBytesPerSecond() {
+        return getRxBytesPerSecond() + getTxBytesPerSecond();
+    }
+
+    public double getRxMegabitsPerSecond() {
+        return getRxBytesPerSecond() / BYTES_TO_MEGABITS_DIVISOR;
+    }
+
+    public double getTxMegabitsPerSecond() {
+        return getTxBytesPerSecond() / BYTES_TO_MEGABITS_DIVISOR;
     }
 
-    public BigDecimal getTxBytes() {
-        return txBytes_;
+    public double getOverallMegabitsPerSecond() {
+        return getOverallBytesPerSecond() / BYTES_TO_MEGABITS_DIVISOR;
     }
 
 }
@@ -0,0 +1,87 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcFs;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Pool of direct byte buffers for procfs/sysfs reads. Buffer capacities are powers of two, & each capacity has its own free list.
+ * Reading into a direct buffer lets the kernel copy straight into it (no intermediate heap copy), & pooling means a steady-state read allocates nothing.
+ */
+public class ProcBufferPool {
+
+    protected static final int MIN_BUFFER_CAPACITY = 1024;
+    protected static final int MAX_POOLED_BUFFER_CAPACITY = 4 * 1024 * 1024;
+    private static final int MAX_POOLED_BUFFERS_PER_CAPACITY = 64;
+
+    private static final int NUM_BUCKETS = Integer.numberOfTrailingZeros(MAX_POOLED_BUFFER_CAPACITY) - Integer.numberOfTrailingZeros(MIN_BUFFER_CAPACITY) + 1;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer>[] freeBuffers_ = createBuckets();
+    private static final AtomicInteger[] freeBufferCounts_ = createBucketCounts();
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentLinkedQueue<ByteBuffer>[] createBuckets() {
+        ConcurrentLinkedQueue<ByteBuffer>[] buckets = new ConcurrentLinkedQueue[NUM_BUCKETS];
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new ConcurrentLinkedQueue<>();
+        return buckets;
+    }
+
+    private static AtomicInteger[] createBucketCounts() {
+        AtomicInteger[] bucketCounts = new AtomicInteger[NUM_BUCKETS];
+        for (int i = 0; i < bucketCounts.length; i++) bucketCounts[i] = new AtomicInteger(0);
+        return bucketCounts;
+    }
+
+    /*
+    Returns a cleared buffer with a capacity of at least 'minCapacity' (rounded up to a power of two).
+    */
+    public static ByteBuffer acquire(int minCapacity) {
+
+        int capacity = getBufferCapacity(minCapacity);
+        int bucket = getBucket(capacity);
+
+        if (bucket >= 0) {
+            ByteBuffer buffer = freeBuffers_[bucket].poll();
+
+            if (buffer != null) {
+                freeBufferCounts_[bucket].decrementAndGet();
+                buffer.clear();
+                return buffer;
+            }
+        }
+
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    /*
+    Returns a buffer to the pool. The caller must not use the buffer afterwards.
+    */
+    public static void release(ByteBuffer buffer) {
+
+        if (buffer == null) return;
+
+        int bucket = getBucket(buffer.capacity());
+        if ((bucket < 0) || (Integer.bitCount(buffer.capacity()) != 1)) return;
+
+        if (freeBufferCounts_[bucket].incrementAndGet() > MAX_POOLED_BUFFERS_PER_CAPACITY) {
+            freeBufferCounts_[bucket].decrementAndGet();
+            return;
+        }
+
+        freeBuffers_[bucket].offer(buffer);
+    }
+
+    protected static int getBufferCapacity(int minCapacity) {
+        if (minCapacity <= MIN_BUFFER_CAPACITY) return MIN_BUFFER_CAPACITY;
+        if (minCapacity > (1 << 30)) return Integer.MAX_VALUE;
+        return Integer.highestOneBit(minCapacity - 1) << 1;
+    }
+
+    private static int getBucket(int capacity) {
+        if ((capacity < MIN_BUFFER_CAPACITY) || (capacity > MAX_POOLED_BUFFER_CAPACITY)) return -1;
+        return Integer.numberOfTrailingZeros(Integer.highestOneBit(capacity)) - Integer.numberOfTrailingZeros(MIN_BUFFER_CAPACITY);
+    }
+
+}
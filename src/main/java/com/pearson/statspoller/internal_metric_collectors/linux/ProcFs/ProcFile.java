@@ -0,0 +1,141 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcFs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * A procfs/sysfs file that is kept open between reads. Every read is a positional read from offset 0 (which makes the kernel regenerate the file's contents),
+ * into a pooled direct buffer. The buffer starts at the size of the previous read, & grows if the file got bigger.
+ * If a read fails (ex- a device was removed), the channel is closed, & it is re-opened on the next read.
+ */
+public class ProcFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcFile.class.getName());
+
+    private final String path_;
+
+    private FileChannel channel_ = null;
+    private ProcFileSnapshot currentSnapshot_ = null;
+    private int previousReadLength_ = 0;
+    private boolean isClosed_ = false;
+
+    public ProcFile(String path) {
+        this.path_ = path;
+    }
+
+    /*
+    Returns the current snapshot if it was read no more than 'maxAgeInMs' ago, otherwise re-reads the file.
+    Returns null if the file couldn't be read. The caller must release the returned snapshot.
+    */
+    public synchronized ProcFileSnapshot acquireSnapshot(long maxAgeInMs) {
+
+        if (isClosed_) return null;
+
+        long currentTimestampInMs = System.currentTimeMillis();
+
+        if ((currentSnapshot_ != null) && (maxAgeInMs > 0) && ((currentTimestampInMs - currentSnapshot_.getReadTimestampInMs()) <= maxAgeInMs) && currentSnapshot_.acquire()) {
+            return currentSnapshot_;
+        }
+
+        ProcFileSnapshot snapshot = read(currentTimestampInMs);
+        if (snapshot == null) return null;
+
+        if (currentSnapshot_ != null) currentSnapshot_.release();
+        currentSnapshot_ = snapshot;
+        snapshot.acquire();
+
+        return snapshot;
+    }
+
+    private ProcFileSnapshot read(long currentTimestampInMs) {
+
+        try {
+            if (channel_ == null) channel_ = FileChannel.open(Paths.get(path_), StandardOpenOption.READ);
+
+            ByteBuffer buffer = readFully(channel_, ProcBufferPool.acquire(previousReadLength_ + 1));
+            previousReadLength_ = buffer.position();
+
+            return new ProcFileSnapshot(buffer, buffer.position(), currentTimestampInMs);
+        }
+        catch (Exception e) {
+            logger.debug("Message=\"Unable to read file\", File=\"" + path_ + "\", Exception=\"" + e.toString() + "\"");
+            closeChannel();
+            return null;
+        }
+    }
+
+    /*
+    Reads the whole file (from offset 0) into 'buffer', which is cleared first. If the file doesn't fit, the contents are moved into larger pooled buffers.
+    Returns the buffer that holds the contents (which isn't 'buffer' if it had to grow), positioned after the last byte that was read.
+    If the read fails, every buffer has already been released back to the pool, so the caller must not use (or release) 'buffer' afterwards.
+    */
+    public static ByteBuffer readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+
+        boolean isRead = false;
+
+        try {
+            buffer.clear();
+            long position = 0;
+
+            while (true) {
+                int numBytesRead = channel.read(buffer, position);
+                if (numBytesRead < 0) break;
+                position += numBytesRead;
+
+                if (!buffer.hasRemaining()) {
+                    ByteBuffer largerBuffer = ProcBufferPool.acquire(buffer.capacity() + 1);
+                    buffer.flip();
+                    largerBuffer.put(buffer);
+                    ProcBufferPool.release(buffer);
+                    buffer = largerBuffer;
+                }
+                else if (numBytesRead == 0) {
+                    break;
+                }
+            }
+
+            isRead = true;
+            return buffer;
+        }
+        finally {
+            if (!isRead) ProcBufferPool.release(buffer);
+        }
+    }
+
+    public synchronized void close() {
+
+        isClosed_ = true;
+        closeChannel();
+
+        if (currentSnapshot_ != null) {
+            currentSnapshot_.release();
+            currentSnapshot_ = null;
+        }
+    }
+
+    private void closeChannel() {
+
+        if (channel_ == null) return;
+
+        try {
+            channel_.close();
+        }
+        catch (Exception e) {
+            logger.debug("Message=\"Unable to close file\", File=\"" + path_ + "\", Exception=\"" + e.toString() + "\"");
+        }
+
+        channel_ = null;
+    }
+
+    public String getPath() {
+        return path_;
+    }
+
+}
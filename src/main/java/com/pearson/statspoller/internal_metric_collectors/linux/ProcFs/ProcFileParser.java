@@ -0,0 +1,211 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcFs;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * A cursor over the bytes of a ProcFileSnapshot. Parses the whitespace delimited, line oriented formats that procfs & sysfs use,
+ * directly from the snapshot's buffer. Numbers are parsed without creating Strings, & names (ex- cpu names, device names) go through a ProcTokenCache.
+ *
+ * A parser isn't thread-safe, but it can be reused (see 'reset'), so a collector can keep one for its lifetime.
+ */
+public class ProcFileParser {
+
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    private ProcFileSnapshot snapshot_ = null;
+    private int position_ = 0;
+    private int limit_ = 0;
+    private int tokenStart_ = 0;
+    private int tokenEnd_ = 0;
+
+    public ProcFileParser() {
+    }
+
+    public ProcFileParser(ProcFileSnapshot snapshot) {
+        reset(snapshot);
+    }
+
+    public ProcFileParser reset(ProcFileSnapshot snapshot) {
+        this.snapshot_ = snapshot;
+        this.position_ = 0;
+        this.limit_ = (snapshot == null) ? 0 : snapshot.getLength();
+        this.tokenStart_ = 0;
+        this.tokenEnd_ = 0;
+        return this;
+    }
+
+    public static byte[] getBytes(String string) {
+        return string.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public boolean hasRemaining() {
+        return position_ < limit_;
+    }
+
+    /*
+    Moves to the start of the next line. Returns false if there are no more lines.
+    */
+    public boolean nextLine() {
+        while ((position_ < limit_) && (snapshot_.get(position_++) != '\n'));
+        return position_ < limit_;
+    }
+
+    public void skipLines(int numLines) {
+        for (int i = 0; (i < numLines) && hasRemaining(); i++) nextLine();
+    }
+
+    public void skipSpaces() {
+        while (position_ < limit_) {
+            byte b = snapshot_.get(position_);
+            if ((b != ' ') && (b != '\t')) break;
+            position_++;
+        }
+    }
+
+    public boolean isEndOfLine() {
+        skipSpaces();
+        return (position_ >= limit_) || (snapshot_.get(position_) == '\n');
+    }
+
+    /*
+    Returns true if the rest of the line (after any leading spaces) starts with 'prefix'. Doesn't move the cursor past the spaces.
+    */
+    public boolean lineStartsWith(byte[] prefix) {
+
+        skipSpaces();
+        if ((position_ + prefix.length) > limit_) return false;
+
+        for (int i = 0; i < prefix.length; i++) {
+            if (snapshot_.get(position_ + i) != prefix[i]) return false;
+        }
+
+        return true;
+    }
+
+    /*
+    Moves to the next whitespace delimited token on the current line. Returns false if there are no more tokens on the line.
+    */
+    public boolean nextToken() {
+        return nextToken((byte) ' ');
+    }
+
+    /*
+    Moves to the next token on the current line. The token ends at whitespace, or at 'delimiter' (which is skipped).
+    Returns false if there are no more tokens on the line.
+    */
+    public boolean nextToken(byte delimiter) {
+
+        if (isEndOfLine()) return false;
+
+        tokenStart_ = position_;
+
+        while (position_ < limit_) {
+            byte b = snapshot_.get(position_);
+            if ((b == ' ') || (b == '\t') || (b == '\n') || (b == delimiter)) break;
+            position_++;
+        }
+
+        tokenEnd_ = position_;
+        if ((position_ < limit_) && (snapshot_.get(position_) == delimiter)) position_++;
+
+        return true;
+    }
+
+    public int getTokenLength() {
+        return tokenEnd_ - tokenStart_;
+    }
+
+    public boolean tokenEquals(byte[] bytes) {
+        return (getTokenLength() == bytes.length) && tokenStartsWith(bytes);
+    }
+
+    public boolean tokenStartsWith(byte[] prefix) {
+
+        if (getTokenLength() < prefix.length) return false;
+
+        for (int i = 0; i < prefix.length; i++) {
+            if (snapshot_.get(tokenStart_ + i) != prefix[i]) return false;
+        }
+
+        return true;
+    }
+
+    /*
+    Returns the current token as a String. Tokens that were seen before return the same (cached) String.
+    */
+    public String getToken(ProcTokenCache tokenCache) {
+        return tokenCache.get(snapshot_, tokenStart_, tokenEnd_);
+    }
+
+    /*
+    Parses the next token on the current line as a long. Returns NO_VALUE if there are no more tokens on the line, or if the token isn't an integer.
+    */
+    public long nextLong() {
+
+        if (!nextToken()) return NO_VALUE;
+
+        int index = tokenStart_;
+        boolean isNegative = false;
+
+        if (snapshot_.get(index) == '-') {
+            isNegative = true;
+            index++;
+        }
+
+        if (index >= tokenEnd_) return NO_VALUE;
+
+        long value = 0;
+
+        for (; index < tokenEnd_; index++) {
+            int digit = snapshot_.get(index) - '0';
+            if ((digit < 0) || (digit > 9)) return NO_VALUE;
+            value = (value * 10) + digit;
+        }
+
+        return isNegative ? -value : value;
+    }
+
+    /*
+    Parses the next token on the current line as a decimal (ex- '12345.67'). Returns null if there are no more tokens on the line, or if the token isn't a number.
+    */
+    public BigDecimal nextDecimal() {
+
+        if (!nextToken()) return null;
+
+        int index = tokenStart_;
+        boolean isNegative = false;
+
+        if (snapshot_.get(index) == '-') {
+            isNegative = true;
+            index++;
+        }
+
+        long unscaledValue = 0;
+        int scale = -1;
+        int numDigits = 0;
+
+        for (; index < tokenEnd_; index++) {
+            byte b = snapshot_.get(index);
+
+            if ((b == '.') && (scale == -1)) {
+                scale = 0;
+                continue;
+            }
+
+            int digit = b - '0';
+            if ((digit < 0) || (digit > 9) || (numDigits >= 18)) return null;
+
+            unscaledValue = (unscaledValue * 10) + digit;
+            numDigits++;
+            if (scale >= 0) scale++;
+        }
+
+        if (numDigits == 0) return null;
+
+        return BigDecimal.valueOf(isNegative ? -unscaledValue : unscaledValue, Math.max(scale, 0));
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcFs;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * The contents of a procfs/sysfs file from a single read, held in a pooled direct buffer.
+ * Snapshots are shared between the collectors that read the same file in the same tick, so they're reference counted.
+ * Every 'acquire' (ex- ProcFileSystem.acquireSnapshot) must be paired with a 'release'. The buffer goes back to the pool once
+ * the snapshot has been replaced by a newer read & nobody is still parsing it.
+ */
+public class ProcFileSnapshot {
+
+    private final ByteBuffer buffer_;
+    private final int length_;
+    private final long readTimestampInMs_;
+
+    private int referenceCount_ = 1; // the ProcFile that made this snapshot holds a reference until the snapshot is replaced
+
+    protected ProcFileSnapshot(ByteBuffer buffer, int length, long readTimestampInMs) {
+        this.buffer_ = buffer;
+        this.length_ = length;
+        this.readTimestampInMs_ = readTimestampInMs;
+    }
+
+    /*
+    Returns false if the snapshot was already fully released (its buffer may have been reused), in which case it must not be read.
+    */
+    protected synchronized boolean acquire() {
+        if (referenceCount_ <= 0) return false;
+        referenceCount_++;
+        return true;
+    }
+
+    public void release() {
+
+        boolean isFree;
+
+        synchronized (this) {
+            if (referenceCount_ <= 0) return;
+            referenceCount_--;
+            isFree = (referenceCount_ == 0);
+        }
+
+        if (isFree) ProcBufferPool.release(buffer_);
+    }
+
+    public byte get(int index) {
+        return buffer_.get(index);
+    }
+
+    public int getLength() {
+        return length_;
+    }
+
+    public long getReadTimestampInMs() {
+        return readTimestampInMs_;
+    }
+
+}
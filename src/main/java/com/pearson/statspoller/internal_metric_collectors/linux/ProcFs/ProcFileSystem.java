@@ -0,0 +1,65 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcFs;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Shared access to procfs/sysfs files. Every file that a collector reads is kept open (see ProcFile), & the most recent read of each file is shared:
+ * collectors that read the same file within the same tick (ex- aligned collectors that all run on the same boundary) parse the same snapshot,
+ * rather than each one making the kernel regenerate the file.
+ *
+ * Usage:
+ *   ProcFileSnapshot snapshot = ProcFileSystem.acquireSnapshot(path);
+ *   try { ...parse with a ProcFileParser... } finally { snapshot.release(); }
+ */
+public class ProcFileSystem {
+
+    // reads that are this close together are considered to be part of the same tick
+    public static final long DEFAULT_MAX_SNAPSHOT_AGE_IN_MS = 250;
+
+    private static final ConcurrentHashMap<String,ProcFile> procFiles_ = new ConcurrentHashMap<>();
+
+    public static ProcFileSnapshot acquireSnapshot(String path) {
+        return acquireSnapshot(path, DEFAULT_MAX_SNAPSHOT_AGE_IN_MS);
+    }
+
+    /*
+    Returns a snapshot of the file that is no more than 'maxAgeInMs' old (a 'maxAgeInMs' of 0 always re-reads the file).
+    Returns null if the file couldn't be read. The caller must release the returned snapshot.
+    */
+    public static ProcFileSnapshot acquireSnapshot(String path, long maxAgeInMs) {
+
+        if (path == null) return null;
+
+        ProcFile procFile = procFiles_.get(path);
+
+        if (procFile == null) {
+            ProcFile newProcFile = new ProcFile(path);
+            procFile = procFiles_.putIfAbsent(path, newProcFile);
+            if (procFile == null) procFile = newProcFile;
+        }
+
+        ProcFileSnapshot snapshot = procFile.acquireSnapshot(maxAgeInMs);
+
+        // files that can't be read (ex- a network interface that was removed) aren't kept open
+        if (snapshot == null) {
+            procFiles_.remove(path, procFile);
+            procFile.close();
+        }
+
+        return snapshot;
+    }
+
+    public static int getOpenFileCount() {
+        return procFiles_.size();
+    }
+
+    public static void closeAll() {
+        for (String path : procFiles_.keySet()) {
+            ProcFile procFile = procFiles_.remove(path);
+            if (procFile != null) procFile.close();
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcFs;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Maps byte sequences from procfs/sysfs files to Strings. The names in these files (ex- 'cpu3', 'MemFree', 'sda') are the same on every read,
+ * so after the first read, a name is looked up by its bytes & the cached String is returned (no allocation).
+ *
+ * Not thread-safe. Each collector has its own cache (a collector's runs never overlap).
+ */
+public class ProcTokenCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final int maxEntries_;
+
+    private Entry[] table_ = new Entry[64];
+    private int size_ = 0;
+
+    public ProcTokenCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ProcTokenCache(int maxEntries) {
+        this.maxEntries_ = Math.max(maxEntries, 1);
+    }
+
+    public String get(ProcFileSnapshot snapshot, int start, int end) {
+
+        int hash = 1;
+        for (int i = start; i < end; i++) hash = (31 * hash) + snapshot.get(i);
+
+        int index = hash & (table_.length - 1);
+
+        for (Entry entry = table_[index]; entry != null; entry = entry.next_) {
+            if ((entry.hash_ == hash) && entry.isMatch(snapshot, start, end)) return entry.value_;
+        }
+
+        // the entries are bounded so that files with unbounded names (ex- per-process files) can't grow the cache forever
+        if (size_ >= maxEntries_) clear();
+        else if (size_ >= (table_.length * 3 / 4)) resize();
+
+        byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) bytes[i - start] = snapshot.get(i);
+
+        Entry entry = new Entry(hash, bytes, new String(bytes, StandardCharsets.US_ASCII));
+        index = hash & (table_.length - 1);
+        entry.next_ = table_[index];
+        table_[index] = entry;
+        size_++;
+
+        return entry.value_;
+    }
+
+    public void clear() {
+        table_ = new Entry[64];
+        size_ = 0;
+    }
+
+    public int size() {
+        return size_;
+    }
+
+    private void resize() {
+
+        Entry[] newTable = new Entry[table_.length * 2];
+
+        for (Entry entry : table_) {
+            while (entry != null) {
+                Entry next = entry.next_;
+                int index = entry.hash_ & (newTable.length - 1);
+                entry.next_ = newTable[index];
+                newTable[index] = entry;
+                entry = next;
+            }
+        }
+
+        table_ = newTable;
+    }
+
+    private static class Entry {
+
+        private final int hash_;
+        private final byte[] bytes_;
+        private final String value_;
+        private Entry next_ = null;
+
+        public Entry(int hash, byte[] bytes, String value) {
+            this.hash_ = hash;
+            this.bytes_ = bytes;
+            this.value_ = value;
+        }
+
+        private boolean isMatch(ProcFileSnapshot snapshot, int start, int end) {
+
+            if (bytes_.length != (end - start)) return false;
+
+            for (int i = 0; i < bytes_.length; i++) {
+                if (bytes_[i] != snapshot.get(start + i)) return false;
+            }
+
+            return true;
+        }
+
+    }
+
+}
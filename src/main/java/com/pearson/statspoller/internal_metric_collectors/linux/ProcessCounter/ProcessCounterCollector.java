@@ -1,18 +1,16 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.ProcessCounter;
 
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcessTable.ProcessTable;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcessTable.ProcessTableSnapshot;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
-import com.pearson.statspoller.utilities.file_utils.FileIo;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.regex.Pattern;
-import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,16 +18,17 @@ import org.slf4j.LoggerFactory;
  * @author Jeffrey Schmidt
  * 
  * Counts the number of processes that are running that match a user-specified regex (matched against process cmdline)
- * Based on raw data from /proc/(pid)/cmdline
+ * Based on raw data from /proc/(pid)/cmdline (read through the shared ProcessTable scan)
  */
-public class ProcessCounterCollector extends InternalCollectorFramework implements Runnable {
+public class ProcessCounterCollector extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(ProcessCounterCollector.class.getName());
     
     private final List<String[]> processCounterPrefixesAndRegexes_;
     
-    private final Map<String,Pattern> regexPatterns_ = new HashMap<>();
     private final List<String[]> processCounterPrefixesAndRegexes_Trimmed_;
+    private final ProcessCounterMatcher processCounterMatcher_;
+    private final int[] matchingRules_;
 
     public ProcessCounterCollector(boolean isEnabled, long collectionInterval, String metricPrefix, 
             String outputFilePathAndFilename, boolean writeOutputFiles, List<String[]> processCounterPrefixesAndRegexes) {
@@ -38,53 +37,42 @@ public class ProcessCounterCollector extends InternalCollectorFramework implemen
         this.processCounterPrefixesAndRegexes_ = processCounterPrefixesAndRegexes;
         this.processCounterPrefixesAndRegexes_Trimmed_ = createProcessCounterPrefixesAndRegexes_Trimmed();
         
-        createPatternsFromRegexStrings();
+        this.processCounterMatcher_ = createProcessCounterMatcher();
+        this.matchingRules_ = new int[processCounterMatcher_.getNumRules()];
+        
+        if (!processCounterPrefixesAndRegexes_Trimmed_.isEmpty()) ProcessTable.registerFields(ProcessTable.FIELD_CMDLINE);
     }
     
     @Override
-    public void run() {
-         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // read the stats from disk
-            int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
-            Map<String,AtomicLong> processCountsByProcessIdentifer = getProcessCountsByProcessIdentifer();
-            
-            // get the stats in graphite format
-            List<GraphiteMetric> graphiteMetrics = createGraphiteMetrics(processCountsByProcessIdentifer, currentTimestampInSeconds);
-
-            // output graphite metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
-
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            logger.info("Finished Linux-ProcessCounter metric collection routine. " +
-                    "MetricsCollected=" + graphiteMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
+        
+        // read the stats from disk
+        int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
+        Map<String,AtomicLong> processCountsByProcessIdentifer = getProcessCountsByProcessIdentifer();
+        
+        // get the stats in graphite format
+        List<GraphiteMetric> graphiteMetrics = createGraphiteMetrics(processCountsByProcessIdentifer, currentTimestampInSeconds);
 
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
-        }
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
 
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+        
+        logger.info("Finished Linux-ProcessCounter metric collection routine. " +
+                "MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
     
-    private void createPatternsFromRegexStrings() {
-
-        if ((processCounterPrefixesAndRegexes_ == null) || processCounterPrefixesAndRegexes_.isEmpty()) {
-            return;
-        }
+    private ProcessCounterMatcher createProcessCounterMatcher() {
         
-        for (String[] processCounterPrefixAndRegex : processCounterPrefixesAndRegexes_) {
-            try {
-                Pattern pattern = Pattern.compile(processCounterPrefixAndRegex[1]);
-                regexPatterns_.put(processCounterPrefixAndRegex[1], pattern);
-            }
-            catch (Exception e) {
-                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            }
+        List<String> regexes = new ArrayList<>();
+        
+        for (String[] processCounterPrefixAndRegex : processCounterPrefixesAndRegexes_Trimmed_) {
+            regexes.add(processCounterPrefixAndRegex[1]);
         }
+        
+        return new ProcessCounterMatcher(regexes);
     }
     
     private List<String[]> createProcessCounterPrefixesAndRegexes_Trimmed() {
@@ -119,37 +107,31 @@ public class ProcessCounterCollector extends InternalCollectorFramework implemen
         Map<String,AtomicLong> processCountsByProcessIdentifer = new HashMap<>();
         
         try {
-            for (String[] processCounterPrefixAndRegex : processCounterPrefixesAndRegexes_Trimmed_) {
-                processCountsByProcessIdentifer.put(processCounterPrefixAndRegex[0], new AtomicLong(0));
+            // rules with the same identifier share a count
+            AtomicLong[] processCounts_ByRule = new AtomicLong[processCounterPrefixesAndRegexes_Trimmed_.size()];
+            
+            for (int i = 0; i < processCounts_ByRule.length; i++) {
+                String processIdentifier = processCounterPrefixesAndRegexes_Trimmed_.get(i)[0];
+                AtomicLong processCount = processCountsByProcessIdentifer.get(processIdentifier);
+                
+                if (processCount == null) {
+                    processCount = new AtomicLong(0);
+                    processCountsByProcessIdentifer.put(processIdentifier, processCount);
+                }
+                
+                processCounts_ByRule[i] = processCount;
             }
 
-            List<String> directories = FileIo.getListOfDirectoryNamesInADirectory(super.getLinuxProcFileSystemLocation());
-            if (directories == null) return processCountsByProcessIdentifer;
+            ProcessTableSnapshot processTable = ProcessTable.getSnapshot(super.getLinuxProcFileSystemLocation(), ProcessTable.FIELD_CMDLINE);
+            if (processTable == null) return processCountsByProcessIdentifer;
 
-            for (String directory : directories) {
-                if (directory.isEmpty() || !StringUtils.isNumeric(directory)) continue;
+            // each cmdline is scanned once, for every rule
+            for (int i = 0; i < processTable.size(); i++) {
+                String pidCmdLine_SpaceDelimiters = processTable.getCmdline(i);
+                if ((pidCmdLine_SpaceDelimiters == null) || pidCmdLine_SpaceDelimiters.isEmpty()) continue;
                 
-                String pidCmdLine = FileIo.readFileToString(super.getLinuxProcFileSystemLocation() + "/" + directory + "/cmdline");
-                if ((pidCmdLine == null) || pidCmdLine.isEmpty()) continue;
-                
-                String pidCmdLine_SpaceDelimiters = pidCmdLine.replace('\0', ' ').trim();
-                if (pidCmdLine_SpaceDelimiters.isEmpty()) continue;
-                
-                for (String[] processCounterPrefixAndRegex : processCounterPrefixesAndRegexes_Trimmed_) {
-                    try {
-                        Pattern pattern = regexPatterns_.get(processCounterPrefixAndRegex[1]);
-                        if (pattern == null) continue;
-                        
-                        boolean isMatch = pattern.matcher(pidCmdLine_SpaceDelimiters).find();
-                        if (isMatch) {
-                            AtomicLong processCount = processCountsByProcessIdentifer.get(processCounterPrefixAndRegex[0]);
-                            if (processCount != null) processCount.getAndIncrement();
-                        }
-                    }
-                    catch (Exception e) {
-                        logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-                    }
-                }
+                int numMatchingRules = processCounterMatcher_.match(pidCmdLine_SpaceDelimiters, matchingRules_);
+                for (int j = 0; j < numMatchingRules; j++) processCounts_ByRule[matchingRules_[j]].getAndIncrement();
             }
         }
         catch (Exception e) {
@@ -0,0 +1,430 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcessCounter;
+
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Matches a process's cmdline against every process_counter_regex rule, with a single scan of the cmdline.
+ *
+ * When the matcher is created, each rule's regex is classified:
+ *   Literal rules (no regex metacharacters, ex- 'java', 'mysqld') are matched by an Aho-Corasick automaton, so they never run a regex.
+ *   Other rules that contain a literal that every match must contain (ex- 'tomcat' in 'java.*tomcat') use that literal as a pre-filter.
+ *     The literal is added to the same automaton, & the rule's regex only runs on cmdlines that contain the literal.
+ *   Rules with no required literal (ex- top-level alternations, inline flags) always run their regex.
+ *
+ * The matching rules are returned in rule order, & are the same rules that Pattern.matcher(cmdline).find() would match.
+ * Not thread-safe. Each collector has its own matcher.
+ */
+public class ProcessCounterMatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessCounterMatcher.class.getName());
+
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+    private static final int ASCII_SIZE = 128;
+    private static final int NO_LITERAL = -1;
+
+    private final int numRules_;
+    private final Pattern[] patterns_;
+    private final Matcher[] matchers_;
+    private final int[] ruleLiterals_; // the literal that a rule needs, or NO_LITERAL
+    private final boolean[] isLiteralRule_; // the literal is the whole rule (so the regex never needs to run)
+
+    // aho-corasick automaton. ascii transitions are a dense table, other chars are in a map (key = state << 16 | char).
+    private final int[][] asciiTransitions_;
+    private final Map<Integer,Integer> otherTransitions_;
+    private final int[] failureStates_;
+    private final int[][] outputLiterals_; // the literals that end at a state (including via failure links)
+
+    private final int[] literalFoundStamps_;
+    private int stamp_ = 0;
+
+    /*
+    'regexes' are the rules' regexes, by rule index. Rules that have an invalid regex (or a null regex) never match.
+    */
+    public ProcessCounterMatcher(List<String> regexes) {
+
+        this.numRules_ = (regexes == null) ? 0 : regexes.size();
+        this.patterns_ = new Pattern[numRules_];
+        this.matchers_ = new Matcher[numRules_];
+        this.ruleLiterals_ = new int[numRules_];
+        this.isLiteralRule_ = new boolean[numRules_];
+
+        Map<String,Integer> literalIds = new HashMap<>();
+        List<String> literals = new ArrayList<>();
+
+        for (int i = 0; i < numRules_; i++) {
+            ruleLiterals_[i] = NO_LITERAL;
+            String regex = regexes.get(i);
+            if (regex == null) continue;
+
+            try {
+                patterns_[i] = Pattern.compile(regex);
+            }
+            catch (Exception e) {
+                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+                continue;
+            }
+
+            String literal = getLiteral(regex);
+            isLiteralRule_[i] = (literal != null) && !literal.isEmpty();
+            if (!isLiteralRule_[i]) literal = getRequiredLiteral(regex);
+
+            if ((literal == null) || literal.isEmpty()) {
+                matchers_[i] = patterns_[i].matcher("");
+                continue;
+            }
+
+            Integer literalId = literalIds.get(literal);
+
+            if (literalId == null) {
+                literalId = literals.size();
+                literalIds.put(literal, literalId);
+                literals.add(literal);
+            }
+
+            ruleLiterals_[i] = literalId;
+            if (!isLiteralRule_[i]) matchers_[i] = patterns_[i].matcher("");
+        }
+
+        // build the trie
+        List<int[]> asciiTransitions = new ArrayList<>();
+        List<int[]> outputLiterals = new ArrayList<>();
+        this.otherTransitions_ = new HashMap<>();
+        asciiTransitions.add(newTransitions());
+        outputLiterals.add(null);
+
+        for (int literalId = 0; literalId < literals.size(); literalId++) {
+            String literal = literals.get(literalId);
+            int state = 0;
+
+            for (int j = 0; j < literal.length(); j++) {
+                char c = literal.charAt(j);
+                int nextState = getTransition(asciiTransitions, state, c);
+
+                if (nextState < 0) {
+                    nextState = asciiTransitions.size();
+                    asciiTransitions.add(newTransitions());
+                    outputLiterals.add(null);
+                    if (c < ASCII_SIZE) asciiTransitions.get(state)[c] = nextState;
+                    else otherTransitions_.put((state << 16) | c, nextState);
+                }
+
+                state = nextState;
+            }
+
+            outputLiterals.set(state, appendLiteral(outputLiterals.get(state), literalId));
+        }
+
+        int numStates = asciiTransitions.size();
+        this.asciiTransitions_ = asciiTransitions.toArray(new int[numStates][]);
+        this.outputLiterals_ = outputLiterals.toArray(new int[numStates][]);
+        this.failureStates_ = new int[numStates];
+        this.literalFoundStamps_ = new int[literals.size()];
+
+        buildFailureStates();
+    }
+
+    /*
+    Writes the indexes of the rules that match 'cmdline' into 'matchingRules' (which must have room for every rule), in rule order.
+    Returns the number of matching rules.
+    */
+    public int match(String cmdline, int[] matchingRules) {
+
+        if ((cmdline == null) || (numRules_ == 0)) return 0;
+
+        findLiterals(cmdline);
+
+        int numMatchingRules = 0;
+
+        for (int i = 0; i < numRules_; i++) {
+            if (patterns_[i] == null) continue;
+
+            int literalId = ruleLiterals_[i];
+            if ((literalId != NO_LITERAL) && (literalFoundStamps_[literalId] != stamp_)) continue;
+
+            if (isLiteralRule_[i] || matchers_[i].reset(cmdline).find()) {
+                matchingRules[numMatchingRules++] = i;
+            }
+        }
+
+        return numMatchingRules;
+    }
+
+    public int getNumRules() {
+        return numRules_;
+    }
+
+    // marks every literal that occurs in 'cmdline' with the current stamp
+    private void findLiterals(String cmdline) {
+
+        stamp_++;
+
+        if (stamp_ == Integer.MAX_VALUE) {
+            Arrays.fill(literalFoundStamps_, 0);
+            stamp_ = 1;
+        }
+
+        if (literalFoundStamps_.length == 0) return;
+
+        int state = 0;
+
+        for (int i = 0; i < cmdline.length(); i++) {
+            char c = cmdline.charAt(i);
+            int nextState = getTransition(state, c);
+
+            while ((nextState < 0) && (state != 0)) {
+                state = failureStates_[state];
+                nextState = getTransition(state, c);
+            }
+
+            state = (nextState < 0) ? 0 : nextState;
+
+            int[] outputLiterals = outputLiterals_[state];
+            if (outputLiterals == null) continue;
+            for (int literalId : outputLiterals) literalFoundStamps_[literalId] = stamp_;
+        }
+    }
+
+    private int getTransition(int state, char c) {
+        if (c < ASCII_SIZE) return asciiTransitions_[state][c];
+        Integer nextState = otherTransitions_.get((state << 16) | c);
+        return (nextState == null) ? -1 : nextState;
+    }
+
+    private int getTransition(List<int[]> asciiTransitions, int state, char c) {
+        if (c < ASCII_SIZE) return asciiTransitions.get(state)[c];
+        Integer nextState = otherTransitions_.get((state << 16) | c);
+        return (nextState == null) ? -1 : nextState;
+    }
+
+    // breadth-first, so a state's failure state is always finished before the state itself
+    private void buildFailureStates() {
+
+        List<List<int[]>> childrenByState = getChildrenByState();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+        for (int[] child : childrenByState.get(0)) {
+            failureStates_[child[1]] = 0;
+            queue.add(child[1]);
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+
+            for (int[] child : childrenByState.get(state)) {
+                char c = (char) child[0];
+                int childState = child[1];
+
+                int failureState = failureStates_[state];
+                while ((getTransition(failureState, c) < 0) && (failureState != 0)) failureState = failureStates_[failureState];
+                int failureTransition = getTransition(failureState, c);
+                failureStates_[childState] = (failureTransition < 0) ? 0 : failureTransition;
+
+                int[] failureOutputs = outputLiterals_[failureStates_[childState]];
+                if (failureOutputs != null) {
+                    for (int literalId : failureOutputs) outputLiterals_[childState] = appendLiteral(outputLiterals_[childState], literalId);
+                }
+
+                queue.add(childState);
+            }
+        }
+    }
+
+    // the (char, child state) pairs of every state
+    private List<List<int[]>> getChildrenByState() {
+
+        List<List<int[]>> childrenByState = new ArrayList<>();
+        for (int i = 0; i < asciiTransitions_.length; i++) childrenByState.add(new ArrayList<int[]>());
+
+        for (int state = 0; state < asciiTransitions_.length; state++) {
+            for (int c = 0; c < ASCII_SIZE; c++) {
+                int childState = asciiTransitions_[state][c];
+                if (childState >= 0) childrenByState.get(state).add(new int[] {c, childState});
+            }
+        }
+
+        for (Map.Entry<Integer,Integer> transition : otherTransitions_.entrySet()) {
+            childrenByState.get(transition.getKey() >>> 16).add(new int[] {transition.getKey() & 0xFFFF, transition.getValue()});
+        }
+
+        return childrenByState;
+    }
+
+    private static int[] newTransitions() {
+        int[] transitions = new int[ASCII_SIZE];
+        Arrays.fill(transitions, -1);
+        return transitions;
+    }
+
+    private static int[] appendLiteral(int[] literalIds, int literalId) {
+
+        if (literalIds == null) return new int[] {literalId};
+
+        for (int existingLiteralId : literalIds) {
+            if (existingLiteralId == literalId) return literalIds;
+        }
+
+        int[] newLiteralIds = Arrays.copyOf(literalIds, literalIds.length + 1);
+        newLiteralIds[literalIds.length] = literalId;
+        return newLiteralIds;
+    }
+
+    /*
+    Returns the text that a regex matches, if the regex is a plain literal (escaped punctuation, like '\.', is allowed). Otherwise returns null.
+    */
+    protected static String getLiteral(String regex) {
+
+        if (regex == null) return null;
+
+        StringBuilder literal = new StringBuilder();
+
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+
+            if (c == '\\') {
+                if ((i + 1) >= regex.length() || !isEscapedLiteral(regex.charAt(i + 1))) return null;
+                literal.append(regex.charAt(++i));
+            }
+            else if (REGEX_METACHARACTERS.indexOf(c) >= 0) {
+                return null;
+            }
+            else {
+                literal.append(c);
+            }
+        }
+
+        return literal.toString();
+    }
+
+    /*
+    Returns the longest run of literal text that every match of the regex must contain, or null if there isn't one that is safe to rely on.
+    Groups & character classes are skipped (they end the current run), & a char that is followed by '?', '*', or '{' is optional, so it isn't part of a run.
+    Regexes with a top-level alternation, inline flags, or quoting (\Q...\E) are never pre-filtered.
+    */
+    protected static String getRequiredLiteral(String regex) {
+
+        if ((regex == null) || regex.contains("(?") || regex.contains("\\Q")) return null;
+
+        String longestRun = "";
+        StringBuilder currentRun = new StringBuilder();
+        int depth = 0;
+
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+
+            if (c == '\\') {
+                if ((i + 1) >= regex.length()) return null;
+                char escaped = regex.charAt(++i);
+
+                if (depth > 0) continue;
+
+                if (isEscapedLiteral(escaped)) {
+                    if (isOptional(regex, i + 1)) longestRun = endRun(longestRun, currentRun);
+                    else currentRun.append(escaped);
+                    if (((i + 1) < regex.length()) && (regex.charAt(i + 1) == '+')) longestRun = endRun(longestRun, currentRun);
+                }
+                else {
+                    longestRun = endRun(longestRun, currentRun);
+                }
+            }
+            else if (c == '[') {
+                i = getEndOfCharacterClass(regex, i);
+                if (i < 0) return null;
+                if (depth == 0) longestRun = endRun(longestRun, currentRun);
+            }
+            else if (c == '(') {
+                depth++;
+                longestRun = endRun(longestRun, currentRun);
+            }
+            else if (c == ')') {
+                depth--;
+                if (depth < 0) return null;
+            }
+            else if (c == '|') {
+                if (depth == 0) return null;
+            }
+            else if (c == '{') {
+                // the counts of a quantifier aren't text
+                i = regex.indexOf('}', i);
+                if (i < 0) return null;
+                if (depth == 0) longestRun = endRun(longestRun, currentRun);
+            }
+            else if (depth > 0) {
+                continue;
+            }
+            else if (REGEX_METACHARACTERS.indexOf(c) >= 0) {
+                // '.', '^', '$', & quantifiers (a quantifier on a literal char was already handled by isOptional)
+                longestRun = endRun(longestRun, currentRun);
+            }
+            else if (isOptional(regex, i + 1)) {
+                longestRun = endRun(longestRun, currentRun);
+            }
+            else {
+                currentRun.append(c);
+
+                // 'a+' requires at least one 'a', but the text after it isn't adjacent to the 'a'
+                if (((i + 1) < regex.length()) && (regex.charAt(i + 1) == '+')) longestRun = endRun(longestRun, currentRun);
+            }
+        }
+
+        if (depth != 0) return null;
+
+        longestRun = endRun(longestRun, currentRun);
+        return longestRun.isEmpty() ? null : longestRun;
+    }
+
+    private static String endRun(String longestRun, StringBuilder currentRun) {
+        String run = currentRun.toString();
+        currentRun.setLength(0);
+        return (run.length() > longestRun.length()) ? run : longestRun;
+    }
+
+    // true if the item before 'index' is made optional (or repeated a variable number of times, starting from 0) by a quantifier
+    private static boolean isOptional(String regex, int index) {
+        if (index >= regex.length()) return false;
+        char c = regex.charAt(index);
+        return (c == '?') || (c == '*') || (c == '{');
+    }
+
+    // escaped punctuation matches itself. escaped letters & digits are classes, anchors, or back-references (ex- \d, \b, \1).
+    private static boolean isEscapedLiteral(char c) {
+        return (c < ASCII_SIZE) && !Character.isLetterOrDigit(c);
+    }
+
+    // returns the index of the ']' that closes the character class that starts at 'start', or -1
+    private static int getEndOfCharacterClass(String regex, int start) {
+
+        int depth = 0;
+
+        for (int i = start; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+
+            if (c == '\\') {
+                i++;
+            }
+            else if (c == '[') {
+                depth++;
+                if (((i + 1) < regex.length()) && (regex.charAt(i + 1) == '^')) i++;
+                if (((i + 1) < regex.length()) && (regex.charAt(i + 1) == ']')) i++;
+            }
+            else if (c == ']') {
+                depth--;
+                if (depth == 0) return i;
+            }
+        }
+
+        return -1;
+    }
+
+}
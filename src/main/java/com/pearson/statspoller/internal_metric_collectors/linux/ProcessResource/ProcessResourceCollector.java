@@ -0,0 +1,377 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcessResource;
+
+import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcessCounter.ProcessCounterMatcher;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcessTable.ProcessTable;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcessTable.ProcessTableSnapshot;
+import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import com.pearson.statspoller.utilities.core_utils.LongLongHashMap;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.math_utils.CounterDeltaTracker;
+import com.pearson.statspoller.utilities.math_utils.MathUtilities;
+import com.pearson.statspoller.utilities.os_utils.ProcessUtils;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Collects the resource usage (cpu, resident memory, storage io) of the processes that match the 'process_counter_regex' groups.
+ * Usage is aggregated per group, & optionally, the top-N processes of each group (by cpu %) are output individually.
+ * The top processes are output by rank (ex- Top-1, Top-2), with their pid as a metric, so the number of series is fixed.
+ *
+ * Based on raw data from /proc/(pid)/stat, /proc/(pid)/statm, & /proc/(pid)/io (read through the shared ProcessTable scan)
+ * /proc/(pid)/io is only readable by root & the process's owner. Io rates are only output for processes that could be read.
+ * http://man7.org/linux/man-pages/man5/proc.5.html
+ */
+public class ProcessResourceCollector extends InternalCollectorFramework {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessResourceCollector.class.getName());
+
+    private static final int PROCESS_TABLE_FIELDS = ProcessTable.FIELD_STAT | ProcessTable.FIELD_CMDLINE | ProcessTable.FIELD_STATM | ProcessTable.FIELD_IO;
+
+    private static final long GETCONF_TIMEOUT_IN_MS = 5000;
+    
+    // cpu times in /proc are in USER_HZ (CLK_TCK), & statm is in pages. both are read once, falling back to the most common values.
+    private static final double CLOCK_TICKS_PER_SECOND = getConfValue("CLK_TCK", 100);
+    private static final long PAGE_SIZE_IN_BYTES = getConfValue("PAGESIZE", 4096);
+    private static final int SCALE = 5;
+    private static final int PID_BITS = 22; // pid_max can't be higher than 2^22
+
+    private final List<String> groupIdentifiers_ = new ArrayList<>();
+    private final ProcessCounterMatcher processCounterMatcher_;
+    private final int[] groups_ByRule_;
+    private final int[] matchingRules_;
+    private final int[] groupMatchStamps_;
+    private final GroupStats[] groupStats_;
+    private final int topN_;
+    private final int[] topProcesses_;
+
+    // per-process values for the current run, by process table index
+    private double[] cpuPercents_ = new double[0];
+    private double[] ioReadBytesPerSecond_ = new double[0];
+    private double[] ioWriteBytesPerSecond_ = new double[0];
+
+    private ProcessSamples previousSamples_ = new ProcessSamples();
+    private ProcessSamples currentSamples_ = new ProcessSamples();
+
+    public ProcessResourceCollector(boolean isEnabled, long collectionInterval, String metricPrefix,
+            String outputFilePathAndFilename, boolean writeOutputFiles, List<String[]> processCounterPrefixesAndRegexes, int topN) {
+        super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
+
+        this.topN_ = Math.max(topN, 0);
+        this.topProcesses_ = new int[topN_];
+
+        // rules that share an identifier are a single group
+        Map<String,Integer> groups_ByIdentifier = new HashMap<>();
+        List<String> regexes = new ArrayList<>();
+        List<Integer> groups_ByRule = new ArrayList<>();
+
+        if (processCounterPrefixesAndRegexes != null) {
+            for (String[] processCounterPrefixAndRegex : processCounterPrefixesAndRegexes) {
+                if ((processCounterPrefixAndRegex[0] == null) || processCounterPrefixAndRegex[0].trim().isEmpty()) continue;
+
+                String groupIdentifier = processCounterPrefixAndRegex[0].trim();
+                Integer group = groups_ByIdentifier.get(groupIdentifier);
+
+                if (group == null) {
+                    group = groupIdentifiers_.size();
+                    groups_ByIdentifier.put(groupIdentifier, group);
+                    groupIdentifiers_.add(groupIdentifier);
+                }
+
+                regexes.add(processCounterPrefixAndRegex[1]);
+                groups_ByRule.add(group);
+            }
+        }
+
+        this.processCounterMatcher_ = new ProcessCounterMatcher(regexes);
+        this.matchingRules_ = new int[regexes.size()];
+        this.groups_ByRule_ = new int[groups_ByRule.size()];
+        for (int i = 0; i < groups_ByRule_.length; i++) groups_ByRule_[i] = groups_ByRule.get(i);
+
+        this.groupMatchStamps_ = new int[groupIdentifiers_.size()];
+        this.groupStats_ = new GroupStats[groupIdentifiers_.size()];
+        for (int i = 0; i < groupStats_.length; i++) {
+            String graphiteFriendlyGroupIdentifier = GraphiteMetric.getGraphiteSanitizedString(groupIdentifiers_.get(i), true, true);
+            groupStats_[i] = new GroupStats(graphiteFriendlyGroupIdentifier, topN_);
+        }
+
+        if (isEnabled && !groupIdentifiers_.isEmpty()) ProcessTable.registerFields(PROCESS_TABLE_FIELDS);
+    }
+
+    @Override
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
+
+        // get the process resource stats in graphite format
+        List<GraphiteMetric> graphiteMetrics = getProcessResourceMetrics();
+
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
+
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+
+        logger.info("Finished Linux-ProcessResource metric collection routine. " +
+                "MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
+    }
+
+    private List<GraphiteMetric> getProcessResourceMetrics() {
+
+        List<GraphiteMetric> allGraphiteMetrics = new ArrayList<>();
+        if (groupIdentifiers_.isEmpty()) return allGraphiteMetrics;
+
+        try {
+            ProcessTableSnapshot processTable = ProcessTable.getSnapshot(super.getLinuxProcFileSystemLocation(), PROCESS_TABLE_FIELDS);
+            if (processTable == null) return allGraphiteMetrics;
+
+            for (GroupStats groupStats : groupStats_) groupStats.reset();
+            Arrays.fill(groupMatchStamps_, -1);
+            ensureCapacity(processTable.size());
+            currentSamples_.clear();
+
+            long readTimestampInMs = processTable.getScanStartTimestampInMs();
+
+            for (int i = 0; i < processTable.size(); i++) {
+                String cmdline = processTable.getCmdline(i);
+                if ((cmdline == null) || cmdline.isEmpty()) continue;
+
+                int numMatchingRules = processCounterMatcher_.match(cmdline, matchingRules_);
+                if (numMatchingRules == 0) continue;
+
+                computeProcessRates(processTable, i, readTimestampInMs);
+
+                for (int j = 0; j < numMatchingRules; j++) {
+                    int group = groups_ByRule_[matchingRules_[j]];
+
+                    // a process that matches several rules of the same group is only counted once
+                    if (groupMatchStamps_[group] == i) continue;
+                    groupMatchStamps_[group] = i;
+
+                    groupStats_[group].add(cpuPercents_[i], getResidentBytes(processTable, i), ioReadBytesPerSecond_[i], ioWriteBytesPerSecond_[i], i);
+                }
+            }
+
+            // processes that exited aren't carried over to the next run
+            ProcessSamples samples = previousSamples_;
+            previousSamples_ = currentSamples_;
+            currentSamples_ = samples;
+
+            int currentTimestampInSeconds = (int) (readTimestampInMs / 1000);
+            for (GroupStats groupStats : groupStats_) addGroupMetrics(allGraphiteMetrics, groupStats, processTable, currentTimestampInSeconds);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+
+        return allGraphiteMetrics;
+    }
+
+    /*
+    Records the process's counters for the next run, & computes its rates vs the previous run (NaN if the process wasn't in the previous run).
+    A process is identified by pid + start time, so a new process that re-uses a pid isn't compared to the old one.
+    */
+    private void computeProcessRates(ProcessTableSnapshot processTable, int index, long readTimestampInMs) {
+
+        long processKey = (processTable.getStartTime(index) << PID_BITS) | processTable.getPid(index);
+        long cpuTime = processTable.getCpuTime(index);
+        long ioReadBytes = processTable.getIoReadBytes(index);
+        long ioWriteBytes = processTable.getIoWriteBytes(index);
+
+        currentSamples_.put(processKey, cpuTime, ioReadBytes, ioWriteBytes, readTimestampInMs);
+
+        cpuPercents_[index] = Double.NaN;
+        ioReadBytesPerSecond_[index] = Double.NaN;
+        ioWriteBytesPerSecond_[index] = Double.NaN;
+
+        int previousSample = previousSamples_.indexOf(processKey);
+        if (previousSample < 0) return;
+
+        long millisecondsBetweenSamples = readTimestampInMs - previousSamples_.timestampsInMs_[previousSample];
+
+        double cpuTicksPerSecond = CounterDeltaTracker.getRatePerSecond(cpuTime - previousSamples_.cpuTimes_[previousSample], millisecondsBetweenSamples);
+        cpuPercents_[index] = (cpuTicksPerSecond * 100) / CLOCK_TICKS_PER_SECOND;
+
+        if ((ioReadBytes != ProcessTableSnapshot.NO_VALUE) && (previousSamples_.ioReadBytes_[previousSample] != ProcessTableSnapshot.NO_VALUE)) {
+            ioReadBytesPerSecond_[index] = CounterDeltaTracker.getRatePerSecond(ioReadBytes - previousSamples_.ioReadBytes_[previousSample], millisecondsBetweenSamples);
+        }
+
+        if ((ioWriteBytes != ProcessTableSnapshot.NO_VALUE) && (previousSamples_.ioWriteBytes_[previousSample] != ProcessTableSnapshot.NO_VALUE)) {
+            ioWriteBytesPerSecond_[index] = CounterDeltaTracker.getRatePerSecond(ioWriteBytes - previousSamples_.ioWriteBytes_[previousSample], millisecondsBetweenSamples);
+        }
+    }
+
+    private static double getResidentBytes(ProcessTableSnapshot processTable, int index) {
+        long residentPages = processTable.getResidentPages(index);
+        return (residentPages == ProcessTableSnapshot.NO_VALUE) ? Double.NaN : (double) residentPages * PAGE_SIZE_IN_BYTES;
+    }
+
+    private void addGroupMetrics(List<GraphiteMetric> graphiteMetrics, GroupStats groupStats, ProcessTableSnapshot processTable, int currentTimestampInSeconds) {
+
+        String prefix = groupStats.graphiteFriendlyIdentifier_ + ".";
+
+        graphiteMetrics.add(new GraphiteMetric(prefix + "ProcessCount", new BigDecimal(groupStats.processCount_), currentTimestampInSeconds));
+        if (groupStats.numCpuPercents_ > 0) addMetric(graphiteMetrics, prefix + "Cpu-Pct", groupStats.cpuPercent_, currentTimestampInSeconds);
+        if (groupStats.numResidentBytes_ > 0) addMetric(graphiteMetrics, prefix + "Resident-Bytes", groupStats.residentBytes_, currentTimestampInSeconds);
+        if (groupStats.numIoRates_ > 0) addMetric(graphiteMetrics, prefix + "IoRead-Bytes-Second", groupStats.ioReadBytesPerSecond_, currentTimestampInSeconds);
+        if (groupStats.numIoRates_ > 0) addMetric(graphiteMetrics, prefix + "IoWrite-Bytes-Second", groupStats.ioWriteBytesPerSecond_, currentTimestampInSeconds);
+
+        if (topN_ <= 0) return;
+
+        int numTopProcesses = groupStats.topProcesses_.pollAllDescending(topProcesses_);
+
+        for (int rank = 0; rank < numTopProcesses; rank++) {
+            int index = topProcesses_[rank];
+            String topPrefix = groupStats.getTopPrefix(rank);
+
+            graphiteMetrics.add(new GraphiteMetric(topPrefix + "Pid", new BigDecimal(processTable.getPid(index)), currentTimestampInSeconds));
+            addMetric(graphiteMetrics, topPrefix + "Cpu-Pct", cpuPercents_[index], currentTimestampInSeconds);
+            addMetric(graphiteMetrics, topPrefix + "Resident-Bytes", getResidentBytes(processTable, index), currentTimestampInSeconds);
+            addMetric(graphiteMetrics, topPrefix + "IoRead-Bytes-Second", ioReadBytesPerSecond_[index], currentTimestampInSeconds);
+            addMetric(graphiteMetrics, topPrefix + "IoWrite-Bytes-Second", ioWriteBytesPerSecond_[index], currentTimestampInSeconds);
+        }
+    }
+
+    private static void addMetric(List<GraphiteMetric> graphiteMetrics, String metricPath, double value, int currentTimestampInSeconds) {
+        BigDecimal metricValue = MathUtilities.getBigDecimalFromDouble(value, SCALE);
+        if ((metricValue != null) && (metricValue.signum() >= 0)) graphiteMetrics.add(new GraphiteMetric(metricPath, metricValue, currentTimestampInSeconds));
+    }
+
+    private void ensureCapacity(int numProcesses) {
+        if (cpuPercents_.length >= numProcesses) return;
+
+        int capacity = Math.max(numProcesses, cpuPercents_.length * 2);
+        cpuPercents_ = new double[capacity];
+        ioReadBytesPerSecond_ = new double[capacity];
+        ioWriteBytesPerSecond_ = new double[capacity];
+    }
+
+    /*
+    Returns the value of a system configuration variable (from 'getconf'), or 'defaultValue' if it can't be read.
+    */
+    private static long getConfValue(String name, long defaultValue) {
+
+        String output = ProcessUtils.runProcessAndGetProcessOutput(new String[] {"getconf", name}, GETCONF_TIMEOUT_IN_MS);
+        
+        try {
+            if (output != null) {
+                long value = Long.parseLong(output.trim());
+                if (value > 0) return value;
+            }
+        }
+        catch (Exception e) {}
+        
+        logger.debug("Message=\"Unable to read system configuration variable. Assuming the default value.\", Name=\"" + name + "\", DefaultValue=" + defaultValue);
+        return defaultValue;
+    }
+
+    private static class GroupStats {
+
+        private final String graphiteFriendlyIdentifier_;
+        private final TopProcessHeap topProcesses_;
+        private final String[] topPrefixes_;
+
+        private long processCount_;
+        private double cpuPercent_;
+        private int numCpuPercents_;
+        private double residentBytes_;
+        private int numResidentBytes_;
+        private double ioReadBytesPerSecond_;
+        private double ioWriteBytesPerSecond_;
+        private int numIoRates_;
+
+        public GroupStats(String graphiteFriendlyIdentifier, int topN) {
+            this.graphiteFriendlyIdentifier_ = graphiteFriendlyIdentifier;
+            this.topProcesses_ = new TopProcessHeap(topN);
+            this.topPrefixes_ = new String[topN];
+        }
+
+        private void reset() {
+            processCount_ = 0;
+            cpuPercent_ = 0;
+            numCpuPercents_ = 0;
+            residentBytes_ = 0;
+            numResidentBytes_ = 0;
+            ioReadBytesPerSecond_ = 0;
+            ioWriteBytesPerSecond_ = 0;
+            numIoRates_ = 0;
+            topProcesses_.clear();
+        }
+
+        private void add(double cpuPercent, double residentBytes, double ioReadBytesPerSecond, double ioWriteBytesPerSecond, int index) {
+            processCount_++;
+
+            if (!Double.isNaN(cpuPercent)) {
+                cpuPercent_ += cpuPercent;
+                numCpuPercents_++;
+                topProcesses_.offer(cpuPercent, index);
+            }
+
+            if (!Double.isNaN(residentBytes)) {
+                residentBytes_ += residentBytes;
+                numResidentBytes_++;
+            }
+
+            if (!Double.isNaN(ioReadBytesPerSecond) && !Double.isNaN(ioWriteBytesPerSecond)) {
+                ioReadBytesPerSecond_ += ioReadBytesPerSecond;
+                ioWriteBytesPerSecond_ += ioWriteBytesPerSecond;
+                numIoRates_++;
+            }
+        }
+
+        private String getTopPrefix(int rank) {
+            if (topPrefixes_[rank] == null) topPrefixes_[rank] = graphiteFriendlyIdentifier_ + ".Top-" + (rank + 1) + ".";
+            return topPrefixes_[rank];
+        }
+
+    }
+
+    /*
+    The counters of every matching process from a single run, keyed by pid + start time. Two instances are swapped between runs,
+    so the arrays & the map are re-used, & processes that exited are dropped without any cleanup pass.
+    */
+    private static class ProcessSamples {
+
+        private final LongLongHashMap indexes_ByProcessKey_ = new LongLongHashMap();
+        private long[] cpuTimes_ = new long[64];
+        private long[] ioReadBytes_ = new long[64];
+        private long[] ioWriteBytes_ = new long[64];
+        private long[] timestampsInMs_ = new long[64];
+        private int size_ = 0;
+
+        private void put(long processKey, long cpuTime, long ioReadBytes, long ioWriteBytes, long timestampInMs) {
+
+            if (size_ == cpuTimes_.length) {
+                cpuTimes_ = Arrays.copyOf(cpuTimes_, size_ * 2);
+                ioReadBytes_ = Arrays.copyOf(ioReadBytes_, size_ * 2);
+                ioWriteBytes_ = Arrays.copyOf(ioWriteBytes_, size_ * 2);
+                timestampsInMs_ = Arrays.copyOf(timestampsInMs_, size_ * 2);
+            }
+
+            cpuTimes_[size_] = cpuTime;
+            ioReadBytes_[size_] = ioReadBytes;
+            ioWriteBytes_[size_] = ioWriteBytes;
+            timestampsInMs_[size_] = timestampInMs;
+            indexes_ByProcessKey_.put(processKey, size_);
+            size_++;
+        }
+
+        private int indexOf(long processKey) {
+            return (int) indexes_ByProcessKey_.get(processKey, -1);
+        }
+
+        private void clear() {
+            indexes_ByProcessKey_.clear();
+            size_ = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcessResource;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Keeps the 'capacity' items with the highest scores, out of any number of offered items. The items are ints (ex- an index into a ProcessTableSnapshot).
+ * Backed by a min-heap of primitive arrays, so offering n items costs O(n log capacity), & the heap's memory is fixed.
+ *
+ * Not thread-safe. The heap can be reused (see 'clear').
+ */
+public class TopProcessHeap {
+
+    private final int capacity_;
+    private final double[] scores_;
+    private final int[] items_;
+    private int size_ = 0;
+
+    public TopProcessHeap(int capacity) {
+        this.capacity_ = Math.max(capacity, 0);
+        this.scores_ = new double[capacity_];
+        this.items_ = new int[capacity_];
+    }
+
+    /*
+    Returns true if the item is (currently) one of the top items. Items with a NaN score are never kept.
+    */
+    public boolean offer(double score, int item) {
+
+        if ((capacity_ == 0) || Double.isNaN(score)) return false;
+
+        if (size_ < capacity_) {
+            scores_[size_] = score;
+            items_[size_] = item;
+            siftUp(size_++);
+            return true;
+        }
+
+        // the root is the lowest of the current top items
+        if (score <= scores_[0]) return false;
+
+        scores_[0] = score;
+        items_[0] = item;
+        siftDown(0, size_);
+        return true;
+    }
+
+    /*
+    Writes the top items into 'items', from the highest score to the lowest, & returns the number of items. Empties the heap.
+    */
+    public int pollAllDescending(int[] items) {
+
+        int numItems = size_;
+
+        // heap-sort: moving the lowest remaining item to the end of the heap leaves the array in descending order
+        for (int end = size_ - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+
+        System.arraycopy(items_, 0, items, 0, numItems);
+        size_ = 0;
+
+        return numItems;
+    }
+
+    public void clear() {
+        size_ = 0;
+    }
+
+    public int size() {
+        return size_;
+    }
+
+    public int getCapacity() {
+        return capacity_;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores_[parent] <= scores_[index]) return;
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int size) {
+        while (true) {
+            int smallest = index;
+            int left = (2 * index) + 1;
+            int right = left + 1;
+
+            if ((left < size) && (scores_[left] < scores_[smallest])) smallest = left;
+            if ((right < size) && (scores_[right] < scores_[smallest])) smallest = right;
+            if (smallest == index) return;
+
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        double score = scores_[i];
+        scores_[i] = scores_[j];
+        scores_[j] = score;
+
+        int item = items_[i];
+        items_[i] = items_[j];
+        items_[j] = item;
+    }
+
+}
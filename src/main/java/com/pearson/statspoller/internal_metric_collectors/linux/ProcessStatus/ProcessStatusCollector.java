@@ -1,20 +1,14 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.ProcessStatus;
 
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcessTable.ProcessTable;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcessTable.ProcessTableSnapshot;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
-import com.pearson.statspoller.utilities.file_utils.FileIo;
-import java.io.BufferedReader;
-import java.io.StringReader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,42 +17,36 @@ import org.slf4j.LoggerFactory;
  * 
  * Collects aggregated process status metrics
  * 
- * Based on raw data from /proc/(pid)/status
+ * Based on raw data from /proc/(pid)/stat (read through the shared ProcessTable scan)
  * http://man7.org/linux/man-pages/man5/proc.5.html
  */
-public class ProcessStatusCollector extends InternalCollectorFramework implements Runnable {
+public class ProcessStatusCollector extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(ProcessStatusCollector.class.getName());
     
     private static final HashSet<String> CORE_STATES = getSetOfCoreProcessStates();
+    private static final String[] STATE_NAMES = getStateNames();
     
     public ProcessStatusCollector(boolean isEnabled, long collectionInterval, String metricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles) {
         super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
+        if (isEnabled) ProcessTable.registerFields(ProcessTable.FIELD_STAT);
     }
     
     @Override
-    public void run() {
-         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // get the update stats in graphite format
-            List<GraphiteMetric> graphiteMetrics = getProcessStatusMetrics();
-
-            // output graphite metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
-
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            logger.info("Finished Linux-ProcessState metric collection routine. " +
-                    "MetricsCollected=" + graphiteMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
+        
+        // get the update stats in graphite format
+        List<GraphiteMetric> graphiteMetrics = getProcessStatusMetrics();
 
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
-        }
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
 
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+        
+        logger.info("Finished Linux-ProcessState metric collection routine. " +
+                "MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
     
     private List<GraphiteMetric> getProcessStatusMetrics() {
@@ -66,23 +54,11 @@ public class ProcessStatusCollector extends InternalCollectorFramework implement
         List<GraphiteMetric> allGraphiteMetrics = new ArrayList<>();
         
         try {
-            int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
-            List<String> listOfDirectoriesInProc = FileIo.getListOfDirectoryNamesInADirectory(super.getLinuxProcFileSystemLocation());
-            List<String> listOfProcessDirectoriesInProc = new ArrayList<>();
+            ProcessTableSnapshot processTable = ProcessTable.getSnapshot(super.getLinuxProcFileSystemLocation(), ProcessTable.FIELD_STAT);
+            if (processTable == null) return allGraphiteMetrics;
             
-            for (String directoryInProc : listOfDirectoriesInProc) {
-                if ((directoryInProc == null) || directoryInProc.isEmpty()) continue;
-                
-                boolean isDirectoryNumeric = StringUtils.isNumeric(directoryInProc);
-                boolean doesStatusExist = FileIo.doesFileExist(super.getLinuxProcFileSystemLocation() + "/" + directoryInProc + "/status" );
-                if (isDirectoryNumeric && doesStatusExist) listOfProcessDirectoriesInProc.add(directoryInProc);
-            }
-
-            Map<String,String> stateOfEveryPid = new HashMap<>(); // k=pid#, v=status
-            AtomicInteger countOfThreads = new AtomicInteger(0);
-            getProcessStatusMetrics(listOfProcessDirectoriesInProc, stateOfEveryPid, countOfThreads);
-            
-            allGraphiteMetrics.addAll(createMetrics(listOfProcessDirectoriesInProc, stateOfEveryPid, countOfThreads, currentTimestampInSeconds));
+            int currentTimestampInSeconds = (int) (processTable.getScanStartTimestampInMs() / 1000);
+            allGraphiteMetrics.addAll(createMetrics(processTable, currentTimestampInSeconds));
         }
         catch (Exception e) {
             logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
@@ -91,94 +67,34 @@ public class ProcessStatusCollector extends InternalCollectorFramework implement
         return allGraphiteMetrics;
     }
     
-    
-    private void getProcessStatusMetrics(List<String> listOfProcessDirectoriesInProc, Map<String,String> stateOfEveryPid, AtomicInteger countOfThreads) {
+    private List<GraphiteMetric> createMetrics(ProcessTableSnapshot processTable, int currentTimestampInSeconds) {
         
-        if ((listOfProcessDirectoriesInProc == null) || (stateOfEveryPid == null) || (countOfThreads == null)) {
-            return;
-        }
-
-        BufferedReader reader = null;
-
-        for (String pid : listOfProcessDirectoriesInProc) {
-            try {
-                String rawPidStatus = FileIo.readFileToString(super.getLinuxProcFileSystemLocation() + "/" + pid + "/status");
-                if ((rawPidStatus == null) || rawPidStatus.isEmpty()) continue;
-
-                reader = new BufferedReader(new StringReader(rawPidStatus));
-                String currentLine = reader.readLine();
-
-                while (currentLine != null) {
-                    String currentLineTrimmed = currentLine.trim();
-                    
-                    // get the process state
-                    if (currentLineTrimmed.startsWith("State:")) {
-                        int leftBoundary = currentLineTrimmed.indexOf(':') + 1;
-                        int rightBoundary = currentLineTrimmed.indexOf('(');
-                        if ((leftBoundary > 0) && (rightBoundary > 0)) stateOfEveryPid.put(pid, currentLineTrimmed.substring(leftBoundary, rightBoundary).trim());
-                    }
-                    
-                    // get number of threads
-                    if (currentLineTrimmed.startsWith("Threads:")) {
-                        int leftBoundary = currentLineTrimmed.indexOf(':') + 1;
-                        if (leftBoundary > 0) {
-                            String threadsString = currentLineTrimmed.substring(leftBoundary, currentLineTrimmed.length()).trim();
-                            int threadsInt = Integer.parseInt(threadsString);
-                            countOfThreads.addAndGet(threadsInt);
-                        }
-                    }
-                    
-                    currentLine = reader.readLine();
-                } 
-            }
-            catch (Exception e) {
-                logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            }
-            finally {
-                try {
-                    if (reader != null) {
-                        reader.close();
-                    }
-                }
-                catch (Exception e) {
-                    logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-                }
-            }
-  
-        }
-    }
-    
-    private List<GraphiteMetric> createMetrics(List<String> listOfProcessDirectoriesInProc, Map<String,String> stateOfEveryPid, AtomicInteger countOfThreads, int currentTimestampInSeconds) {
-        
-        if ((listOfProcessDirectoriesInProc == null) || (listOfProcessDirectoriesInProc.size() <= 0) || (stateOfEveryPid == null) || (countOfThreads == null)) {
+        if ((processTable == null) || (processTable.size() <= 0)) {
             return new ArrayList<>();
         }
         
         List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
         
         try {
-            // create process state metrics
-            HashMap<String,AtomicInteger> countOfStates = new HashMap<>();
-            for (String pid : stateOfEveryPid.keySet()) {
-                String state = stateOfEveryPid.get(pid);
-                if (countOfStates.containsKey(state)) countOfStates.get(state).incrementAndGet();
-                else countOfStates.put(state.trim(), new AtomicInteger(1));
-            }
-
-            for (String coreState : CORE_STATES) {
-                if (!countOfStates.containsKey(coreState)) {
-                    countOfStates.put(coreState.trim(), new AtomicInteger(0));
-                }
+            // count the processes in each state (states are single ascii letters), & the threads of every process
+            int[] countOfStates = new int[128];
+            long countOfThreads = 0;
+            
+            for (int i = 0; i < processTable.size(); i++) {
+                byte state = processTable.getState(i);
+                if (state > 0) countOfStates[state]++;
+                countOfThreads += processTable.getNumThreads(i);
             }
             
-            for (String state : countOfStates.keySet()) {
-                AtomicInteger stateCount = countOfStates.get(state);
-                graphiteMetrics.add(new GraphiteMetric(("States.CountOfProcessesInState-" + state), new BigDecimal(stateCount.get()), currentTimestampInSeconds));
+            // create process state metrics
+            for (int state = 1; state < countOfStates.length; state++) {
+                if ((countOfStates[state] == 0) && !CORE_STATES.contains(STATE_NAMES[state])) continue;
+                graphiteMetrics.add(new GraphiteMetric(("States.CountOfProcessesInState-" + STATE_NAMES[state]), new BigDecimal(countOfStates[state]), currentTimestampInSeconds));
             }
             
             // create process other process status metrics
-            graphiteMetrics.add(new GraphiteMetric(("TotalProcessCount"), new BigDecimal(listOfProcessDirectoriesInProc.size()), currentTimestampInSeconds));
-            graphiteMetrics.add(new GraphiteMetric(("TotalThreadCount"), new BigDecimal(countOfThreads.get()), currentTimestampInSeconds));
+            graphiteMetrics.add(new GraphiteMetric(("TotalProcessCount"), new BigDecimal(processTable.size()), currentTimestampInSeconds));
+            graphiteMetrics.add(new GraphiteMetric(("TotalThreadCount"), new BigDecimal(countOfThreads), currentTimestampInSeconds));
         }
         catch (Exception e) {
             logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
@@ -187,6 +103,12 @@ public class ProcessStatusCollector extends InternalCollectorFramework implement
         return graphiteMetrics;
     }
     
+    private static String[] getStateNames() {
+        String[] stateNames = new String[128];
+        for (int i = 0; i < stateNames.length; i++) stateNames[i] = String.valueOf((char) i);
+        return stateNames;
+    }
+    
     private static HashSet<String> getSetOfCoreProcessStates() {
         HashSet<String> coreProcessStates = new HashSet<>();
         coreProcessStates.add("R");
@@ -0,0 +1,502 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcessTable;
+
+import com.pearson.statspoller.globals.ApplicationConfiguration;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcBufferPool;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFile;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.Threads;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * A single, shared scan of the process table (/proc/(pid)). Collectors that need per-process data (ex- ProcessStatus, ProcessCounter) ask for the fields they need,
+ * & every collector that asks within the same tick gets the same ProcessTableSnapshot, so /proc is only walked once per tick.
+ * Collectors register their fields when they're created, so a scan reads the fields that every registered collector needs (& no others).
+ *
+ * FIELD_STAT reads /proc/(pid)/stat (state, thread count, start time, cpu time).
+ * FIELD_STATM reads /proc/(pid)/statm (resident memory). FIELD_IO reads /proc/(pid)/io (bytes read from & written to storage), which usually requires root.
+ * FIELD_CMDLINE reads /proc/(pid)/cmdline. A process's cmdline is cached, keyed by pid + start time + the process name from 'stat'
+ * (the name changes on exec, so a process that was sampled between fork & exec is re-read). Cached cmdlines are dropped once their process is gone.
+ *
+ * If 'linux_process_scan_threads' is greater than 1, the pids are split across a fork-join pool of that many threads.
+ */
+public class ProcessTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessTable.class.getName());
+
+    public static final int FIELD_STAT = 1;
+    public static final int FIELD_CMDLINE = 2;
+    public static final int FIELD_STATM = 4;
+    public static final int FIELD_IO = 8;
+
+    // a snapshot that completed this recently is considered to be part of the current tick
+    public static final long DEFAULT_MAX_SNAPSHOT_AGE_IN_MS = 1000;
+
+    private static final int MIN_PIDS_PER_TASK = 256;
+    private static final int INITIAL_READ_BUFFER_CAPACITY = 4096;
+    private static final byte[] READ_BYTES_PREFIX = "read_bytes:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WRITE_BYTES_PREFIX = "write_bytes:".getBytes(StandardCharsets.US_ASCII);
+
+    private static final AtomicInteger registeredFields_ = new AtomicInteger(0);
+    private static final ConcurrentHashMap<Integer,CmdlineEntry> cmdlines_ByPid_ = new ConcurrentHashMap<>();
+    private static final Object scanLock_ = new Object();
+
+    private static ProcessTableSnapshot currentSnapshot_ = null;
+    private static String currentSnapshotProcLocation_ = null;
+    private static long scanCount_ = 0;
+
+    /*
+    Adds to the fields that every scan reads. Collectors call this when they're created.
+    */
+    public static void registerFields(int fields) {
+        int currentFields;
+        do {
+            currentFields = registeredFields_.get();
+        } while (!registeredFields_.compareAndSet(currentFields, currentFields | fields));
+    }
+
+    public static ProcessTableSnapshot getSnapshot(String procLocation, int fields) {
+        return getSnapshot(procLocation, fields, DEFAULT_MAX_SNAPSHOT_AGE_IN_MS);
+    }
+
+    /*
+    Returns a snapshot of the process table that has 'fields' & that completed no more than 'maxAgeInMs' ago (a 'maxAgeInMs' of 0 always re-scans).
+    A collector that arrives while another collector is scanning waits for that scan, & then uses it.
+    Returns null if 'procLocation' couldn't be listed.
+    */
+    public static ProcessTableSnapshot getSnapshot(String procLocation, int fields, long maxAgeInMs) {
+
+        if (procLocation == null) return null;
+
+        synchronized (scanLock_) {
+            if ((currentSnapshot_ != null) && (maxAgeInMs > 0) && procLocation.equals(currentSnapshotProcLocation_) && currentSnapshot_.hasFields(fields) &&
+                    ((System.currentTimeMillis() - currentSnapshot_.getScanCompleteTimestampInMs()) <= maxAgeInMs)) {
+                return currentSnapshot_;
+            }
+
+            ProcessTableSnapshot snapshot = scan(procLocation, fields | registeredFields_.get());
+
+            if (snapshot != null) {
+                currentSnapshot_ = snapshot;
+                currentSnapshotProcLocation_ = procLocation;
+            }
+
+            return snapshot;
+        }
+    }
+
+    private static ProcessTableSnapshot scan(String procLocation, int fields) {
+
+        long scanStartTimestampInMs = System.currentTimeMillis();
+
+        // the cmdline cache is keyed on values from 'stat', & a process that can't be read from 'stat' has exited, so every scan reads stat
+        fields |= FIELD_STAT;
+
+        String[] directoryNames = new File(procLocation).list();
+
+        if (directoryNames == null) {
+            logger.warn("Message=\"Unable to list the process table\", Directory=\"" + procLocation + "\"");
+            return null;
+        }
+
+        int[] pids = new int[directoryNames.length];
+        int numPids = 0;
+
+        for (String directoryName : directoryNames) {
+            int pid = getPid(directoryName);
+            if (pid >= 0) pids[numPids++] = pid;
+        }
+
+        long scanNumber = ++scanCount_;
+        ScanResults scanResults = new ScanResults(numPids, fields);
+        int numThreads = ApplicationConfiguration.getLinuxProcessScanThreads();
+
+        try {
+            if ((numThreads > 1) && (numPids > MIN_PIDS_PER_TASK)) {
+                int pidsPerTask = Math.max(MIN_PIDS_PER_TASK, numPids / (numThreads * 4));
+                Threads.getForkJoinPool("ProcessTable", numThreads).invoke(new ScanTask(procLocation, fields, scanNumber, pids, scanResults, 0, numPids, pidsPerTask));
+            }
+            else {
+                new ScanTask(procLocation, fields, scanNumber, pids, scanResults, 0, numPids, numPids).scanPids();
+            }
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+
+        // forget the cmdlines of processes that have exited
+        if ((fields & FIELD_CMDLINE) != 0) {
+            Iterator<CmdlineEntry> iterator = cmdlines_ByPid_.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().scanNumber_ != scanNumber) iterator.remove();
+            }
+        }
+        else {
+            cmdlines_ByPid_.clear();
+        }
+
+        return scanResults.createSnapshot(pids, fields, scanStartTimestampInMs, System.currentTimeMillis());
+    }
+
+    // returns -1 if the directory isn't a pid
+    private static int getPid(String directoryName) {
+
+        int length = directoryName.length();
+        if ((length == 0) || (length > 9)) return -1;
+
+        int pid = 0;
+
+        for (int i = 0; i < length; i++) {
+            int digit = directoryName.charAt(i) - '0';
+            if ((digit < 0) || (digit > 9)) return -1;
+            pid = (pid * 10) + digit;
+        }
+
+        return pid;
+    }
+
+    public static int getCachedCmdlineCount() {
+        return cmdlines_ByPid_.size();
+    }
+
+    public static void clear() {
+        synchronized (scanLock_) {
+            currentSnapshot_ = null;
+            currentSnapshotProcLocation_ = null;
+            cmdlines_ByPid_.clear();
+        }
+    }
+
+    /*
+    The per-pid values of a scan. Each pid is written by exactly one task, at its own index.
+    */
+    private static class ScanResults {
+
+        private final boolean[] isRead_;
+        private final byte[] states_;
+        private final int[] numThreads_;
+        private final long[] startTimes_;
+        private final long[] cpuTimes_;
+        private final String[] cmdlines_;
+        private final long[] residentPages_;
+        private final long[] ioReadBytes_;
+        private final long[] ioWriteBytes_;
+
+        public ScanResults(int numPids, int fields) {
+            this.isRead_ = new boolean[numPids];
+            this.states_ = new byte[numPids];
+            this.numThreads_ = new int[numPids];
+            this.startTimes_ = new long[numPids];
+            this.cpuTimes_ = new long[numPids];
+            this.cmdlines_ = ((fields & FIELD_CMDLINE) != 0) ? new String[numPids] : null;
+            this.residentPages_ = ((fields & FIELD_STATM) != 0) ? new long[numPids] : null;
+            this.ioReadBytes_ = ((fields & FIELD_IO) != 0) ? new long[numPids] : null;
+            this.ioWriteBytes_ = ((fields & FIELD_IO) != 0) ? new long[numPids] : null;
+        }
+
+        // drops the processes that exited during the scan
+        private ProcessTableSnapshot createSnapshot(int[] pids, int fields, long scanStartTimestampInMs, long scanCompleteTimestampInMs) {
+
+            int size = 0;
+
+            for (int i = 0; i < isRead_.length; i++) {
+                if (!isRead_[i]) continue;
+
+                pids[size] = pids[i];
+                states_[size] = states_[i];
+                numThreads_[size] = numThreads_[i];
+                startTimes_[size] = startTimes_[i];
+                cpuTimes_[size] = cpuTimes_[i];
+                if (cmdlines_ != null) cmdlines_[size] = cmdlines_[i];
+                if (residentPages_ != null) residentPages_[size] = residentPages_[i];
+                if (ioReadBytes_ != null) ioReadBytes_[size] = ioReadBytes_[i];
+                if (ioWriteBytes_ != null) ioWriteBytes_[size] = ioWriteBytes_[i];
+                size++;
+            }
+
+            return new ProcessTableSnapshot(fields, size, pids, states_, numThreads_, startTimes_, cpuTimes_, cmdlines_, residentPages_, ioReadBytes_, ioWriteBytes_,
+                    scanStartTimestampInMs, scanCompleteTimestampInMs);
+        }
+
+    }
+
+    private static class ScanTask extends RecursiveAction {
+
+        private final String procLocation_;
+        private final int fields_;
+        private final long scanNumber_;
+        private final int[] pids_;
+        private final ScanResults scanResults_;
+        private final int start_;
+        private final int end_;
+        private final int pidsPerTask_;
+
+        private ByteBuffer buffer_ = null;
+
+        public ScanTask(String procLocation, int fields, long scanNumber, int[] pids, ScanResults scanResults, int start, int end, int pidsPerTask) {
+            this.procLocation_ = procLocation;
+            this.fields_ = fields;
+            this.scanNumber_ = scanNumber;
+            this.pids_ = pids;
+            this.scanResults_ = scanResults;
+            this.start_ = start;
+            this.end_ = end;
+            this.pidsPerTask_ = pidsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+
+            if ((end_ - start_) <= pidsPerTask_) {
+                scanPids();
+                return;
+            }
+
+            int middle = (start_ + end_) >>> 1;
+            invokeAll(new ScanTask(procLocation_, fields_, scanNumber_, pids_, scanResults_, start_, middle, pidsPerTask_),
+                    new ScanTask(procLocation_, fields_, scanNumber_, pids_, scanResults_, middle, end_, pidsPerTask_));
+        }
+
+        private void scanPids() {
+
+            buffer_ = ProcBufferPool.acquire(INITIAL_READ_BUFFER_CAPACITY);
+
+            try {
+                for (int i = start_; i < end_; i++) {
+                    scanPid(i);
+                }
+            }
+            finally {
+                ProcBufferPool.release(buffer_);
+                buffer_ = null;
+            }
+        }
+
+        private void scanPid(int index) {
+
+            int pid = pids_[index];
+            String pidDirectory = procLocation_ + "/" + pid;
+            int commHash = 0;
+
+            if ((fields_ & FIELD_STAT) != 0) {
+                int length = readFile(pidDirectory + "/stat");
+                if (length <= 0) return;
+
+                commHash = parseStat(index, length);
+                if (commHash == -1) return;
+            }
+
+            if ((fields_ & FIELD_CMDLINE) != 0) {
+                long startTime = scanResults_.startTimes_[index];
+                CmdlineEntry cmdlineEntry = cmdlines_ByPid_.get(pid);
+
+                if ((cmdlineEntry == null) || (cmdlineEntry.startTime_ != startTime) || (cmdlineEntry.commHash_ != commHash)) {
+                    int length = readFile(pidDirectory + "/cmdline");
+                    if (length < 0) return;
+
+                    cmdlineEntry = new CmdlineEntry(startTime, commHash, getCmdline(length));
+                    cmdlines_ByPid_.put(pid, cmdlineEntry);
+                }
+
+                cmdlineEntry.scanNumber_ = scanNumber_;
+                scanResults_.cmdlines_[index] = cmdlineEntry.cmdline_;
+            }
+
+            // statm & io are optional. a process that can't be read from them (ex- io without root) is still part of the table.
+            if ((fields_ & FIELD_STATM) != 0) {
+                int length = readFile(pidDirectory + "/statm");
+                scanResults_.residentPages_[index] = (length > 0) ? parseStatm(length) : ProcessTableSnapshot.NO_VALUE;
+            }
+
+            if ((fields_ & FIELD_IO) != 0) {
+                int length = readFile(pidDirectory + "/io");
+                scanResults_.ioReadBytes_[index] = (length > 0) ? parseIoField(length, READ_BYTES_PREFIX) : ProcessTableSnapshot.NO_VALUE;
+                scanResults_.ioWriteBytes_[index] = (length > 0) ? parseIoField(length, WRITE_BYTES_PREFIX) : ProcessTableSnapshot.NO_VALUE;
+            }
+
+            scanResults_.isRead_[index] = true;
+        }
+
+        /*
+        Reads a whole file into 'buffer_'. Returns the number of bytes read, or -1 if the file couldn't be read (usually because the process exited).
+        */
+        private int readFile(String path) {
+
+            FileChannel channel = null;
+
+            try {
+                channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+            }
+            catch (Exception e) {
+                // processes routinely exit between listing /proc & reading their files
+                return -1;
+            }
+
+            try {
+                buffer_ = ProcFile.readFully(channel, buffer_);
+                return buffer_.position();
+            }
+            catch (Exception e) {
+                // the failed read released the buffer
+                buffer_ = ProcBufferPool.acquire(INITIAL_READ_BUFFER_CAPACITY);
+                return -1;
+            }
+            finally {
+                try {
+                    channel.close();
+                }
+                catch (Exception e) {
+                    logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+                }
+            }
+        }
+
+        /*
+        /proc/(pid)/stat: 'pid (comm) state ppid ... utime(14) stime(15) ... num_threads(20) itrealvalue starttime(22) ...'
+        The comm can contain spaces & parentheses, so the fields after it are found from the last ')'.
+        Returns a hash of the comm, or -1 if the file couldn't be parsed.
+        */
+        private int parseStat(int index, int length) {
+
+            int commStart = -1;
+            int commEnd = -1;
+
+            for (int i = 0; i < length; i++) {
+                if (buffer_.get(i) == '(') {
+                    commStart = i + 1;
+                    break;
+                }
+            }
+
+            for (int i = length - 1; i > commStart; i--) {
+                if (buffer_.get(i) == ')') {
+                    commEnd = i;
+                    break;
+                }
+            }
+
+            if ((commStart < 0) || (commEnd < 0) || ((commEnd + 2) >= length)) return -1;
+
+            int commHash = 1;
+            for (int i = commStart; i < commEnd; i++) commHash = (31 * commHash) + buffer_.get(i);
+            commHash &= Integer.MAX_VALUE;
+
+            scanResults_.states_[index] = buffer_.get(commEnd + 2);
+
+            int position = commEnd + 3;
+
+            for (int field = 4; (field <= 22) && (position < length); field++) {
+                while ((position < length) && (buffer_.get(position) == ' ')) position++;
+
+                boolean isNegative = (position < length) && (buffer_.get(position) == '-');
+                if (isNegative) position++;
+
+                long value = 0;
+
+                while (position < length) {
+                    int digit = buffer_.get(position) - '0';
+                    if ((digit < 0) || (digit > 9)) break;
+                    value = (value * 10) + digit;
+                    position++;
+                }
+
+                if ((field == 14) || (field == 15)) scanResults_.cpuTimes_[index] += value;
+                else if (field == 20) scanResults_.numThreads_[index] = (int) value;
+                else if (field == 22) scanResults_.startTimes_[index] = value;
+            }
+
+            return commHash;
+        }
+
+        // /proc/(pid)/statm: 'size resident shared text lib data dt' (in pages)
+        private long parseStatm(int length) {
+
+            int position = 0;
+            while ((position < length) && (buffer_.get(position) != ' ')) position++;
+
+            return parseLong(position + 1, length);
+        }
+
+        // /proc/(pid)/io has a 'name: value' line per field
+        private long parseIoField(int length, byte[] prefix) {
+
+            int lineStart = 0;
+
+            while (lineStart < length) {
+                boolean isMatch = (lineStart + prefix.length) <= length;
+
+                for (int i = 0; isMatch && (i < prefix.length); i++) {
+                    if (buffer_.get(lineStart + i) != prefix[i]) isMatch = false;
+                }
+
+                if (isMatch) {
+                    int position = lineStart + prefix.length;
+                    while ((position < length) && (buffer_.get(position) == ' ')) position++;
+                    return parseLong(position, length);
+                }
+
+                while ((lineStart < length) && (buffer_.get(lineStart) != '\n')) lineStart++;
+                lineStart++;
+            }
+
+            return ProcessTableSnapshot.NO_VALUE;
+        }
+
+        // parses the unsigned number that starts at 'position', or returns NO_VALUE
+        private long parseLong(int position, int length) {
+
+            long value = 0;
+            int numDigits = 0;
+
+            for (; position < length; position++, numDigits++) {
+                int digit = buffer_.get(position) - '0';
+                if ((digit < 0) || (digit > 9)) break;
+                value = (value * 10) + digit;
+            }
+
+            return (numDigits > 0) ? value : ProcessTableSnapshot.NO_VALUE;
+        }
+
+        // the arguments in cmdline are separated (& terminated) by null bytes
+        private String getCmdline(int length) {
+
+            byte[] bytes = new byte[length];
+
+            for (int i = 0; i < length; i++) {
+                byte b = buffer_.get(i);
+                bytes[i] = (b == 0) ? (byte) ' ' : b;
+            }
+
+            return new String(bytes, StandardCharsets.UTF_8).trim();
+        }
+
+    }
+
+    private static class CmdlineEntry {
+
+        private final long startTime_;
+        private final int commHash_;
+        private final String cmdline_;
+        private volatile long scanNumber_ = 0;
+
+        public CmdlineEntry(long startTime, int commHash, String cmdline) {
+            this.startTime_ = startTime;
+            this.commHash_ = commHash;
+            this.cmdline_ = cmdline;
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcessTable;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * The result of a single scan of /proc/(pid). Processes are stored by index (0 to size-1), in parallel primitive arrays,
+ * so a scan of a host with tens of thousands of processes doesn't create an object per process.
+ *
+ * Snapshots are immutable once the scan completes, so they can be shared by every collector that reads the process table in the same tick.
+ */
+public class ProcessTableSnapshot {
+
+    public static final byte NO_STATE = 0;
+    public static final long NO_VALUE = -1;
+
+    private final int fields_;
+    private final int size_;
+    private final int[] pids_;
+    private final byte[] states_;
+    private final int[] numThreads_;
+    private final long[] startTimes_;
+    private final long[] cpuTimes_;
+    private final String[] cmdlines_;
+    private final long[] residentPages_;
+    private final long[] ioReadBytes_;
+    private final long[] ioWriteBytes_;
+    private final long scanStartTimestampInMs_;
+    private final long scanCompleteTimestampInMs_;
+
+    protected ProcessTableSnapshot(int fields, int size, int[] pids, byte[] states, int[] numThreads, long[] startTimes, long[] cpuTimes, String[] cmdlines,
+            long[] residentPages, long[] ioReadBytes, long[] ioWriteBytes, long scanStartTimestampInMs, long scanCompleteTimestampInMs) {
+        this.fields_ = fields;
+        this.size_ = size;
+        this.pids_ = pids;
+        this.states_ = states;
+        this.numThreads_ = numThreads;
+        this.startTimes_ = startTimes;
+        this.cpuTimes_ = cpuTimes;
+        this.cmdlines_ = cmdlines;
+        this.residentPages_ = residentPages;
+        this.ioReadBytes_ = ioReadBytes;
+        this.ioWriteBytes_ = ioWriteBytes;
+        this.scanStartTimestampInMs_ = scanStartTimestampInMs;
+        this.scanCompleteTimestampInMs_ = scanCompleteTimestampInMs;
+    }
+
+    public boolean hasFields(int fields) {
+        return (fields_ & fields) == fields;
+    }
+
+    public int getFields() {
+        return fields_;
+    }
+
+    public int size() {
+        return size_;
+    }
+
+    public int getPid(int index) {
+        return pids_[index];
+    }
+
+    /*
+    The state letter from /proc/(pid)/stat (ex- 'R', 'S', 'D'). NO_STATE if FIELD_STAT wasn't scanned.
+    */
+    public byte getState(int index) {
+        return states_[index];
+    }
+
+    public int getNumThreads(int index) {
+        return numThreads_[index];
+    }
+
+    /*
+    The time the process started after system boot, in clock ticks.
+    */
+    public long getStartTime(int index) {
+        return startTimes_[index];
+    }
+
+    /*
+    The user + system cpu time of the process (not including its waited-for children), in clock ticks.
+    */
+    public long getCpuTime(int index) {
+        return cpuTimes_[index];
+    }
+
+    /*
+    The process's command line, with the argument separators replaced by spaces. Empty for kernel threads.
+    Null if FIELD_CMDLINE wasn't scanned.
+    */
+    public String getCmdline(int index) {
+        return (cmdlines_ == null) ? null : cmdlines_[index];
+    }
+
+    /*
+    The resident set size of the process, in pages. NO_VALUE if FIELD_STATM wasn't scanned, or if statm couldn't be read.
+    */
+    public long getResidentPages(int index) {
+        return (residentPages_ == null) ? NO_VALUE : residentPages_[index];
+    }
+
+    /*
+    The number of bytes that the process caused to be read from storage. NO_VALUE if FIELD_IO wasn't scanned, or if io couldn't be read (it's only readable by root & the process's owner).
+    */
+    public long getIoReadBytes(int index) {
+        return (ioReadBytes_ == null) ? NO_VALUE : ioReadBytes_[index];
+    }
+
+    /*
+    The number of bytes that the process caused to be written to storage. NO_VALUE if FIELD_IO wasn't scanned, or if io couldn't be read.
+    */
+    public long getIoWriteBytes(int index) {
+        return (ioWriteBytes_ == null) ? NO_VALUE : ioWriteBytes_[index];
+    }
+
+    public long getScanStartTimestampInMs() {
+        return scanStartTimestampInMs_;
+    }
+
+    public long getScanCompleteTimestampInMs() {
+        return scanCompleteTimestampInMs_;
+    }
+
+}
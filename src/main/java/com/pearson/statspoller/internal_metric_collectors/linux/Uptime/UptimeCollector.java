@@ -1,10 +1,11 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.Uptime;
 
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileParser;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSnapshot;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSystem;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
-import com.pearson.statspoller.utilities.file_utils.FileIo;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,37 +15,33 @@ import org.slf4j.LoggerFactory;
 /**
  * @author Jeffrey Schmidt
  */
-public class UptimeCollector extends InternalCollectorFramework implements Runnable {
+public class UptimeCollector extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(UptimeCollector.class.getName());
     
+    private final String procUptimePath_;
+    private final ProcFileParser parser_ = new ProcFileParser();
+    
     public UptimeCollector(boolean isEnabled, long collectionInterval, String metricPrefix, String outputFilePathAndFilename, boolean writeOutputFiles) {
         super(isEnabled, collectionInterval, metricPrefix, outputFilePathAndFilename, writeOutputFiles);
+        this.procUptimePath_ = super.getLinuxProcFileSystemLocation() + "/uptime";
     }
     
     @Override
-    public void run() {
-         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // get the update stats in graphite format
-            List<GraphiteMetric> graphiteMetrics = getUptimeMetrics();
-
-            // output graphite metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
-
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            logger.info("Finished Linux-Uptime metric collection routine. " +
-                    "MetricsCollected=" + graphiteMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
+        
+        // get the update stats in graphite format
+        List<GraphiteMetric> graphiteMetrics = getUptimeMetrics();
 
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
-        }
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
 
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+        
+        logger.info("Finished Linux-Uptime metric collection routine. " +
+                "MetricsCollected=" + graphiteMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
     
     private List<GraphiteMetric> getUptimeMetrics() {
@@ -54,16 +51,19 @@ public class UptimeCollector extends InternalCollectorFramework implements Runna
         try {
             int currentTimestampInSeconds = (int) (System.currentTimeMillis() / 1000);
 
-            String rawUptime = FileIo.readFileToString(super.getLinuxProcFileSystemLocation() + "/uptime");
-            if ((rawUptime == null) || rawUptime.isEmpty()) return allGraphiteMetrics;
+            ProcFileSnapshot snapshot = ProcFileSystem.acquireSnapshot(procUptimePath_);
+            if (snapshot == null) return allGraphiteMetrics;
             
-            int indexOfFirstSpace = rawUptime.indexOf(' ');
-            if (indexOfFirstSpace == -1) return allGraphiteMetrics;
+            BigDecimal uptimeSinceOsBoot_BigDecimal;
             
-            String uptimeSinceOsBoot = rawUptime.substring(0, indexOfFirstSpace).trim();
-            if ((uptimeSinceOsBoot == null) || uptimeSinceOsBoot.isEmpty()) return allGraphiteMetrics;
+            try {
+                uptimeSinceOsBoot_BigDecimal = parser_.reset(snapshot).nextDecimal();
+            }
+            finally {
+                snapshot.release();
+            }
             
-            BigDecimal uptimeSinceOsBoot_BigDecimal = new BigDecimal(uptimeSinceOsBoot);
+            if (uptimeSinceOsBoot_BigDecimal == null) return allGraphiteMetrics;
 
             if (uptimeSinceOsBoot_BigDecimal.compareTo(BigDecimal.ZERO) != -1) {
                 allGraphiteMetrics.add(new GraphiteMetric("OS_Uptime-Seconds", uptimeSinceOsBoot_BigDecimal, currentTimestampInSeconds));
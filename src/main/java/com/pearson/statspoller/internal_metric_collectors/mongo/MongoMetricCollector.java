@@ -15,7 +15,6 @@ import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoIterable;
 import com.pearson.statspoller.utilities.core_utils.KeyValue;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
 import java.math.BigDecimal;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -29,7 +28,7 @@ import org.bson.Document;
  * @author Jeffrey Schmidt
  * @author Judah Walker
  */
-public class MongoMetricCollector extends InternalCollectorFramework implements Runnable {
+public class MongoMetricCollector extends InternalCollectorFramework {
 
     private static final Logger logger = LoggerFactory.getLogger(MongoMetricCollector.class.getName());
 
@@ -51,28 +50,18 @@ public class MongoMetricCollector extends InternalCollectorFramework implements
     }
 
     @Override
-    public void run() {
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
 
-        while (super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
+        List<GraphiteMetric> graphiteMetrics = getMongoMetrics();
 
-            List<GraphiteMetric> graphiteMetrics = getMongoMetrics();
+        super.outputGraphiteMetrics(graphiteMetrics);
 
-            super.outputGraphiteMetrics(graphiteMetrics);
-
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-
-            logger.info("Finished Mongo metric collection routine. MongoServer=" + host_ + ":" + port_
-                    + ", MetricsCollected=" + graphiteMetrics.size()
-                    + ", MetricCollectionTime=" + routineTimeElapsed);
-
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
-
-            if (sleepTimeInMs >= 0) {
-                Threads.sleepMilliseconds(sleepTimeInMs);
-            }
-        }
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
 
+        logger.info("Finished Mongo metric collection routine. MongoServer=" + host_ + ":" + port_
+                + ", MetricsCollected=" + graphiteMetrics.size()
+                + ", MetricCollectionTime=" + routineTimeElapsed);
     }
 
     private List<GraphiteMetric> getMongoMetrics() {
@@ -23,7 +23,7 @@ import org.slf4j.LoggerFactory;
 /**
  * @author Jeffrey Schmidt
  */
-public class MysqlMetricCollector extends InternalCollectorFramework implements Runnable {
+public class MysqlMetricCollector extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(MysqlMetricCollector.class.getName());
     
@@ -59,43 +59,38 @@ public class MysqlMetricCollector extends InternalCollectorFramework implements
     }
 
     @Override
-    public void run() {
-         
+    public void initializeCollector() {
         resetVariables();
+    }
+    
+    @Override
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
         
-        while(super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-            
-            // connect to the db
-            Connection connection = null;
-            try {
-                connection = !isUserSpecifiedJdbcString_ ? DatabaseUtils.connect(jdbcString_, username_, password_) : DatabaseUtils.connect(jdbcString_);
-                connection.setReadOnly(true);
-            }
-            catch (Exception e) {
-                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
-            }
-            
-            List<OpenTsdbMetric> openTsdbMetrics = getMysqlMetrics(connection);
-            
-            // disconnect from the db
-            DatabaseUtils.disconnect(connection);
-            
-            // output opentsdb metrics
-            super.outputOpenTsdbMetrics(openTsdbMetrics);
-            
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
-            
-            // lay on anything worth logging here
-            logger.info("Finished MySQL metric collection routine. MyqlServer=" + host_ + ":" + port_ + 
-                    ", MetricsCollected=" + openTsdbMetrics.size() +
-                    ", MetricCollectionTime=" + routineTimeElapsed);
-            
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
-
-            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
+        // connect to the db
+        Connection connection = null;
+        try {
+            connection = !isUserSpecifiedJdbcString_ ? DatabaseUtils.connect(jdbcString_, username_, password_) : DatabaseUtils.connect(jdbcString_);
+            connection.setReadOnly(true);
         }
-
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+        
+        List<OpenTsdbMetric> openTsdbMetrics = getMysqlMetrics(connection);
+        
+        // disconnect from the db
+        DatabaseUtils.disconnect(connection);
+        
+        // output opentsdb metrics
+        super.outputOpenTsdbMetrics(openTsdbMetrics);
+        
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+        
+        // lay on anything worth logging here
+        logger.info("Finished MySQL metric collection routine. MyqlServer=" + host_ + ":" + port_ + 
+                ", MetricsCollected=" + openTsdbMetrics.size() +
+                ", MetricCollectionTime=" + routineTimeElapsed);
     }
     
     public void singleRun() {
@@ -5,7 +5,6 @@ import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
 import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbMetric;
 import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbTag;
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
-import com.pearson.statspoller.utilities.core_utils.Threads;
 import com.pearson.statspoller.utilities.db_utils.DatabaseUtils;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -23,7 +22,7 @@ import org.slf4j.LoggerFactory;
 /**
  * @author Judah Walker
  */
-public class PostgresMetricCollector extends InternalCollectorFramework implements Runnable {
+public class PostgresMetricCollector extends InternalCollectorFramework {
 
     private static final Logger logger = LoggerFactory.getLogger(PostgresMetricCollector.class.getName());
 
@@ -59,39 +58,32 @@ public class PostgresMetricCollector extends InternalCollectorFramework implemen
     }
 
     @Override
-    public void run() {
-
+    public void initializeCollector() {
         resetVariables();
-        
-        while (super.isEnabled()) {
-            long routineStartTime = System.currentTimeMillis();
-
-            // connect to the db
-            Connection connection = !isUserSpecifiedJdbcString_ ? DatabaseUtils.connect(jdbcString_, username_, password_) : DatabaseUtils.connect(jdbcString_);
-
-            List<String> statisticsVariablesToDelta = getStatisticsVariablesToDelta(connection);
-
-            List<OpenTsdbMetric> openTsdbMetrics = getPostgresMetrics(connection, statisticsVariablesToDelta);
+    }
+    
+    @Override
+    public void collectMetrics() {
+        long routineStartTime = System.currentTimeMillis();
 
-            // disconnect from the db
-            DatabaseUtils.disconnect(connection);
+        // connect to the db
+        Connection connection = !isUserSpecifiedJdbcString_ ? DatabaseUtils.connect(jdbcString_, username_, password_) : DatabaseUtils.connect(jdbcString_);
 
-            // output opentsdb metrics
-            super.outputOpenTsdbMetrics(openTsdbMetrics);
+        List<String> statisticsVariablesToDelta = getStatisticsVariablesToDelta(connection);
 
-            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+        List<OpenTsdbMetric> openTsdbMetrics = getPostgresMetrics(connection, statisticsVariablesToDelta);
 
-            logger.info("Finished PostgreSQL metric collection routine. PostgreSQL Server=" + host_ + ":" + port_
-                    + ", MetricsCollected=" + openTsdbMetrics.size()
-                    + ", MetricCollectionTime=" + routineTimeElapsed);
+        // disconnect from the db
+        DatabaseUtils.disconnect(connection);
 
-            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
+        // output opentsdb metrics
+        super.outputOpenTsdbMetrics(openTsdbMetrics);
 
-            if (sleepTimeInMs >= 0) {
-                Threads.sleepMilliseconds(sleepTimeInMs);
-            }
-        }
+        long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
 
+        logger.info("Finished PostgreSQL metric collection routine. PostgreSQL Server=" + host_ + ":" + port_
+                + ", MetricsCollected=" + openTsdbMetrics.size()
+                + ", MetricCollectionTime=" + routineTimeElapsed);
     }
 
     private void resetVariables() {
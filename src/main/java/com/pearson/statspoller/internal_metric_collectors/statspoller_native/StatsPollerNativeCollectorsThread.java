@@ -1,9 +1,10 @@
 package com.pearson.statspoller.internal_metric_collectors.statspoller_native;
 
+import com.pearson.statspoller.external_metric_collectors.ExternalMetricCollectorStatistics;
+import com.pearson.statspoller.external_metric_collectors.ExternalMetricCollectorSupervisor;
 import com.pearson.statspoller.globals.GlobalVariables;
 import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
-import com.pearson.statspoller.utilities.core_utils.Threads;
 import com.pearson.statspoller.utilities.math_utils.MathUtilities;
 import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
@@ -20,7 +21,7 @@ import org.slf4j.LoggerFactory;
 /**
  * @author Jeffrey Schmidt
  */
-public class StatsPollerNativeCollectorsThread extends InternalCollectorFramework implements Runnable {
+public class StatsPollerNativeCollectorsThread extends InternalCollectorFramework {
     
     private static final Logger logger = LoggerFactory.getLogger(StatsPollerNativeCollectorsThread.class.getName());
 
@@ -58,38 +59,35 @@ public class StatsPollerNativeCollectorsThread extends InternalCollectorFramewor
     }
     
     @Override
-    public void run() {
-        
+    public void initializeCollector() {
         setOsVariables();
+    }
+    
+    /*
+    The agent metrics (availability, version, external collector statistics) are always output. The system metrics are only output if this collector is enabled.
+    */
+    @Override
+    public void collectMetrics() {
+        List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
         
-        while (true) {
-            long readMetricsTimeStart = System.currentTimeMillis();
-
-            List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
-            
-            if (isEnabled()) {
-                List<GraphiteMetric> systemGraphiteMetrics = getSystemMetrics();            
-                graphiteMetrics.addAll(systemGraphiteMetrics);
-            }
+        if (isEnabled()) {
+            List<GraphiteMetric> systemGraphiteMetrics = getSystemMetrics();            
+            graphiteMetrics.addAll(systemGraphiteMetrics);
+        }
 
-            graphiteMetrics.add(getStatsPollerAvailabilityMetric());
-            graphiteMetrics.add(getStatsPollerVersionMetric());
+        graphiteMetrics.add(getStatsPollerAvailabilityMetric());
+        graphiteMetrics.add(getStatsPollerVersionMetric());
+        GraphiteMetric startupTimeMetric = getStatsPollerStartupTimeMetric();
+        if (startupTimeMetric != null) graphiteMetrics.add(startupTimeMetric);
+        graphiteMetrics.addAll(getExternalMetricCollectorMetrics());
 
-            // output graphite metrics
-            super.outputGraphiteMetrics(graphiteMetrics);
-            
-            String outputStatusString = "Finished StatsPoller Native metrics collection routine. NewMetricCount=" + graphiteMetrics.size();
-            
-            if (graphiteMetrics.size() > 0) logger.info(outputStatusString);
-            else logger.debug(outputStatusString);
-            
-            long readMetricsTimeElapsed = System.currentTimeMillis() - readMetricsTimeStart;
-            
-            long sleepTime = getCollectionInterval() - readMetricsTimeElapsed;
-            
-            Threads.sleepMilliseconds(sleepTime);          
-        }
+        // output graphite metrics
+        super.outputGraphiteMetrics(graphiteMetrics);
+        
+        String outputStatusString = "Finished StatsPoller Native metrics collection routine. NewMetricCount=" + graphiteMetrics.size();
         
+        if (graphiteMetrics.size() > 0) logger.info(outputStatusString);
+        else logger.debug(outputStatusString);
     }
     
     private GraphiteMetric getStatsPollerAvailabilityMetric() {
@@ -109,12 +107,42 @@ public class StatsPollerNativeCollectorsThread extends InternalCollectorFramewor
         return graphiteMetric;
     }
     
+    /*
+    The time from jvm start until metrics were first sent to the output modules. Returns null until the first output has happened.
+    */
+    private GraphiteMetric getStatsPollerStartupTimeMetric() {
+        long firstMetricOutputTimestampInMs = GlobalVariables.firstMetricOutputTimestampInMs.get();
+        if (firstMetricOutputTimestampInMs < 0) return null;
+        
+        int timestamp = (int) (System.currentTimeMillis() / 1000);
+        long startupTimeInMs = Math.max(firstMetricOutputTimestampInMs - ManagementFactory.getRuntimeMXBean().getStartTime(), 0);
+        GraphiteMetric graphiteMetric = new GraphiteMetric("Agent.Startup-Time-To-First-Output-Ms", new BigDecimal(startupTimeInMs), timestamp);
+        return graphiteMetric;
+    }
+    
     private GraphiteMetric getStatsPollerTransmitErrorCountMetric() {
         int timestamp = (int) (System.currentTimeMillis() / 1000);
         GraphiteMetric graphiteMetric = new GraphiteMetric("Agent.Transmit-Errors", new BigDecimal(GlobalVariables.metricTransmitErrorCount.get()), timestamp);
         return graphiteMetric;
     }
     
+    private List<GraphiteMetric> getExternalMetricCollectorMetrics() {
+        int timestamp = (int) (System.currentTimeMillis() / 1000);
+
+        List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
+
+        for (ExternalMetricCollectorStatistics statistics : ExternalMetricCollectorSupervisor.getAllStatistics()) {
+            String metricPathPrefix = "Agent.External-Collectors." + StringUtils.removeEnd(statistics.getCollectorName(), ".") + ".";
+
+            if (statistics.getLastRuntimeInMs() >= 0) graphiteMetrics.add(new GraphiteMetric(metricPathPrefix + "Runtime-Ms", new BigDecimal(statistics.getLastRuntimeInMs()), timestamp));
+            if (statistics.getLastExitCode() != null) graphiteMetrics.add(new GraphiteMetric(metricPathPrefix + "Exit-Code", new BigDecimal(statistics.getLastExitCode()), timestamp));
+            graphiteMetrics.add(new GraphiteMetric(metricPathPrefix + "Overruns", new BigDecimal(statistics.getOverrunCount()), timestamp));
+            graphiteMetrics.add(new GraphiteMetric(metricPathPrefix + "Skipped-Runs", new BigDecimal(statistics.getSkippedRunCount()), timestamp));
+        }
+
+        return graphiteMetrics;
+    }
+
     private List<GraphiteMetric> getSystemMetrics() {
         
         List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
@@ -0,0 +1,184 @@
+package com.pearson.statspoller.load_test;
+
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.Threads;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * An in-process stand-in for a Graphite (plaintext protocol) or OpenTSDB (telnet protocol) server.
+ * Every received line is validated & counted. Connections can optionally be delayed or dropped to simulate a slow or unhealthy backend.
+ */
+public class FakeLineProtocolServer implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FakeLineProtocolServer.class.getName());
+
+    public static final int PROTOCOL_GRAPHITE = 1;
+    public static final int PROTOCOL_OPENTSDB_TELNET = 2;
+
+    private final int protocol_;
+    private final long connectionDelayInMs_;
+    private final double connectionFailurePercent_;
+    private final FakeSinkStatistics fakeSinkStatistics_;
+
+    private final ExecutorService connectionHandlerThreadPool_ = Executors.newCachedThreadPool();
+    private ServerSocket serverSocket_ = null;
+    private volatile boolean continueRunning_ = true;
+
+    public FakeLineProtocolServer(int protocol, long connectionDelayInMs, double connectionFailurePercent, FakeSinkStatistics fakeSinkStatistics) {
+        this.protocol_ = protocol;
+        this.connectionDelayInMs_ = connectionDelayInMs;
+        this.connectionFailurePercent_ = connectionFailurePercent;
+        this.fakeSinkStatistics_ = fakeSinkStatistics;
+    }
+
+    /*
+    Binds to an ephemeral port on the loopback interface. Returns the bound port, or -1 if binding failed.
+    */
+    public int bind() {
+
+        try {
+            serverSocket_ = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+            return serverSocket_.getLocalPort();
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return -1;
+        }
+    }
+
+    @Override
+    public void run() {
+
+        if (serverSocket_ == null) return;
+
+        while (continueRunning_) {
+            try {
+                final Socket socket = serverSocket_.accept();
+                fakeSinkStatistics_.recordConnectionOrRequestAccepted();
+
+                connectionHandlerThreadPool_.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        handleConnection(socket);
+                    }
+                });
+            }
+            catch (Exception e) {
+                if (continueRunning_) logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+
+        BufferedReader reader = null;
+
+        try {
+            if (connectionDelayInMs_ > 0) Threads.sleepMilliseconds(connectionDelayInMs_);
+
+            if ((connectionFailurePercent_ > 0) && ((ThreadLocalRandom.current().nextDouble() * 100) < connectionFailurePercent_)) {
+                fakeSinkStatistics_.recordConnectionOrRequestFailed();
+                return;
+            }
+
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                long receivedTimestampInMs = System.currentTimeMillis();
+                fakeSinkStatistics_.recordBytesReceived(line.length() + 1);
+                if (line.isEmpty()) continue;
+
+                long metricCreationTimestampInMs;
+                if (protocol_ == PROTOCOL_GRAPHITE) metricCreationTimestampInMs = parseGraphiteLine(line);
+                else metricCreationTimestampInMs = parseOpenTsdbTelnetLine(line);
+
+                if (metricCreationTimestampInMs < 0) fakeSinkStatistics_.recordInvalidMetric();
+                else fakeSinkStatistics_.recordValidMetric(metricCreationTimestampInMs, receivedTimestampInMs);
+            }
+        }
+        catch (Exception e) {
+            if (continueRunning_) logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+        finally {
+            try {
+                if (reader != null) reader.close();
+                socket.close();
+            }
+            catch (Exception e) {}
+        }
+    }
+
+    /*
+    Expected format: "metric.path value timestamp_seconds". Returns the metric's value (the creation timestamp in ms), or -1 if the line isn't valid.
+    */
+    protected static long parseGraphiteLine(String line) {
+
+        String[] fields = StringUtils.split(line, ' ');
+        if ((fields == null) || (fields.length != 3)) return -1;
+        if (fields[0].isEmpty() || (fields[2].length() != 10) || !StringUtils.isNumeric(fields[2])) return -1;
+
+        return parseMetricCreationTimestamp(fields[1]);
+    }
+
+    /*
+    Expected format: "put metric timestamp value tagk=tagv [tagk=tagv ...]". Returns the metric's value (the creation timestamp in ms), or -1 if the line isn't valid.
+    */
+    protected static long parseOpenTsdbTelnetLine(String line) {
+
+        String[] fields = StringUtils.split(line, ' ');
+        if ((fields == null) || (fields.length < 5) || !fields[0].equals("put")) return -1;
+        if (fields[1].isEmpty() || ((fields[2].length() != 10) && (fields[2].length() != 13)) || !StringUtils.isNumeric(fields[2])) return -1;
+
+        for (int i = 4; i < fields.length; i++) {
+            int equalsIndex = fields[i].indexOf('=');
+            if ((equalsIndex <= 0) || (equalsIndex == (fields[i].length() - 1))) return -1;
+        }
+
+        return parseMetricCreationTimestamp(fields[3]);
+    }
+
+    protected static long parseMetricCreationTimestamp(String metricValue) {
+
+        try {
+            if (metricValue.indexOf('.') >= 0) return (long) Double.parseDouble(metricValue);
+            else return Long.parseLong(metricValue);
+        }
+        catch (Exception e) {
+            return -1;
+        }
+    }
+
+    public void shutdown() {
+
+        continueRunning_ = false;
+
+        try {
+            if (serverSocket_ != null) serverSocket_.close();
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+
+        Threads.shutdownThreadExecutor(connectionHandlerThreadPool_, 5000L, TimeUnit.MILLISECONDS, true, false);
+    }
+
+    public FakeSinkStatistics getFakeSinkStatistics() {
+        return fakeSinkStatistics_;
+    }
+
+}
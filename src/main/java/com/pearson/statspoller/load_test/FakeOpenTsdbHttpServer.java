@@ -0,0 +1,156 @@
+package com.pearson.statspoller.load_test;
+
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.Threads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * An in-process stand-in for the OpenTSDB HTTP api (/api/put).
+ * Request bodies are scanned (not fully deserialized) so that the sink itself adds as little heap pressure as possible to the load test.
+ * Requests can optionally be delayed or failed (http 500) to simulate a slow or unhealthy backend.
+ */
+public class FakeOpenTsdbHttpServer implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FakeOpenTsdbHttpServer.class.getName());
+
+    private static final String METRIC_FIELD = "\"metric\":";
+    private static final String TIMESTAMP_FIELD = "\"timestamp\":";
+    private static final String VALUE_FIELD = "\"value\":";
+    private static final String TAGS_FIELD = "\"tags\":";
+
+    private final long requestDelayInMs_;
+    private final double requestFailurePercent_;
+    private final FakeSinkStatistics fakeSinkStatistics_;
+
+    private final ExecutorService requestHandlerThreadPool_ = Executors.newCachedThreadPool();
+    private HttpServer httpServer_ = null;
+
+    public FakeOpenTsdbHttpServer(long requestDelayInMs, double requestFailurePercent, FakeSinkStatistics fakeSinkStatistics) {
+        this.requestDelayInMs_ = requestDelayInMs;
+        this.requestFailurePercent_ = requestFailurePercent;
+        this.fakeSinkStatistics_ = fakeSinkStatistics;
+    }
+
+    /*
+    Binds to an ephemeral port on the loopback interface & starts serving. Returns the bound port, or -1 if binding failed.
+    */
+    public int start() {
+
+        try {
+            httpServer_ = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 200);
+            httpServer_.createContext("/api/put", this);
+            httpServer_.setExecutor(requestHandlerThreadPool_);
+            httpServer_.start();
+            return httpServer_.getAddress().getPort();
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return -1;
+        }
+    }
+
+    @Override
+    public void handle(HttpExchange httpExchange) {
+
+        InputStream inputStream = null;
+
+        try {
+            fakeSinkStatistics_.recordConnectionOrRequestAccepted();
+            if (requestDelayInMs_ > 0) Threads.sleepMilliseconds(requestDelayInMs_);
+
+            inputStream = httpExchange.getRequestBody();
+            String contentEncoding = httpExchange.getRequestHeaders().getFirst("Content-Encoding");
+            if ((contentEncoding != null) && contentEncoding.equalsIgnoreCase("gzip")) inputStream = new GZIPInputStream(inputStream);
+
+            byte[] requestBody = IOUtils.toByteArray(inputStream);
+            long receivedTimestampInMs = System.currentTimeMillis();
+            fakeSinkStatistics_.recordBytesReceived(requestBody.length);
+
+            if ((requestFailurePercent_ > 0) && ((ThreadLocalRandom.current().nextDouble() * 100) < requestFailurePercent_)) {
+                fakeSinkStatistics_.recordConnectionOrRequestFailed();
+                httpExchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            scanOpenTsdbJson(new String(requestBody, StandardCharsets.UTF_8), receivedTimestampInMs);
+
+            httpExchange.sendResponseHeaders(204, -1);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+        finally {
+            try {
+                if (inputStream != null) inputStream.close();
+                httpExchange.close();
+            }
+            catch (Exception e) {}
+        }
+    }
+
+    /*
+    Walks the json array one datapoint at a time. A datapoint is considered valid if it has a metric, timestamp, value, & tags field.
+    */
+    private void scanOpenTsdbJson(String json, long receivedTimestampInMs) {
+
+        int metricIndex = json.indexOf(METRIC_FIELD);
+
+        while (metricIndex >= 0) {
+            int nextMetricIndex = json.indexOf(METRIC_FIELD, metricIndex + METRIC_FIELD.length());
+            int datapointEndIndex = (nextMetricIndex >= 0) ? nextMetricIndex : json.length();
+
+            int timestampIndex = json.indexOf(TIMESTAMP_FIELD, metricIndex);
+            int valueIndex = json.indexOf(VALUE_FIELD, metricIndex);
+            int tagsIndex = json.indexOf(TAGS_FIELD, metricIndex);
+
+            if ((timestampIndex < 0) || (timestampIndex > datapointEndIndex) || (valueIndex < 0) || (valueIndex > datapointEndIndex) ||
+                    (tagsIndex < 0) || (tagsIndex > datapointEndIndex)) {
+                fakeSinkStatistics_.recordInvalidMetric();
+            }
+            else {
+                int valueStartIndex = valueIndex + VALUE_FIELD.length();
+                int valueEndIndex = json.indexOf(',', valueStartIndex);
+                if ((valueEndIndex < 0) || (valueEndIndex > datapointEndIndex)) valueEndIndex = datapointEndIndex;
+
+                long metricCreationTimestampInMs = FakeLineProtocolServer.parseMetricCreationTimestamp(json.substring(valueStartIndex, valueEndIndex).trim());
+                if (metricCreationTimestampInMs < 0) fakeSinkStatistics_.recordInvalidMetric();
+                else fakeSinkStatistics_.recordValidMetric(metricCreationTimestampInMs, receivedTimestampInMs);
+            }
+
+            metricIndex = nextMetricIndex;
+        }
+    }
+
+    public void shutdown() {
+
+        try {
+            if (httpServer_ != null) httpServer_.stop(0);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+
+        Threads.shutdownThreadExecutor(requestHandlerThreadPool_, 5000L, TimeUnit.MILLISECONDS, true, false);
+    }
+
+    public FakeSinkStatistics getFakeSinkStatistics() {
+        return fakeSinkStatistics_;
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.pearson.statspoller.load_test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Counters shared by all of the fake sinks.
+ * Every metric that the load generator emits carries its creation time (in ms) as its value,
+ * so a sink can compute end-to-end latency (collector -> global queue -> output module -> sink) for every metric it receives.
+ */
+public class FakeSinkStatistics {
+
+    private final String sinkName_;
+
+    private final AtomicLong metricsReceived_ = new AtomicLong(0);
+    private final AtomicLong invalidMetricsReceived_ = new AtomicLong(0);
+    private final AtomicLong bytesReceived_ = new AtomicLong(0);
+    private final AtomicLong connectionsOrRequestsAccepted_ = new AtomicLong(0);
+    private final AtomicLong connectionsOrRequestsFailed_ = new AtomicLong(0);
+    private final LatencyHistogram latencyHistogram_ = new LatencyHistogram();
+
+    public FakeSinkStatistics(String sinkName) {
+        this.sinkName_ = sinkName;
+    }
+
+    public void recordValidMetric(long metricCreationTimestampInMs, long receivedTimestampInMs) {
+        metricsReceived_.incrementAndGet();
+        latencyHistogram_.record(receivedTimestampInMs - metricCreationTimestampInMs);
+    }
+
+    public void recordInvalidMetric() {
+        invalidMetricsReceived_.incrementAndGet();
+    }
+
+    public void recordBytesReceived(long numBytes) {
+        bytesReceived_.addAndGet(numBytes);
+    }
+
+    public void recordConnectionOrRequestAccepted() {
+        connectionsOrRequestsAccepted_.incrementAndGet();
+    }
+
+    public void recordConnectionOrRequestFailed() {
+        connectionsOrRequestsFailed_.incrementAndGet();
+    }
+
+    public String getSinkName() {
+        return sinkName_;
+    }
+
+    public long getMetricsReceived() {
+        return metricsReceived_.get();
+    }
+
+    public long getInvalidMetricsReceived() {
+        return invalidMetricsReceived_.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived_.get();
+    }
+
+    public long getConnectionsOrRequestsAccepted() {
+        return connectionsOrRequestsAccepted_.get();
+    }
+
+    public long getConnectionsOrRequestsFailed() {
+        return connectionsOrRequestsFailed_.get();
+    }
+
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram_;
+    }
+
+}
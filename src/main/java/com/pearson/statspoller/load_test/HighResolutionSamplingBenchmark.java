@@ -0,0 +1,110 @@
+package com.pearson.statspoller.load_test;
+
+import com.pearson.statspoller.globals.GlobalVariables;
+import com.pearson.statspoller.internal_metric_collectors.linux.Cpu.CpuCollector;
+import com.pearson.statspoller.internal_metric_collectors.linux.DiskIo.DiskIoCollector;
+import com.pearson.statspoller.internal_metric_collectors.linux.HighResolution.HighResolutionSampleable;
+import com.pearson.statspoller.internal_metric_collectors.linux.HighResolution.HighResolutionSamples;
+import com.pearson.statspoller.internal_metric_collectors.linux.Network.NetworkBandwidthCollector;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Measures the overhead of high-resolution sampling. The CPU, Disk IO, & Network Bandwidth collectors are created with high-resolution sampling enabled,
+ * & each sample (one pass over all three collectors) is timed against the real /proc filesystem.
+ * The result includes the cpu usage that the sampler would have at the given sampling interval, which is what 'linux_high_resolution_cpu_budget_pct' is compared against.
+ *
+ * Usage: java -cp StatsPoller.jar com.pearson.statspoller.load_test.HighResolutionSamplingBenchmark [key=value ...]
+ * See docs/load_test.md for the list of settings.
+ */
+public class HighResolutionSamplingBenchmark {
+
+    public static void main(String[] args) {
+
+        Map<String,String> settings = LoadTestDriver.parseArguments(args);
+
+        double samplingIntervalInSeconds = LoadTestDriver.getDoubleSetting(settings, "sampling_interval", 0.25);
+        double collectionIntervalInSeconds = LoadTestDriver.getDoubleSetting(settings, "collection_interval", 30);
+        int numSamples = (int) LoadTestDriver.getDoubleSetting(settings, "samples", 2000);
+        int numWarmupSamples = (int) LoadTestDriver.getDoubleSetting(settings, "warmup_samples", 200);
+        String procLocation = LoadTestDriver.getStringSetting(settings, "proc_location", "/proc");
+        String sysLocation = LoadTestDriver.getStringSetting(settings, "sys_location", "/sys");
+
+        LoadTestDriver.setRootLogLevel(LoadTestDriver.getStringSetting(settings, "log_level", "WARN"));
+
+        boolean isConfigurationSuccess = LoadTestDriver.initializeApplicationConfiguration(30,
+                "linux_proc_location = " + procLocation + System.lineSeparator() + "linux_sys_location = " + sysLocation + System.lineSeparator());
+        if (!isConfigurationSuccess) LoadTestDriver.exitWithError("Failed to initialize the benchmark application configuration");
+
+        long samplingIntervalInMs = Math.max((long) (samplingIntervalInSeconds * 1000), 1);
+        long collectionIntervalInMs = (long) (collectionIntervalInSeconds * 1000);
+        int capacity = HighResolutionSamples.getCapacity(collectionIntervalInMs, samplingIntervalInMs);
+        int[] statistics = HighResolutionSamples.parseStatistics("min,max,mean,p95,p99");
+
+        try {
+            CpuCollector cpuCollector = new CpuCollector(true, collectionIntervalInMs, "Linux.Cpu", null, false);
+            NetworkBandwidthCollector networkBandwidthCollector = new NetworkBandwidthCollector(true, collectionIntervalInMs, "Linux.Network-Bandwidth", null, false);
+            DiskIoCollector diskIoCollector = new DiskIoCollector(true, collectionIntervalInMs, "Linux.DiskIO", null, false);
+
+            cpuCollector.enableHighResolutionSampling(capacity, statistics);
+            networkBandwidthCollector.enableHighResolutionSampling(capacity, statistics);
+            diskIoCollector.enableHighResolutionSampling(capacity, statistics);
+
+            List<HighResolutionSampleable> sampleables = new ArrayList<>();
+            sampleables.add(cpuCollector);
+            sampleables.add(networkBandwidthCollector);
+            sampleables.add(diskIoCollector);
+
+            // the disk io collector only samples the devices that its last regular run found
+            diskIoCollector.initializeCollector();
+            diskIoCollector.collectMetrics();
+
+            System.out.println("High resolution sampling benchmark started. SamplingIntervalMs=" + samplingIntervalInMs + ", Samples=" + numSamples +
+                    ", BufferCapacity=" + capacity + ", ProcLocation=" + procLocation + ", JavaVersion=" + System.getProperty("java.version"));
+
+            for (int i = 0; i < numWarmupSamples; i++) {
+                for (HighResolutionSampleable sampleable : sampleables) sampleable.sampleHighResolution();
+            }
+
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            boolean isThreadCpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported();
+            long totalTimeInNs = 0, maxTimeInNs = 0;
+            long startCpuTimeInNs = isThreadCpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : 0;
+
+            for (int i = 0; i < numSamples; i++) {
+                long startTime = System.nanoTime();
+                for (HighResolutionSampleable sampleable : sampleables) sampleable.sampleHighResolution();
+                long timeInNs = System.nanoTime() - startTime;
+                totalTimeInNs += timeInNs;
+                maxTimeInNs = Math.max(maxTimeInNs, timeInNs);
+            }
+
+            long totalCpuTimeInNs = isThreadCpuTimeSupported ? (threadMXBean.getCurrentThreadCpuTime() - startCpuTimeInNs) : totalTimeInNs;
+
+            // summarize once, the way each collector run would
+            long summarizeStartTime = System.nanoTime();
+            cpuCollector.collectMetrics();
+            networkBandwidthCollector.collectMetrics();
+            diskIoCollector.collectMetrics();
+            long summarizeTimeInNs = System.nanoTime() - summarizeStartTime;
+            GlobalVariables.graphiteMetrics.clear();
+
+            double averageTimeInUs = (totalTimeInNs / 1000.0) / Math.max(numSamples, 1);
+            double averageCpuTimeInUs = (totalCpuTimeInNs / 1000.0) / Math.max(numSamples, 1);
+            double cpuPercent = (averageCpuTimeInUs * 100.0) / (samplingIntervalInMs * 1000.0);
+
+            System.out.println("High-Resolution-Sampling-Benchmark : AvgUsPerSample=" + String.format("%.1f", averageTimeInUs) +
+                    ", MaxUsPerSample=" + String.format("%.1f", maxTimeInNs / 1000.0) + ", AvgCpuUsPerSample=" + String.format("%.1f", averageCpuTimeInUs) +
+                    ", CpuPctAtSamplingInterval=" + String.format("%.3f", cpuPercent) + ", CollectorRunsMs=" + String.format("%.2f", summarizeTimeInNs / 1000000.0));
+        }
+        catch (Exception e) {
+            LoadTestDriver.exitWithError(e.toString());
+        }
+    }
+
+}
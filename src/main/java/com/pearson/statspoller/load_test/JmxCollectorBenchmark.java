@@ -0,0 +1,259 @@
+package com.pearson.statspoller.load_test;
+
+import com.pearson.statspoller.collector_scheduler.CollectorScheduler;
+import com.pearson.statspoller.collector_scheduler.ScheduledCollectorTask;
+import com.pearson.statspoller.globals.ApplicationConfiguration;
+import com.pearson.statspoller.globals.GlobalVariables;
+import com.pearson.statspoller.internal_metric_collectors.jmx.JmxMetricCollector;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.Threads;
+import com.pearson.statspoller.utilities.file_utils.FileIo;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.rmi.registry.LocateRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Measures the memory & scheduling overhead of running many JMX metric collectors on the collector scheduler,
+ * with collector_thread_mode set to either 'platform' or 'virtual' (Java 21+). Run it once per mode, since both modes can't be measured cleanly in the same JVM.
+ * By default, every collector polls a JMX connector server that runs inside the benchmark's own JVM.
+ *
+ * Usage: java -cp StatsPoller.jar com.pearson.statspoller.load_test.JmxCollectorBenchmark [key=value ...]
+ * See docs/load_test.md for the list of settings.
+ */
+public class JmxCollectorBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(JmxCollectorBenchmark.class.getName());
+
+    // only fetch attributes from a couple of mbeans, so that the benchmark measures thread & scheduling overhead rather than attribute parsing
+    protected static final String DEFAULT_BLACKLIST_OBJECT_NAME_REGEX = "^(?!java\\.lang:type=(Memory|Threading)$)";
+
+    public static void main(String[] args) {
+
+        Map<String,String> settings = LoadTestDriver.parseArguments(args);
+
+        int numTargets = (int) LoadTestDriver.getDoubleSetting(settings, "targets", 1000);
+        String threadMode = LoadTestDriver.getStringSetting(settings, "thread_mode", "platform");
+        int schedulerThreads = (int) LoadTestDriver.getDoubleSetting(settings, "scheduler_threads", 8);
+        double collectionIntervalInSeconds = LoadTestDriver.getDoubleSetting(settings, "collection_interval", 10);
+        long durationInSeconds = (long) LoadTestDriver.getDoubleSetting(settings, "duration", 120);
+        long reportIntervalInSeconds = (long) LoadTestDriver.getDoubleSetting(settings, "report_interval", 30);
+        String jmxTarget = LoadTestDriver.getStringSetting(settings, "jmx_target", "");
+        boolean isFullMbeanTree = LoadTestDriver.getStringSetting(settings, "full_mbean_tree", "false").equals("true");
+        int fetchThreads = (int) LoadTestDriver.getDoubleSetting(settings, "fetch_threads", JmxMetricCollector.DEFAULT_FETCH_THREADS);
+
+        LoadTestDriver.setRootLogLevel(LoadTestDriver.getStringSetting(settings, "log_level", "WARN"));
+
+        boolean isConfigurationSuccess = LoadTestDriver.initializeApplicationConfiguration(collectionIntervalInSeconds, "collector_thread_mode = " + threadMode + System.lineSeparator());
+        if (!isConfigurationSuccess) LoadTestDriver.exitWithError("Failed to initialize the benchmark application configuration");
+
+        JvmSnapshot baselineJvmSnapshot = new JvmSnapshot(true);
+        long baselineMetricHashKey = GlobalVariables.metricHashKeyGenerator.get();
+
+        // the jmx target -- either an external jvm (host:port), or a connector server in this jvm
+        String jmxHost = "127.0.0.1";
+        int jmxPort;
+        JMXConnectorServer jmxConnectorServer = null;
+
+        if (jmxTarget.contains(":")) {
+            jmxHost = jmxTarget.substring(0, jmxTarget.lastIndexOf(':'));
+            jmxPort = Integer.parseInt(jmxTarget.substring(jmxTarget.lastIndexOf(':') + 1));
+        }
+        else {
+            jmxPort = getFreePort();
+            jmxConnectorServer = startJmxConnectorServer(jmxPort);
+            if (jmxConnectorServer == null) LoadTestDriver.exitWithError("Failed to start the JMX connector server");
+        }
+
+        List<String> blacklistObjectNameRegexs = new ArrayList<>();
+        if (!isFullMbeanTree) blacklistObjectNameRegexs.add(DEFAULT_BLACKLIST_OBJECT_NAME_REGEX);
+
+        long collectionIntervalInMs = (long) (collectionIntervalInSeconds * 1000);
+        CollectorScheduler collectorScheduler = new CollectorScheduler(schedulerThreads, ApplicationConfiguration.isVirtualThreadsEnabled());
+
+        for (int i = 0; i < numTargets; i++) {
+            JmxMetricCollector jmxMetricCollector = new JmxMetricCollector(true, collectionIntervalInMs, "JMX.Target-" + i, "./output/jmx_benchmark_" + i + ".out", false,
+                    jmxHost, jmxPort, null, 1, 0, 300000, false, false, null, null, blacklistObjectNameRegexs, new ArrayList<String>(), new ArrayList<String>(),
+                    fetchThreads, JmxMetricCollector.DEFAULT_FETCH_TIMEOUT_IN_MS);
+            collectorScheduler.schedule("JMX-" + i, jmxMetricCollector);
+        }
+
+        String actualThreadMode = collectorScheduler.isUsingVirtualThreads() ? "virtual" : "platform";
+        System.out.println("JMX benchmark started. Targets=" + numTargets + ", RequestedThreadMode=" + threadMode + ", ThreadMode=" + actualThreadMode +
+                ", SchedulerThreads=" + schedulerThreads + ", CollectionInterval=" + collectionIntervalInSeconds + "s, Duration=" + durationInSeconds + "s" +
+                ", JmxTarget=" + jmxHost + ":" + jmxPort + ", FullMbeanTree=" + isFullMbeanTree + ", FetchThreads=" + fetchThreads + ", JavaVersion=" + System.getProperty("java.version"));
+        System.out.println("JMX-Benchmark-Baseline : " + baselineJvmSnapshot.toString());
+
+        collectorScheduler.start();
+
+        long benchmarkStartTime = System.currentTimeMillis();
+        long benchmarkEndTime = benchmarkStartTime + (durationInSeconds * 1000);
+        long nextReportTime = benchmarkStartTime + (reportIntervalInSeconds * 1000);
+        long peakPlatformThreadCount = 0;
+
+        // there's no output pipeline in this benchmark, so collected metrics are just counted & discarded
+        while (System.currentTimeMillis() < benchmarkEndTime) {
+            Threads.sleepMilliseconds(1000);
+            GlobalVariables.graphiteMetrics.clear();
+            peakPlatformThreadCount = Math.max(peakPlatformThreadCount, ManagementFactory.getThreadMXBean().getThreadCount());
+
+            if (System.currentTimeMillis() >= nextReportTime) {
+                System.out.println(getReport(false, actualThreadMode, benchmarkStartTime, baselineMetricHashKey, collectorScheduler, peakPlatformThreadCount));
+                nextReportTime += reportIntervalInSeconds * 1000;
+            }
+        }
+
+        System.out.println(getReport(true, actualThreadMode, benchmarkStartTime, baselineMetricHashKey, collectorScheduler, peakPlatformThreadCount));
+
+        collectorScheduler.shutdown();
+        if (jmxConnectorServer != null) {
+            try {
+                jmxConnectorServer.stop();
+            }
+            catch (Exception e) {
+                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+        }
+
+        System.exit(0);
+    }
+
+    private static String getReport(boolean isFinalReport, String threadMode, long benchmarkStartTime, long baselineMetricHashKey, CollectorScheduler collectorScheduler, long peakPlatformThreadCount) {
+
+        long runCount = 0, skippedRunCount = 0, failedRunCount = 0, totalStartDelayInMs = 0, maxStartDelayInMs = 0, totalLastRuntimeInMs = 0, numTasksWithRuntime = 0;
+
+        for (ScheduledCollectorTask task : collectorScheduler.getTasks()) {
+            runCount += task.getRunCount();
+            skippedRunCount += task.getSkippedRunCount();
+            failedRunCount += task.getFailedRunCount();
+            totalStartDelayInMs += task.getTotalStartDelayInMs();
+            maxStartDelayInMs = Math.max(maxStartDelayInMs, task.getMaxStartDelayInMs());
+
+            if (task.getLastRuntimeInMs() >= 0) {
+                totalLastRuntimeInMs += task.getLastRuntimeInMs();
+                numTasksWithRuntime++;
+            }
+        }
+
+        long elapsedInMs = System.currentTimeMillis() - benchmarkStartTime;
+
+        StringBuilder report = new StringBuilder();
+        report.append(isFinalReport ? "JMX-Benchmark-Final" : "JMX-Benchmark").append(" : ElapsedSeconds=").append(elapsedInMs / 1000)
+                .append(", ThreadMode=").append(threadMode)
+                .append(", Runs=").append(runCount)
+                .append(", RunsPerSecond=").append(Math.round(runCount / Math.max(elapsedInMs / 1000.0, 0.001)))
+                .append(", SkippedRuns=").append(skippedRunCount)
+                .append(", FailedRuns=").append(failedRunCount)
+                .append(", AvgStartDelayMs=").append((runCount > 0) ? (totalStartDelayInMs / runCount) : 0)
+                .append(", MaxStartDelayMs=").append(maxStartDelayInMs)
+                .append(", AvgRuntimeMs=").append((numTasksWithRuntime > 0) ? (totalLastRuntimeInMs / numTasksWithRuntime) : 0)
+                .append(", MetricsCollected=").append(GlobalVariables.metricHashKeyGenerator.get() - baselineMetricHashKey);
+
+        report.append(System.lineSeparator()).append("  JVM : ").append(new JvmSnapshot(isFinalReport).toString()).append(", PeakPlatformThreads=").append(peakPlatformThreadCount);
+
+        return report.toString();
+    }
+
+    protected static int getFreePort() {
+
+        ServerSocket serverSocket = null;
+
+        try {
+            serverSocket = new ServerSocket(0);
+            return serverSocket.getLocalPort();
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return -1;
+        }
+        finally {
+            try {
+                if (serverSocket != null) serverSocket.close();
+            }
+            catch (Exception e) {
+                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+        }
+    }
+
+    protected static JMXConnectorServer startJmxConnectorServer(int port) {
+
+        if (port <= 0) return null;
+
+        try {
+            LocateRegistry.createRegistry(port);
+            JMXServiceURL jmxServiceUrl = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://127.0.0.1:" + port + "/jmxrmi");
+            JMXConnectorServer jmxConnectorServer = JMXConnectorServerFactory.newJMXConnectorServer(jmxServiceUrl, null, ManagementFactory.getPlatformMBeanServer());
+            jmxConnectorServer.start();
+            return jmxConnectorServer;
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return null;
+        }
+    }
+
+    /*
+    Heap usage, platform thread counts, & process rss (linux only). If 'isGcRequested' is true, a full gc is requested first, so that heap usage reflects live objects.
+    Virtual threads aren't included in the platform thread counts. Their stacks live on the heap.
+    */
+    private static class JvmSnapshot {
+
+        private final boolean isGcRequested_;
+        private final long heapUsedInBytes_;
+        private final int platformThreadCount_;
+        private int collectorWorkerThreadCount_ = 0;
+        private int jmxClientThreadCount_ = 0;
+        private long rssInKilobytes_ = -1;
+
+        public JvmSnapshot(boolean isGcRequested) {
+
+            this.isGcRequested_ = isGcRequested;
+            if (isGcRequested_) System.gc();
+
+            heapUsedInBytes_ = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            platformThreadCount_ = ManagementFactory.getThreadMXBean().getThreadCount();
+
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                String threadName = thread.getName();
+                if (threadName == null) continue;
+                if (threadName.startsWith("Collector-Worker")) collectorWorkerThreadCount_++;
+                else if (threadName.startsWith("JMX client") || threadName.startsWith("RMI RenewClean") || threadName.startsWith("RMI Scheduler")) jmxClientThreadCount_++;
+            }
+
+            String procSelfStatus = FileIo.readFileToString("/proc/self/status");
+            if (procSelfStatus != null) {
+                for (String line : procSelfStatus.split("\n")) {
+                    if (!line.startsWith("VmRSS:")) continue;
+
+                    try {
+                        rssInKilobytes_ = Long.parseLong(line.substring(6).replace("kB", "").trim());
+                    }
+                    catch (Exception e) {
+                        rssInKilobytes_ = -1;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return (isGcRequested_ ? "HeapUsedAfterGcMB=" : "HeapUsedMB=") + (heapUsedInBytes_ / 1048576) +
+                    ", RssMB=" + ((rssInKilobytes_ >= 0) ? String.valueOf(rssInKilobytes_ / 1024) : "n/a") +
+                    ", PlatformThreads=" + platformThreadCount_ +
+                    ", CollectorWorkerThreads=" + collectorWorkerThreadCount_ +
+                    ", JmxClientThreads=" + jmxClientThreadCount_;
+        }
+
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.pearson.statspoller.load_test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Fixed-size, lock-free latency histogram.
+ * Latencies up to 10 seconds are tracked at 1ms resolution, latencies up to 10 minutes are tracked at 100ms resolution,
+ * and anything beyond that lands in a single overflow bucket.
+ * Recording a sample never allocates, so the histogram can be updated from the fake sinks without skewing the heap/gc figures.
+ */
+public class LatencyHistogram {
+
+    private static final int FINE_BUCKET_LIMIT_MS = 10000;
+    private static final int COARSE_BUCKET_WIDTH_MS = 100;
+    private static final int COARSE_BUCKET_LIMIT_MS = 600000;
+    private static final int NUM_FINE_BUCKETS = FINE_BUCKET_LIMIT_MS;
+    private static final int NUM_COARSE_BUCKETS = (COARSE_BUCKET_LIMIT_MS - FINE_BUCKET_LIMIT_MS) / COARSE_BUCKET_WIDTH_MS;
+    private static final int OVERFLOW_BUCKET = NUM_FINE_BUCKETS + NUM_COARSE_BUCKETS;
+
+    private final AtomicLongArray buckets_ = new AtomicLongArray(OVERFLOW_BUCKET + 1);
+    private final AtomicLong count_ = new AtomicLong(0);
+    private final AtomicLong sum_ = new AtomicLong(0);
+    private final AtomicLong max_ = new AtomicLong(0);
+
+    public void record(long latencyInMs) {
+
+        if (latencyInMs < 0) latencyInMs = 0;
+
+        int bucket;
+        if (latencyInMs < FINE_BUCKET_LIMIT_MS) bucket = (int) latencyInMs;
+        else if (latencyInMs < COARSE_BUCKET_LIMIT_MS) bucket = NUM_FINE_BUCKETS + (int) ((latencyInMs - FINE_BUCKET_LIMIT_MS) / COARSE_BUCKET_WIDTH_MS);
+        else bucket = OVERFLOW_BUCKET;
+
+        buckets_.incrementAndGet(bucket);
+        count_.incrementAndGet();
+        sum_.addAndGet(latencyInMs);
+
+        long currentMax = max_.get();
+        while ((latencyInMs > currentMax) && !max_.compareAndSet(currentMax, latencyInMs)) currentMax = max_.get();
+    }
+
+    /*
+    Returns the upper bound (in ms) of the bucket that contains the requested percentile. Returns -1 if no samples have been recorded.
+    */
+    public long getPercentile(double percentile) {
+
+        long count = count_.get();
+        if (count <= 0) return -1;
+
+        long rank = (long) Math.ceil((percentile / 100.0) * count);
+        if (rank < 1) rank = 1;
+
+        long cumulativeCount = 0;
+        for (int i = 0; i < buckets_.length(); i++) {
+            cumulativeCount += buckets_.get(i);
+            if (cumulativeCount >= rank) return getBucketUpperBound(i);
+        }
+
+        return max_.get();
+    }
+
+    private long getBucketUpperBound(int bucket) {
+        if (bucket < NUM_FINE_BUCKETS) return bucket;
+        else if (bucket < OVERFLOW_BUCKET) return FINE_BUCKET_LIMIT_MS + ((long) (bucket - NUM_FINE_BUCKETS + 1) * COARSE_BUCKET_WIDTH_MS);
+        else return max_.get();
+    }
+
+    public long getCount() {
+        return count_.get();
+    }
+
+    public double getMean() {
+        long count = count_.get();
+        if (count <= 0) return -1;
+        return (double) sum_.get() / (double) count;
+    }
+
+    public long getMax() {
+        return max_.get();
+    }
+
+}
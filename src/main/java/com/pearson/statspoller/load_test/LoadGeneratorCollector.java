@@ -0,0 +1,87 @@
+package com.pearson.statspoller.load_test;
+
+import com.pearson.statspoller.internal_metric_collectors.InternalCollectorFramework;
+import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.Threads;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * A synthetic metric collector that feeds the real output pipeline at a fixed rate.
+ * Each tick emits (metricsPerSecond * tickInterval) metrics, cycling through 'seriesCardinality' unique metric paths.
+ * The value of each metric is the time (in ms) that the metric was created, which the fake sinks use to measure end-to-end latency.
+ */
+public class LoadGeneratorCollector extends InternalCollectorFramework implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGeneratorCollector.class.getName());
+
+    private final double metricsPerSecond_;
+    private final String[] seriesNames_;
+    private final AtomicLong metricsGenerated_;
+
+    private volatile boolean continueRunning_ = true;
+    private int nextSeriesIndex_ = 0;
+    private double carriedOverMetrics_ = 0;
+
+    public LoadGeneratorCollector(long tickIntervalInMs, String metricPrefix, double metricsPerSecond, int seriesCardinality, AtomicLong metricsGenerated) {
+        super(true, tickIntervalInMs, metricPrefix, null, false);
+        this.metricsPerSecond_ = metricsPerSecond;
+        this.metricsGenerated_ = metricsGenerated;
+
+        // series names are built once so that the generator's own allocations don't get counted against the pipeline
+        this.seriesNames_ = new String[Math.max(seriesCardinality, 1)];
+        for (int i = 0; i < seriesNames_.length; i++) seriesNames_[i] = "Series-" + i;
+    }
+
+    @Override
+    public void run() {
+
+        while (continueRunning_) {
+            long routineStartTime = System.currentTimeMillis();
+
+            collectMetrics();
+
+            long routineTimeElapsed = System.currentTimeMillis() - routineStartTime;
+            long sleepTimeInMs = getCollectionInterval() - routineTimeElapsed;
+            if (sleepTimeInMs >= 0) Threads.sleepMilliseconds(sleepTimeInMs);
+        }
+    }
+
+    @Override
+    public void collectMetrics() {
+
+        try {
+            long routineStartTime = System.currentTimeMillis();
+
+            double metricsThisTick = (metricsPerSecond_ * getCollectionInterval() / 1000) + carriedOverMetrics_;
+            int numMetricsToGenerate = (int) metricsThisTick;
+            carriedOverMetrics_ = metricsThisTick - numMetricsToGenerate;
+
+            List<GraphiteMetric> graphiteMetrics = new ArrayList<>(numMetricsToGenerate);
+            int currentTimestampInSeconds = (int) (routineStartTime / 1000);
+
+            for (int i = 0; i < numMetricsToGenerate; i++) {
+                graphiteMetrics.add(new GraphiteMetric(seriesNames_[nextSeriesIndex_], BigDecimal.valueOf(System.currentTimeMillis()), currentTimestampInSeconds));
+                nextSeriesIndex_ = (nextSeriesIndex_ + 1) % seriesNames_.length;
+            }
+
+            super.outputGraphiteMetrics(graphiteMetrics);
+            metricsGenerated_.addAndGet(numMetricsToGenerate);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+    }
+
+    public void shutdown() {
+        continueRunning_ = false;
+    }
+
+}
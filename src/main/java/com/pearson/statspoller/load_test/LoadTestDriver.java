@@ -0,0 +1,298 @@
+package com.pearson.statspoller.load_test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import com.pearson.statspoller.globals.ApplicationConfiguration;
+import com.pearson.statspoller.globals.GlobalVariables;
+import com.pearson.statspoller.output.OutputMetricsInvokerThread;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.Threads;
+import com.pearson.statspoller.utilities.file_utils.FileIo;
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Soak/load test harness. Drives the real output pipeline (InternalCollectorFramework -> GlobalVariables -> OutputMetricsThread ->
+ * SendMetricsToGraphiteThread/SendMetricsToOpenTsdbThread) at a configurable rate & series cardinality against in-process fake sinks,
+ * and periodically reports throughput, end-to-end latency percentiles, heap usage, & gc activity.
+ *
+ * Usage: java -cp StatsPoller.jar com.pearson.statspoller.load_test.LoadTestDriver [key=value ...]
+ * See docs/load_test.md for the list of settings.
+ */
+public class LoadTestDriver {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestDriver.class.getName());
+
+    private static final long GENERATOR_TICK_INTERVAL_IN_MS = 100;
+
+    public static void main(String[] args) {
+
+        Map<String,String> settings = parseArguments(args);
+
+        double metricsPerSecond = getDoubleSetting(settings, "metrics_per_second", 10000);
+        int seriesCardinality = (int) getDoubleSetting(settings, "series_cardinality", 10000);
+        int generatorThreads = (int) getDoubleSetting(settings, "generator_threads", 4);
+        long durationInSeconds = (long) getDoubleSetting(settings, "duration", 300);
+        long reportIntervalInSeconds = (long) getDoubleSetting(settings, "report_interval", 30);
+        double outputIntervalInSeconds = getDoubleSetting(settings, "output_interval", 10);
+        String sinks = getStringSetting(settings, "sinks", "graphite,opentsdb_telnet,opentsdb_http");
+        long sinkDelayInMs = (long) getDoubleSetting(settings, "sink_delay_ms", 0);
+        double sinkFailurePercent = getDoubleSetting(settings, "sink_failure_pct", 0);
+        int maxMetricsPerMessage = (int) getDoubleSetting(settings, "max_metrics_per_message", 1000);
+
+        setRootLogLevel(getStringSetting(settings, "log_level", "WARN"));
+
+        // start the fake sinks
+        List<FakeLineProtocolServer> fakeLineProtocolServers = new ArrayList<>();
+        FakeOpenTsdbHttpServer fakeOpenTsdbHttpServer = null;
+        List<FakeSinkStatistics> allFakeSinkStatistics = new ArrayList<>();
+        StringBuilder outputModulesConfig = new StringBuilder();
+
+        if (sinks.contains("graphite")) {
+            FakeSinkStatistics fakeSinkStatistics = new FakeSinkStatistics("Graphite");
+            FakeLineProtocolServer server = new FakeLineProtocolServer(FakeLineProtocolServer.PROTOCOL_GRAPHITE, sinkDelayInMs, sinkFailurePercent, fakeSinkStatistics);
+            int port = server.bind();
+            if (port < 0) exitWithError("Failed to start the fake Graphite server");
+            new Thread(server, "LoadTest-FakeGraphite").start();
+            fakeLineProtocolServers.add(server);
+            allFakeSinkStatistics.add(fakeSinkStatistics);
+            outputModulesConfig.append("graphite_output_module_1 = true,127.0.0.1,").append(port).append(",2,").append(maxMetricsPerMessage).append(",true,true").append(System.lineSeparator());
+        }
+
+        if (sinks.contains("opentsdb_telnet")) {
+            FakeSinkStatistics fakeSinkStatistics = new FakeSinkStatistics("OpenTSDB-Telnet");
+            FakeLineProtocolServer server = new FakeLineProtocolServer(FakeLineProtocolServer.PROTOCOL_OPENTSDB_TELNET, sinkDelayInMs, sinkFailurePercent, fakeSinkStatistics);
+            int port = server.bind();
+            if (port < 0) exitWithError("Failed to start the fake OpenTSDB telnet server");
+            new Thread(server, "LoadTest-FakeOpenTsdbTelnet").start();
+            fakeLineProtocolServers.add(server);
+            allFakeSinkStatistics.add(fakeSinkStatistics);
+            outputModulesConfig.append("opentsdb_telnet_output_module_1 = true,127.0.0.1,").append(port).append(",2,true").append(System.lineSeparator());
+        }
+
+        if (sinks.contains("opentsdb_http")) {
+            FakeSinkStatistics fakeSinkStatistics = new FakeSinkStatistics("OpenTSDB-HTTP");
+            fakeOpenTsdbHttpServer = new FakeOpenTsdbHttpServer(sinkDelayInMs, sinkFailurePercent, fakeSinkStatistics);
+            int port = fakeOpenTsdbHttpServer.start();
+            if (port < 0) exitWithError("Failed to start the fake OpenTSDB http server");
+            allFakeSinkStatistics.add(fakeSinkStatistics);
+            outputModulesConfig.append("opentsdb_http_output_module_1 = true,http://127.0.0.1:").append(port).append("/api/put,2,").append(maxMetricsPerMessage).append(",true").append(System.lineSeparator());
+        }
+
+        // point statspoller's configuration at the fake sinks. all real collectors are disabled.
+        boolean isConfigurationSuccess = initializeApplicationConfiguration(outputIntervalInSeconds, outputModulesConfig.toString());
+        if (!isConfigurationSuccess) exitWithError("Failed to initialize the load test application configuration");
+
+        // start the load generators
+        AtomicLong metricsGenerated = new AtomicLong(0);
+        List<LoadGeneratorCollector> loadGeneratorCollectors = new ArrayList<>();
+        for (int i = 0; i < generatorThreads; i++) {
+            int generatorCardinality = (seriesCardinality / generatorThreads) + ((i < (seriesCardinality % generatorThreads)) ? 1 : 0);
+            LoadGeneratorCollector loadGeneratorCollector = new LoadGeneratorCollector(GENERATOR_TICK_INTERVAL_IN_MS, "LoadGenerator-" + i,
+                    metricsPerSecond / generatorThreads, generatorCardinality, metricsGenerated);
+            loadGeneratorCollectors.add(loadGeneratorCollector);
+            new Thread(loadGeneratorCollector, "LoadTest-Generator-" + i).start();
+        }
+
+        // start the real output pipeline
+        OutputMetricsInvokerThread outputMetricsInvokerThread = new OutputMetricsInvokerThread(ApplicationConfiguration.getOutputInterval());
+        new Thread(outputMetricsInvokerThread, "LoadTest-OutputMetricsInvoker").start();
+
+        System.out.println("Load test started. MetricsPerSecond=" + metricsPerSecond + ", SeriesCardinality=" + seriesCardinality +
+                ", GeneratorThreads=" + generatorThreads + ", Duration=" + durationInSeconds + "s, OutputInterval=" + outputIntervalInSeconds + "s" +
+                ", Sinks=" + sinks + ", SinkDelayMs=" + sinkDelayInMs + ", SinkFailurePct=" + sinkFailurePercent);
+
+        long loadTestStartTime = System.currentTimeMillis();
+        long loadTestEndTime = loadTestStartTime + (durationInSeconds * 1000);
+        LoadTestReporter loadTestReporter = new LoadTestReporter(loadTestStartTime, metricsGenerated, allFakeSinkStatistics);
+
+        while (System.currentTimeMillis() < loadTestEndTime) {
+            Threads.sleepMilliseconds(Math.min(reportIntervalInSeconds * 1000, loadTestEndTime - System.currentTimeMillis()));
+            System.out.println(loadTestReporter.getReport(false));
+        }
+
+        // stop generating, then give the output pipeline a couple of intervals to drain whatever is still queued
+        for (LoadGeneratorCollector loadGeneratorCollector : loadGeneratorCollectors) loadGeneratorCollector.shutdown();
+        Threads.sleepMilliseconds(ApplicationConfiguration.getOutputInterval() * 2 + 1000);
+
+        System.out.println(loadTestReporter.getReport(true));
+
+        outputMetricsInvokerThread.shutdown();
+        for (FakeLineProtocolServer fakeLineProtocolServer : fakeLineProtocolServers) fakeLineProtocolServer.shutdown();
+        if (fakeOpenTsdbHttpServer != null) fakeOpenTsdbHttpServer.shutdown();
+
+        System.exit(0);
+    }
+
+    protected static boolean initializeApplicationConfiguration(double outputIntervalInSeconds, String additionalConfiguration) {
+
+        try {
+            File configurationFile = File.createTempFile("statspoller_load_test", ".properties");
+            configurationFile.deleteOnExit();
+
+            String configuration =
+                    "legacy_mode = false" + System.lineSeparator() +
+                    "global_metric_name_prefix = LoadTest" + System.lineSeparator() +
+                    "output_interval = " + outputIntervalInSeconds + System.lineSeparator() +
+                    "output_internal_metrics_to_disk = false" + System.lineSeparator() +
+                    "statspoller_enable_java_metric_collector = false" + System.lineSeparator() +
+                    "linux_metric_collector_enable = false" + System.lineSeparator() +
+                    additionalConfiguration;
+
+            boolean isSaveSuccess = FileIo.saveStringToFile(configurationFile.getAbsolutePath(), configuration);
+            if (!isSaveSuccess) return false;
+
+            return ApplicationConfiguration.initialize(configurationFile.getAbsolutePath(), true);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return false;
+        }
+    }
+
+    protected static Map<String,String> parseArguments(String[] args) {
+
+        Map<String,String> settings = new HashMap<>();
+        if (args == null) return settings;
+
+        for (String arg : args) {
+            if (arg == null) continue;
+
+            int equalsIndex = arg.indexOf('=');
+            if (equalsIndex <= 0) {
+                System.out.println("Ignoring invalid argument (expected key=value): " + arg);
+                continue;
+            }
+
+            settings.put(arg.substring(0, equalsIndex).trim().toLowerCase(), arg.substring(equalsIndex + 1).trim());
+        }
+
+        return settings;
+    }
+
+    protected static double getDoubleSetting(Map<String,String> settings, String key, double defaultValue) {
+
+        String value = settings.get(key);
+        if (value == null) return defaultValue;
+
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (Exception e) {
+            System.out.println("Invalid value for " + key + ": " + value + ". Using default=" + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    protected static String getStringSetting(Map<String,String> settings, String key, String defaultValue) {
+        String value = settings.get(key);
+        return (value == null) ? defaultValue : value.toLowerCase();
+    }
+
+    protected static void setRootLogLevel(String logLevel) {
+
+        try {
+            LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+            loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(Level.toLevel(logLevel, Level.WARN));
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+    }
+
+    protected static void exitWithError(String errorMessage) {
+        System.out.println(errorMessage);
+        logger.error(errorMessage);
+        System.exit(1);
+    }
+
+    /*
+    Builds the periodic & final report lines. Throughput is computed over the window since the previous report.
+    */
+    private static class LoadTestReporter {
+
+        private final long loadTestStartTime_;
+        private final AtomicLong metricsGenerated_;
+        private final List<FakeSinkStatistics> allFakeSinkStatistics_;
+        private final Map<String,Long> previousMetricsReceived_BySink_ = new HashMap<>();
+
+        private long previousReportTime_;
+        private long previousMetricsGenerated_ = 0;
+
+        public LoadTestReporter(long loadTestStartTime, AtomicLong metricsGenerated, List<FakeSinkStatistics> allFakeSinkStatistics) {
+            this.loadTestStartTime_ = loadTestStartTime;
+            this.previousReportTime_ = loadTestStartTime;
+            this.metricsGenerated_ = metricsGenerated;
+            this.allFakeSinkStatistics_ = allFakeSinkStatistics;
+        }
+
+        public String getReport(boolean isFinalReport) {
+
+            long currentTime = System.currentTimeMillis();
+            double windowInSeconds = Math.max((currentTime - previousReportTime_) / 1000.0, 0.001);
+            long metricsGenerated = metricsGenerated_.get();
+
+            StringBuilder report = new StringBuilder();
+            report.append(isFinalReport ? "LoadTest-Final" : "LoadTest").append(" : ElapsedSeconds=").append((currentTime - loadTestStartTime_) / 1000)
+                    .append(", Generated=").append(metricsGenerated)
+                    .append(", GeneratedPerSecond=").append(Math.round((metricsGenerated - previousMetricsGenerated_) / windowInSeconds))
+                    .append(", Queued=").append(GlobalVariables.graphiteMetrics.size() + GlobalVariables.openTsdbMetrics.size());
+
+            for (FakeSinkStatistics fakeSinkStatistics : allFakeSinkStatistics_) {
+                Long previousMetricsReceived = previousMetricsReceived_BySink_.get(fakeSinkStatistics.getSinkName());
+                if (previousMetricsReceived == null) previousMetricsReceived = 0L;
+                long metricsReceived = fakeSinkStatistics.getMetricsReceived();
+                previousMetricsReceived_BySink_.put(fakeSinkStatistics.getSinkName(), metricsReceived);
+
+                LatencyHistogram latencyHistogram = fakeSinkStatistics.getLatencyHistogram();
+
+                report.append(System.lineSeparator()).append("  ").append(fakeSinkStatistics.getSinkName())
+                        .append(" : Received=").append(metricsReceived)
+                        .append(", ReceivedPerSecond=").append(Math.round((metricsReceived - previousMetricsReceived) / windowInSeconds))
+                        .append(", Invalid=").append(fakeSinkStatistics.getInvalidMetricsReceived())
+                        .append(isFinalReport ? ", Lost=" : ", InFlight=").append(Math.max(metricsGenerated - metricsReceived - fakeSinkStatistics.getInvalidMetricsReceived(), 0))
+                        .append(", Bytes=").append(fakeSinkStatistics.getBytesReceived())
+                        .append(", ConnectionsOrRequests=").append(fakeSinkStatistics.getConnectionsOrRequestsAccepted())
+                        .append(", InjectedFailures=").append(fakeSinkStatistics.getConnectionsOrRequestsFailed())
+                        .append(", LatencyMs[p50=").append(latencyHistogram.getPercentile(50))
+                        .append(", p90=").append(latencyHistogram.getPercentile(90))
+                        .append(", p99=").append(latencyHistogram.getPercentile(99))
+                        .append(", p99.9=").append(latencyHistogram.getPercentile(99.9))
+                        .append(", max=").append(latencyHistogram.getMax()).append("]");
+            }
+
+            MemoryUsage heapMemoryUsage = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            long gcCount = 0, gcTimeInMs = 0;
+            for (GarbageCollectorMXBean garbageCollectorMXBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (garbageCollectorMXBean.getCollectionCount() > 0) gcCount += garbageCollectorMXBean.getCollectionCount();
+                if (garbageCollectorMXBean.getCollectionTime() > 0) gcTimeInMs += garbageCollectorMXBean.getCollectionTime();
+            }
+
+            report.append(System.lineSeparator()).append("  JVM : HeapUsedMB=").append(heapMemoryUsage.getUsed() / 1048576)
+                    .append(", HeapCommittedMB=").append(heapMemoryUsage.getCommitted() / 1048576)
+                    .append(", HeapMaxMB=").append(heapMemoryUsage.getMax() / 1048576)
+                    .append(", GcCount=").append(gcCount)
+                    .append(", GcTimeMs=").append(gcTimeInMs)
+                    .append(", ThreadCount=").append(ManagementFactory.getThreadMXBean().getThreadCount())
+                    .append(", TransmitErrors=").append(GlobalVariables.metricTransmitErrorCount.get());
+
+            previousReportTime_ = currentTime;
+            previousMetricsGenerated_ = metricsGenerated;
+
+            return report.toString();
+        }
+
+    }
+
+}
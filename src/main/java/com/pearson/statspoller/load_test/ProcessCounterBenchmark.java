@@ -0,0 +1,146 @@
+package com.pearson.statspoller.load_test;
+
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcessCounter.ProcessCounterMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Compares the Process Counter collector's matching strategies, on a synthetic process table:
+ *   'loop' : every rule's regex is run against every process's cmdline (the collector's original approach, including the per-process '\0' to ' ' copy).
+ *   'matcher' : each cmdline is scanned once by a ProcessCounterMatcher.
+ * Both strategies must produce the same counts, & the benchmark exits with an error if they don't.
+ *
+ * Usage: java -cp StatsPoller.jar com.pearson.statspoller.load_test.ProcessCounterBenchmark [key=value ...]
+ * See docs/load_test.md for the list of settings.
+ */
+public class ProcessCounterBenchmark {
+
+    public static void main(String[] args) {
+
+        Map<String,String> settings = LoadTestDriver.parseArguments(args);
+
+        int numProcesses = (int) LoadTestDriver.getDoubleSetting(settings, "processes", 60000);
+        int numRules = (int) LoadTestDriver.getDoubleSetting(settings, "rules", 80);
+        double regexRulePercent = LoadTestDriver.getDoubleSetting(settings, "regex_rule_pct", 25);
+        int numIterations = (int) LoadTestDriver.getDoubleSetting(settings, "iterations", 20);
+        int numWarmupIterations = (int) LoadTestDriver.getDoubleSetting(settings, "warmup_iterations", 5);
+
+        LoadTestDriver.setRootLogLevel(LoadTestDriver.getStringSetting(settings, "log_level", "WARN"));
+
+        Random random = new Random(1);
+        List<String> regexes = createRegexes(numRules, regexRulePercent, random);
+        List<String> rawCmdlines = createRawCmdlines(numProcesses, numRules, random);
+
+        // the matcher runs on the cmdlines that the process table caches (separators already replaced)
+        List<String> cmdlines = new ArrayList<>();
+        for (String rawCmdline : rawCmdlines) cmdlines.add(rawCmdline.replace('\0', ' ').trim());
+
+        List<Pattern> patterns = new ArrayList<>();
+        for (String regex : regexes) patterns.add(Pattern.compile(regex));
+        ProcessCounterMatcher matcher = new ProcessCounterMatcher(regexes);
+
+        System.out.println("Process counter benchmark started. Processes=" + numProcesses + ", Rules=" + numRules + ", RegexRulePct=" + regexRulePercent +
+                ", Iterations=" + numIterations + ", JavaVersion=" + System.getProperty("java.version"));
+
+        long[] loopCounts = new long[numRules];
+        long[] matcherCounts = new long[numRules];
+
+        for (int i = 0; i < numWarmupIterations; i++) {
+            countWithLoop(rawCmdlines, patterns, new long[numRules]);
+            countWithMatcher(cmdlines, matcher, new long[numRules]);
+        }
+
+        long loopTimeInNs = 0, matcherTimeInNs = 0;
+
+        for (int i = 0; i < numIterations; i++) {
+            long startTime = System.nanoTime();
+            countWithLoop(rawCmdlines, patterns, loopCounts);
+            loopTimeInNs += System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            countWithMatcher(cmdlines, matcher, matcherCounts);
+            matcherTimeInNs += System.nanoTime() - startTime;
+        }
+
+        for (int i = 0; i < numRules; i++) {
+            if (loopCounts[i] != matcherCounts[i]) {
+                LoadTestDriver.exitWithError("Counts don't match. Rule=\"" + regexes.get(i) + "\", LoopCount=" + loopCounts[i] + ", MatcherCount=" + matcherCounts[i]);
+            }
+        }
+
+        long totalMatches = 0;
+        for (long count : matcherCounts) totalMatches += count;
+
+        double loopTimeInMs = (loopTimeInNs / 1000000.0) / Math.max(numIterations, 1);
+        double matcherTimeInMs = (matcherTimeInNs / 1000000.0) / Math.max(numIterations, 1);
+
+        System.out.println("Process-Counter-Benchmark : MatchesPerPass=" + (totalMatches / Math.max(numIterations, 1)) +
+                ", LoopMsPerPass=" + String.format("%.2f", loopTimeInMs) + ", MatcherMsPerPass=" + String.format("%.2f", matcherTimeInMs) +
+                ", Speedup=" + String.format("%.1f", (matcherTimeInMs > 0) ? (loopTimeInMs / matcherTimeInMs) : 0) + "x");
+    }
+
+    private static void countWithLoop(List<String> rawCmdlines, List<Pattern> patterns, long[] counts) {
+
+        for (String rawCmdline : rawCmdlines) {
+            String cmdline = rawCmdline.replace('\0', ' ').trim();
+            if (cmdline.isEmpty()) continue;
+
+            for (int i = 0; i < patterns.size(); i++) {
+                if (patterns.get(i).matcher(cmdline).find()) counts[i]++;
+            }
+        }
+    }
+
+    private static void countWithMatcher(List<String> cmdlines, ProcessCounterMatcher matcher, long[] counts) {
+
+        int[] matchingRules = new int[matcher.getNumRules()];
+
+        for (String cmdline : cmdlines) {
+            if (cmdline.isEmpty()) continue;
+
+            int numMatchingRules = matcher.match(cmdline, matchingRules);
+            for (int i = 0; i < numMatchingRules; i++) counts[matchingRules[i]]++;
+        }
+    }
+
+    // literal rules look like 'service-17', regex rules look like 'java.*app-17\.jar' or 'worker-(17|18)'
+    private static List<String> createRegexes(int numRules, double regexRulePercent, Random random) {
+
+        List<String> regexes = new ArrayList<>();
+
+        for (int i = 0; i < numRules; i++) {
+            if ((random.nextDouble() * 100) >= regexRulePercent) regexes.add("service-" + i + " ");
+            else if ((i % 2) == 0) regexes.add("java.*app-" + i + "\\.jar");
+            else regexes.add("worker-(" + i + "|" + (i + 1) + ")\\b");
+        }
+
+        return regexes;
+    }
+
+    // a mix of kernel threads (empty cmdlines), short daemons, & java processes with long classpaths
+    private static List<String> createRawCmdlines(int numProcesses, int numRules, Random random) {
+
+        StringBuilder classpath = new StringBuilder();
+        for (int i = 0; i < 40; i++) classpath.append("/opt/lib/dependency-").append(i).append("-1.2.3.jar:");
+
+        List<String> rawCmdlines = new ArrayList<>();
+
+        for (int i = 0; i < numProcesses; i++) {
+            int kind = random.nextInt(10);
+            int id = random.nextInt(numRules * 2);
+
+            if (kind < 3) rawCmdlines.add("");
+            else if (kind < 7) rawCmdlines.add("/usr/sbin/service-" + id + " \0--config\0/etc/service-" + id + ".conf\0");
+            else if (kind < 9) rawCmdlines.add("/usr/bin/java\0-Xmx512m\0-cp\0" + classpath + "\0-jar\0/opt/app-" + id + ".jar\0");
+            else rawCmdlines.add("python3\0/opt/worker-" + id + "\0--queue\0default\0");
+        }
+
+        return rawCmdlines;
+    }
+
+}
@@ -0,0 +1,350 @@
+package com.pearson.statspoller.load_test;
+
+import com.pearson.statspoller.drivers.Driver;
+import com.pearson.statspoller.utilities.core_utils.StackTrace;
+import com.pearson.statspoller.utilities.core_utils.Threads;
+import com.pearson.statspoller.utilities.file_utils.FileIo;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.management.remote.JMXConnectorServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Measures how long a freshly started StatsPoller agent takes to output its first metrics, & to output metrics from every configured collector.
+ * Each run starts the agent (Driver) as a separate process, in a temporary working directory, with a generated configuration:
+ * 'targets' JMX collectors that poll a JMX connector server in the benchmark's JVM, & a Graphite output module that points at a listener in the benchmark's JVM.
+ * Times are measured from when the agent process is started (so they include JVM startup & StatsPoller's initialization).
+ *
+ * Usage: java -cp StatsPoller.jar com.pearson.statspoller.load_test.StartupBenchmark [key=value ...]
+ * See docs/load_test.md for the list of settings.
+ */
+public class StartupBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupBenchmark.class.getName());
+
+    private static final Pattern TARGET_METRIC_PATTERN = Pattern.compile("JMX-Target-(\\d+)\\.");
+
+    public static void main(String[] args) {
+
+        Map<String,String> settings = LoadTestDriver.parseArguments(args);
+
+        int numTargets = (int) LoadTestDriver.getDoubleSetting(settings, "targets", 30);
+        int numRuns = (int) LoadTestDriver.getDoubleSetting(settings, "runs", 3);
+        double startupWindowInSeconds = LoadTestDriver.getDoubleSetting(settings, "startup_window", 3);
+        double collectionIntervalInSeconds = LoadTestDriver.getDoubleSetting(settings, "collection_interval", 30);
+        double outputIntervalInSeconds = LoadTestDriver.getDoubleSetting(settings, "output_interval", 30);
+        String outputSplayMode = LoadTestDriver.getStringSetting(settings, "output_splay_mode", "hash");
+        long timeoutInSeconds = (long) LoadTestDriver.getDoubleSetting(settings, "timeout", 120);
+
+        LoadTestDriver.setRootLogLevel(LoadTestDriver.getStringSetting(settings, "log_level", "WARN"));
+
+        int jmxPort = JmxCollectorBenchmark.getFreePort();
+        JMXConnectorServer jmxConnectorServer = JmxCollectorBenchmark.startJmxConnectorServer(jmxPort);
+        if (jmxConnectorServer == null) LoadTestDriver.exitWithError("Failed to start the JMX connector server");
+
+        GraphiteListener graphiteListener = new GraphiteListener();
+        int graphitePort = graphiteListener.bind();
+        if (graphitePort < 0) LoadTestDriver.exitWithError("Failed to start the Graphite listener");
+        new Thread(graphiteListener, "StartupBenchmark-GraphiteListener").start();
+
+        String configuration = getConfiguration(numTargets, jmxPort, graphitePort, startupWindowInSeconds, collectionIntervalInSeconds, outputIntervalInSeconds, outputSplayMode);
+
+        System.out.println("Startup benchmark started. Targets=" + numTargets + ", Runs=" + numRuns + ", StartupWindow=" + startupWindowInSeconds + "s" +
+                ", CollectionInterval=" + collectionIntervalInSeconds + "s, OutputInterval=" + outputIntervalInSeconds + "s, OutputSplayMode=" + outputSplayMode +
+                ", JavaVersion=" + System.getProperty("java.version"));
+
+        List<long[]> results = new ArrayList<>();
+
+        for (int i = 1; i <= numRuns; i++) {
+            long[] result = runAgent(configuration, numTargets, timeoutInSeconds * 1000, graphiteListener);
+            results.add(result);
+            System.out.println("Startup-Benchmark-Run : Run=" + i + ", TimeToFirstMetricMs=" + getTimeString(result[0]) +
+                    ", TimeToAllTargetsMs=" + getTimeString(result[1]) + ", TargetsOutput=" + result[2] + "/" + numTargets);
+        }
+
+        System.out.println(getSummary(results, numTargets));
+
+        graphiteListener.shutdown();
+
+        try {
+            jmxConnectorServer.stop();
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+        }
+
+        System.exit(0);
+    }
+
+    private static String getConfiguration(int numTargets, int jmxPort, int graphitePort, double startupWindowInSeconds,
+            double collectionIntervalInSeconds, double outputIntervalInSeconds, String outputSplayMode) {
+
+        StringBuilder configuration = new StringBuilder();
+
+        configuration.append("legacy_mode = false").append(System.lineSeparator())
+                .append("global_metric_name_prefix = StartupBenchmark").append(System.lineSeparator())
+                .append("output_interval = ").append(outputIntervalInSeconds).append(System.lineSeparator())
+                .append("output_splay_mode = ").append(outputSplayMode).append(System.lineSeparator())
+                .append("startup_window = ").append(startupWindowInSeconds).append(System.lineSeparator())
+                .append("output_internal_metrics_to_disk = false").append(System.lineSeparator())
+                .append("statspoller_enable_java_metric_collector = false").append(System.lineSeparator())
+                .append("linux_metric_collector_enable = false").append(System.lineSeparator())
+                .append("graphite_output_module_1 = true,127.0.0.1,").append(graphitePort).append(",2,1000,true,true").append(System.lineSeparator());
+
+        for (int i = 1; i <= numTargets; i++) {
+            configuration.append("jmx_enabled_").append(i).append(" = true").append(System.lineSeparator())
+                    .append("jmx_metric_prefix_").append(i).append(" = JMX-Target-").append(i).append(System.lineSeparator())
+                    .append("jmx_host_").append(i).append(" = 127.0.0.1").append(System.lineSeparator())
+                    .append("jmx_port_").append(i).append(" = ").append(jmxPort).append(System.lineSeparator())
+                    .append("jmx_collection_interval_").append(i).append(" = ").append(collectionIntervalInSeconds).append(System.lineSeparator())
+                    .append("jmx_sleep_after_connect_time_").append(i).append(" = 0").append(System.lineSeparator())
+                    .append("jmx_blacklist_objectname_regex_").append(i).append(" = ").append(JmxCollectorBenchmark.DEFAULT_BLACKLIST_OBJECT_NAME_REGEX.replace("\\", "\\\\")).append(System.lineSeparator());
+        }
+
+        return configuration.toString();
+    }
+
+    /*
+    Starts the agent & waits until every target's metrics have been received (or until the timeout).
+    Returns {time to the first metric, time until metrics from every target were received, number of targets received}. Times are -1 if they didn't happen.
+    */
+    private static long[] runAgent(String configuration, int numTargets, long timeoutInMs, GraphiteListener graphiteListener) {
+
+        Process process = null;
+        File workingDirectory = null;
+
+        try {
+            workingDirectory = Files.createTempDirectory("statspoller_startup_benchmark").toFile();
+            new File(workingDirectory, "conf").mkdirs();
+            new File(workingDirectory, "output").mkdirs();
+            new File(workingDirectory, "logs").mkdirs();
+            FileIo.saveStringToFile(new File(workingDirectory, "conf" + File.separator + "application.properties").getAbsolutePath(), configuration);
+            FileIo.saveStringToFile(new File(workingDirectory, "conf" + File.separator + "logback_config.xml").getAbsolutePath(), getLogbackConfiguration());
+
+            String javaExecutable = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            ProcessBuilder processBuilder = new ProcessBuilder(javaExecutable, "-cp", getAbsoluteClassPath(), Driver.class.getName());
+            processBuilder.directory(workingDirectory);
+            processBuilder.redirectErrorStream(true);
+            processBuilder.redirectOutput(new File(workingDirectory, "logs" + File.separator + "stdout.log"));
+
+            graphiteListener.reset(System.currentTimeMillis());
+            process = processBuilder.start();
+
+            long timeoutTimestamp = System.currentTimeMillis() + timeoutInMs;
+            while ((System.currentTimeMillis() < timeoutTimestamp) && (graphiteListener.getTargetCount() < numTargets) && process.isAlive()) {
+                Threads.sleepMilliseconds(50);
+            }
+
+            if (!process.isAlive()) System.out.println("The agent exited early. ExitCode=" + process.exitValue() + ", WorkingDirectory=" + workingDirectory.getAbsolutePath());
+
+            return new long[] {graphiteListener.getTimeToFirstMetricInMs(), graphiteListener.getTimeToTargetCountInMs(numTargets), graphiteListener.getTargetCount()};
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return new long[] {-1, -1, 0};
+        }
+        finally {
+            if (process != null) {
+                try {
+                    process.destroyForcibly();
+                    process.waitFor();
+                }
+                catch (Exception e) {
+                    logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+                }
+            }
+        }
+    }
+
+    // the agent runs in a different working directory, so relative class path entries (ex- 'target/classes') have to be resolved first
+    private static String getAbsoluteClassPath() {
+
+        StringBuilder classPath = new StringBuilder();
+
+        for (String classPathEntry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (classPathEntry.isEmpty()) continue;
+            if (classPath.length() > 0) classPath.append(File.pathSeparator);
+            classPath.append(new File(classPathEntry).getAbsolutePath());
+        }
+
+        return classPath.toString();
+    }
+
+    private static String getLogbackConfiguration() {
+        return "<configuration>" + System.lineSeparator() +
+                "    <appender name=\"FILE\" class=\"ch.qos.logback.core.FileAppender\">" + System.lineSeparator() +
+                "        <file>logs" + File.separator + "statspoller.log</file>" + System.lineSeparator() +
+                "        <encoder><pattern>%date{ISO8601} : %level : %logger{100}:%line : %message%n</pattern></encoder>" + System.lineSeparator() +
+                "    </appender>" + System.lineSeparator() +
+                "    <root level=\"INFO\"><appender-ref ref=\"FILE\" /></root>" + System.lineSeparator() +
+                "</configuration>" + System.lineSeparator();
+    }
+
+    private static String getSummary(List<long[]> results, int numTargets) {
+
+        long minFirstMetric = Long.MAX_VALUE, maxFirstMetric = -1, totalFirstMetric = 0, numFirstMetric = 0;
+        long minAllTargets = Long.MAX_VALUE, maxAllTargets = -1, totalAllTargets = 0, numAllTargets = 0;
+
+        for (long[] result : results) {
+            if (result[0] >= 0) {
+                minFirstMetric = Math.min(minFirstMetric, result[0]);
+                maxFirstMetric = Math.max(maxFirstMetric, result[0]);
+                totalFirstMetric += result[0];
+                numFirstMetric++;
+            }
+
+            if (result[1] >= 0) {
+                minAllTargets = Math.min(minAllTargets, result[1]);
+                maxAllTargets = Math.max(maxAllTargets, result[1]);
+                totalAllTargets += result[1];
+                numAllTargets++;
+            }
+        }
+
+        return "Startup-Benchmark-Final : Runs=" + results.size() +
+                ", TimeToFirstMetricMs(min/avg/max)=" + ((numFirstMetric > 0) ? (minFirstMetric + "/" + (totalFirstMetric / numFirstMetric) + "/" + maxFirstMetric) : "n/a") +
+                ", TimeToAllTargetsMs(min/avg/max)=" + ((numAllTargets > 0) ? (minAllTargets + "/" + (totalAllTargets / numAllTargets) + "/" + maxAllTargets) : "n/a") +
+                ", RunsWithAllTargets=" + numAllTargets + "/" + results.size() + ", Targets=" + numTargets;
+    }
+
+    private static String getTimeString(long timeInMs) {
+        return (timeInMs >= 0) ? String.valueOf(timeInMs) : "n/a";
+    }
+
+    /*
+    A minimal Graphite (plaintext protocol) server. Records when the first metric arrived, & when the first metric from each JMX target arrived.
+    */
+    private static class GraphiteListener implements Runnable {
+
+        private final Map<Integer,Long> firstMetricTimestamps_ByTarget_ = new ConcurrentHashMap<>();
+        private final AtomicLong firstMetricTimestamp_ = new AtomicLong(-1);
+        private volatile long startTimestamp_ = 0;
+        private volatile boolean isShutdown_ = false;
+        private ServerSocket serverSocket_ = null;
+
+        public int bind() {
+
+            try {
+                serverSocket_ = new ServerSocket(0);
+                return serverSocket_.getLocalPort();
+            }
+            catch (Exception e) {
+                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+                return -1;
+            }
+        }
+
+        @Override
+        public void run() {
+
+            while (!isShutdown_) {
+                try {
+                    final Socket socket = serverSocket_.accept();
+
+                    Thread connectionThread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            readMetrics(socket);
+                        }
+                    }, "StartupBenchmark-GraphiteConnection");
+
+                    connectionThread.setDaemon(true);
+                    connectionThread.start();
+                }
+                catch (Exception e) {
+                    if (!isShutdown_) logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+                }
+            }
+        }
+
+        private void readMetrics(Socket socket) {
+
+            BufferedReader reader = null;
+
+            try {
+                reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    long currentTimestamp = System.currentTimeMillis();
+                    firstMetricTimestamp_.compareAndSet(-1, currentTimestamp);
+
+                    Matcher matcher = TARGET_METRIC_PATTERN.matcher(line);
+                    if (!matcher.find()) continue;
+
+                    Integer target = Integer.valueOf(matcher.group(1));
+                    if (!firstMetricTimestamps_ByTarget_.containsKey(target)) firstMetricTimestamps_ByTarget_.put(target, currentTimestamp);
+                }
+            }
+            catch (Exception e) {
+                logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+            finally {
+                try {
+                    if (reader != null) reader.close();
+                    socket.close();
+                }
+                catch (Exception e) {
+                    logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+                }
+            }
+        }
+
+        public void reset(long startTimestamp) {
+            firstMetricTimestamps_ByTarget_.clear();
+            firstMetricTimestamp_.set(-1);
+            startTimestamp_ = startTimestamp;
+        }
+
+        public int getTargetCount() {
+            return firstMetricTimestamps_ByTarget_.size();
+        }
+
+        public long getTimeToFirstMetricInMs() {
+            long firstMetricTimestamp = firstMetricTimestamp_.get();
+            return (firstMetricTimestamp < 0) ? -1 : (firstMetricTimestamp - startTimestamp_);
+        }
+
+        /*
+        The time until metrics from 'targetCount' different targets had been received. Returns -1 if that many targets haven't been received.
+        */
+        public long getTimeToTargetCountInMs(int targetCount) {
+
+            List<Long> firstMetricTimestamps = new ArrayList<>(firstMetricTimestamps_ByTarget_.values());
+            if ((targetCount <= 0) || (firstMetricTimestamps.size() < targetCount)) return -1;
+
+            Collections.sort(firstMetricTimestamps);
+            return firstMetricTimestamps.get(targetCount - 1) - startTimestamp_;
+        }
+
+        public void shutdown() {
+
+            isShutdown_ = true;
+
+            try {
+                if (serverSocket_ != null) serverSocket_.close();
+            }
+            catch (Exception e) {
+                logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.pearson.statspoller.load_test;
+
+import com.pearson.statspoller.internal_metric_collectors.linux.Connections.ProcNetTcpParser;
+import com.pearson.statspoller.internal_metric_collectors.linux.Connections.TcpConnectionCounts;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.OutputStreamWriter;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Measures how long the TCP State collector takes to stream a /proc/net/tcp table with a very large number of sockets.
+ * A synthetic table (in the same format as /proc/net/tcp) is written to a temporary file, & parsed repeatedly with a ProcNetTcpParser.
+ * The counts are checked against the counts that were written, & the benchmark exits with an error if they don't match.
+ *
+ * Note that this measures parsing only. Reading the real /proc/net/tcp also includes the kernel's time to generate the table.
+ *
+ * Usage: java -cp StatsPoller.jar com.pearson.statspoller.load_test.TcpStateBenchmark [key=value ...]
+ * See docs/load_test.md for the list of settings.
+ */
+public class TcpStateBenchmark {
+
+    private static final int[] STATES = {TcpConnectionCounts.STATE_ESTABLISHED, TcpConnectionCounts.STATE_ESTABLISHED, TcpConnectionCounts.STATE_ESTABLISHED,
+        TcpConnectionCounts.STATE_TIME_WAIT, TcpConnectionCounts.STATE_CLOSE_WAIT, TcpConnectionCounts.STATE_SYN_RECV};
+
+    public static void main(String[] args) {
+
+        Map<String,String> settings = LoadTestDriver.parseArguments(args);
+
+        int numSockets = (int) LoadTestDriver.getDoubleSetting(settings, "sockets", 500000);
+        int numListenPorts = (int) LoadTestDriver.getDoubleSetting(settings, "listen_ports", 4);
+        int numIterations = (int) LoadTestDriver.getDoubleSetting(settings, "iterations", 10);
+        int numWarmupIterations = (int) LoadTestDriver.getDoubleSetting(settings, "warmup_iterations", 3);
+
+        LoadTestDriver.setRootLogLevel(LoadTestDriver.getStringSetting(settings, "log_level", "WARN"));
+
+        File procNetTcpFile = null;
+
+        try {
+            procNetTcpFile = File.createTempFile("statspoller-tcp-benchmark-", ".txt");
+            long[] expectedCounts_ByState = writeProcNetTcp(procNetTcpFile, numSockets, Math.max(numListenPorts, 1));
+
+            System.out.println("TCP state benchmark started. Sockets=" + numSockets + ", ListenPorts=" + numListenPorts + ", FileBytes=" + procNetTcpFile.length() +
+                    ", Iterations=" + numIterations + ", JavaVersion=" + System.getProperty("java.version"));
+
+            ProcNetTcpParser parser = new ProcNetTcpParser();
+            TcpConnectionCounts counts = new TcpConnectionCounts();
+
+            for (int i = 0; i < numWarmupIterations; i++) {
+                counts.clear();
+                parser.parse(procNetTcpFile.getAbsolutePath(), TcpConnectionCounts.IPV4, counts);
+            }
+
+            long totalTimeInNs = 0, maxTimeInNs = 0;
+
+            for (int i = 0; i < numIterations; i++) {
+                long startTime = System.nanoTime();
+                counts.clear();
+                if (!parser.parse(procNetTcpFile.getAbsolutePath(), TcpConnectionCounts.IPV4, counts)) LoadTestDriver.exitWithError("Unable to parse " + procNetTcpFile);
+                long timeInNs = System.nanoTime() - startTime;
+                totalTimeInNs += timeInNs;
+                maxTimeInNs = Math.max(maxTimeInNs, timeInNs);
+            }
+
+            for (int state = 0; state < TcpConnectionCounts.NUM_STATES; state++) {
+                if (counts.getConnectionCount(TcpConnectionCounts.IPV4, state) != expectedCounts_ByState[state]) {
+                    LoadTestDriver.exitWithError("Counts don't match. State=" + state + ", Expected=" + expectedCounts_ByState[state] + ", Parsed=" + counts.getConnectionCount(TcpConnectionCounts.IPV4, state));
+                }
+            }
+
+            double averageTimeInMs = (totalTimeInNs / 1000000.0) / Math.max(numIterations, 1);
+
+            System.out.println("Tcp-State-Benchmark : LinesPerPass=" + parser.getNumLinesParsed() +
+                    ", AvgMsPerPass=" + String.format("%.2f", averageTimeInMs) + ", MaxMsPerPass=" + String.format("%.2f", maxTimeInNs / 1000000.0) +
+                    ", LinesPerSecond=" + String.format("%.0f", (averageTimeInMs > 0) ? (parser.getNumLinesParsed() / (averageTimeInMs / 1000)) : 0));
+        }
+        catch (Exception e) {
+            LoadTestDriver.exitWithError(e.toString());
+        }
+        finally {
+            if (procNetTcpFile != null) procNetTcpFile.delete();
+        }
+    }
+
+    // listen sockets first, then connections to the listen ports in a mix of states (mostly ESTABLISHED)
+    private static long[] writeProcNetTcp(File file, int numSockets, int numListenPorts) throws Exception {
+
+        long[] counts_ByState = new long[TcpConnectionCounts.NUM_STATES];
+        Random random = new Random(1);
+        BufferedWriter writer = null;
+
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.US_ASCII), 1024 * 1024);
+            writer.write("  sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt   uid  timeout inode\n");
+
+            for (int i = 0; i < numSockets; i++) {
+                int localPort = 8000 + (i % numListenPorts);
+                int state = (i < numListenPorts) ? TcpConnectionCounts.STATE_LISTEN : STATES[random.nextInt(STATES.length)];
+                String remoteAddress = (state == TcpConnectionCounts.STATE_LISTEN) ? "00000000:0000" : String.format("%08X:%04X", random.nextInt(), 1024 + random.nextInt(60000));
+
+                writer.write(String.format("%6d: 0A00000B:%04X %s %02X 00000000:00000000 02:000A7B2C 00000000    33        0 %d 2 0000000000000000 20 4 30 10 -1\n",
+                        i, localPort, remoteAddress, state, 100000 + i));
+                counts_ByState[state]++;
+            }
+        }
+        finally {
+            if (writer != null) writer.close();
+        }
+
+        return counts_ByState;
+    }
+
+}
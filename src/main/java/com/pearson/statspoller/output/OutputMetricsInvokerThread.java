@@ -1,6 +1,8 @@
 package com.pearson.statspoller.output;
 
+import com.pearson.statspoller.globals.ApplicationConfiguration;
 import com.pearson.statspoller.utilities.core_utils.InvokerThread;
+import com.pearson.statspoller.utilities.core_utils.Splay;
 import com.pearson.statspoller.utilities.core_utils.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,23 +16,66 @@ public class OutputMetricsInvokerThread extends InvokerThread implements Runnabl
     
     private final long invocationIntervalInMilliseconds_;
     private final long threadExecutorShutdownWaitTime_;
+    private final OutputSplay outputSplay_;
+    private final long startupWindowInMilliseconds_;
     
     public OutputMetricsInvokerThread(long invocationIntervalInMilliseconds) {
+        this(invocationIntervalInMilliseconds, new OutputSplay(ApplicationConfiguration.getOutputSplayMode(), invocationIntervalInMilliseconds, 
+                Splay.getHostOffsetInMs(ApplicationConfiguration.getHostname(), "output", invocationIntervalInMilliseconds)), ApplicationConfiguration.getStartupWindow());
+    }
+    
+    public OutputMetricsInvokerThread(long invocationIntervalInMilliseconds, OutputSplay outputSplay) {
+        this(invocationIntervalInMilliseconds, outputSplay, 0);
+    }
+    
+    /*
+    If 'startupWindowInMilliseconds' is greater than 0, the first output happens shortly after the startup window (see OutputSplay.getStartupFlushDelayInMs),
+    instead of at the normal time. 
+    */
+    public OutputMetricsInvokerThread(long invocationIntervalInMilliseconds, OutputSplay outputSplay, long startupWindowInMilliseconds) {
         this.invocationIntervalInMilliseconds_ = invocationIntervalInMilliseconds;
         this.threadExecutorShutdownWaitTime_ = 5000;
+        this.outputSplay_ = outputSplay;
+        this.startupWindowInMilliseconds_ = startupWindowInMilliseconds;
     }
     
     @Override
     public void run() {
 
+        boolean isSplayed = (outputSplay_ != null) && (outputSplay_.getMode() != OutputSplay.MODE_NONE);
+        if (isSplayed) logger.info("Message=\"Output is splayed\", OutputSplayMode=\"" + outputSplay_.getModeName() + "\"" + ", OutputInterval=" + invocationIntervalInMilliseconds_ + ", OffsetMs=" + outputSplay_.getOffsetInMs());
+        
+        long startupOutputDelay = (outputSplay_ != null) ? outputSplay_.getStartupFlushDelayInMs(startupWindowInMilliseconds_) : -1;
+        long startupOutputTimestamp = System.currentTimeMillis() + startupOutputDelay;
+        boolean isFirstOutput = true;
+        
         synchronized (lockObject_) {
             while (continueRunning_) {
-                OutputMetricsThread outputMetricsThread = new OutputMetricsThread();
-                threadExecutor_.execute(outputMetricsThread);
-
                 try {
-                    lockObject_.wait(invocationIntervalInMilliseconds_);
-                    while(!outputMetricsThread.isFinished()) lockObject_.wait(50);
+                    // first output with a startup window: wait for the collectors' first runs.
+                    // splayed: wait for this host's next offset within the interval (relative to the wall clock)
+                    if ((isFirstOutput && (startupOutputDelay >= 0)) || isSplayed) {
+                        long nextOutputTimestamp = (isFirstOutput && (startupOutputDelay >= 0)) ? startupOutputTimestamp 
+                                : System.currentTimeMillis() + outputSplay_.getTimeUntilNextFlushInMs(System.currentTimeMillis());
+                        long waitTime = nextOutputTimestamp - System.currentTimeMillis();
+                        
+                        while (continueRunning_ && (waitTime > 0)) {
+                            lockObject_.wait(waitTime);
+                            waitTime = nextOutputTimestamp - System.currentTimeMillis();
+                        }
+                        
+                        if (!continueRunning_) break;
+                    }
+                    
+                    OutputMetricsThread outputMetricsThread = new OutputMetricsThread();
+                    threadExecutor_.execute(outputMetricsThread);
+                    
+                    // not splayed: output every interval, measured from the start of the previous output
+                    if (!isSplayed) lockObject_.wait(invocationIntervalInMilliseconds_);
+                    while (!outputMetricsThread.isFinished()) lockObject_.wait(50);
+                    
+                    if (isSplayed && !isFirstOutput) outputSplay_.recordFlush(outputMetricsThread.getSendTimeInMs());
+                    isFirstOutput = false;
                 }
                 catch (Exception e) {}
             }
@@ -52,4 +97,4 @@ public class OutputMetricsInvokerThread extends InvokerThread implements Runnabl
         return threadExecutorShutdownWaitTime_;
     }
 
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.pearson.statspoller.output;
 
 import com.pearson.statspoller.globals.ApplicationConfiguration;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 import com.pearson.statspoller.globals.GlobalVariables;
@@ -26,7 +27,8 @@ public class OutputMetricsThread implements Runnable {
     
     private static final Logger logger = LoggerFactory.getLogger(OutputMetricsThread.class.getName());
     
-    private boolean isFinished_ = false;
+    private volatile boolean isFinished_ = false;
+    private volatile long sendTimeInMs_ = -1;
     private static int maxOutputTimeForAnOutputModule_ = (int) (ApplicationConfiguration.getOutputInterval() - 2500);
     private static int connectTimeoutForATcpOutputModule_ = (int) ((ApplicationConfiguration.getOutputInterval() - 3000) / 2);
     private static int connectTimeoutForAHttpOutputModule_ = (int) ((ApplicationConfiguration.getOutputInterval() - 3000) / 3);
@@ -55,7 +57,15 @@ public class OutputMetricsThread implements Runnable {
         outputThreads.addAll(getSendMetricsToAllOpentsdbTelnetOutputModuleThreads(metrics, "OTSDB-T-" + System.currentTimeMillis()));
         outputThreads.addAll(getSendMetricsToAllOpentsdbHttpOutputModuleThreads(metrics, "OTSDB-H-" + System.currentTimeMillis()));
         
-        Threads.threadExecutorCachedPool(outputThreads, maxOutputTimeForAnOutputModule_, TimeUnit.MILLISECONDS);
+        long sendStartTime = System.currentTimeMillis();
+        if (ApplicationConfiguration.isVirtualThreadsEnabled()) Threads.threadExecutorVirtualThreads(outputThreads, maxOutputTimeForAnOutputModule_, TimeUnit.MILLISECONDS);
+        else Threads.threadExecutorCachedPool(outputThreads, maxOutputTimeForAnOutputModule_, TimeUnit.MILLISECONDS);
+        if (!outputThreads.isEmpty()) sendTimeInMs_ = System.currentTimeMillis() - sendStartTime;
+        
+        // the first output that contained metrics marks the end of startup (reported as the 'Agent.Startup-Time-To-First-Output-Ms' metric)
+        if (!outputThreads.isEmpty() && GlobalVariables.firstMetricOutputTimestampInMs.compareAndSet(-1, sendStartTime)) {
+            logger.info("Message=\"First metric output\", StartupTimeMs=" + (sendStartTime - ManagementFactory.getRuntimeMXBean().getStartTime()) + ", MetricCount=" + metrics.size());
+        }
         
         isFinished_ = true;
     }
@@ -184,5 +194,12 @@ public class OutputMetricsThread implements Runnable {
     public boolean isFinished() {
         return isFinished_;
     }
+    
+    /*
+    How long it took for every output module to finish sending (or to time out). Returns -1 if nothing was sent.
+    */
+    public long getSendTimeInMs() {
+        return sendTimeInMs_;
+    }
 
 }
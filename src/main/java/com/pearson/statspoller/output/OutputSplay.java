@@ -0,0 +1,157 @@
+package com.pearson.statspoller.output;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Decides when each output (flush) happens, so that a fleet of agents spreads its flushes across the output interval
+ * instead of all flushing in the same second (agents are often restarted together, ex- after a deploy).
+ *
+ * Modes:
+ *   - 'none' : Flush immediately on startup, & then one output interval after each flush starts. The phase depends on when the agent was started.
+ *   - 'hash' : Flush at a fixed, per-host offset within the interval (relative to the wall clock). The offset comes from a hash of the hostname,
+ *              so across a fleet the offsets are uniformly distributed, & a host keeps the same offset across restarts.
+ *   - 'adaptive' : Starts at the 'hash' offset. The interval is divided into slots that are shifted from the hash offset by whole slot widths
+ *                  (so the fleet stays uniformly spread), & the observed flush latency is tracked per slot. If the current slot is consistently slow
+ *                  compared to the best latency seen, the host moves to a faster known slot, or tries a slot that it hasn't tried yet.
+ */
+public class OutputSplay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutputSplay.class.getName());
+
+    public static final int MODE_NONE = 0;
+    public static final int MODE_HASH = 1;
+    public static final int MODE_ADAPTIVE = 2;
+
+    protected static final int NUM_ADAPTIVE_SLOTS = 8;
+    protected static final int MIN_FLUSHES_PER_SLOT = 5;
+    private static final double LATENCY_EWMA_ALPHA = 0.3;
+    private static final double SLOW_SLOT_THRESHOLD = 1.5;
+    private static final long MIN_SLOW_SLOT_DIFFERENCE_IN_MS = 100;
+
+    private final int mode_;
+    private final long outputIntervalInMs_;
+    private final long hashOffsetInMs_;
+
+    // adaptive mode state. only used by the output invoker thread.
+    private final double[] slotLatencyEwmaInMs_ = new double[NUM_ADAPTIVE_SLOTS];
+    private final int[] slotFlushCounts_ = new int[NUM_ADAPTIVE_SLOTS];
+    private int currentSlot_ = 0;
+    private int flushesInCurrentSlot_ = 0;
+    private long minFlushLatencyInMs_ = Long.MAX_VALUE;
+
+    public OutputSplay(int mode, long outputIntervalInMs, long hashOffsetInMs) {
+        this.mode_ = mode;
+        this.outputIntervalInMs_ = Math.max(outputIntervalInMs, 1);
+        this.hashOffsetInMs_ = Math.floorMod(hashOffsetInMs, this.outputIntervalInMs_);
+    }
+
+    public static int getModeFromString(String mode) {
+        if (mode == null) return MODE_HASH;
+        else if (mode.trim().equalsIgnoreCase("none")) return MODE_NONE;
+        else if (mode.trim().equalsIgnoreCase("adaptive")) return MODE_ADAPTIVE;
+        else return MODE_HASH;
+    }
+
+    /*
+    The current offset of this host's flushes, relative to the wall-clock boundaries of the output interval. Returns -1 in 'none' mode.
+    */
+    public long getOffsetInMs() {
+        if (mode_ == MODE_NONE) return -1;
+        return (hashOffsetInMs_ + (currentSlot_ * outputIntervalInMs_ / NUM_ADAPTIVE_SLOTS)) % outputIntervalInMs_;
+    }
+
+    /*
+    Returns how long to wait until the next flush. Always greater than 0 (a flush that is due right now is considered to have already happened).
+    Not used in 'none' mode.
+    */
+    public long getTimeUntilNextFlushInMs(long currentTimestampInMs) {
+        long timeSinceLastFlushSlotInMs = Math.floorMod(currentTimestampInMs - getOffsetInMs(), outputIntervalInMs_);
+        return outputIntervalInMs_ - timeSinceLastFlushSlotInMs;
+    }
+
+    /*
+    Returns how long after startup the first flush should happen, or -1 if there's no startup window (the first flush follows the normal schedule).
+    The first flush is one startup window after startup (once the collectors' first runs are done), plus this host's offset scaled into the startup window,
+    so a fleet that is restarted together is still spread out (over one startup window). In every mode, the normal schedule resumes after the first flush.
+    */
+    public long getStartupFlushDelayInMs(long startupWindowInMs) {
+        if (startupWindowInMs <= 0) return -1;
+        return startupWindowInMs + (hashOffsetInMs_ * startupWindowInMs / outputIntervalInMs_);
+    }
+
+    /*
+    Records how long a flush took (from the start of the flush until every output module finished). Only used in 'adaptive' mode.
+    */
+    public void recordFlush(long flushLatencyInMs) {
+
+        if ((mode_ != MODE_ADAPTIVE) || (flushLatencyInMs < 0)) return;
+
+        if (slotFlushCounts_[currentSlot_] == 0) slotLatencyEwmaInMs_[currentSlot_] = flushLatencyInMs;
+        else slotLatencyEwmaInMs_[currentSlot_] = (LATENCY_EWMA_ALPHA * flushLatencyInMs) + ((1 - LATENCY_EWMA_ALPHA) * slotLatencyEwmaInMs_[currentSlot_]);
+        slotFlushCounts_[currentSlot_]++;
+        flushesInCurrentSlot_++;
+        minFlushLatencyInMs_ = Math.min(minFlushLatencyInMs_, flushLatencyInMs);
+
+        if (flushesInCurrentSlot_ < MIN_FLUSHES_PER_SLOT) return;
+
+        double currentSlotLatencyInMs = slotLatencyEwmaInMs_[currentSlot_];
+        if (!isSlower(currentSlotLatencyInMs, minFlushLatencyInMs_)) return;
+
+        // the current slot is slow. move to the fastest slot that has been tried (if it's clearly faster), otherwise try the next untried slot.
+        int bestSlot = -1;
+        for (int i = 0; i < NUM_ADAPTIVE_SLOTS; i++) {
+            if ((i == currentSlot_) || (slotFlushCounts_[i] == 0)) continue;
+            if ((bestSlot == -1) || (slotLatencyEwmaInMs_[i] < slotLatencyEwmaInMs_[bestSlot])) bestSlot = i;
+        }
+
+        int newSlot = -1;
+        if ((bestSlot != -1) && isSlower(currentSlotLatencyInMs, slotLatencyEwmaInMs_[bestSlot])) {
+            newSlot = bestSlot;
+        }
+        else {
+            for (int i = 1; i < NUM_ADAPTIVE_SLOTS; i++) {
+                int slot = (currentSlot_ + i) % NUM_ADAPTIVE_SLOTS;
+                if (slotFlushCounts_[slot] == 0) {
+                    newSlot = slot;
+                    break;
+                }
+            }
+        }
+
+        if (newSlot == -1) return;
+
+        long previousOffsetInMs = getOffsetInMs();
+        currentSlot_ = newSlot;
+        flushesInCurrentSlot_ = 0;
+
+        logger.info("Message=\"Moved the output splay offset. Flush latency was high at the previous offset.\", PreviousOffsetMs=" + previousOffsetInMs +
+                ", PreviousOffsetLatencyMs=" + Math.round(currentSlotLatencyInMs) + ", NewOffsetMs=" + getOffsetInMs() + ", MinLatencyMs=" + minFlushLatencyInMs_);
+    }
+
+    // small differences (ex- 5ms vs 2ms) are noise, not congestion
+    private static boolean isSlower(double latencyInMs, double comparisonLatencyInMs) {
+        return (latencyInMs > (SLOW_SLOT_THRESHOLD * comparisonLatencyInMs)) && ((latencyInMs - comparisonLatencyInMs) > MIN_SLOW_SLOT_DIFFERENCE_IN_MS);
+    }
+
+    public String getModeName() {
+        if (mode_ == MODE_NONE) return "none";
+        else if (mode_ == MODE_ADAPTIVE) return "adaptive";
+        else return "hash";
+    }
+
+    public int getMode() {
+        return mode_;
+    }
+
+    public long getHashOffsetInMs() {
+        return hashOffsetInMs_;
+    }
+
+    protected int getCurrentSlot() {
+        return currentSlot_;
+    }
+
+}
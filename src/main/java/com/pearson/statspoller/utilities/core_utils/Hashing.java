@@ -0,0 +1,54 @@
+package com.pearson.statspoller.utilities.core_utils;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Fast, non-cryptographic 64-bit hashing. FNV-1a is used for strings & bytes, & MurmurHash3's 64-bit finalizer is used to spread the bits of a hash (or of a plain long key).
+ */
+public class Hashing {
+
+    private static final long FNV_64_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_64_PRIME = 0x100000001b3L;
+
+    public static long fnv1a64(byte[] bytes) {
+
+        long hash = FNV_64_OFFSET_BASIS;
+        if (bytes == null) return hash;
+
+        for (byte b : bytes) {
+            hash ^= (b & 0xff);
+            hash *= FNV_64_PRIME;
+        }
+
+        return hash;
+    }
+
+    /*
+    Hashes the chars of the string (not its encoded bytes), so it doesn't allocate.
+    */
+    public static long fnv1a64(CharSequence charSequence) {
+
+        long hash = FNV_64_OFFSET_BASIS;
+        if (charSequence == null) return hash;
+
+        for (int i = 0; i < charSequence.length(); i++) {
+            hash ^= charSequence.charAt(i);
+            hash *= FNV_64_PRIME;
+        }
+
+        return hash;
+    }
+
+    /*
+    MurmurHash3's 64-bit finalizer. FNV-1a alone leaves similar inputs (ex- web-001, web-002) with similar low-order bits, & hash tables index by the low-order bits.
+    */
+    public static long mix64(long hash) {
+        hash ^= (hash >>> 33);
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= (hash >>> 33);
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= (hash >>> 33);
+        return hash;
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.pearson.statspoller.utilities.core_utils;
+
+import java.util.Arrays;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * A set of primitive longs, backed by a single open-addressing (linear probing) array. No boxing, and no per-entry objects.
+ * Intended for large sets of hashes. Not thread-safe.
+ */
+public class LongHashSet {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    // 0 marks an empty slot, so the key 0 is tracked separately
+    private long[] keys_;
+    private boolean containsZero_ = false;
+    private int size_ = 0;
+    private int resizeThreshold_;
+
+    public LongHashSet() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(getCapacityForSize(expectedSize));
+    }
+
+    /*
+    Returns true if the key was added, false if it was already in the set.
+    */
+    public boolean add(long key) {
+
+        if (key == 0) {
+            if (containsZero_) return false;
+            containsZero_ = true;
+            size_++;
+            return true;
+        }
+
+        int mask = keys_.length - 1;
+        int index = (int) Hashing.mix64(key) & mask;
+
+        while (keys_[index] != 0) {
+            if (keys_[index] == key) return false;
+            index = (index + 1) & mask;
+        }
+
+        keys_[index] = key;
+        size_++;
+        if (size_ > resizeThreshold_) rehash(keys_.length * 2);
+
+        return true;
+    }
+
+    public boolean contains(long key) {
+
+        if (key == 0) return containsZero_;
+
+        int mask = keys_.length - 1;
+        int index = (int) Hashing.mix64(key) & mask;
+
+        while (keys_[index] != 0) {
+            if (keys_[index] == key) return true;
+            index = (index + 1) & mask;
+        }
+
+        return false;
+    }
+
+    public int size() {
+        return size_;
+    }
+
+    public boolean isEmpty() {
+        return size_ == 0;
+    }
+
+    /*
+    Removes all keys. If the backing array is much larger than the set was, it's shrunk so that a set that briefly grew doesn't hold onto the memory forever.
+    */
+    public void clear() {
+
+        int capacityForPreviousSize = getCapacityForSize(size_);
+
+        if ((keys_.length / 4) > capacityForPreviousSize) allocate(capacityForPreviousSize);
+        else Arrays.fill(keys_, 0);
+
+        containsZero_ = false;
+        size_ = 0;
+    }
+
+    private void rehash(int newCapacity) {
+
+        long[] oldKeys = keys_;
+        allocate(newCapacity);
+        int mask = keys_.length - 1;
+
+        for (long key : oldKeys) {
+            if (key == 0) continue;
+
+            int index = (int) Hashing.mix64(key) & mask;
+            while (keys_[index] != 0) index = (index + 1) & mask;
+            keys_[index] = key;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys_ = new long[capacity];
+        resizeThreshold_ = (int) (capacity * 0.7);
+    }
+
+    // capacity is a power of two that keeps the load factor under 0.7
+    private static int getCapacityForSize(int size) {
+
+        int capacity = MINIMUM_CAPACITY;
+        while ((capacity * 0.7) < size) capacity *= 2;
+
+        return capacity;
+    }
+
+}
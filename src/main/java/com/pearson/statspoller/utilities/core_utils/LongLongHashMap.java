@@ -0,0 +1,184 @@
+package com.pearson.statspoller.utilities.core_utils;
+
+import java.util.Arrays;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * A map of primitive long keys to primitive long values, backed by open-addressing (linear probing) arrays. No boxing, and no per-entry objects.
+ * Removal uses backward-shift deletion, so there are no tombstones & lookups never degrade after many removals. Not thread-safe.
+ */
+public class LongLongHashMap {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    // 0 marks an empty slot, so the key 0 is tracked separately
+    private long[] keys_;
+    private long[] values_;
+    private boolean containsZeroKey_ = false;
+    private long zeroKeyValue_ = 0;
+    private int size_ = 0;
+    private int resizeThreshold_;
+
+    public LongLongHashMap() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        allocate(getCapacityForSize(expectedSize));
+    }
+
+    /*
+    Returns the value for the key, or 'defaultValue' if the key isn't in the map.
+    */
+    public long get(long key, long defaultValue) {
+
+        if (key == 0) return containsZeroKey_ ? zeroKeyValue_ : defaultValue;
+
+        int index = findIndex(key);
+        return (index >= 0) ? values_[index] : defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) return containsZeroKey_;
+        return findIndex(key) >= 0;
+    }
+
+    /*
+    Returns true if the key was newly added, false if an existing key's value was replaced.
+    */
+    public boolean put(long key, long value) {
+
+        if (key == 0) {
+            boolean isNewKey = !containsZeroKey_;
+            if (isNewKey) size_++;
+            containsZeroKey_ = true;
+            zeroKeyValue_ = value;
+            return isNewKey;
+        }
+
+        int mask = keys_.length - 1;
+        int index = (int) Hashing.mix64(key) & mask;
+
+        while (keys_[index] != 0) {
+            if (keys_[index] == key) {
+                values_[index] = value;
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys_[index] = key;
+        values_[index] = value;
+        size_++;
+        if (size_ > resizeThreshold_) rehash(keys_.length * 2);
+
+        return true;
+    }
+
+    /*
+    Returns true if the key was in the map.
+    */
+    public boolean remove(long key) {
+
+        if (key == 0) {
+            if (!containsZeroKey_) return false;
+            containsZeroKey_ = false;
+            size_--;
+            return true;
+        }
+
+        int index = findIndex(key);
+        if (index < 0) return false;
+
+        // backward-shift deletion -- pull later entries of the same probe run into the gap so that lookups don't need tombstones
+        int mask = keys_.length - 1;
+        int gapIndex = index;
+        int currentIndex = (index + 1) & mask;
+
+        while (keys_[currentIndex] != 0) {
+            int homeIndex = (int) Hashing.mix64(keys_[currentIndex]) & mask;
+
+            // the entry can fill the gap if its home slot is not in the (cyclic) range (gapIndex, currentIndex]
+            boolean canMoveToGap = (gapIndex <= currentIndex) ? ((homeIndex <= gapIndex) || (homeIndex > currentIndex)) : ((homeIndex <= gapIndex) && (homeIndex > currentIndex));
+
+            if (canMoveToGap) {
+                keys_[gapIndex] = keys_[currentIndex];
+                values_[gapIndex] = values_[currentIndex];
+                gapIndex = currentIndex;
+            }
+
+            currentIndex = (currentIndex + 1) & mask;
+        }
+
+        keys_[gapIndex] = 0;
+        values_[gapIndex] = 0;
+        size_--;
+
+        return true;
+    }
+
+    /*
+    Removes every entry, but keeps the current capacity (so a map that is refilled every run doesn't re-grow).
+    */
+    public void clear() {
+        Arrays.fill(keys_, 0);
+        containsZeroKey_ = false;
+        zeroKeyValue_ = 0;
+        size_ = 0;
+    }
+
+    public int size() {
+        return size_;
+    }
+
+    public boolean isEmpty() {
+        return size_ == 0;
+    }
+
+    private int findIndex(long key) {
+
+        int mask = keys_.length - 1;
+        int index = (int) Hashing.mix64(key) & mask;
+
+        while (keys_[index] != 0) {
+            if (keys_[index] == key) return index;
+            index = (index + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private void rehash(int newCapacity) {
+
+        long[] oldKeys = keys_;
+        long[] oldValues = values_;
+        allocate(newCapacity);
+        int mask = keys_.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+
+            int index = (int) Hashing.mix64(oldKeys[i]) & mask;
+            while (keys_[index] != 0) index = (index + 1) & mask;
+            keys_[index] = oldKeys[i];
+            values_[index] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys_ = new long[capacity];
+        values_ = new long[capacity];
+        resizeThreshold_ = (int) (capacity * 0.7);
+    }
+
+    // capacity is a power of two that keeps the load factor under 0.7
+    private static int getCapacityForSize(int size) {
+
+        int capacity = MINIMUM_CAPACITY;
+        while ((capacity * 0.7) < size) capacity *= 2;
+
+        return capacity;
+    }
+
+}
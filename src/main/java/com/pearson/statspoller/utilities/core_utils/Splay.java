@@ -0,0 +1,27 @@
+package com.pearson.statspoller.utilities.core_utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Deterministic per-host offsets. Every host gets a stable offset within a range, derived from a hash of its hostname,
+ * so that a fleet of agents (which are often all restarted at the same time) spreads its work uniformly across the range instead of firing in lockstep.
+ */
+public class Splay {
+
+    /*
+    Returns an offset in [0, rangeInMs). The same hostname & purpose always get the same offset.
+    'purpose' decorrelates the offsets that a host gets for different things (ex- collection vs output), so a host that is early for one isn't early for all of them.
+    */
+    public static long getHostOffsetInMs(String hostname, String purpose, long rangeInMs) {
+
+        if (rangeInMs <= 1) return 0;
+
+        String seed = ((hostname == null) ? "" : hostname.trim().toLowerCase()) + "|" + ((purpose == null) ? "" : purpose);
+        long hash = Hashing.mix64(Hashing.fnv1a64(seed.getBytes(StandardCharsets.UTF_8)));
+
+        return Long.remainderUnsigned(hash, rangeInMs);
+    }
+
+}
@@ -1,8 +1,11 @@
 package com.pearson.statspoller.utilities.core_utils;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +17,8 @@ public class Threads {
     
     private static final Logger logger = LoggerFactory.getLogger(Threads.class.getName());
     
+    private static final Map<String,ForkJoinPool> forkJoinPools_ByName_ = new HashMap<>();
+    
     public static void sleepMilliseconds(long milliseconds) {
         sleepMilliseconds(milliseconds, false);
     }
@@ -124,6 +129,23 @@ public class Threads {
         }
     }
     
+    /*
+    Returns the shared fork-join pool named 'name', with 'parallelism' threads. 
+    If the pool's parallelism has changed (ex- a different thread count was configured), the old pool is shut down & replaced.
+    */
+    public static synchronized ForkJoinPool getForkJoinPool(String name, int parallelism) {
+        
+        ForkJoinPool forkJoinPool = forkJoinPools_ByName_.get(name);
+        
+        if ((forkJoinPool == null) || (forkJoinPool.getParallelism() != parallelism)) {
+            if (forkJoinPool != null) forkJoinPool.shutdown();
+            forkJoinPool = new ForkJoinPool(parallelism);
+            forkJoinPools_ByName_.put(name, forkJoinPool);
+        }
+        
+        return forkJoinPool;
+    }
+    
     public static void threadExecutorFixedPool(List threads, int nThreadPoolSize, long timeoutTime, TimeUnit timeoutTimeunit) {
         
         if ((threads == null) || threads.isEmpty() ||(nThreadPoolSize <= 0) || (timeoutTime <= 0) || (timeoutTimeunit == null)) {
@@ -167,9 +189,27 @@ public class Threads {
             return;
         }
         
+        threadExecutor(Executors.newCachedThreadPool(), threads, timeoutTime, timeoutTimeunit);
+    }
+    
+    /*
+    Runs every thread on its own virtual thread (Java 21+). Falls back to a cached pool of platform threads if the jvm doesn't support virtual threads.
+    */
+    public static void threadExecutorVirtualThreads(List threads, long timeoutTime, TimeUnit timeoutTimeunit) {
+        
+        if ((threads == null) || threads.isEmpty() || (timeoutTime <= 0) || (timeoutTimeunit == null)) {
+            return;
+        }
+        
+        ExecutorService threadExecutor = VirtualThreads.newThreadPerTaskExecutor(null);
+        if (threadExecutor == null) threadExecutor = Executors.newCachedThreadPool();
+        
+        threadExecutor(threadExecutor, threads, timeoutTime, timeoutTimeunit);
+    }
+    
+    private static void threadExecutor(ExecutorService threadExecutor, List threads, long timeoutTime, TimeUnit timeoutTimeunit) {
+        
         try {
-            ExecutorService threadExecutor = Executors.newCachedThreadPool();
-            
             for (Object thread : threads) {
                 threadExecutor.execute((Runnable) thread);
             }
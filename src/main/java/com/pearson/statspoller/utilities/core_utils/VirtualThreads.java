@@ -0,0 +1,94 @@
+package com.pearson.statspoller.utilities.core_utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Virtual thread (Java 21+) support for code that is compiled for Java 8.
+ * The Java 21 apis (Thread.ofVirtual, Executors.newThreadPerTaskExecutor) are looked up reflectively, so the same jar
+ * runs on Java 8 (platform threads only) & on Java 21+ (platform or virtual threads).
+ */
+public class VirtualThreads {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class.getName());
+
+    private static final Method threadOfVirtualMethod_ = getMethod(Thread.class, "ofVirtual");
+    private static final Method builderNameMethod_ = getMethod(getClass("java.lang.Thread$Builder"), "name", String.class, long.class);
+    private static final Method builderFactoryMethod_ = getMethod(getClass("java.lang.Thread$Builder"), "factory");
+    private static final Method newThreadPerTaskExecutorMethod_ = getMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private static final boolean isSupported_ = (createThreadFactory("VirtualThreads-Check-") != null) && (newThreadPerTaskExecutorMethod_ != null);
+
+    /*
+    Returns true if this jvm can create virtual threads. On Java 19 & 20, virtual threads are a preview feature, & are only supported if '--enable-preview' is set.
+    */
+    public static boolean isSupported() {
+        return isSupported_;
+    }
+
+    /*
+    Returns a factory for virtual threads named 'threadNamePrefix' + a counter (starting at 1).
+    Returns null if virtual threads aren't supported by this jvm.
+    */
+    public static ThreadFactory createThreadFactory(String threadNamePrefix) {
+
+        if ((threadOfVirtualMethod_ == null) || (builderNameMethod_ == null) || (builderFactoryMethod_ == null)) return null;
+
+        try {
+            Object threadBuilder = threadOfVirtualMethod_.invoke(null);
+            threadBuilder = builderNameMethod_.invoke(threadBuilder, (threadNamePrefix == null) ? "" : threadNamePrefix, 1L);
+            return (ThreadFactory) builderFactoryMethod_.invoke(threadBuilder);
+        }
+        catch (Exception e) {
+            logger.debug(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return null;
+        }
+    }
+
+    /*
+    Returns an executor that starts a new virtual thread for every task. Returns null if virtual threads aren't supported by this jvm.
+    */
+    public static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+
+        if (!isSupported_) return null;
+
+        try {
+            ThreadFactory threadFactory = createThreadFactory(threadNamePrefix);
+            if (threadFactory == null) return null;
+            return (ExecutorService) newThreadPerTaskExecutorMethod_.invoke(null, threadFactory);
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return null;
+        }
+    }
+
+    private static Class<?> getClass(String className) {
+
+        try {
+            return Class.forName(className);
+        }
+        catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Method getMethod(Class<?> clazz, String methodName, Class<?>... parameterTypes) {
+
+        if (clazz == null) return null;
+
+        try {
+            return clazz.getMethod(methodName, parameterTypes);
+        }
+        catch (Exception e) {
+            return null;
+        }
+    }
+
+}
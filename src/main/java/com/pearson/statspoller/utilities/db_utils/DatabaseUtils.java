@@ -35,6 +35,8 @@ public class DatabaseUtils {
     public static final byte CLOSE_AND_COMMIT = 2;
     public static final byte CLOSE_AND_ROLLBACK = 3;
     
+    private static volatile boolean isMysqlDriversLoaded_ = false;
+    
     public static void cleanup(Connection connection) {
         cleanup(null, null, null, null, CLOSE);
     }
@@ -148,11 +150,42 @@ public class DatabaseUtils {
         }
     }
     
+    /*
+    The MySQL/MariaDB driver classes are loaded the first time that a MySQL/MariaDB connection is made (rather than at startup),
+    so that agents that don't connect to MySQL don't pay for loading them.
+    */
+    private static void loadDriversIfNeeded(String jdbcString) {
+        
+        if (isMysqlDriversLoaded_ || (jdbcString == null)) return;
+        if (!jdbcString.startsWith("jdbc:mysql:") && !jdbcString.startsWith("jdbc:mariadb:")) return;
+        
+        synchronized (DatabaseUtils.class) {
+            if (isMysqlDriversLoaded_) return;
+            
+            try {
+                Class.forName("org.mariadb.jdbc.Driver").newInstance();
+            }
+            catch (Exception e) {
+                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+
+            try {
+                Class.forName("com.mysql.jdbc.Driver").newInstance();
+            }
+            catch (Exception e) {
+                logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            }
+            
+            isMysqlDriversLoaded_ = true;
+        }
+    }
+    
     public static Connection connect(String jdbcString) {
         
         Connection connection = null;
         
         try {
+            loadDriversIfNeeded(jdbcString);
             connection = DriverManager.getConnection(jdbcString);
         }
         catch (Exception e) {
@@ -167,6 +200,7 @@ public class DatabaseUtils {
         Connection connection = null;
         
         try {
+            loadDriversIfNeeded(url);
             connection = DriverManager.getConnection(url, username, password);
         }
         catch (Exception e) {
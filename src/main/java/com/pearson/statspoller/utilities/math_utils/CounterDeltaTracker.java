@@ -0,0 +1,156 @@
+package com.pearson.statspoller.utilities.math_utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Tracks the previous sample of a set of monotonic counters (ex- the fields of a /proc/stat cpu line, or of a disk's stat file), per key (ex- cpu or device name).
+ * Each new sample is compared to the previous sample of the same key, & the per-counter deltas are written into a caller-supplied array.
+ * The previous samples are stored as long[], & the arrays are re-used between samples, so a steady-state sample doesn't allocate.
+ *
+ * Counters are treated as unsigned 64-bit values. A 64-bit counter that wraps (the upper half of the range dropping to the lower half) produces the correct delta.
+ * Trackers that are created for 32-bit counters (ex- the time fields of /proc/diskstats on older kernels) also detect 32-bit wraps (a value in the upper half of the 32-bit range that drops to the lower half).
+ * Any other decrease is treated as a counter reset (ex- a device was removed & re-added, or a cpu was hotplugged), & no delta is produced for that sample.
+ *
+ * Not thread-safe. Each collector has its own tracker (a collector's runs never overlap).
+ */
+public class CounterDeltaTracker {
+
+    public static final long NO_DELTA = -1;
+
+    private static final long MAX_32_BIT_COUNTER_VALUE = 0xFFFFFFFFL;
+    private static final long MIN_32_BIT_COUNTER_VALUE_BEFORE_WRAP = 0x80000000L;
+
+    private final boolean is32BitWrapDetected_;
+    private final Map<String,Sample> previousSamples_ = new HashMap<>();
+    private long resetCount_ = 0;
+
+    public CounterDeltaTracker() {
+        this(false);
+    }
+
+    /*
+    'is32BitWrapDetected' should only be true when some of the counters can be 32-bit. Otherwise, a real reset from a value in [2^31, 2^32) would be mistaken for a wrap.
+    */
+    public CounterDeltaTracker(boolean is32BitWrapDetected) {
+        this.is32BitWrapDetected_ = is32BitWrapDetected;
+    }
+
+    /*
+    Records the first 'numCounters' values of 'counters' as the current sample of 'key', & writes the delta of each counter (vs the previous sample) into 'deltas'.
+    Returns the number of milliseconds between the two samples, or NO_DELTA if there isn't a usable previous sample
+    (the first sample of a key, a change in the number of counters, a counter reset, or a sample that is older than the previous one).
+    */
+    public long update(String key, long[] counters, int numCounters, long timestampInMs, long[] deltas) {
+
+        Sample sample = previousSamples_.get(key);
+
+        if (sample == null) {
+            previousSamples_.put(key, new Sample(counters, numCounters, timestampInMs));
+            return NO_DELTA;
+        }
+
+        if (sample.numCounters_ != numCounters) {
+            sample.set(counters, numCounters, timestampInMs);
+            return NO_DELTA;
+        }
+
+        boolean isReset = false;
+
+        for (int i = 0; i < numCounters; i++) {
+            long delta = getCounterDelta(sample.counters_[i], counters[i], is32BitWrapDetected_);
+            if (delta == NO_DELTA) isReset = true;
+            deltas[i] = delta;
+        }
+
+        long millisecondsBetweenSamples = timestampInMs - sample.timestampInMs_;
+        sample.set(counters, numCounters, timestampInMs);
+
+        if (isReset) {
+            resetCount_++;
+            return NO_DELTA;
+        }
+
+        return (millisecondsBetweenSamples < 0) ? NO_DELTA : millisecondsBetweenSamples;
+    }
+
+    /*
+    Returns (current - previous) for a 64-bit counter, accounting for wraparound. Returns NO_DELTA if the counter was reset.
+    */
+    public static long getCounterDelta(long previousValue, long currentValue) {
+        return getCounterDelta(previousValue, currentValue, false);
+    }
+
+    /*
+    Returns (current - previous) for a counter, accounting for wraparound (including 32-bit wraparound, if 'is32BitWrapDetected' is true). Returns NO_DELTA if the counter was reset.
+    */
+    public static long getCounterDelta(long previousValue, long currentValue, boolean is32BitWrapDetected) {
+
+        if (Long.compareUnsigned(currentValue, previousValue) >= 0) return currentValue - previousValue;
+
+        boolean isWrapped32BitCounter = is32BitWrapDetected && (previousValue >= MIN_32_BIT_COUNTER_VALUE_BEFORE_WRAP) && (previousValue <= MAX_32_BIT_COUNTER_VALUE) &&
+                (currentValue >= 0) && (currentValue < MIN_32_BIT_COUNTER_VALUE_BEFORE_WRAP);
+        if (isWrapped32BitCounter) return (MAX_32_BIT_COUNTER_VALUE - previousValue) + currentValue + 1;
+
+        // the upper half of the unsigned 64-bit range dropping to the lower half. the subtraction wraps to the correct unsigned delta.
+        boolean isWrapped64BitCounter = (previousValue < 0) && (currentValue >= 0);
+        if (isWrapped64BitCounter) return currentValue - previousValue;
+
+        return NO_DELTA;
+    }
+
+    public static double getRatePerSecond(long delta, long millisecondsBetweenSamples) {
+        if ((millisecondsBetweenSamples <= 0) || (delta < 0)) return Double.NaN;
+        return (delta * 1000.0) / millisecondsBetweenSamples;
+    }
+
+    public static double getPercent(long part, long total) {
+        if ((total <= 0) || (part < 0)) return Double.NaN;
+        return (part * 100.0) / total;
+    }
+
+    /*
+    Forgets the keys that weren't updated at or after 'minTimestampInMs' (ex- devices that were removed).
+    */
+    public void removeStaleSamples(long minTimestampInMs) {
+        Iterator<Sample> iterator = previousSamples_.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().timestampInMs_ < minTimestampInMs) iterator.remove();
+        }
+    }
+
+    public void clear() {
+        previousSamples_.clear();
+    }
+
+    public int size() {
+        return previousSamples_.size();
+    }
+
+    public long getResetCount() {
+        return resetCount_;
+    }
+
+    private static class Sample {
+
+        private long[] counters_;
+        private int numCounters_;
+        private long timestampInMs_;
+
+        public Sample(long[] counters, int numCounters, long timestampInMs) {
+            set(counters, numCounters, timestampInMs);
+        }
+
+        private void set(long[] counters, int numCounters, long timestampInMs) {
+            if ((counters_ == null) || (counters_.length < numCounters)) counters_ = new long[numCounters];
+            System.arraycopy(counters, 0, counters_, 0, numCounters);
+            numCounters_ = numCounters;
+            timestampInMs_ = timestampInMs;
+        }
+
+    }
+
+}
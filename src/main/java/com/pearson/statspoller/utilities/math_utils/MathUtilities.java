@@ -19,6 +19,8 @@ public class MathUtilities {
     
     private static final Logger logger = LoggerFactory.getLogger(MathUtilities.class.getName());
     
+    private static final double[] POWERS_OF_TEN = {1E0, 1E1, 1E2, 1E3, 1E4, 1E5, 1E6, 1E7, 1E8, 1E9, 1E10, 1E11, 1E12, 1E13, 1E14, 1E15, 1E16, 1E17, 1E18};
+    
     private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
     
     public static double computeSmallerNumber(double number1, double number2) {
@@ -174,6 +176,19 @@ public class MathUtilities {
         }
     }
     
+    /*
+    Converts a double to a BigDecimal that is rounded to 'scale' decimal places, without going through a String (unlike BigDecimal.valueOf(double)).
+    Returns null for NaN & infinite values.
+    */
+    public static BigDecimal getBigDecimalFromDouble(double number, int scale) {
+        
+        if (Double.isNaN(number) || Double.isInfinite(number)) return null;
+        
+        double scaledNumber = number * (((scale >= 0) && (scale < POWERS_OF_TEN.length)) ? POWERS_OF_TEN[scale] : Math.pow(10, scale));
+        if (Math.abs(scaledNumber) < 9.0E18) return BigDecimal.valueOf(Math.round(scaledNumber), scale);
+        else return new BigDecimal(number).setScale(scale, RoundingMode.HALF_UP);
+    }
+    
     public static BigDecimal computePopulationStandardDeviationOfBigDecimals(List<BigDecimal> numbers) {
         
         if ((numbers == null) || numbers.isEmpty()) {
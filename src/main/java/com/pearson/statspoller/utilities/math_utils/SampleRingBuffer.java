@@ -0,0 +1,101 @@
+package com.pearson.statspoller.utilities.math_utils;
+
+import java.util.Arrays;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * A fixed-size ring buffer of double samples, with summary statistics (min, max, mean, percentiles) over the samples that it holds.
+ * Once the buffer is full, each new sample overwrites the oldest sample. Nothing is allocated after construction.
+ * Percentiles sort a copy of the samples (the first percentile after a change sorts, later percentiles re-use the sort).
+ *
+ * Not thread-safe.
+ */
+public class SampleRingBuffer {
+
+    private final double[] samples_;
+    private final double[] sortedSamples_;
+    private int nextIndex_ = 0;
+    private int size_ = 0;
+    private boolean isSorted_ = false;
+
+    public SampleRingBuffer(int capacity) {
+        this.samples_ = new double[Math.max(capacity, 1)];
+        this.sortedSamples_ = new double[samples_.length];
+    }
+
+    /*
+    NaN & infinite samples (ex- a rate with no elapsed time) are ignored.
+    */
+    public void add(double sample) {
+
+        if (Double.isNaN(sample) || Double.isInfinite(sample)) return;
+
+        samples_[nextIndex_] = sample;
+        nextIndex_ = (nextIndex_ + 1) % samples_.length;
+        if (size_ < samples_.length) size_++;
+        isSorted_ = false;
+    }
+
+    public int size() {
+        return size_;
+    }
+
+    public int capacity() {
+        return samples_.length;
+    }
+
+    public boolean isEmpty() {
+        return size_ == 0;
+    }
+
+    public void clear() {
+        nextIndex_ = 0;
+        size_ = 0;
+        isSorted_ = false;
+    }
+
+    // the samples are in samples_[0, size_) whether or not the buffer has wrapped, & order doesn't matter for min/max/mean
+
+    public double getMin() {
+        if (size_ == 0) return Double.NaN;
+
+        double min = samples_[0];
+        for (int i = 1; i < size_; i++) if (samples_[i] < min) min = samples_[i];
+        return min;
+    }
+
+    public double getMax() {
+        if (size_ == 0) return Double.NaN;
+
+        double max = samples_[0];
+        for (int i = 1; i < size_; i++) if (samples_[i] > max) max = samples_[i];
+        return max;
+    }
+
+    public double getMean() {
+        if (size_ == 0) return Double.NaN;
+
+        double sum = 0;
+        for (int i = 0; i < size_; i++) sum += samples_[i];
+        return sum / size_;
+    }
+
+    /*
+    Nearest-rank percentile (ex- 95 for the 95th percentile). Returns NaN if there are no samples.
+    */
+    public double getPercentile(double percentile) {
+
+        if (size_ == 0) return Double.NaN;
+
+        if (!isSorted_) {
+            System.arraycopy(samples_, 0, sortedSamples_, 0, size_);
+            Arrays.sort(sortedSamples_, 0, size_);
+            isSorted_ = true;
+        }
+
+        int rank = (int) Math.ceil((percentile / 100.0) * size_);
+        return sortedSamples_[Math.min(Math.max(rank, 1), size_) - 1];
+    }
+
+}
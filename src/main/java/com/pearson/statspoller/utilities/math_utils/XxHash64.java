@@ -0,0 +1,101 @@
+package com.pearson.statspoller.utilities.math_utils;
+
+/**
+ * @author Jeffrey Schmidt
+ *
+ * Allocation-free xxHash64 (https://github.com/Cyan4973/xxHash) over a range of a byte array.
+ * Not cryptographic -- used for fast change detection, where a 64-bit collision is an acceptable (vanishingly rare) risk.
+ */
+public class XxHash64 {
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    public static long hash(byte[] bytes, int offset, int length) {
+        return hash(bytes, offset, length, 0);
+    }
+
+    public static long hash(byte[] bytes, int offset, int length, long seed) {
+
+        int position = offset;
+        int end = offset + length;
+        long hash;
+
+        if (length >= 32) {
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+
+            int stripesEnd = end - 32;
+            while (position <= stripesEnd) {
+                v1 = round(v1, readLongLittleEndian(bytes, position));
+                v2 = round(v2, readLongLittleEndian(bytes, position + 8));
+                v3 = round(v3, readLongLittleEndian(bytes, position + 16));
+                v4 = round(v4, readLongLittleEndian(bytes, position + 24));
+                position += 32;
+            }
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        }
+        else {
+            hash = seed + PRIME64_5;
+        }
+
+        hash += length;
+
+        while ((position + 8) <= end) {
+            hash ^= round(0, readLongLittleEndian(bytes, position));
+            hash = (Long.rotateLeft(hash, 27) * PRIME64_1) + PRIME64_4;
+            position += 8;
+        }
+
+        if ((position + 4) <= end) {
+            hash ^= (readIntLittleEndian(bytes, position) & 0xFFFFFFFFL) * PRIME64_1;
+            hash = (Long.rotateLeft(hash, 23) * PRIME64_2) + PRIME64_3;
+            position += 4;
+        }
+
+        while (position < end) {
+            hash ^= (bytes[position] & 0xFFL) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+            position++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+
+        return hash;
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME64_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME64_1;
+    }
+
+    private static long mergeRound(long accumulator, long value) {
+        accumulator ^= round(0, value);
+        return (accumulator * PRIME64_1) + PRIME64_4;
+    }
+
+    private static long readLongLittleEndian(byte[] bytes, int position) {
+        return (bytes[position] & 0xFFL) | ((bytes[position + 1] & 0xFFL) << 8) | ((bytes[position + 2] & 0xFFL) << 16) | ((bytes[position + 3] & 0xFFL) << 24) |
+                ((bytes[position + 4] & 0xFFL) << 32) | ((bytes[position + 5] & 0xFFL) << 40) | ((bytes[position + 6] & 0xFFL) << 48) | ((bytes[position + 7] & 0xFFL) << 56);
+    }
+
+    private static int readIntLittleEndian(byte[] bytes, int position) {
+        return (bytes[position] & 0xFF) | ((bytes[position + 1] & 0xFF) << 8) | ((bytes[position + 2] & 0xFF) << 16) | ((bytes[position + 3] & 0xFF) << 24);
+    }
+
+}
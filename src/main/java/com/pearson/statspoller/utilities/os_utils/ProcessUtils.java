@@ -2,7 +2,11 @@ package com.pearson.statspoller.utilities.os_utils;
 
 import com.pearson.statspoller.utilities.core_utils.StackTrace;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,6 +16,9 @@ import org.slf4j.LoggerFactory;
 public class ProcessUtils {
     
     private static final Logger logger = LoggerFactory.getLogger(ProcessUtils.class.getName());
+    
+    // where stderr is discarded to (ProcessBuilder.Redirect.DISCARD requires Java 9)
+    private static final File NULL_FILE = new File(System.getProperty("os.name", "").startsWith("Windows") ? "NUL" : "/dev/null");
 
     public static String runProcessAndGetProcessOutput(String commands) {
         
@@ -40,4 +47,35 @@ public class ProcessUtils {
         return output;
     }
     
+    /*
+    Runs the process, & returns its output (stdout). Returns null if the process didn't finish within 'timeoutInMs', or if it couldn't be run.
+    The output goes to a temporary file rather than a pipe, so a process with a lot of output can't block on a full pipe,
+    & a process that doesn't finish in time is killed without leaving a reader thread blocked on it.
+    */
+    public static String runProcessAndGetProcessOutput(String[] commandAndArgs, long timeoutInMs) {
+        
+        File outputFile = null;
+        
+        try {
+            outputFile = File.createTempFile("statspoller-process-", ".out");
+            ProcessBuilder processBuilder = new ProcessBuilder().command(commandAndArgs).redirectOutput(outputFile).redirectError(ProcessBuilder.Redirect.appendTo(NULL_FILE));
+            Process process = processBuilder.start();
+            
+            if (!process.waitFor(timeoutInMs, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                logger.warn("Message=\"Process did not finish before its timeout\", Process=\"" + commandAndArgs[0] + "\", TimeoutInMs=" + timeoutInMs);
+                return null;
+            }
+            
+            return new String(Files.readAllBytes(outputFile.toPath()), Charset.defaultCharset());
+        }
+        catch (Exception e) {
+            logger.error(e.toString() + System.lineSeparator() + StackTrace.getStringFromStackTrace(e));
+            return null;
+        }
+        finally {
+            if ((outputFile != null) && !outputFile.delete()) outputFile.deleteOnExit();
+        }
+    }
+    
 }
@@ -0,0 +1,191 @@
+package com.pearson.statspoller.collector_scheduler;
+
+import com.pearson.statspoller.utilities.core_utils.Splay;
+import com.pearson.statspoller.utilities.core_utils.Threads;
+import com.pearson.statspoller.utilities.core_utils.VirtualThreads;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class CollectorSchedulerTest {
+
+    public CollectorSchedulerTest() {
+    }
+
+    @Test
+    public void testFixedRateAndSkipOnOverrun() {
+        CollectorScheduler collectorScheduler = new CollectorScheduler(4, 5, 16);
+
+        TestCollector fastCollector = new TestCollector(50, 0, false);
+        TestCollector slowCollector = new TestCollector(50, 180, false);
+        collectorScheduler.schedule("Fast", fastCollector, 0);
+        collectorScheduler.schedule("Slow", slowCollector, 0);
+        assertFalse(collectorScheduler.schedule("Fast", fastCollector, 0));
+
+        collectorScheduler.start();
+        Threads.sleepMilliseconds(1000);
+        collectorScheduler.shutdown();
+
+        // ~20 runs at a 50ms fixed rate
+        assertTrue(fastCollector.numRuns_.get() >= 15);
+        assertTrue(fastCollector.numRuns_.get() <= 22);
+
+        // the slow collector's runs never overlap. the runs that were due while it was busy were skipped, not queued
+        assertEquals(1, slowCollector.maxConcurrentRuns_.get());
+        assertTrue(slowCollector.numRuns_.get() <= 6);
+        assertTrue(collectorScheduler.getTask("Slow").getSkippedRunCount() >= 10);
+        assertEquals(0, collectorScheduler.getTask("Fast").getSkippedRunCount());
+    }
+
+    @Test
+    public void testFailedRunRestartsCollector() {
+        CollectorScheduler collectorScheduler = new CollectorScheduler(2, 5, 16);
+
+        TestCollector failingCollector = new TestCollector(50, 0, true);
+        collectorScheduler.schedule("Failing", failingCollector, 0);
+
+        collectorScheduler.start();
+        Threads.sleepMilliseconds(500);
+        collectorScheduler.shutdown();
+
+        // the first run throws. the collector is re-initialized, & runs normally after backing off
+        ScheduledCollectorTask task = collectorScheduler.getTask("Failing");
+        assertEquals(1, task.getFailedRunCount());
+        assertEquals(2, failingCollector.numInitializations_.get());
+        assertTrue(failingCollector.numRuns_.get() >= 5);
+    }
+
+    @Test
+    public void testVirtualThreadMode() {
+        // virtual threads are used on java 21+. on older jvms, the scheduler falls back to the platform worker pool
+        CollectorScheduler collectorScheduler = new CollectorScheduler(1, true, 5, 16);
+        assertEquals(VirtualThreads.isSupported(), collectorScheduler.isUsingVirtualThreads());
+
+        TestCollector collector1 = new TestCollector(50, 5, false);
+        TestCollector collector2 = new TestCollector(50, 5, false);
+        TestCollector platformThreadCollector = new TestCollector(50, 5, false);
+        collectorScheduler.schedule("Collector1", collector1, 0);
+        collectorScheduler.schedule("Collector2", collector2, 0);
+        collectorScheduler.schedule("PlatformThreadCollector", platformThreadCollector, 0, true);
+        assertTrue(collectorScheduler.getTask("PlatformThreadCollector").isPlatformThreadRequired());
+
+        collectorScheduler.start();
+        Threads.sleepMilliseconds(500);
+        collectorScheduler.shutdown();
+
+        assertTrue(collector1.numRuns_.get() >= 5);
+        assertTrue(collector2.numRuns_.get() >= 5);
+        assertTrue(platformThreadCollector.numRuns_.get() >= 5);
+        assertTrue(collectorScheduler.getTask("Collector1").getTotalStartDelayInMs() >= 0);
+    }
+
+    @Test
+    public void testClockAlignedRuns() {
+        long splayInMs = Splay.getHostOffsetInMs("test-host-001", "collection", 100);
+        assertEquals(splayInMs, Splay.getHostOffsetInMs("TEST-HOST-001", "collection", 100));
+        assertTrue((splayInMs >= 0) && (splayInMs < 100));
+
+        CollectorScheduler collectorScheduler = new CollectorScheduler(2, false, true, splayInMs, 5, 16);
+
+        TestCollector collector = new TestCollector(200, 0, false);
+        collectorScheduler.schedule("Aligned", collector);
+
+        collectorScheduler.start();
+        Threads.sleepMilliseconds(1100);
+        collectorScheduler.shutdown();
+
+        // every run is stamped with a boundary of its interval, & starts 'splay' after that boundary (plus up to a tick or so of scheduling delay)
+        assertTrue(collector.alignedRuns_.size() >= 4);
+        long previousAlignedTimestampInMs = -1;
+        for (long[] alignedRun : collector.alignedRuns_) {
+            assertEquals(0, alignedRun[0] % 200);
+            assertTrue(alignedRun[0] > previousAlignedTimestampInMs);
+            long startOffsetInMs = alignedRun[1] - alignedRun[0];
+            assertTrue("StartOffset=" + startOffsetInMs, (startOffsetInMs >= splayInMs - 5) && (startOffsetInMs <= splayInMs + 60));
+            previousAlignedTimestampInMs = alignedRun[0];
+        }
+
+        // outside of a scheduled run, there's no aligned timestamp
+        assertEquals(-1, CollectionTimestamp.getAlignedTimestampInMs());
+    }
+
+    @Test
+    public void testStartupWindow() {
+        CollectorScheduler collectorScheduler = new CollectorScheduler(4, false, false, 0, 200, 5, 16);
+
+        // without a startup window, the first runs would be spread across the whole (10 second) interval
+        List<TestCollector> collectors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            TestCollector collector = new TestCollector(10000, 0, false);
+            collectors.add(collector);
+            collectorScheduler.schedule("Collector-" + i, collector);
+        }
+
+        collectorScheduler.start();
+        Threads.sleepMilliseconds(600);
+        collectorScheduler.shutdown();
+
+        // every collector ran once within the startup window, & then moved to its normal phase (at least half an interval later)
+        for (TestCollector collector : collectors) {
+            assertEquals(1, collector.numRuns_.get());
+        }
+    }
+
+    private static class TestCollector implements SchedulableCollector {
+
+        private final long collectionInterval_;
+        private final long runtimeInMs_;
+        private boolean failOnFirstRun_;
+
+        private final AtomicInteger numInitializations_ = new AtomicInteger(0);
+        private final AtomicInteger numRuns_ = new AtomicInteger(0);
+        private final AtomicInteger numConcurrentRuns_ = new AtomicInteger(0);
+        private final AtomicInteger maxConcurrentRuns_ = new AtomicInteger(0);
+        private final List<long[]> alignedRuns_ = Collections.synchronizedList(new ArrayList<long[]>());
+
+        public TestCollector(long collectionInterval, long runtimeInMs, boolean failOnFirstRun) {
+            this.collectionInterval_ = collectionInterval;
+            this.runtimeInMs_ = runtimeInMs;
+            this.failOnFirstRun_ = failOnFirstRun;
+        }
+
+        @Override
+        public void initializeCollector() {
+            numInitializations_.incrementAndGet();
+        }
+
+        @Override
+        public void collectMetrics() {
+            int numConcurrentRuns = numConcurrentRuns_.incrementAndGet();
+            if (numConcurrentRuns > maxConcurrentRuns_.get()) maxConcurrentRuns_.set(numConcurrentRuns);
+
+            try {
+                if (failOnFirstRun_) {
+                    failOnFirstRun_ = false;
+                    throw new IllegalStateException("Test failure");
+                }
+
+                numRuns_.incrementAndGet();
+                long alignedTimestampInMs = CollectionTimestamp.getAlignedTimestampInMs();
+                if (alignedTimestampInMs >= 0) alignedRuns_.add(new long[] {alignedTimestampInMs, System.currentTimeMillis()});
+                Threads.sleepMilliseconds(runtimeInMs_);
+            }
+            finally {
+                numConcurrentRuns_.decrementAndGet();
+            }
+        }
+
+        @Override
+        public long getCollectionInterval() {
+            return collectionInterval_;
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.pearson.statspoller.external_metric_collectors;
+
+import com.pearson.statspoller.globals.ApplicationConfiguration;
+import com.pearson.statspoller.globals.GlobalVariables;
+import com.pearson.statspoller.metric_formats.GenericMetricFormat;
+import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import com.pearson.statspoller.utilities.file_utils.FileIo;
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class ExternalMetricOutputTest {
+
+    private static final long MAX_METRIC_AGE_IN_MS = 90000;
+
+    public ExternalMetricOutputTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        File configurationFile = File.createTempFile("statspoller_test", ".properties");
+        configurationFile.deleteOnExit();
+
+        String configuration =
+                "legacy_mode = false" + System.lineSeparator() +
+                "max_metric_age = " + MAX_METRIC_AGE_IN_MS + System.lineSeparator() +
+                "output_internal_metrics_to_disk = false" + System.lineSeparator() +
+                "statspoller_enable_java_metric_collector = false" + System.lineSeparator() +
+                "linux_metric_collector_enable = false" + System.lineSeparator();
+
+        assertTrue(FileIo.saveStringToFile(configurationFile.getAbsolutePath(), configuration));
+        assertTrue(ApplicationConfiguration.initialize(configurationFile.getAbsolutePath(), true));
+
+        GlobalVariables.graphiteMetrics.clear();
+    }
+
+    @After
+    public void tearDown() {
+        GlobalVariables.graphiteMetrics.clear();
+    }
+
+    @Test
+    public void testOutputNewMetrics() {
+        ExternalMetricOutput externalMetricOutput = new ExternalMetricOutput("Test");
+        long currentTimestampInMs = System.currentTimeMillis();
+
+        assertEquals(1, externalMetricOutput.outputNewMetrics(createMetrics("disk.used", currentTimestampInMs)).size());
+        assertEquals(0, externalMetricOutput.outputNewMetrics(createMetrics("disk.used", currentTimestampInMs)).size());
+        assertEquals(1, externalMetricOutput.outputNewMetrics(createMetrics("disk.used", currentTimestampInMs + 1000)).size());
+        assertEquals(2, GlobalVariables.graphiteMetrics.size());
+    }
+
+    @Test
+    public void testOutputNewMetrics_OlderThanMaxMetricAge() {
+        ExternalMetricOutput externalMetricOutput = new ExternalMetricOutput("Test");
+        long oldTimestampInMs = System.currentTimeMillis() - MAX_METRIC_AGE_IN_MS - 10000;
+
+        // the series isn't remembered (it's older than 'max_metric_age', so it was never stored or has already expired), so only the age check keeps it from being re-output
+        assertEquals(0, externalMetricOutput.outputNewMetrics(createMetrics("disk.used", oldTimestampInMs)).size());
+        assertEquals(0, externalMetricOutput.outputNewMetrics(createMetrics("disk.used", oldTimestampInMs)).size());
+        assertEquals(0, GlobalVariables.graphiteMetrics.size());
+    }
+
+    private static List<GenericMetricFormat> createMetrics(String metricPath, long metricTimestampInMs) {
+        List<GenericMetricFormat> metrics = new ArrayList<>();
+        metrics.add(new GraphiteMetric(metricPath, BigDecimal.ONE, metricTimestampInMs, metricTimestampInMs));
+        return metrics;
+    }
+
+}
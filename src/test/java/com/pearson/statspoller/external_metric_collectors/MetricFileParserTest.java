@@ -0,0 +1,129 @@
+package com.pearson.statspoller.external_metric_collectors;
+
+import com.pearson.statspoller.metric_formats.GenericMetricFormat;
+import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import com.pearson.statspoller.metric_formats.opentsdb.OpenTsdbMetric;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class MetricFileParserTest {
+
+    public MetricFileParserTest() {
+    }
+
+    @Test
+    public void testGraphiteAndOpenTsdbMetrics() {
+        String unparsedMetrics = ""
+                + "disk.used 12.5 1463373915\n"
+                + "  disk.free  87.5   1463373915  \r\n"
+                + "\n"
+                + "cpu.used 1463373915123 3 host=a core=1\n"
+                + "cpu.idle 1463373915 97 core=2\n";
+
+        MetricFileParser metricFileParser = new MetricFileParser(8);
+        metricFileParser.setBufferContents(unparsedMetrics);
+        List<GenericMetricFormat> metrics = metricFileParser.parseMetrics("prefix.", 0, 1463373915000L);
+
+        assertEquals(4, metrics.size());
+
+        GraphiteMetric graphiteMetric1 = (GraphiteMetric) metrics.get(0);
+        assertEquals("prefix.disk.used", graphiteMetric1.getMetricPath());
+        assertEquals(0, new BigDecimal("12.5").compareTo(graphiteMetric1.getMetricValue()));
+        assertEquals(1463373915000L, graphiteMetric1.getMetricTimestampInMilliseconds());
+
+        GraphiteMetric graphiteMetric2 = (GraphiteMetric) metrics.get(1);
+        assertEquals("prefix.disk.free", graphiteMetric2.getMetricPath());
+
+        // opentsdb: "metric timestamp value tags"
+        OpenTsdbMetric openTsdbMetric1 = (OpenTsdbMetric) metrics.get(2);
+        assertEquals("prefix.cpu.used", openTsdbMetric1.getMetric());
+        assertEquals("prefix.cpu.used : core=1 host=a", openTsdbMetric1.getMetricKey());
+        assertEquals(1463373915123L, openTsdbMetric1.getMetricTimestampInMilliseconds());
+
+        OpenTsdbMetric openTsdbMetric2 = (OpenTsdbMetric) metrics.get(3);
+        assertEquals("prefix.cpu.idle : core=2", openTsdbMetric2.getMetricKey());
+        assertEquals(1463373915000L, openTsdbMetric2.getMetricTimestampInMilliseconds());
+    }
+
+    @Test
+    public void testInvalidAndStaleMetrics() {
+        String unparsedMetrics = ""
+                + "too.few.fields 1463373915\n"
+                + "bad.value abc 1463373915\n"
+                + "bad.timestamp 1 146337391\n"
+                + "duplicate.tags 1463373915 1 host=a host=b\n"
+                + "no.tags 1463373915 1 notatag\n"
+                + "stale.metric 1 1000000000\n"
+                + "unicode.métric 1 1463373915\n";
+
+        List<GenericMetricFormat> metrics = ReadMetricsFromFileThread.getMetricsFromString(unparsedMetrics, null, 1400000000000L);
+
+        assertEquals(1, metrics.size());
+        assertEquals("unicode.métric", ((GraphiteMetric) metrics.get(0)).getMetricPath());
+    }
+
+    @Test
+    public void testSkipUnchangedLines() {
+        MetricFileParser metricFileParser = new MetricFileParser();
+
+        metricFileParser.setBufferContents("disk.used 1 1463373915\ndisk.free 2 1463373915\n");
+        assertEquals(2, metricFileParser.parseMetrics(null, 0, 0, true).size());
+
+        // only the changed line gets parsed
+        metricFileParser.setBufferContents("disk.used 1 1463373915\ndisk.free 3 1463373920\n");
+        List<GenericMetricFormat> metrics = metricFileParser.parseMetrics(null, 0, 0, true);
+        assertEquals(1, metrics.size());
+        assertEquals("disk.free", ((GraphiteMetric) metrics.get(0)).getMetricPath());
+        assertEquals(1, metricFileParser.getNumUnchangedLinesSkipped());
+
+        // lines are only remembered from the previous parse, so a line that disappeared & came back is parsed again
+        metricFileParser.setBufferContents("disk.free 3 1463373920\n");
+        assertEquals(0, metricFileParser.parseMetrics(null, 0, 0, true).size());
+        metricFileParser.setBufferContents("disk.used 1 1463373915\n");
+        assertEquals(1, metricFileParser.parseMetrics(null, 0, 0, true).size());
+    }
+
+    @Test
+    public void testParseBufferedLines() throws Exception {
+        MetricFileParser metricFileParser = new MetricFileParser(16);
+        metricFileParser.setBufferContents(null);
+
+        // the stream is read in small chunks, so lines arrive split across reads
+        InputStream inputStream = new ByteArrayInputStream("disk.used 1 1463373915\ndisk.free 2 1463373915".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] bytes, int offset, int length) {
+                return super.read(bytes, offset, Math.min(length, 7));
+            }
+        };
+
+        int numMetrics = 0;
+        while (true) {
+            boolean isEndOfStream = (metricFileParser.readFromStream(inputStream) < 0);
+            List<GenericMetricFormat> metrics = metricFileParser.parseBufferedLines(null, 0, 0, isEndOfStream);
+            if ((numMetrics == 0) && !metrics.isEmpty()) assertEquals("disk.used", ((GraphiteMetric) metrics.get(0)).getMetricPath());
+            numMetrics += metrics.size();
+            if (isEndOfStream) break;
+        }
+
+        assertEquals(2, numMetrics);
+    }
+
+    @Test
+    public void testFrameTerminator() {
+        MetricFileParser metricFileParser = new MetricFileParser();
+        metricFileParser.setFrameTerminator("END");
+
+        metricFileParser.setBufferContents("disk.used 1 1463373915\n END \ndisk.free 2 1463373915\nEND\nEN");
+        assertEquals(2, metricFileParser.parseBufferedLines(null, 0, 0, false).size());
+        assertEquals(2, metricFileParser.getNumFramesCompleted());
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.pearson.statspoller.external_metric_collectors;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class MetricTimestampIndexTest {
+
+    public MetricTimestampIndexTest() {
+    }
+
+    @Test
+    public void testUpdateIfNewer() {
+        MetricTimestampIndex metricTimestampIndex = new MetricTimestampIndex(90000);
+
+        assertTrue(metricTimestampIndex.updateIfNewer("disk.used", 1000000));
+        assertFalse(metricTimestampIndex.updateIfNewer("disk.used", 1000000));
+        assertFalse(metricTimestampIndex.updateIfNewer("disk.used", 999000));
+        assertTrue(metricTimestampIndex.updateIfNewer("disk.used", 1001000));
+        assertTrue(metricTimestampIndex.updateIfNewer("disk.free", 1000000));
+        assertEquals(2, metricTimestampIndex.size());
+    }
+
+    @Test
+    public void testExpire() {
+        MetricTimestampIndex metricTimestampIndex = new MetricTimestampIndex(90000);
+
+        for (int i = 0; i < 10000; i++) metricTimestampIndex.updateIfNewer("series." + i, 1000000);
+
+        // half of the series get refreshed, so only the other half should expire
+        for (int i = 0; i < 10000; i += 2) metricTimestampIndex.updateIfNewer("series." + i, 1060000);
+
+        metricTimestampIndex.expire(1000000);
+        assertEquals(10000, metricTimestampIndex.size());
+
+        metricTimestampIndex.expire(1050000);
+        assertEquals(5000, metricTimestampIndex.size());
+        assertFalse(metricTimestampIndex.updateIfNewer("series.0", 1060000));
+        assertTrue(metricTimestampIndex.updateIfNewer("series.1", 1000000));
+
+        // a long gap between cleanups still expires everything that is too old
+        metricTimestampIndex.expire(5000000);
+        assertEquals(0, metricTimestampIndex.size());
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.pearson.statspoller.globals;
+
+import com.pearson.statspoller.utilities.file_utils.FileIo;
+import java.io.File;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class ApplicationConfigurationTest {
+
+    public ApplicationConfigurationTest() {
+    }
+
+    @Test
+    public void testDefaults() throws Exception {
+        assertTrue(initialize("legacy_mode = false" + System.lineSeparator()));
+
+        assertEquals(5000, ApplicationConfiguration.getCollectionSplay());
+        assertEquals(3000, ApplicationConfiguration.getStartupWindow());
+    }
+
+    @Test
+    public void testDefaults_LegacyMode() throws Exception {
+        // legacy mode reads intervals as milliseconds, so the defaults have to be in milliseconds too
+        assertTrue(initialize("legacy_mode = true" + System.lineSeparator()));
+
+        assertEquals(5000, ApplicationConfiguration.getCollectionSplay());
+        assertEquals(3000, ApplicationConfiguration.getStartupWindow());
+    }
+
+    private static boolean initialize(String additionalConfiguration) throws Exception {
+        File configurationFile = File.createTempFile("statspoller_test", ".properties");
+        configurationFile.deleteOnExit();
+
+        String configuration =
+                "output_internal_metrics_to_disk = false" + System.lineSeparator() +
+                "statspoller_enable_java_metric_collector = false" + System.lineSeparator() +
+                "linux_metric_collector_enable = false" + System.lineSeparator() +
+                additionalConfiguration;
+
+        if (!FileIo.saveStringToFile(configurationFile.getAbsolutePath(), configuration)) return false;
+
+        return ApplicationConfiguration.initialize(configurationFile.getAbsolutePath(), true);
+    }
+
+}
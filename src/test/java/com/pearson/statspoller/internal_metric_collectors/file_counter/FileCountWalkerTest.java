@@ -0,0 +1,90 @@
+package com.pearson.statspoller.internal_metric_collectors.file_counter;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class FileCountWalkerTest {
+
+    private File rootDirectory_;
+
+    public FileCountWalkerTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        rootDirectory_ = Files.createTempDirectory("statspoller-filecount-test").toFile();
+
+        writeFile("a.txt", 10, 1000000000000L);
+        writeFile("b.txt", 20, 1500000000000L);
+        writeFile("sub1/c.txt", 5, 1400000000000L);
+        writeFile("sub1/deep/d.txt", 7, 1600000000000L);
+        writeFile("sub1/deep/e.txt", 1, 1300000000000L);
+        new File(rootDirectory_, "empty").mkdirs();
+
+        // a link to a file is counted, a link to a directory isn't followed (this one is a cycle)
+        Files.createSymbolicLink(new File(rootDirectory_, "sub1/link-to-a.txt").toPath(), new File(rootDirectory_, "a.txt").toPath());
+        Files.createSymbolicLink(new File(rootDirectory_, "sub1/deep/link-to-root").toPath(), rootDirectory_.toPath());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(rootDirectory_);
+    }
+
+    @Test
+    public void testWalk() {
+        // the sequential & parallel walks have the same results
+        checkWalk(FileCountWalker.walk(rootDirectory_.toPath(), true, 1));
+        checkWalk(FileCountWalker.walk(rootDirectory_.toPath(), true, 4));
+
+        List<DirectoryFileCount> directoryFileCounts = FileCountWalker.walk(rootDirectory_.toPath(), false, 4);
+        assertEquals(1, directoryFileCounts.size());
+        assertEquals("", directoryFileCounts.get(0).getRelativePath());
+        assertEquals(2, directoryFileCounts.get(0).getFileCount());
+
+        assertTrue(FileCountWalker.walk(new File(rootDirectory_, "missing").toPath(), true, 1).isEmpty());
+    }
+
+    private void checkWalk(List<DirectoryFileCount> directoryFileCounts) {
+
+        // sorted by relative path
+        assertEquals(4, directoryFileCounts.size());
+        assertEquals("", directoryFileCounts.get(0).getRelativePath());
+        assertEquals("empty", directoryFileCounts.get(1).getRelativePath());
+        assertEquals("sub1", directoryFileCounts.get(2).getRelativePath());
+        assertEquals("sub1/deep", directoryFileCounts.get(3).getRelativePath());
+
+        assertEquals(2, directoryFileCounts.get(0).getFileCount());
+        assertEquals(30, directoryFileCounts.get(0).getTotalFileSizeInBytes());
+        assertEquals(1000000000000L, directoryFileCounts.get(0).getOldestLastModifiedTimestampInMs());
+
+        assertEquals(0, directoryFileCounts.get(1).getFileCount());
+        assertEquals(DirectoryFileCount.NO_FILES, directoryFileCounts.get(1).getOldestLastModifiedTimestampInMs());
+
+        assertEquals(2, directoryFileCounts.get(2).getFileCount());
+        assertEquals(15, directoryFileCounts.get(2).getTotalFileSizeInBytes());
+        assertEquals(1000000000000L, directoryFileCounts.get(2).getOldestLastModifiedTimestampInMs());
+
+        assertEquals(2, directoryFileCounts.get(3).getFileCount());
+        assertEquals(8, directoryFileCounts.get(3).getTotalFileSizeInBytes());
+        assertEquals(1300000000000L, directoryFileCounts.get(3).getOldestLastModifiedTimestampInMs());
+    }
+
+    private void writeFile(String relativePath, int sizeInBytes, long lastModifiedTimestampInMs) throws Exception {
+        File file = new File(rootDirectory_, relativePath);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), new byte[sizeInBytes]);
+        assertTrue(file.setLastModified(lastModifiedTimestampInMs));
+    }
+
+}
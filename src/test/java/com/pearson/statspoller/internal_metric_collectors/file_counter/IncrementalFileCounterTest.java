@@ -0,0 +1,142 @@
+package com.pearson.statspoller.internal_metric_collectors.file_counter;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class IncrementalFileCounterTest {
+
+    private static final long TIMEOUT_IN_MS = 15000;
+
+    private File rootDirectory_;
+    private IncrementalFileCounter incrementalFileCounter_;
+
+    public IncrementalFileCounterTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        rootDirectory_ = Files.createTempDirectory("statspoller-incremental-filecount-test").toFile();
+        new File(rootDirectory_, "sub1").mkdirs();
+        createFile("a.txt");
+        createFile("sub1/b.txt");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (incrementalFileCounter_ != null) incrementalFileCounter_.stop();
+        FileUtils.deleteDirectory(rootDirectory_);
+    }
+
+    @Test
+    public void testSubdirectories() throws Exception {
+        start(true);
+        waitForFileCounts("{=1, sub1=1}");
+
+        createFile("c.txt");
+        createFile("sub1/d.txt");
+        waitForFileCounts("{=2, sub1=2}");
+
+        // a new directory is watched, & the files that are already in it are counted
+        File movedDirectory = Files.createTempDirectory("statspoller-incremental-filecount-move").toFile();
+        new File(movedDirectory, "e.txt").createNewFile();
+        new File(movedDirectory, "deeper").mkdirs();
+        new File(movedDirectory, "deeper/f.txt").createNewFile();
+        Files.move(movedDirectory.toPath(), new File(rootDirectory_, "sub2").toPath());
+        waitForFileCounts("{=2, sub1=2, sub2=1, sub2/deeper=1}");
+
+        createFile("sub2/deeper/g.txt");
+        waitForFileCounts("{=2, sub1=2, sub2=1, sub2/deeper=2}");
+
+        new File(rootDirectory_, "c.txt").delete();
+        FileUtils.deleteDirectory(new File(rootDirectory_, "sub2"));
+        waitForFileCounts("{=1, sub1=2}");
+        assertEquals(1, incrementalFileCounter_.getNumRescans());
+    }
+
+    @Test
+    public void testNoSubdirectories() throws Exception {
+        start(false);
+        waitForFileCounts("{=1}");
+
+        // deleting a subdirectory isn't deleting a file
+        createFile("c.txt");
+        FileUtils.deleteDirectory(new File(rootDirectory_, "sub1"));
+        waitForFileCounts("{=2}");
+
+        createFile("d.txt");
+        waitForFileCounts("{=3}");
+    }
+
+    @Test
+    public void testFilesCreatedDuringRescan() throws Exception {
+        
+        // creates files in the middle of the first two full counts (after the root directory is counted, before 'sub1' is counted)
+        incrementalFileCounter_ = new IncrementalFileCounter(rootDirectory_.toPath(), true, 2000, 0, 1) {
+            @Override
+            void beforeDirectoryCounted(String relativePath) {
+                try {
+                    if (!relativePath.equals("sub1")) return;
+                    
+                    // already counted, so only its event can count it
+                    if (getNumRescans() == 0) createFile("a2.txt");
+                    
+                    // not counted yet. its queued event must not be applied on top of the count.
+                    if (getNumRescans() == 1) {
+                        createFile("sub1/c.txt");
+                        Thread.sleep(200);
+                    }
+                }
+                catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        
+        Thread thread = new Thread(incrementalFileCounter_);
+        thread.setDaemon(true);
+        thread.start();
+        
+        long startTimestamp = System.currentTimeMillis();
+        while ((incrementalFileCounter_.getNumRescans() < 2) && ((System.currentTimeMillis() - startTimestamp) < TIMEOUT_IN_MS)) Thread.sleep(20);
+        assertEquals(2, incrementalFileCounter_.getNumRescans());
+        
+        // checked before the next full count (which would hide any drift)
+        Thread.sleep(300);
+        assertEquals("{=2, sub1=2}", String.valueOf(incrementalFileCounter_.getFileCounts_ByRelativePath()));
+    }
+
+    private void start(boolean includeSubdirectories) {
+        incrementalFileCounter_ = new IncrementalFileCounter(rootDirectory_.toPath(), includeSubdirectories, 600000, 0, 1);
+        Thread thread = new Thread(incrementalFileCounter_);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void waitForFileCounts(String expectedFileCounts) throws Exception {
+
+        long startTimestamp = System.currentTimeMillis();
+        Map<String,Long> fileCounts_ByRelativePath = null;
+
+        while ((System.currentTimeMillis() - startTimestamp) < TIMEOUT_IN_MS) {
+            fileCounts_ByRelativePath = incrementalFileCounter_.getFileCounts_ByRelativePath();
+            if ((fileCounts_ByRelativePath != null) && fileCounts_ByRelativePath.toString().equals(expectedFileCounts)) return;
+            Thread.sleep(20);
+        }
+
+        assertEquals(expectedFileCounts, String.valueOf(fileCounts_ByRelativePath));
+    }
+
+    private void createFile(String relativePath) throws Exception {
+        assertTrue(new File(rootDirectory_, relativePath).createNewFile());
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.pearson.statspoller.internal_metric_collectors.jmx;
+
+import com.pearson.statspoller.globals.GlobalVariables;
+import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class JmxMetricCollectorTest {
+
+    private static final int NUM_FAST_MBEANS = 20;
+    private static final long SLOW_MBEAN_SLEEP_TIME_IN_MS = 3000;
+
+    private MBeanServer mBeanServer_;
+    private JMXConnectorServer jmxConnectorServer_;
+    private JmxMetricCollector jmxMetricCollector_;
+
+    public JmxMetricCollectorTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mBeanServer_ = MBeanServerFactory.newMBeanServer("StatsPollerTest");
+        for (int i = 0; i < NUM_FAST_MBEANS; i++) mBeanServer_.registerMBean(new Fast(i), new ObjectName("StatsPollerTest:type=Fast,name=Fast" + i));
+        mBeanServer_.registerMBean(new Slow(), new ObjectName("StatsPollerTest:type=Slow"));
+
+        jmxConnectorServer_ = JMXConnectorServerFactory.newJMXConnectorServer(new JMXServiceURL("service:jmx:rmi://127.0.0.1"), null, mBeanServer_);
+        jmxConnectorServer_.start();
+        GlobalVariables.graphiteMetrics.clear();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (jmxMetricCollector_ != null) jmxMetricCollector_.close();
+        if (jmxConnectorServer_ != null) jmxConnectorServer_.stop();
+        GlobalVariables.graphiteMetrics.clear();
+    }
+
+    @Test
+    public void testParallelFetch_SlowMBeanTimesOut() {
+        jmxMetricCollector_ = createJmxMetricCollector(4, 500);
+        jmxMetricCollector_.collectMetrics();
+
+        assertEquals(1, jmxMetricCollector_.getLastNumTimedOutMBeans());
+        assertEquals(NUM_FAST_MBEANS, getFastValueMetrics().size());
+        assertFalse(hasMetric("Slow"));
+        assertTrue(jmxMetricCollector_.getLastFetchMetricAttributesTimeInMs() < SLOW_MBEAN_SLEEP_TIME_IN_MS);
+        assertTrue(jmxMetricCollector_.getLastQueryMBeansTimeInMs() >= 0);
+        assertEquals(1, jmxConnectorServer_.getConnectionIds().length);
+    }
+
+    @Test
+    public void testParallelFetch_EveryFetchTimesOut() throws Exception {
+        List<String> blacklistObjectNameRegexs = new ArrayList<>();
+        blacklistObjectNameRegexs.add("^JMImplementation:");
+        blacklistObjectNameRegexs.add("type=Fast");
+
+        jmxMetricCollector_ = new JmxMetricCollector(true, 30000, "JMX.Test", "./output/jmx_test.out", false,
+                null, -1, jmxConnectorServer_.getAddress().toString(), 1, 0, 300000, false, false, "", "",
+                blacklistObjectNameRegexs, new ArrayList<String>(), new ArrayList<String>(), 4, 500);
+        jmxMetricCollector_.collectMetrics();
+
+        // the hung connection is closed, & the next run reconnects
+        assertEquals(1, jmxMetricCollector_.getLastNumTimedOutMBeans());
+        assertEquals(0, jmxConnectorServer_.getConnectionIds().length);
+    }
+
+    @Test
+    public void testSerialFetch() {
+        jmxMetricCollector_ = createJmxMetricCollector(1, 500);
+        jmxMetricCollector_.collectMetrics();
+
+        // one fetch thread doesn't time out, so the slow mbean is still collected
+        assertEquals(0, jmxMetricCollector_.getLastNumTimedOutMBeans());
+        assertEquals(NUM_FAST_MBEANS, getFastValueMetrics().size());
+        assertTrue(hasMetric("Slow"));
+    }
+
+    private JmxMetricCollector createJmxMetricCollector(int fetchThreads, long fetchTimeoutInMs) {
+        return new JmxMetricCollector(true, 30000, "JMX.Test", "./output/jmx_test.out", false,
+                null, -1, jmxConnectorServer_.getAddress().toString(), 1, 0, 300000, false, false, "", "",
+                new ArrayList<String>(), new ArrayList<String>(), new ArrayList<String>(), fetchThreads, fetchTimeoutInMs);
+    }
+
+    private List<GraphiteMetric> getFastValueMetrics() {
+        List<GraphiteMetric> fastValueMetrics = new ArrayList<>();
+
+        for (GraphiteMetric graphiteMetric : GlobalVariables.graphiteMetrics.values()) {
+            if (graphiteMetric.getMetricPath().contains("Fast") && graphiteMetric.getMetricPath().endsWith("Value")) fastValueMetrics.add(graphiteMetric);
+        }
+
+        return fastValueMetrics;
+    }
+
+    private boolean hasMetric(String metricPathSubstring) {
+        for (GraphiteMetric graphiteMetric : GlobalVariables.graphiteMetrics.values()) {
+            if (graphiteMetric.getMetricPath().contains(metricPathSubstring)) return true;
+        }
+
+        return false;
+    }
+
+    public interface FastMBean {
+        public int getValue();
+    }
+
+    public static class Fast implements FastMBean {
+
+        private final int value_;
+
+        public Fast(int value) {
+            this.value_ = value;
+        }
+
+        @Override
+        public int getValue() {
+            return value_;
+        }
+
+    }
+
+    public interface SlowMBean {
+        public int getValue();
+    }
+
+    public static class Slow implements SlowMBean {
+
+        @Override
+        public int getValue() {
+            try {
+                Thread.sleep(SLOW_MBEAN_SLEEP_TIME_IN_MS);
+            }
+            catch (InterruptedException e) {}
+
+            return 1;
+        }
+
+    }
+
+}
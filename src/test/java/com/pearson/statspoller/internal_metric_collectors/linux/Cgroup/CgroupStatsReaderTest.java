@@ -0,0 +1,164 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.Cgroup;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class CgroupStatsReaderTest {
+
+    private static final String CONTAINER_ID = "4d82acc4d67151b2b3f2b4c1a8c6b5f0e1d2c3b4a5968778695a4b3c2d1e0f9a";
+
+    public CgroupStatsReaderTest() {
+    }
+
+    @Test
+    public void testRead_V2() throws Exception {
+        File cgroupDirectory = Files.createTempDirectory("statspoller-cgroup-").toFile();
+
+        try {
+            writeFile(cgroupDirectory, "cgroup.controllers", "cpuset cpu io memory pids\n");
+            String relativePath = "system.slice/docker-" + CONTAINER_ID + ".scope";
+            File containerDirectory = new File(cgroupDirectory, relativePath);
+
+            writeFile(containerDirectory, "cpu.stat", "usage_usec 8066270\nuser_usec 5531234\nsystem_usec 2535036\nnr_periods 0\n");
+            writeFile(containerDirectory, "memory.current", "291803136\n");
+            writeFile(containerDirectory, "memory.max", "max\n");
+            writeFile(containerDirectory, "memory.swap.current", "0\n");
+            writeFile(containerDirectory, "memory.stat", "anon 215134208\nfile 73871360\nkernel_stack 16384\nactive_file 24576\ninactive_file 48816128\npgfault 436579\npgmajfault 196\n");
+            writeFile(containerDirectory, "io.stat", "8:0 rbytes=4096 wbytes=8192 rios=1 wios=2 dbytes=0 dios=0\n259:0 rbytes=1000 wbytes=0 rios=3 wios=0 dbytes=0 dios=0\n");
+            writeFile(containerDirectory, "pids.current", "12\n");
+
+            CgroupStatsReader reader = new CgroupStatsReader(cgroupDirectory.getAbsolutePath());
+            assertTrue(reader.isUnified());
+            assertEquals(cgroupDirectory.getAbsolutePath(), reader.getDiscoveryRootPath());
+
+            CgroupStats stats = new CgroupStats();
+            assertTrue(reader.read(relativePath, stats));
+
+            assertEquals(8066270000L, stats.get(CgroupStats.CPU_USAGE_NS));
+            assertEquals(5531234000L, stats.get(CgroupStats.CPU_USER_NS));
+            assertEquals(2535036000L, stats.get(CgroupStats.CPU_SYSTEM_NS));
+            assertEquals(291803136L, stats.get(CgroupStats.MEMORY_USAGE_BYTES));
+            assertFalse(stats.has(CgroupStats.MEMORY_LIMIT_BYTES));
+            assertEquals(0, stats.get(CgroupStats.MEMORY_SWAP_BYTES));
+            assertEquals(215134208L, stats.get(CgroupStats.MEMORY_RSS_BYTES));
+            assertEquals(73871360L, stats.get(CgroupStats.MEMORY_CACHE_BYTES));
+            assertEquals(48816128L, stats.get(CgroupStats.MEMORY_INACTIVE_FILE_BYTES));
+            assertEquals(436579L, stats.get(CgroupStats.MEMORY_PAGE_FAULTS));
+            assertEquals(196L, stats.get(CgroupStats.MEMORY_MAJOR_PAGE_FAULTS));
+            assertEquals(5096L, stats.get(CgroupStats.IO_READ_BYTES));
+            assertEquals(8192L, stats.get(CgroupStats.IO_WRITE_BYTES));
+            assertEquals(4L, stats.get(CgroupStats.IO_READ_OPS));
+            assertEquals(2L, stats.get(CgroupStats.IO_WRITE_OPS));
+            assertEquals(12L, stats.get(CgroupStats.PIDS_CURRENT));
+
+            writeFile(containerDirectory, "memory.max", "1073741824\n");
+            assertTrue(reader.read(relativePath, stats));
+            assertEquals(1073741824L, stats.get(CgroupStats.MEMORY_LIMIT_BYTES));
+
+            // a removed container
+            FileUtils.deleteDirectory(containerDirectory);
+            assertFalse(reader.read(relativePath, stats));
+        }
+        finally {
+            FileUtils.deleteDirectory(cgroupDirectory);
+        }
+    }
+
+    @Test
+    public void testRead_V1() throws Exception {
+        File cgroupDirectory = Files.createTempDirectory("statspoller-cgroup-").toFile();
+
+        try {
+            String relativePath = "docker/" + CONTAINER_ID;
+
+            File cpuacctDirectory = new File(cgroupDirectory, "cpu,cpuacct/" + relativePath);
+            writeFile(cpuacctDirectory, "cpuacct.usage", "8066270123\n");
+            writeFile(cpuacctDirectory, "cpuacct.stat", "user 553\nsystem 253\n");
+
+            File memoryDirectory = new File(cgroupDirectory, "memory/" + relativePath);
+            writeFile(memoryDirectory, "memory.usage_in_bytes", "291803136\n");
+            writeFile(memoryDirectory, "memory.limit_in_bytes", "9223372036854771712\n");
+            writeFile(memoryDirectory, "memory.stat", "cache 1\nrss 2\ntotal_cache 73871360\ntotal_rss 215134208\ntotal_swap 4096\ntotal_inactive_file 48816128\ntotal_pgfault 436579\ntotal_pgmajfault 196\n");
+
+            // a container that hasn't done any io only has the 'Total' line
+            File blkioDirectory = new File(cgroupDirectory, "blkio/" + relativePath);
+            writeFile(blkioDirectory, "blkio.throttle.io_service_bytes", "8:0 Read 4096\n8:0 Write 8192\n8:0 Sync 12288\n8:0 Async 0\n8:0 Total 12288\n8:16 Read 1000\nTotal 13288\n");
+            writeFile(blkioDirectory, "blkio.throttle.io_serviced", "Total 0\n");
+
+            // no pids hierarchy
+
+            CgroupStatsReader reader = new CgroupStatsReader(cgroupDirectory.getAbsolutePath());
+            assertFalse(reader.isUnified());
+            assertEquals(new File(cgroupDirectory, "cpu,cpuacct").getPath(), reader.getDiscoveryRootPath());
+
+            CgroupStats stats = new CgroupStats();
+            assertTrue(reader.read(relativePath, stats));
+
+            assertEquals(8066270123L, stats.get(CgroupStats.CPU_USAGE_NS));
+            assertEquals(5530000000L, stats.get(CgroupStats.CPU_USER_NS));
+            assertEquals(2530000000L, stats.get(CgroupStats.CPU_SYSTEM_NS));
+            assertEquals(291803136L, stats.get(CgroupStats.MEMORY_USAGE_BYTES));
+            assertFalse(stats.has(CgroupStats.MEMORY_LIMIT_BYTES));
+            assertEquals(215134208L, stats.get(CgroupStats.MEMORY_RSS_BYTES));
+            assertEquals(73871360L, stats.get(CgroupStats.MEMORY_CACHE_BYTES));
+            assertEquals(4096L, stats.get(CgroupStats.MEMORY_SWAP_BYTES));
+            assertEquals(48816128L, stats.get(CgroupStats.MEMORY_INACTIVE_FILE_BYTES));
+            assertEquals(436579L, stats.get(CgroupStats.MEMORY_PAGE_FAULTS));
+            assertEquals(5096L, stats.get(CgroupStats.IO_READ_BYTES));
+            assertEquals(8192L, stats.get(CgroupStats.IO_WRITE_BYTES));
+            assertEquals(0L, stats.get(CgroupStats.IO_READ_OPS));
+            assertEquals(0L, stats.get(CgroupStats.IO_WRITE_OPS));
+            assertFalse(stats.has(CgroupStats.PIDS_CURRENT));
+        }
+        finally {
+            FileUtils.deleteDirectory(cgroupDirectory);
+        }
+    }
+
+    @Test
+    public void testContainerDiscovery() throws Exception {
+        File cgroupDirectory = Files.createTempDirectory("statspoller-cgroup-").toFile();
+
+        try {
+            String otherContainerId = CONTAINER_ID.replace('4', '5');
+            assertTrue(new File(cgroupDirectory, "system.slice/docker-" + CONTAINER_ID + ".scope/init.scope").mkdirs());
+            assertTrue(new File(cgroupDirectory, "system.slice/sshd.service").mkdirs());
+            assertTrue(new File(cgroupDirectory, "user.slice/user-1000.slice").mkdirs());
+
+            CgroupContainerDiscovery discovery = new CgroupContainerDiscovery(cgroupDirectory.getAbsolutePath());
+            assertTrue(discovery.refresh());
+            assertEquals(1, discovery.getContainerIds_ByRelativePath().size());
+            assertEquals(CONTAINER_ID, discovery.getContainerIds_ByRelativePath().get("system.slice/docker-" + CONTAINER_ID + ".scope"));
+
+            assertTrue(new File(cgroupDirectory, "kubepods.slice/kubepods-pod1.slice/cri-containerd-" + otherContainerId + ".scope").mkdirs());
+            assertTrue(discovery.refresh());
+            assertEquals(2, discovery.getContainerIds_ByRelativePath().size());
+            assertEquals(otherContainerId, discovery.getContainerIds_ByRelativePath().get("kubepods.slice/kubepods-pod1.slice/cri-containerd-" + otherContainerId + ".scope"));
+
+            FileUtils.deleteDirectory(new File(cgroupDirectory, "system.slice/docker-" + CONTAINER_ID + ".scope"));
+            FileUtils.deleteDirectory(new File(cgroupDirectory, "kubepods.slice"));
+            assertTrue(discovery.refresh());
+            assertTrue(discovery.getContainerIds_ByRelativePath().isEmpty());
+
+            assertNull(CgroupContainerDiscovery.getContainerId("docker-" + CONTAINER_ID.substring(1) + ".scope"));
+            assertNull(CgroupContainerDiscovery.getContainerId("user-1000.slice"));
+            assertEquals(CONTAINER_ID, CgroupContainerDiscovery.getContainerId(CONTAINER_ID));
+        }
+        finally {
+            FileUtils.deleteDirectory(cgroupDirectory);
+        }
+    }
+
+    private static void writeFile(File directory, String filename, String contents) throws Exception {
+        directory.mkdirs();
+        Files.write(new File(directory, filename).toPath(), contents.getBytes(StandardCharsets.US_ASCII));
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.Connections;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class ProcNetTcpParserTest {
+
+    public ProcNetTcpParserTest() {
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        StringBuilder procNetTcp = new StringBuilder();
+        procNetTcp.append("  sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt   uid  timeout inode\n");
+        procNetTcp.append("   0: 00000000:01BB 00000000:0000 0A 00000000:00000000 00:00000000 00000000     0        0 12345 1 0000000000000000 100 0 0 10 0\n");
+        procNetTcp.append("   1: 0100007F:0CEA 00000000:0000 0A 00000000:00000000 00:00000000 00000000   999        0 12346 1 0000000000000000 100 0 0 10 0\n");
+
+        // enough connections that lines cross the parser's buffer boundaries
+        int numEstablished = 3000;
+        for (int i = 0; i < numEstablished; i++) {
+            procNetTcp.append(String.format("%4d: 0A00000B:01BB 0A0000%02X:%04X 01 00000000:00000000 02:000A7B2C 00000000    33        0 %d 2 0000000000000000 20 4 30 10 -1\n", i + 2, i % 256, 40000 + i, 20000 + i));
+        }
+        procNetTcp.append("9999: 0A00000B:01BB 0A000002:9C41 06 00000000:00000000 03:00000B6B 00000000     0        0 0 3 0000000000000000\n");
+        procNetTcp.append("9998: 0A00000B:D431 0A000002:01BB 08 00000000:00000000 00:00000000 00000000    33        0 1 1 0000000000000000\n");
+        procNetTcp.append("9997: malformed\n");
+
+        assertTrue(procNetTcp.length() > (2 * ProcNetTcpParser.BUFFER_SIZE));
+
+        File procNetTcpFile = File.createTempFile("statspoller-tcp-", ".txt");
+
+        try {
+            Files.write(procNetTcpFile.toPath(), procNetTcp.toString().getBytes(StandardCharsets.US_ASCII));
+
+            ProcNetTcpParser parser = new ProcNetTcpParser();
+            TcpConnectionCounts counts = new TcpConnectionCounts();
+            assertTrue(parser.parse(procNetTcpFile.getAbsolutePath(), TcpConnectionCounts.IPV4, counts));
+
+            assertEquals(numEstablished + 4, parser.getNumLinesParsed());
+            assertEquals(1, parser.getNumLinesSkipped());
+
+            assertEquals(2, counts.getConnectionCount(TcpConnectionCounts.IPV4, TcpConnectionCounts.STATE_LISTEN));
+            assertEquals(numEstablished, counts.getConnectionCount(TcpConnectionCounts.IPV4, TcpConnectionCounts.STATE_ESTABLISHED));
+            assertEquals(1, counts.getConnectionCount(TcpConnectionCounts.IPV4, TcpConnectionCounts.STATE_TIME_WAIT));
+            assertEquals(0, counts.getConnectionCount(TcpConnectionCounts.IPV6, TcpConnectionCounts.STATE_ESTABLISHED));
+
+            assertTrue(counts.isListening(443));
+            assertTrue(counts.isListening(3306));
+            assertEquals(numEstablished, counts.getListenPortConnectionCount(443, TcpConnectionCounts.STATE_ESTABLISHED));
+            assertEquals(1, counts.getListenPortConnectionCount(443, TcpConnectionCounts.STATE_TIME_WAIT));
+
+            // outbound connections (ex- from the ephemeral port 54321 to a remote port 443) aren't counted against a listen port
+            assertFalse(counts.isListening(54321));
+            assertEquals(0, counts.getListenPortConnectionCount(443, TcpConnectionCounts.STATE_CLOSE_WAIT));
+
+            assertFalse(parser.parse(procNetTcpFile.getAbsolutePath() + ".missing", TcpConnectionCounts.IPV6, counts));
+        }
+        finally {
+            procNetTcpFile.delete();
+        }
+    }
+
+}
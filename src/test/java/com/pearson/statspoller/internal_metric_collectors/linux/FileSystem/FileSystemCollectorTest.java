@@ -1,7 +1,16 @@
 package com.pearson.statspoller.internal_metric_collectors.linux.FileSystem;
 
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileParser;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSnapshot;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcFileSystem;
+import com.pearson.statspoller.internal_metric_collectors.linux.ProcFs.ProcTokenCache;
 import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
+import java.util.Map;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -65,4 +74,53 @@ public class FileSystemCollectorTest {
         System.out.println();
     }
     
+    @Test
+    public void testGetMountsFromMountInfo() throws Exception {
+        String mountInfo = ""
+                + "22 28 0:21 / /sys rw,nosuid,nodev,noexec,relatime shared:7 - sysfs sysfs rw\n"
+                + "28 1 202:1 / / rw,relatime shared:1 - ext4 /dev/xvda1 rw,discard\n"
+                + "30 28 0:5 / /dev rw,nosuid master:2 - devtmpfs udev rw,size=8192k\n"
+                + "45 28 0:40 / /mnt/my\\040share rw,relatime - nfs4 server:/export/my\\040share rw,vers=4.1\n"
+                + "46 30 0:41 / /dev/shm rw - tmpfs shm rw\n"
+                + "47 30 0:42 / /dev/shm rw - tmpfs shm2 rw\n";
+        
+        File mountInfoFile = File.createTempFile("statspoller-mountinfo-", ".txt");
+        ProcFileSnapshot snapshot = null;
+        
+        try {
+            Files.write(mountInfoFile.toPath(), mountInfo.getBytes(StandardCharsets.US_ASCII));
+            snapshot = ProcFileSystem.acquireSnapshot(mountInfoFile.getAbsolutePath(), 0);
+            
+            Map<String,Df_Fields> mounts_ByMountPoint = FileSystemCollector.getMountsFromMountInfo(new ProcFileParser(snapshot), new ProcTokenCache());
+            
+            assertEquals(4, mounts_ByMountPoint.size());
+            assertFalse(mounts_ByMountPoint.containsKey("/sys"));
+            assertEquals("/dev/xvda1", mounts_ByMountPoint.get("/").getFileSystem());
+            assertEquals("ext4", mounts_ByMountPoint.get("/").getType());
+            assertEquals("udev", mounts_ByMountPoint.get("/dev").getFileSystem());
+            assertEquals("server:/export/my share", mounts_ByMountPoint.get("/mnt/my share").getFileSystem());
+            
+            // the mount that was mounted last is the visible one
+            assertEquals("shm2", mounts_ByMountPoint.get("/dev/shm").getFileSystem());
+        }
+        finally {
+            if (snapshot != null) snapshot.release();
+            ProcFileSystem.closeAll();
+            mountInfoFile.delete();
+        }
+    }
+    
+    @Test
+    public void testSetDiskSpace() {
+        Df_Fields dfFields = new Df_Fields();
+        dfFields.setDiskSpace(1000, 301, 600);
+        
+        assertEquals(new BigDecimal(1000), dfFields.getDiskSpaceTotalBytes());
+        assertEquals(new BigDecimal(301), dfFields.getDiskSpaceUsedBytes());
+        assertEquals(new BigDecimal(600), dfFields.getDiskSpaceFreeBytes());
+        
+        // df rounds the used percent up (301 / 901 = 33.4%)
+        assertEquals(new BigDecimal(34), dfFields.getDiskSpaceUsedPercent());
+    }
+    
 }
@@ -0,0 +1,64 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.HighResolution;
+
+import com.pearson.statspoller.metric_formats.graphite.GraphiteMetric;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class HighResolutionSamplesTest {
+
+    public HighResolutionSamplesTest() {
+    }
+
+    @Test
+    public void testParseStatistics() {
+        assertArrayEquals(new int[] {HighResolutionSamples.STATISTIC_MAX, HighResolutionSamples.STATISTIC_P99}, HighResolutionSamples.parseStatistics(" MAX, p99 ,bogus,max"));
+        assertEquals(0, HighResolutionSamples.parseStatistics("").length);
+        assertEquals(0, HighResolutionSamples.parseStatistics(null).length);
+    }
+
+    @Test
+    public void testGetCapacity() {
+        assertEquals(121, HighResolutionSamples.getCapacity(30000, 250));
+        assertEquals(4, HighResolutionSamples.getCapacity(1000, 400));
+    }
+
+    @Test
+    public void testAddGraphiteMetrics() {
+        HighResolutionSamples samples = new HighResolutionSamples(new String[] {".Used-Pct", ".Iowait-Pct"}, 10, HighResolutionSamples.parseStatistics("max,mean"));
+
+        samples.add("CPU-All", 0, 10);
+        samples.add("CPU-All", 0, 30);
+        samples.add("CPU-0", 1, 5);
+
+        List<GraphiteMetric> graphiteMetrics = new ArrayList<>();
+        samples.addGraphiteMetrics(graphiteMetrics, 7, 1000);
+
+        Map<String,Double> values_ByMetricPath = new HashMap<>();
+        for (GraphiteMetric graphiteMetric : graphiteMetrics) values_ByMetricPath.put(graphiteMetric.getMetricPath(), graphiteMetric.getMetricValue().doubleValue());
+
+        // metrics without samples aren't output
+        assertEquals(4, values_ByMetricPath.size());
+        assertEquals(30, values_ByMetricPath.get("CPU-All.Used-Pct-Max"), 0);
+        assertEquals(20, values_ByMetricPath.get("CPU-All.Used-Pct-Mean"), 0);
+        assertEquals(5, values_ByMetricPath.get("CPU-0.Iowait-Pct-Max"), 0);
+        assertEquals(5, values_ByMetricPath.get("CPU-0.Iowait-Pct-Mean"), 0);
+
+        // the buffers are cleared after each summary
+        graphiteMetrics.clear();
+        samples.add("CPU-All", 0, 50);
+        samples.addGraphiteMetrics(graphiteMetrics, 7, 1001);
+        assertEquals(2, graphiteMetrics.size());
+
+        graphiteMetrics.clear();
+        samples.addGraphiteMetrics(graphiteMetrics, 7, 1002);
+        assertEquals(0, graphiteMetrics.size());
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcFs;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class ProcFileSystemTest {
+
+    public ProcFileSystemTest() {
+    }
+
+    @Test
+    public void testSnapshotReadAndParse() throws Exception {
+        File file = File.createTempFile("statspoller-procfs-", ".txt");
+        file.deleteOnExit();
+
+        try {
+            Files.write(file.toPath(), ("cpu  10 20 30 40\ncpu0 1 2 3 4 5\nMemFree:  1234 kB\nuptime 12345.67 -8 abc\n").getBytes(StandardCharsets.US_ASCII));
+
+            ProcFileSnapshot snapshot = ProcFileSystem.acquireSnapshot(file.getAbsolutePath(), 60000);
+            assertNotNull(snapshot);
+
+            ProcTokenCache tokenCache = new ProcTokenCache();
+            ProcFileParser parser = new ProcFileParser(snapshot);
+
+            try {
+                assertTrue(parser.lineStartsWith(ProcFileParser.getBytes("cpu")));
+                assertTrue(parser.nextToken());
+                String cpuName = parser.getToken(tokenCache);
+                assertEquals("cpu", cpuName);
+                assertEquals(10, parser.nextLong());
+                assertEquals(20, parser.nextLong());
+                assertEquals(30, parser.nextLong());
+                assertEquals(40, parser.nextLong());
+                assertEquals(ProcFileParser.NO_VALUE, parser.nextLong());
+                assertTrue(parser.isEndOfLine());
+
+                assertTrue(parser.nextLine());
+                assertTrue(parser.nextToken());
+                assertEquals("cpu0", parser.getToken(tokenCache));
+                parser.nextLine();
+
+                assertTrue(parser.nextToken((byte) ':'));
+                assertTrue(parser.tokenEquals(ProcFileParser.getBytes("MemFree")));
+                assertEquals(1234, parser.nextLong());
+                assertTrue(parser.nextToken());
+                assertTrue(parser.tokenEquals(ProcFileParser.getBytes("kB")));
+                parser.nextLine();
+
+                assertTrue(parser.nextToken());
+                assertEquals(new BigDecimal("12345.67"), parser.nextDecimal());
+                assertEquals(-8, parser.nextLong());
+                assertEquals(ProcFileParser.NO_VALUE, parser.nextLong());
+                assertFalse(parser.nextLine());
+
+                // a token that was seen before returns the cached String
+                assertSame(cpuName, parser.reset(snapshot).nextToken() ? parser.getToken(tokenCache) : null);
+            }
+            finally {
+                snapshot.release();
+            }
+
+            // a read within the max age shares the snapshot. a max age of 0 re-reads the file (which grew past the previous buffer size).
+            ProcFileSnapshot sharedSnapshot = ProcFileSystem.acquireSnapshot(file.getAbsolutePath(), 60000);
+            assertSame(snapshot, sharedSnapshot);
+            sharedSnapshot.release();
+
+            StringBuilder largeContents = new StringBuilder();
+            for (int i = 0; i < 1000; i++) largeContents.append("line ").append(i).append('\n');
+            Files.write(file.toPath(), largeContents.toString().getBytes(StandardCharsets.US_ASCII));
+
+            ProcFileSnapshot newSnapshot = ProcFileSystem.acquireSnapshot(file.getAbsolutePath(), 0);
+            assertNotSame(snapshot, newSnapshot);
+            assertEquals(largeContents.length(), newSnapshot.getLength());
+
+            try {
+                parser.reset(newSnapshot);
+                parser.skipLines(999);
+                assertTrue(parser.nextToken());
+                assertEquals(999, parser.nextLong());
+            }
+            finally {
+                newSnapshot.release();
+            }
+        }
+        finally {
+            file.delete();
+        }
+
+        // files that can't be read aren't kept open
+        int openFileCount = ProcFileSystem.getOpenFileCount();
+        assertNull(ProcFileSystem.acquireSnapshot(file.getAbsolutePath() + ".missing", 0));
+        assertEquals(openFileCount, ProcFileSystem.getOpenFileCount());
+    }
+
+}
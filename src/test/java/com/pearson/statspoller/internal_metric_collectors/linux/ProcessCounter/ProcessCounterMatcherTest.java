@@ -0,0 +1,77 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcessCounter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class ProcessCounterMatcherTest {
+
+    public ProcessCounterMatcherTest() {
+    }
+
+    @Test
+    public void testGetLiterals() {
+        assertEquals("java", ProcessCounterMatcher.getLiteral("java"));
+        assertEquals("my.app", ProcessCounterMatcher.getLiteral("my\\.app"));
+        assertNull(ProcessCounterMatcher.getLiteral("my.app"));
+        assertNull(ProcessCounterMatcher.getLiteral("\\d+"));
+
+        assertEquals("tomcat", ProcessCounterMatcher.getRequiredLiteral("java.*tomcat"));
+        assertEquals("/catalina", ProcessCounterMatcher.getRequiredLiteral("^/usr/(bin|sbin)/catalina[0-9]?"));
+        assertEquals("y", ProcessCounterMatcher.getRequiredLiteral("x{2,10}y"));
+        assertEquals("java -server", ProcessCounterMatcher.getRequiredLiteral("java -server+ \\d+"));
+        assertEquals("mongo", ProcessCounterMatcher.getRequiredLiteral("mongod?"));
+        assertNull(ProcessCounterMatcher.getRequiredLiteral("mysqld|mariadbd"));
+        assertNull(ProcessCounterMatcher.getRequiredLiteral("(?i)java"));
+        assertNull(ProcessCounterMatcher.getRequiredLiteral("[a-z]+"));
+    }
+
+    @Test
+    public void testMatchIsSameAsFind() {
+        List<String> regexes = Arrays.asList("he", "she", "his", "hers", "java", "java.*tomcat", "mongod?", "mysqld|mariadbd", "(?i)JAVA",
+                "^/usr/bin/python[23]", "-Xmx\\d+[mg]", "a+b", "x{2}y", "", "[unclosed", "été", "ja(va)?c");
+
+        List<String> cmdlines = new ArrayList<>(Arrays.asList("ushers", "java -jar tomcat.jar", "/usr/bin/mongo --eval", "mariadbd --user=mysql",
+                "/usr/bin/python3 script.py", "java -Xmx512m Main", "aaab", "xxy", "xy", "été javac", "", "bash"));
+
+        // random cmdlines built from pieces of the regexes, so partial & overlapping literal matches are common
+        Random random = new Random(42);
+        String alphabet = "heisrjavtomcgdyqlbpnxX-123/ .é";
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder cmdline = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) cmdline.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            cmdlines.add(cmdline.toString());
+        }
+
+        ProcessCounterMatcher matcher = new ProcessCounterMatcher(regexes);
+        int[] matchingRules = new int[matcher.getNumRules()];
+
+        for (String cmdline : cmdlines) {
+            List<Integer> expectedRules = new ArrayList<>();
+
+            for (int i = 0; i < regexes.size(); i++) {
+                try {
+                    if (Pattern.compile(regexes.get(i)).matcher(cmdline).find()) expectedRules.add(i);
+                }
+                catch (Exception e) {
+                    // invalid regexes never match
+                }
+            }
+
+            List<Integer> actualRules = new ArrayList<>();
+            int numMatchingRules = matcher.match(cmdline, matchingRules);
+            for (int i = 0; i < numMatchingRules; i++) actualRules.add(matchingRules[i]);
+
+            assertEquals("Cmdline=\"" + cmdline + "\"", expectedRules, actualRules);
+        }
+    }
+
+}
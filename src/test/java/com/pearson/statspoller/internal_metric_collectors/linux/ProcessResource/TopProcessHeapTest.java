@@ -0,0 +1,38 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcessResource;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class TopProcessHeapTest {
+
+    public TopProcessHeapTest() {
+    }
+
+    @Test
+    public void testPollAllDescending() {
+        TopProcessHeap topProcessHeap = new TopProcessHeap(3);
+
+        double[] scores = {5, 1, 9, Double.NaN, 7, 3, 9.5, 0};
+        for (int i = 0; i < scores.length; i++) topProcessHeap.offer(scores[i], i);
+
+        assertEquals(3, topProcessHeap.size());
+
+        int[] items = new int[3];
+        assertEquals(3, topProcessHeap.pollAllDescending(items));
+        assertArrayEquals(new int[] {6, 2, 4}, items);
+        assertEquals(0, topProcessHeap.size());
+
+        // fewer items than the capacity
+        topProcessHeap.offer(2, 10);
+        topProcessHeap.offer(4, 11);
+        assertEquals(2, topProcessHeap.pollAllDescending(items));
+        assertEquals(11, items[0]);
+        assertEquals(10, items[1]);
+
+        assertFalse(new TopProcessHeap(0).offer(100, 1));
+    }
+
+}
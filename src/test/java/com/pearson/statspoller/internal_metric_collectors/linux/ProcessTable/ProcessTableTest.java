@@ -0,0 +1,116 @@
+package com.pearson.statspoller.internal_metric_collectors.linux.ProcessTable;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class ProcessTableTest {
+
+    public ProcessTableTest() {
+    }
+
+    @Test
+    public void testGetSnapshot() throws Exception {
+        File procDirectory = Files.createTempDirectory("statspoller-proc-").toFile();
+
+        try {
+            writeProcess(procDirectory, "123", "123 (java) S 1 123 123 0 -1 4194560 100 0 0 0 50 25 0 0 20 0 42 0 98765 1000000 500\n", "java\0-jar\0app.jar\0");
+            writeProcess(procDirectory, "456", "456 (my (odd) name) R 1 456 456 0 -1 4194560 100 0 0 0 50 25 0 0 20 -5 1 0 11111 1000000 500\n", "");
+            new File(procDirectory, "self").mkdir();
+
+            ProcessTable.clear();
+            ProcessTableSnapshot snapshot = ProcessTable.getSnapshot(procDirectory.getAbsolutePath(), ProcessTable.FIELD_CMDLINE, 0);
+
+            assertNotNull(snapshot);
+            assertTrue(snapshot.hasFields(ProcessTable.FIELD_STAT | ProcessTable.FIELD_CMDLINE));
+            assertEquals(2, snapshot.size());
+
+            int javaIndex = (snapshot.getPid(0) == 123) ? 0 : 1;
+            int oddIndex = 1 - javaIndex;
+
+            assertEquals('S', snapshot.getState(javaIndex));
+            assertEquals(42, snapshot.getNumThreads(javaIndex));
+            assertEquals(98765, snapshot.getStartTime(javaIndex));
+            assertEquals("java -jar app.jar", snapshot.getCmdline(javaIndex));
+
+            assertEquals(456, snapshot.getPid(oddIndex));
+            assertEquals('R', snapshot.getState(oddIndex));
+            assertEquals(1, snapshot.getNumThreads(oddIndex));
+            assertEquals(11111, snapshot.getStartTime(oddIndex));
+            assertEquals("", snapshot.getCmdline(oddIndex));
+
+            // a second request within the max age shares the scan
+            assertSame(snapshot, ProcessTable.getSnapshot(procDirectory.getAbsolutePath(), ProcessTable.FIELD_STAT, 60000));
+
+            // the cmdline of a process that is still running (same pid, start time, & name) comes from the cache
+            Files.write(new File(procDirectory, "123/cmdline").toPath(), "changed\0".getBytes(StandardCharsets.US_ASCII));
+            snapshot = ProcessTable.getSnapshot(procDirectory.getAbsolutePath(), ProcessTable.FIELD_CMDLINE, 0);
+            assertEquals("java -jar app.jar", snapshot.getCmdline((snapshot.getPid(0) == 123) ? 0 : 1));
+
+            // a new process that re-used the pid is re-read, & exited processes are dropped from the cache
+            writeProcess(procDirectory, "123", "123 (bash) S 1 123 123 0 -1 4194560 100 0 0 0 50 25 0 0 20 0 1 0 99999 1000000 500\n", "bash\0");
+            FileUtils.deleteDirectory(new File(procDirectory, "456"));
+            snapshot = ProcessTable.getSnapshot(procDirectory.getAbsolutePath(), ProcessTable.FIELD_CMDLINE, 0);
+            assertEquals(1, snapshot.size());
+            assertEquals("bash", snapshot.getCmdline(0));
+            assertEquals(1, ProcessTable.getCachedCmdlineCount());
+        }
+        finally {
+            ProcessTable.clear();
+            FileUtils.deleteDirectory(procDirectory);
+        }
+    }
+
+    @Test
+    public void testGetSnapshot_ResourceFields() throws Exception {
+        File procDirectory = Files.createTempDirectory("statspoller-proc-").toFile();
+
+        try {
+            writeProcess(procDirectory, "123", "123 (java) S 1 123 123 0 -1 4194560 100 0 0 0 50 25 0 0 20 0 42 0 98765 1000000 500\n", "java\0");
+            Files.write(new File(procDirectory, "123/statm").toPath(), "1000 250 100 10 0 500 0\n".getBytes(StandardCharsets.US_ASCII));
+            Files.write(new File(procDirectory, "123/io").toPath(), ("rchar: 5000\nwchar: 6000\nsyscr: 10\nsyscw: 20\n" +
+                    "read_bytes: 4096\nwrite_bytes: 8192\ncancelled_write_bytes: 0\n").getBytes(StandardCharsets.US_ASCII));
+
+            // io isn't readable (ex- another user's process), but the process is still in the snapshot
+            writeProcess(procDirectory, "456", "456 (sshd) S 1 456 456 0 -1 4194560 100 0 0 0 7 3 0 0 20 0 1 0 11111 1000000 500\n", "sshd\0");
+            Files.write(new File(procDirectory, "456/statm").toPath(), "2000 300 100 10 0 500 0\n".getBytes(StandardCharsets.US_ASCII));
+
+            ProcessTable.clear();
+            ProcessTableSnapshot snapshot = ProcessTable.getSnapshot(procDirectory.getAbsolutePath(), ProcessTable.FIELD_STATM | ProcessTable.FIELD_IO, 0);
+
+            assertTrue(snapshot.hasFields(ProcessTable.FIELD_STAT | ProcessTable.FIELD_STATM | ProcessTable.FIELD_IO));
+            assertEquals(2, snapshot.size());
+
+            int javaIndex = (snapshot.getPid(0) == 123) ? 0 : 1;
+            int sshdIndex = 1 - javaIndex;
+
+            assertEquals(75, snapshot.getCpuTime(javaIndex));
+            assertEquals(250, snapshot.getResidentPages(javaIndex));
+            assertEquals(4096, snapshot.getIoReadBytes(javaIndex));
+            assertEquals(8192, snapshot.getIoWriteBytes(javaIndex));
+
+            assertEquals(10, snapshot.getCpuTime(sshdIndex));
+            assertEquals(300, snapshot.getResidentPages(sshdIndex));
+            assertEquals(ProcessTableSnapshot.NO_VALUE, snapshot.getIoReadBytes(sshdIndex));
+            assertEquals(ProcessTableSnapshot.NO_VALUE, snapshot.getIoWriteBytes(sshdIndex));
+        }
+        finally {
+            ProcessTable.clear();
+            FileUtils.deleteDirectory(procDirectory);
+        }
+    }
+
+    private static void writeProcess(File procDirectory, String pid, String stat, String cmdline) throws Exception {
+        File pidDirectory = new File(procDirectory, pid);
+        pidDirectory.mkdir();
+        Files.write(new File(pidDirectory, "stat").toPath(), stat.getBytes(StandardCharsets.US_ASCII));
+        Files.write(new File(pidDirectory, "cmdline").toPath(), cmdline.getBytes(StandardCharsets.US_ASCII));
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.pearson.statspoller.output;
+
+import com.pearson.statspoller.utilities.core_utils.Splay;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class OutputSplayTest {
+
+    public OutputSplayTest() {
+    }
+
+    @Test
+    public void testHashOffsets() {
+        long outputIntervalInMs = 30000;
+
+        // a fleet of hosts is spread across the whole interval
+        int[] hostsPerSecond = new int[30];
+        for (int i = 0; i < 3000; i++) {
+            long offsetInMs = Splay.getHostOffsetInMs("web-" + i + ".example.com", "output", outputIntervalInMs);
+            assertTrue((offsetInMs >= 0) && (offsetInMs < outputIntervalInMs));
+            hostsPerSecond[(int) (offsetInMs / 1000)]++;
+        }
+        for (int hostsInSecond : hostsPerSecond) assertTrue("HostsInSecond=" + hostsInSecond, (hostsInSecond > 50) && (hostsInSecond < 150));
+
+        // the next flush is always in the future, & lands on the host's offset
+        OutputSplay outputSplay = new OutputSplay(OutputSplay.MODE_HASH, outputIntervalInMs, 12345);
+        assertEquals(12345, outputSplay.getOffsetInMs());
+        assertEquals(12345, outputSplay.getTimeUntilNextFlushInMs(1500000000000L));
+        assertEquals(outputIntervalInMs, outputSplay.getTimeUntilNextFlushInMs(1500000012345L));
+        assertEquals(1, outputSplay.getTimeUntilNextFlushInMs(1500000012344L));
+
+        // 'hash' mode never moves
+        for (int i = 0; i < 20; i++) outputSplay.recordFlush(5000);
+        assertEquals(12345, outputSplay.getOffsetInMs());
+    }
+
+    @Test
+    public void testAdaptiveOffsets() {
+        OutputSplay outputSplay = new OutputSplay(OutputSplay.MODE_ADAPTIVE, 8000, 500);
+        assertEquals(500, outputSplay.getOffsetInMs());
+
+        // small latency differences don't move the offset
+        for (int i = 0; i < 20; i++) outputSplay.recordFlush((i % 2 == 0) ? 20 : 60);
+        assertEquals(0, outputSplay.getCurrentSlot());
+
+        // slot 0 becomes slow -> try slot 1, which is fast -> stay there
+        outputSplay.recordFlush(2000);
+        assertEquals(1, outputSplay.getCurrentSlot());
+        assertEquals(1500, outputSplay.getOffsetInMs());
+        for (int i = 0; i < 20; i++) outputSplay.recordFlush(25);
+        assertEquals(1, outputSplay.getCurrentSlot());
+
+        // slot 1 becomes slow -> slot 0 isn't clearly faster, so try slot 2
+        outputSplay.recordFlush(3000);
+        assertEquals(2, outputSplay.getCurrentSlot());
+
+        // a new slot always gets a few flushes before it can be judged
+        for (int i = 0; i < OutputSplay.MIN_FLUSHES_PER_SLOT - 1; i++) outputSplay.recordFlush(3000);
+        assertEquals(2, outputSplay.getCurrentSlot());
+    }
+
+}
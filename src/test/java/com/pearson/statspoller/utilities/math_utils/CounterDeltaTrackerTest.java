@@ -0,0 +1,70 @@
+package com.pearson.statspoller.utilities.math_utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class CounterDeltaTrackerTest {
+
+    public CounterDeltaTrackerTest() {
+    }
+
+    @Test
+    public void testUpdate() {
+        CounterDeltaTracker tracker = new CounterDeltaTracker();
+        long[] deltas = new long[2];
+
+        // the first sample of a key has nothing to compare against
+        assertEquals(CounterDeltaTracker.NO_DELTA, tracker.update("eth0", new long[] {100, 200}, 2, 1000, deltas));
+
+        assertEquals(1500, tracker.update("eth0", new long[] {150, 260}, 2, 2500, deltas));
+        assertEquals(50, deltas[0]);
+        assertEquals(60, deltas[1]);
+
+        // a counter that decreases (ex- an interface was re-created) is a reset, even from the upper half of the 32-bit range, & the next sample starts from the new value
+        assertEquals(1000, tracker.update("eth0", new long[] {3000000000L, 300}, 2, 3500, deltas));
+        assertEquals(CounterDeltaTracker.NO_DELTA, tracker.update("eth0", new long[] {1000, 310}, 2, 4500, deltas));
+        assertEquals(1, tracker.getResetCount());
+        assertEquals(CounterDeltaTracker.NO_DELTA, tracker.update("eth0", new long[] {5, 320}, 2, 5500, deltas));
+        assertEquals(2, tracker.getResetCount());
+        assertEquals(1000, tracker.update("eth0", new long[] {25, 330}, 2, 6500, deltas));
+        assertEquals(20, deltas[0]);
+
+        // keys are tracked independently, & keys that stop updating can be removed
+        assertEquals(CounterDeltaTracker.NO_DELTA, tracker.update("eth1", new long[] {1, 1}, 2, 7000, deltas));
+        assertEquals(2, tracker.size());
+        tracker.removeStaleSamples(7000);
+        assertEquals(1, tracker.size());
+    }
+
+    @Test
+    public void testUpdate_32BitCounters() {
+        CounterDeltaTracker tracker = new CounterDeltaTracker(true);
+        long[] deltas = new long[2];
+
+        assertEquals(CounterDeltaTracker.NO_DELTA, tracker.update("sda", new long[] {4294967290L, 300}, 2, 1000, deltas));
+        assertEquals(1000, tracker.update("sda", new long[] {10, 310}, 2, 2000, deltas));
+        assertEquals(16, deltas[0]);
+        assertEquals(10, deltas[1]);
+
+        // a drop within the lower half of the 32-bit range is still a reset
+        assertEquals(CounterDeltaTracker.NO_DELTA, tracker.update("sda", new long[] {5, 320}, 2, 3000, deltas));
+        assertEquals(1, tracker.getResetCount());
+    }
+
+    @Test
+    public void testGetCounterDelta() {
+        assertEquals(10, CounterDeltaTracker.getCounterDelta(5, 15));
+        assertEquals(2, CounterDeltaTracker.getCounterDelta(-1, 1));
+        assertEquals(CounterDeltaTracker.NO_DELTA, CounterDeltaTracker.getCounterDelta(1000, 999));
+        assertEquals(CounterDeltaTracker.NO_DELTA, CounterDeltaTracker.getCounterDelta(3000000000L, 1000));
+        assertEquals(1296, CounterDeltaTracker.getCounterDelta(4294966000L, 0, true));
+
+        assertEquals(50.0, CounterDeltaTracker.getRatePerSecond(25, 500), 0);
+        assertTrue(Double.isNaN(CounterDeltaTracker.getRatePerSecond(25, 0)));
+        assertTrue(Double.isNaN(CounterDeltaTracker.getPercent(1, 0)));
+    }
+
+}
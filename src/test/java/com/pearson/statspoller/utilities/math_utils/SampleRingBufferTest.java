@@ -0,0 +1,63 @@
+package com.pearson.statspoller.utilities.math_utils;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jeffrey Schmidt
+ */
+public class SampleRingBufferTest {
+
+    public SampleRingBufferTest() {
+    }
+
+    @Test
+    public void testStatistics() {
+        SampleRingBuffer buffer = new SampleRingBuffer(100);
+
+        assertTrue(buffer.isEmpty());
+        assertTrue(Double.isNaN(buffer.getMax()));
+        assertTrue(Double.isNaN(buffer.getPercentile(99)));
+
+        for (int i = 100; i >= 1; i--) buffer.add(i);
+
+        // NaN & infinite samples are ignored
+        buffer.add(Double.NaN);
+        buffer.add(Double.POSITIVE_INFINITY);
+
+        assertEquals(100, buffer.size());
+        assertEquals(1, buffer.getMin(), 0);
+        assertEquals(100, buffer.getMax(), 0);
+        assertEquals(50.5, buffer.getMean(), 0.0000001);
+        assertEquals(95, buffer.getPercentile(95), 0);
+        assertEquals(99, buffer.getPercentile(99), 0);
+        assertEquals(100, buffer.getPercentile(100), 0);
+        assertEquals(1, buffer.getPercentile(0), 0);
+    }
+
+    @Test
+    public void testWraparound() {
+        SampleRingBuffer buffer = new SampleRingBuffer(4);
+
+        // once full, the oldest samples are overwritten
+        for (int i = 1; i <= 10; i++) buffer.add(i);
+
+        assertEquals(4, buffer.size());
+        assertEquals(7, buffer.getMin(), 0);
+        assertEquals(10, buffer.getMax(), 0);
+        assertEquals(8.5, buffer.getMean(), 0.0000001);
+        assertEquals(8, buffer.getPercentile(50), 0);
+
+        // percentiles are re-sorted after new samples
+        buffer.add(1);
+        assertEquals(1, buffer.getPercentile(0), 0);
+        assertEquals(10, buffer.getPercentile(100), 0);
+
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        buffer.add(3);
+        assertEquals(3, buffer.getMin(), 0);
+        assertEquals(3, buffer.getPercentile(99), 0);
+    }
+
+}